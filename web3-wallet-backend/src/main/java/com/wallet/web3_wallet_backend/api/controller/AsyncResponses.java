@@ -0,0 +1,25 @@
+package com.wallet.web3_wallet_backend.api.controller;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Helpers for controllers that answer with a CompletableFuture.
+ */
+final class AsyncResponses {
+
+    private AsyncResponses() {
+    }
+
+    /**
+     * Unwraps the exception a future failed with, so error responses carry the original message.
+     */
+    static Throwable causeOf(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -5,6 +5,8 @@ import org.springframework.web.bind.annotation.RestController;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 public class BlockChainController {
 
@@ -15,9 +17,8 @@ public class BlockChainController {
     }
 
     @GetMapping("/api/v1/blockNumber")
-    public String getBlockNumber() throws Exception {
-        return web3j.ethBlockNumber().send()
-                   .getBlockNumber()
-                   .toString();
+    public CompletableFuture<String> getBlockNumber() {
+        return web3j.ethBlockNumber().sendAsync()
+                   .thenApply(response -> response.getBlockNumber().toString());
     }
 }
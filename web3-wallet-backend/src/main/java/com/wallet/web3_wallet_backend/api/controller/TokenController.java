@@ -12,6 +12,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * REST controller for ERC-20 token operations.
  */
@@ -37,15 +39,13 @@ public class TokenController {
         @ApiResponse(responseCode = "400", description = "Invalid contract address"),
         @ApiResponse(responseCode = "500", description = "Failed to query token contract")
     })
-    public ResponseEntity<?> getTokenInfo(
+    public CompletableFuture<ResponseEntity<?>> getTokenInfo(
             @Parameter(description = "ERC-20 token contract address", example = "0xdAC17F958D2ee523a2206206994597C13D831ec7")
             @PathVariable String contractAddress) {
-        try {
-            TokenInfoResponse response = tokenService.getTokenInfo(contractAddress);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new ErrorResponse("Failed to get token info: " + e.getMessage()));
-        }
+        return tokenService.getTokenInfoAsync(contractAddress)
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(error -> ResponseEntity.badRequest()
+                .body(new ErrorResponse("Failed to get token info: " + AsyncResponses.causeOf(error).getMessage())));
     }
 
     /**
@@ -58,17 +58,15 @@ public class TokenController {
         @ApiResponse(responseCode = "400", description = "Invalid address or contract"),
         @ApiResponse(responseCode = "500", description = "Failed to query balance")
     })
-    public ResponseEntity<?> getTokenBalance(
+    public CompletableFuture<ResponseEntity<?>> getTokenBalance(
             @Parameter(description = "Wallet address", example = "0x742d35Cc6634C0532925a3b844Bc9e7595f0bEb7")
             @PathVariable String address,
             @Parameter(description = "ERC-20 token contract address", example = "0xdAC17F958D2ee523a2206206994597C13D831ec7", required = true)
             @RequestParam String contract) {
-        try {
-            TokenBalanceResponse response = tokenService.getTokenBalance(address, contract);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new ErrorResponse("Failed to get token balance: " + e.getMessage()));
-        }
+        return tokenService.getTokenBalanceAsync(address, contract)
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(error -> ResponseEntity.badRequest()
+                .body(new ErrorResponse("Failed to get token balance: " + AsyncResponses.causeOf(error).getMessage())));
     }
 
     /**
@@ -81,14 +79,15 @@ public class TokenController {
         @ApiResponse(responseCode = "400", description = "Invalid request or insufficient balance"),
         @ApiResponse(responseCode = "500", description = "Transaction failed")
     })
-    public ResponseEntity<?> transferToken(@Valid @RequestBody TokenTransferRequest request) {
-        try {
-            TransactionResponse response = tokenService.transferToken(request);
-            return ResponseEntity.ok(response);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(new ErrorResponse("Token transfer failed: " + e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> transferToken(@Valid @RequestBody TokenTransferRequest request) {
+        return tokenService.transferTokenAsync(request)
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(error -> {
+                Throwable cause = AsyncResponses.causeOf(error);
+                if (cause instanceof IllegalArgumentException) {
+                    return ResponseEntity.badRequest().body(new ErrorResponse(cause.getMessage()));
+                }
+                return ResponseEntity.status(500).body(new ErrorResponse("Token transfer failed: " + cause.getMessage()));
+            });
     }
 }
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/transaction")
@@ -18,40 +19,37 @@ public class TransactionController {
     }
     
     @PostMapping("/send")
-    public ResponseEntity<?> sendTransaction(@RequestBody TransactionRequest request) {
-        try {
-            TransactionResponse response = transactionService.sendTransaction(request);
-            return ResponseEntity.ok(response);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(new ErrorResponse("Transaction failed: " + e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> sendTransaction(@RequestBody TransactionRequest request) {
+        return transactionService.sendTransactionAsync(request)
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(error -> {
+                Throwable cause = AsyncResponses.causeOf(error);
+                if (cause instanceof IllegalArgumentException) {
+                    return ResponseEntity.badRequest().body(new ErrorResponse(cause.getMessage()));
+                }
+                return ResponseEntity.internalServerError().body(new ErrorResponse("Transaction failed: " + cause.getMessage()));
+            });
     }
     
     @PostMapping("/estimate-gas")
-    public ResponseEntity<?> estimateGas(@RequestBody GasEstimateRequest request) {
-        try {
-            GasEstimateResponse response = transactionService.estimateGas(
+    public CompletableFuture<ResponseEntity<?>> estimateGas(@RequestBody GasEstimateRequest request) {
+        return transactionService.estimateGasAsync(
                 request.from(),
                 request.to(),
                 request.value(),
                 request.data()
-            );
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(new ErrorResponse("Gas estimation failed: " + e.getMessage()));
-        }
+            )
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(error -> ResponseEntity.internalServerError()
+                .body(new ErrorResponse("Gas estimation failed: " + AsyncResponses.causeOf(error).getMessage())));
     }
     
     @GetMapping("/{hash}/status")
-    public ResponseEntity<?> getTransactionStatus(@PathVariable String hash) {
-        try {
-            TransactionStatusResponse response = transactionService.getTransactionStatus(hash);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(new ErrorResponse("Failed to get transaction status: " + e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> getTransactionStatus(@PathVariable String hash) {
+        return transactionService.getTransactionStatusAsync(hash)
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(error -> ResponseEntity.internalServerError()
+                .body(new ErrorResponse("Failed to get transaction status: " + AsyncResponses.causeOf(error).getMessage())));
     }
 
     @GetMapping("/history/{address}")
@@ -17,6 +17,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * REST controller for wallet operations including HD wallet functionality.
  */
@@ -230,12 +232,13 @@ public class WalletController {
         @ApiResponse(responseCode = "200", description = "Balance retrieved successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid address")
     })
-    public ResponseEntity<?> getBalance(@PathVariable String address) {
+    public CompletableFuture<ResponseEntity<?>> getBalance(@PathVariable String address) {
         if (!walletService.isValidAddress(address)) {
-            return ResponseEntity.badRequest().body(new ErrorResponse("Invalid address"));
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest().body(new ErrorResponse("Invalid address")));
         }
-        var bal = walletService.getBalance(address);
-        return ResponseEntity.ok(new BalanceResponse(address, bal));
+        return walletService.getBalanceAsync(address)
+            .thenApply(bal -> ResponseEntity.ok(new BalanceResponse(address, bal)));
     }
 
     /**
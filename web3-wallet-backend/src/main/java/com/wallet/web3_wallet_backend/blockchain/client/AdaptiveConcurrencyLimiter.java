@@ -0,0 +1,203 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that adapts to the provider with additive increase, multiplicative decrease.
+ * <p>
+ * Every successful call while the limit is in use grows it by {@code 1/limit}, which adds
+ * roughly one slot per round of calls. A call that signals overload (rate limited or timed
+ * out) shrinks it by the backoff ratio. Only calls started after the previous decrease can
+ * shrink it again, so a burst of failures from one round counts as a single signal.
+ * </p>
+ * <p>
+ * Calls that do not fit wait in one FIFO lane per {@link RpcPriority}. Freed slots go to the
+ * highest non-empty lane first, so broadcasts overtake queued reads and background work only
+ * runs on capacity nobody else wants.
+ * </p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+
+    /** Guards every field below. */
+    private final Object lock = new Object();
+    private final Map<RpcPriority, Deque<CompletableFuture<Permit>>> lanes = new EnumMap<>(RpcPriority.class);
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+
+    private final LongAdder overloads = new LongAdder();
+
+    /**
+     * @param initialLimit Concurrency allowed before any feedback arrives
+     * @param minLimit     Floor the limit never shrinks below
+     * @param maxLimit     Ceiling the limit never grows above
+     * @param backoffRatio Factor applied to the limit on overload, between 0 and 1
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limiter settings");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        for (RpcPriority priority : RpcPriority.values()) {
+            lanes.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Asks for a slot. The future completes immediately when one is free and nobody of equal
+     * or higher priority is waiting, otherwise once a slot is handed over. Completing the
+     * future exceptionally (for example through a timeout) withdraws the request.
+     *
+     * @param priority The lane to wait in
+     * @return The permit, which must be passed to {@link #release(Permit, boolean)} exactly once
+     */
+    public CompletableFuture<Permit> acquire(RpcPriority priority) {
+        CompletableFuture<Permit> waiter;
+        synchronized (lock) {
+            if (inFlight < currentLimit() && !waitingAtOrAbove(priority)) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(System.nanoTime()));
+            }
+            waiter = new CompletableFuture<>();
+            lanes.get(priority).addLast(waiter);
+        }
+        CompletableFuture<Permit> queued = waiter;
+        queued.whenComplete((permit, error) -> {
+            if (error != null) {
+                synchronized (lock) {
+                    lanes.get(priority).remove(queued);
+                }
+            }
+        });
+        return queued;
+    }
+
+    /**
+     * Returns a slot and feeds the outcome of the call into the limit.
+     *
+     * @param permit     The permit from {@link #acquire(RpcPriority)}
+     * @param overloaded true if the provider rate limited or timed out the call
+     */
+    public void release(Permit permit, boolean overloaded) {
+        List<CompletableFuture<Permit>> granted;
+        synchronized (lock) {
+            if (overloaded) {
+                if (!decreased || permit.startNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = System.nanoTime();
+                    decreased = true;
+                }
+                overloads.increment();
+            } else if (inFlight >= limit / 2) {
+                // Grow only while the limit is actually being used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            inFlight--;
+            granted = grantLocked();
+        }
+        handOver(granted);
+    }
+
+    private List<CompletableFuture<Permit>> grantLocked() {
+        List<CompletableFuture<Permit>> granted = new ArrayList<>();
+        for (RpcPriority priority : RpcPriority.values()) {
+            Deque<CompletableFuture<Permit>> lane = lanes.get(priority);
+            while (inFlight < currentLimit() && !lane.isEmpty()) {
+                CompletableFuture<Permit> waiter = lane.pollFirst();
+                if (!waiter.isDone()) {
+                    inFlight++;
+                    granted.add(waiter);
+                }
+            }
+        }
+        return granted;
+    }
+
+    /**
+     * Completes granted waiters outside the lock, since completion runs the caller's request.
+     */
+    private void handOver(List<CompletableFuture<Permit>> granted) {
+        for (CompletableFuture<Permit> waiter : granted) {
+            if (!waiter.complete(new Permit(System.nanoTime()))) {
+                // Timed out between being picked and handed the slot; pass it on
+                List<CompletableFuture<Permit>> next;
+                synchronized (lock) {
+                    inFlight--;
+                    next = grantLocked();
+                }
+                handOver(next);
+            }
+        }
+    }
+
+    private boolean waitingAtOrAbove(RpcPriority priority) {
+        for (RpcPriority lane : RpcPriority.values()) {
+            if (!lanes.get(lane).isEmpty()) {
+                return true;
+            }
+            if (lane == priority) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return The current concurrency limit
+     */
+    public int getLimit() {
+        synchronized (lock) {
+            return currentLimit();
+        }
+    }
+
+    public int getInFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    /**
+     * @param priority A priority lane
+     * @return Calls waiting in that lane
+     */
+    public int getQueueDepth(RpcPriority priority) {
+        synchronized (lock) {
+            return lanes.get(priority).size();
+        }
+    }
+
+    public long getOverloadCount() {
+        return overloads.sum();
+    }
+
+    /**
+     * A granted slot, remembering when it was handed out.
+     */
+    public static final class Permit {
+        private final long startNanos;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport decorator that coalesces concurrent JSON-RPC calls into batch requests.
+ * <p>
+ * Calls arriving within a short window are collected and sent as a single JSON-RPC
+ * batch array. Each response is then handed back to the future of the call that
+ * produced it, so callers still see one request and one response. A batch is flushed
+ * early once it reaches the configured maximum size.
+ * </p>
+ * <p>
+ * Raw transaction broadcasts bypass the batch so a rejected batch can never cause a
+ * signed transaction to be resent. Responses decoded from the token stream
+ * ({@link StreamDecodedResponse}) bypass it too, since web3j reads a batch response
+ * into a tree before decoding it.
+ * </p>
+ */
+public class BatchingWeb3jService extends ForwardingWeb3jService {
+
+    /** Methods that are always sent on their own. */
+    private static final String SEND_RAW_TRANSACTION = "eth_sendRawTransaction";
+
+    /** How long the first call of a batch waits for company, in nanoseconds. */
+    private final long windowNanos;
+
+    /** Number of calls that triggers an immediate flush. */
+    private final int maxBatchSize;
+
+    /** Single timer thread that closes batching windows. */
+    private final ScheduledExecutorService scheduler;
+
+    /** Threads that perform the batch round trips so windows keep closing on time. */
+    private final ExecutorService dispatcher;
+
+    /** Guards {@link #pending} and {@link #scheduledFlush}. */
+    private final Object lock = new Object();
+
+    private List<PendingCall<?>> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Creates a batching decorator.
+     *
+     * @param delegate     The transport batches are sent through
+     * @param window       How long to gather calls before sending a batch
+     * @param maxBatchSize Maximum number of calls in one batch
+     */
+    public BatchingWeb3jService(Web3jService delegate, Duration window, int maxBatchSize) {
+        super(delegate);
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("rpc-batch-timer"));
+        this.dispatcher = Executors.newCachedThreadPool(new DaemonThreadFactory("rpc-batch-dispatch"));
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (!isBatchable(request)) {
+            return delegate.send(request, responseType);
+        }
+        return await(sendAsync(request, responseType));
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        if (!isBatchable(request)) {
+            return delegate.sendAsync(request, responseType);
+        }
+
+        PendingCall<T> call = new PendingCall<>(request, responseType);
+        List<PendingCall<?>> ready = null;
+
+        synchronized (lock) {
+            pending.add(call);
+            if (pending.size() >= maxBatchSize) {
+                ready = drainLocked();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (ready != null) {
+            List<PendingCall<?>> batch = ready;
+            dispatcher.execute(() -> dispatch(batch));
+        }
+        return call.future;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        scheduler.shutdown();
+        dispatcher.shutdown();
+        super.close();
+    }
+
+    /**
+     * Closes the current window and sends whatever has been collected.
+     */
+    private void flush() {
+        List<PendingCall<?>> batch;
+        synchronized (lock) {
+            batch = drainLocked();
+        }
+        if (!batch.isEmpty()) {
+            dispatcher.execute(() -> dispatch(batch));
+        }
+    }
+
+    private List<PendingCall<?>> drainLocked() {
+        List<PendingCall<?>> batch = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    /**
+     * Sends one batch and completes the futures of the calls it contains.
+     * A lone call is sent as a plain request since a batch would only add overhead.
+     */
+    private void dispatch(List<PendingCall<?>> calls) {
+        // Calls cancelled while waiting for their window, such as hedges that lost, are not sent
+        calls.removeIf(call -> call.future.isDone());
+        if (calls.isEmpty()) {
+            return;
+        }
+        if (calls.size() == 1) {
+            sendIndividually(calls.get(0));
+            return;
+        }
+
+        BatchRequest batchRequest = new BatchRequest(delegate);
+        for (PendingCall<?> call : calls) {
+            batchRequest.add(call.request);
+        }
+
+        BatchResponse batchResponse;
+        try {
+            batchResponse = delegate.sendBatch(batchRequest);
+        } catch (ClassCastException | JsonProcessingException e) {
+            // The node answered with a single object instead of an array (how providers
+            // without batch support reject it) or reordered entries so they no longer
+            // decode positionally; either way each call is retried on its own.
+            calls.forEach(this::sendIndividually);
+            return;
+        } catch (Exception e) {
+            calls.forEach(call -> call.future.completeExceptionally(e));
+            return;
+        }
+
+        List<? extends Response<?>> responses = batchResponse != null
+                ? batchResponse.getResponses()
+                : List.of();
+
+        for (int i = 0; i < calls.size(); i++) {
+            PendingCall<?> call = calls.get(i);
+            Response<?> response = i < responses.size() ? responses.get(i) : null;
+            // web3j pairs batch responses by position; anything the node reordered or
+            // dropped is retried on its own rather than handed to the wrong caller.
+            if (response != null && response.getId() == call.request.getId()) {
+                call.complete(response);
+            } else {
+                sendIndividually(call);
+            }
+        }
+    }
+
+    private void sendIndividually(PendingCall<?> call) {
+        try {
+            call.complete(delegate.send(call.request, call.responseType));
+        } catch (Exception e) {
+            call.future.completeExceptionally(e);
+        }
+    }
+
+    private static boolean isBatchable(Request request) {
+        return !SEND_RAW_TRANSACTION.equals(request.getMethod())
+                && !StreamDecodedResponse.class.isAssignableFrom(request.getResponseType());
+    }
+
+    /**
+     * A call waiting for its batch to be sent.
+     */
+    private static class PendingCall<T extends Response> {
+        private final Request<?, ? extends Response<?>> request;
+        private final Class<T> responseType;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        @SuppressWarnings("unchecked")
+        PendingCall(Request request, Class<T> responseType) {
+            this.request = (Request<?, ? extends Response<?>>) request;
+            this.responseType = responseType;
+        }
+
+        void complete(Object response) {
+            try {
+                future.complete(responseType.cast(response));
+            } catch (ClassCastException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of block headers shared by everything that needs confirmations, base fees
+ * or timestamps, with one reference to the current head header.
+ * <p>
+ * Headers are indexed by number and by hash and evicted least recently used first. The
+ * head header is fetched once per new head announced by the {@link ChainHeadTracker}, or
+ * taken straight from a {@code newHeads} subscription when one is running, so readers
+ * never fetch the latest block themselves. Other headers are fetched on first use.
+ * </p>
+ * <p>
+ * A header at a height already cached with a different hash replaces it, as after a
+ * reorg. A new header whose parent hash does not match the cached parent also evicts
+ * that parent, so it is fetched again from the new chain.
+ * </p>
+ */
+public class BlockHeaderCache implements MeterBinder {
+
+    /**
+     * The fields of a block the application reads.
+     *
+     * @param number        The block number
+     * @param hash          The block hash
+     * @param parentHash    The parent block's hash
+     * @param timestamp     Seconds since the epoch at which the block was produced
+     * @param baseFeePerGas The block's base fee, or null before EIP-1559
+     * @param gasUsed       Gas used by the block's transactions
+     * @param gasLimit      The block gas limit
+     */
+    public record BlockHeader(BigInteger number, String hash, String parentHash, long timestamp,
+                              BigInteger baseFeePerGas, BigInteger gasUsed, BigInteger gasLimit) {
+
+        public static BlockHeader of(EthBlock.Block block) {
+            return new BlockHeader(block.getNumber(), block.getHash(), block.getParentHash(),
+                    block.getTimestamp().longValueExact(),
+                    block.getBaseFeePerGasRaw() != null ? block.getBaseFeePerGas() : null,
+                    block.getGasUsed(), block.getGasLimit());
+        }
+
+        /**
+         * @return When the block was produced
+         */
+        public Instant time() {
+            return Instant.ofEpochSecond(timestamp);
+        }
+    }
+
+    private final Web3j web3j;
+    private final ChainHeadTracker headTracker;
+    private final int maxEntries;
+
+    /** Guards {@link #byNumber} and {@link #byHash}. */
+    private final Object lock = new Object();
+    private final LinkedHashMap<BigInteger, BlockHeader> byNumber = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, BlockHeader> byHash = new HashMap<>();
+    private final AtomicReference<BlockHeader> head = new AtomicReference<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param web3j       The Web3j instance missing headers are fetched through
+     * @param headTracker Announces the heads whose headers are fetched
+     * @param maxEntries  Most headers kept
+     */
+    public BlockHeaderCache(Web3j web3j, ChainHeadTracker headTracker, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.web3j = web3j;
+        this.headTracker = headTracker;
+        this.maxEntries = maxEntries;
+        headTracker.addListener(this::onNewHead);
+        BigInteger known = headTracker.currentHead();
+        if (known != null) {
+            onNewHead(known);
+        }
+    }
+
+    /**
+     * @return The newest head header, or null until one has been fetched
+     */
+    public BlockHeader head() {
+        return head.get();
+    }
+
+    /**
+     * @return The head block number, or null while it is unknown; may be one block ahead of
+     *         {@link #head()} while that block's header is being fetched
+     */
+    public BigInteger headNumber() {
+        BlockHeader header = head.get();
+        BigInteger tracked = headTracker.currentHead();
+        if (header == null) {
+            return tracked;
+        }
+        return tracked == null ? header.number() : tracked.max(header.number());
+    }
+
+    /**
+     * Returns the head header, fetching the latest block if it is unknown or behind the tracker.
+     *
+     * @return The latest header
+     * @throws IOException if the node could not be reached or has no blocks
+     */
+    public BlockHeader latest() throws IOException {
+        BlockHeader header = currentHead();
+        if (header != null) {
+            return header;
+        }
+        misses.increment();
+        EthBlock.Block block = web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false).send().getBlock();
+        if (block == null) {
+            throw new IOException("Latest block not available");
+        }
+        return store(block);
+    }
+
+    /**
+     * Asynchronous variant of {@link #latest()}.
+     *
+     * @return A future completing with the latest header
+     */
+    public CompletableFuture<BlockHeader> latestAsync() {
+        BlockHeader header = currentHead();
+        if (header != null) {
+            return CompletableFuture.completedFuture(header);
+        }
+        misses.increment();
+        return web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false).sendAsync()
+                .thenApply(response -> storeOrFail(response.getBlock()));
+    }
+
+    /**
+     * Returns the header of the given block, fetching it on a miss.
+     *
+     * @param number The block number
+     * @return The header, or null if the node does not have the block yet
+     * @throws IOException if the node could not be reached
+     */
+    public BlockHeader header(BigInteger number) throws IOException {
+        BlockHeader header = cached(number);
+        if (header != null) {
+            return header;
+        }
+        EthBlock.Block block = web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(number), false)
+                .send()
+                .getBlock();
+        return block != null ? store(block) : null;
+    }
+
+    /**
+     * Asynchronous variant of {@link #header(BigInteger)}.
+     *
+     * @param number The block number
+     * @return A future completing with the header, or null if the node does not have the block yet
+     */
+    public CompletableFuture<BlockHeader> headerAsync(BigInteger number) {
+        BlockHeader header = cached(number);
+        if (header != null) {
+            return CompletableFuture.completedFuture(header);
+        }
+        return web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(number), false).sendAsync()
+                .thenApply(response -> response.getBlock() != null ? store(response.getBlock()) : null);
+    }
+
+    /**
+     * Returns the header of the block with the given hash, fetching it on a miss.
+     *
+     * @param hash The block hash
+     * @return The header, or null if the node does not know the block
+     * @throws IOException if the node could not be reached
+     */
+    public BlockHeader headerByHash(String hash) throws IOException {
+        BlockHeader header;
+        synchronized (lock) {
+            header = byHash.get(hash);
+        }
+        if (header != null) {
+            hits.increment();
+            return header;
+        }
+        misses.increment();
+        EthBlock.Block block = web3j.ethGetBlockByHash(hash, false).send().getBlock();
+        return block != null ? store(block) : null;
+    }
+
+    /**
+     * Adds a header received from elsewhere, such as a {@code newHeads} subscription.
+     *
+     * @param block The block, with or without its transactions
+     */
+    public void put(EthBlock.Block block) {
+        if (block != null && block.getNumberRaw() != null && block.getHash() != null) {
+            store(block);
+        }
+    }
+
+    private BlockHeader currentHead() {
+        BlockHeader header = head.get();
+        BigInteger tracked = headTracker.currentHead();
+        if (header != null && (tracked == null || header.number().compareTo(tracked) >= 0)) {
+            hits.increment();
+            return header;
+        }
+        return null;
+    }
+
+    private BlockHeader cached(BigInteger number) {
+        BlockHeader header;
+        synchronized (lock) {
+            header = byNumber.get(number);
+        }
+        if (header != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return header;
+    }
+
+    private void onNewHead(BigInteger number) {
+        synchronized (lock) {
+            // Already delivered by a subscription
+            if (byNumber.containsKey(number)) {
+                return;
+            }
+        }
+        // Runs on the tracker's thread, so the fetch must not block it
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(number), false).sendAsync()
+                    .thenAccept(response -> put(response.getBlock()));
+        }
+    }
+
+    private BlockHeader storeOrFail(EthBlock.Block block) {
+        if (block == null) {
+            throw new IllegalStateException("Latest block not available");
+        }
+        return store(block);
+    }
+
+    private BlockHeader store(EthBlock.Block block) {
+        BlockHeader header = BlockHeader.of(block);
+        synchronized (lock) {
+            BlockHeader replaced = byNumber.put(header.number(), header);
+            if (replaced != null && !replaced.hash().equals(header.hash())) {
+                byHash.remove(replaced.hash());
+            }
+            byHash.put(header.hash(), header);
+
+            // Checked without get, which would count as a use of the parent
+            BigInteger parentNumber = header.number().subtract(BigInteger.ONE);
+            if (header.parentHash() != null && !byHash.containsKey(header.parentHash())
+                    && byNumber.containsKey(parentNumber)) {
+                byHash.remove(byNumber.remove(parentNumber).hash());
+            }
+
+            Iterator<BlockHeader> eldest = byNumber.values().iterator();
+            while (byNumber.size() > maxEntries) {
+                byHash.remove(eldest.next().hash());
+                eldest.remove();
+            }
+        }
+        // A header at the same height as the head replaces it, as after a reorg
+        head.accumulateAndGet(header, (current, candidate) ->
+                current == null || candidate.number().compareTo(current.number()) >= 0 ? candidate : current);
+        return header;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.rpc.headers.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Block header reads answered from the header cache")
+                .register(registry);
+        FunctionCounter.builder("web3.rpc.headers.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Block header reads that had to reach the node")
+                .register(registry);
+        Gauge.builder("web3.rpc.headers.entries", this, cache -> {
+                    synchronized (cache.lock) {
+                        return cache.byNumber.size();
+                    }
+                })
+                .description("Block headers held by the header cache")
+                .register(registry);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,196 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport decorator that answers repeated chain reads from memory until the next block.
+ * <p>
+ * State read at the head block cannot change until a new block is produced, so responses
+ * are cached under (method, params) for the current head and the whole cache is dropped as
+ * soon as the {@link ChainHeadTracker} reports a new head. Reads against the pending block
+ * are never cached since they change with the mempool, and nothing is cached while the head
+ * is still unknown.
+ * </p>
+ * <p>
+ * A response is stored in the generation that was current when its request was sent,
+ * so an answer that arrives after a new head can never leak into the new block's cache.
+ * </p>
+ */
+public class BlockScopedCacheWeb3jService extends ForwardingWeb3jService implements MeterBinder {
+
+    /** Read methods whose answer is fixed for a given head block. */
+    private static final Set<String> CACHEABLE_METHODS = Set.of(
+            "eth_blockNumber",
+            "eth_chainId",
+            "eth_gasPrice",
+            "eth_maxPriorityFeePerGas",
+            "eth_feeHistory",
+            "eth_getBalance",
+            "eth_getCode",
+            "eth_getStorageAt",
+            "eth_getTransactionCount",
+            "eth_call",
+            "eth_estimateGas",
+            "eth_getBlockByNumber",
+            "eth_getTransactionReceipt"
+    );
+
+    private static final String PENDING = "pending";
+
+    private final ChainHeadTracker headTracker;
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile Generation generation;
+
+    /**
+     * Creates a cache that is invalidated by the given head tracker.
+     *
+     * @param delegate    The transport cache misses are sent through
+     * @param headTracker Source of new-head notifications
+     * @param maxEntries  Upper bound on cached responses per block
+     */
+    public BlockScopedCacheWeb3jService(Web3jService delegate, ChainHeadTracker headTracker, int maxEntries) {
+        super(delegate);
+        this.headTracker = headTracker;
+        this.maxEntries = maxEntries;
+        this.generation = new Generation(headTracker.currentHead());
+        headTracker.addListener(this::onNewHead);
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        Generation current = generation;
+        String key = cacheKey(request, current);
+        if (key == null) {
+            return delegate.send(request, responseType);
+        }
+
+        Response<?> cached = current.entries.get(key);
+        if (cached != null && responseType.isInstance(cached)) {
+            hits.increment();
+            return responseType.cast(cached);
+        }
+
+        misses.increment();
+        T response = delegate.send(request, responseType);
+        store(current, key, response);
+        return response;
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        Generation current = generation;
+        String key = cacheKey(request, current);
+        if (key == null) {
+            return delegate.sendAsync(request, responseType);
+        }
+
+        Response<?> cached = current.entries.get(key);
+        if (cached != null && responseType.isInstance(cached)) {
+            hits.increment();
+            return CompletableFuture.completedFuture(responseType.cast(cached));
+        }
+
+        misses.increment();
+        return delegate.sendAsync(request, responseType)
+                .thenApply(response -> {
+                    store(current, key, response);
+                    return response;
+                });
+    }
+
+    /**
+     * Starts a fresh, empty cache for the new head block.
+     *
+     * @param head The new head block number
+     */
+    void onNewHead(BigInteger head) {
+        generation = new Generation(head);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.rpc.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("JSON-RPC reads answered from the block-scoped cache")
+                .register(registry);
+        FunctionCounter.builder("web3.rpc.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Cacheable JSON-RPC reads that had to reach the node")
+                .register(registry);
+        Gauge.builder("web3.rpc.cache.entries", this, cache -> cache.generation.entries.size())
+                .description("Responses cached for the current head block")
+                .register(registry);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private String cacheKey(Request<?, ?> request, Generation current) {
+        if (current.head == null || !CACHEABLE_METHODS.contains(request.getMethod())) {
+            return null;
+        }
+        List<?> params = request.getParams();
+        if (params != null) {
+            for (Object param : params) {
+                if (PENDING.equals(String.valueOf(param)) || isPendingBlockParameter(param)) {
+                    return null;
+                }
+            }
+        }
+        return RpcRequestKey.of(request);
+    }
+
+    private static boolean isPendingBlockParameter(Object param) {
+        return param instanceof DefaultBlockParameter blockParameter
+                && PENDING.equals(blockParameter.getValue());
+    }
+
+    private void store(Generation target, String key, Response<?> response) {
+        if (response == null || response.hasError()) {
+            return;
+        }
+        if (response instanceof EthBlockNumber blockNumber) {
+            headTracker.observe(blockNumber.getBlockNumber());
+        }
+        if (target.entries.size() < maxEntries) {
+            target.entries.put(key, response);
+        }
+    }
+
+    /**
+     * The responses cached for one head block.
+     */
+    private static final class Generation {
+        private final BigInteger head;
+        private final Map<String, Response<?>> entries = new ConcurrentHashMap<>();
+
+        Generation(BigInteger head) {
+            this.head = head;
+        }
+    }
+}
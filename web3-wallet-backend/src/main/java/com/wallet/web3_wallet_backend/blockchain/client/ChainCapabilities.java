@@ -0,0 +1,220 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthFeeHistory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Registry of what the connected chain and node support, probed once at startup and
+ * refreshed at a long interval, so services can ask without a round trip per request.
+ * <p>
+ * A probe checks the chain ID against the configured one, whether the latest block carries
+ * a base fee (EIP-1559), whether the node implements {@code eth_feeHistory}, whether
+ * Multicall3 is deployed at its canonical address, and estimates the block time from the
+ * timestamps of recent blocks. A failed probe keeps the previous result and is retried
+ * sooner than a regular refresh.
+ * </p>
+ */
+public class ChainCapabilities implements MeterBinder {
+
+    /** Address Multicall3 is deployed at on every chain that has it */
+    public static final String MULTICALL3_ADDRESS = "0xcA11bde05977b3631167028862bE2a173976CA11";
+
+    /** JSON-RPC error code of a method the node does not implement */
+    private static final int METHOD_NOT_FOUND = -32601;
+
+    /** Blocks the block time is averaged over */
+    private static final int BLOCK_TIME_SAMPLE = 100;
+
+    /**
+     * What one probe found.
+     *
+     * @param chainId        The chain ID the node reports
+     * @param chainIdMatches Whether it is the configured chain ID
+     * @param eip1559        Whether the latest block has a base fee
+     * @param feeHistory     Whether the node implements eth_feeHistory
+     * @param multicall3     Whether Multicall3 is deployed at {@link #MULTICALL3_ADDRESS}
+     * @param blockTime      Average time between recent blocks, or null on a chain with one block
+     * @param probedAt       When the probe completed
+     */
+    public record Capabilities(long chainId, boolean chainIdMatches, boolean eip1559, boolean feeHistory,
+                               boolean multicall3, Duration blockTime, Instant probedAt) {
+    }
+
+    private final Web3j web3j;
+    private final long expectedChainId;
+    private final long refreshIntervalMillis;
+    private final long retryIntervalMillis;
+    private final ScheduledExecutorService prober;
+    private volatile Capabilities capabilities;
+
+    /**
+     * Creates a registry and starts probing in the background.
+     *
+     * @param web3j           The Web3j instance the node is probed through
+     * @param expectedChainId The chain ID transactions are signed for
+     * @param refreshInterval How often a successful probe is repeated
+     * @param retryInterval   How soon a failed probe is repeated
+     */
+    public ChainCapabilities(Web3j web3j, long expectedChainId, Duration refreshInterval, Duration retryInterval) {
+        this.web3j = web3j;
+        this.expectedChainId = expectedChainId;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+        this.retryIntervalMillis = retryInterval.toMillis();
+        this.prober = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("chain-capability-probe"));
+        this.prober.execute(this::probeAndReschedule);
+    }
+
+    /**
+     * @return The latest probe result, or null until a probe has succeeded
+     */
+    public Capabilities current() {
+        return capabilities;
+    }
+
+    /**
+     * @return Whether EIP-1559 is supported, or null while unknown
+     */
+    public Boolean supportsEIP1559() {
+        return known(Capabilities::eip1559);
+    }
+
+    /**
+     * @return Whether the node implements eth_feeHistory, or null while unknown
+     */
+    public Boolean supportsFeeHistory() {
+        return known(Capabilities::feeHistory);
+    }
+
+    /**
+     * @return Whether Multicall3 is deployed, or null while unknown
+     */
+    public Boolean hasMulticall3() {
+        return known(Capabilities::multicall3);
+    }
+
+    /**
+     * Probes the node now and records the result.
+     *
+     * @return The new result
+     * @throws IOException if the node could not be probed; the previous result is kept
+     */
+    public Capabilities refresh() throws IOException {
+        // Capability probing yields to user-facing calls
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            long chainId = web3j.ethChainId().send().getChainId().longValueExact();
+            EthBlock.Block latest = web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false)
+                .send()
+                .getBlock();
+            if (latest == null) {
+                throw new IOException("Latest block not available");
+            }
+            Capabilities probed = new Capabilities(
+                chainId,
+                chainId == expectedChainId,
+                latest.getBaseFeePerGasRaw() != null,
+                probeFeeHistory(),
+                probeMulticall3(),
+                estimateBlockTime(latest),
+                Instant.now());
+            capabilities = probed;
+            return probed;
+        } catch (RuntimeException e) {
+            throw new IOException("Chain capability probe failed", e);
+        }
+    }
+
+    /**
+     * Stops refreshing. Called by Spring when the context shuts down.
+     */
+    public void close() {
+        prober.shutdownNow();
+    }
+
+    private Boolean known(Predicate<Capabilities> capability) {
+        Capabilities current = capabilities;
+        return current == null ? null : capability.test(current);
+    }
+
+    private void probeAndReschedule() {
+        long delay = refreshIntervalMillis;
+        try {
+            refresh();
+        } catch (IOException e) {
+            delay = retryIntervalMillis;
+        }
+        if (!prober.isShutdown()) {
+            prober.schedule(this::probeAndReschedule, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean probeFeeHistory() throws IOException {
+        EthFeeHistory response = web3j.ethFeeHistory(1, DefaultBlockParameterName.LATEST, List.of()).send();
+        // Other errors, such as a rate limit, say nothing about the method
+        return !response.hasError() || response.getError().getCode() != METHOD_NOT_FOUND;
+    }
+
+    private boolean probeMulticall3() throws IOException {
+        String code = web3j.ethGetCode(MULTICALL3_ADDRESS, DefaultBlockParameterName.LATEST).send().getCode();
+        return code != null && code.length() > 2;
+    }
+
+    private Duration estimateBlockTime(EthBlock.Block latest) throws IOException {
+        BigInteger newest = latest.getNumber();
+        BigInteger oldest = newest.subtract(BigInteger.valueOf(BLOCK_TIME_SAMPLE)).max(BigInteger.ZERO);
+        long blocks = newest.subtract(oldest).longValueExact();
+        if (blocks == 0) {
+            return null;
+        }
+        EthBlock.Block earlier = web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(oldest), false)
+            .send()
+            .getBlock();
+        if (earlier == null) {
+            return null;
+        }
+        long elapsedSeconds = latest.getTimestamp().subtract(earlier.getTimestamp()).longValueExact();
+        return Duration.ofMillis(elapsedSeconds * 1000 / blocks);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCapability(registry, "chainId", Capabilities::chainIdMatches);
+        bindCapability(registry, "eip1559", Capabilities::eip1559);
+        bindCapability(registry, "feeHistory", Capabilities::feeHistory);
+        bindCapability(registry, "multicall3", Capabilities::multicall3);
+        Gauge.builder("web3.chain.block.time", this, self -> {
+                    Capabilities current = self.capabilities;
+                    return current == null || current.blockTime() == null
+                        ? Double.NaN : current.blockTime().toMillis() / 1000.0;
+                })
+                .description("Average time between recent blocks")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private void bindCapability(MeterRegistry registry, String name, Predicate<Capabilities> capability) {
+        Gauge.builder("web3.chain.capability", this, self -> {
+                    Boolean supported = self.known(capability);
+                    return supported == null ? Double.NaN : supported ? 1 : 0;
+                })
+                .description("Whether the chain has a capability: 1 yes, 0 no; the chainId capability "
+                        + "is whether the node is on the configured chain")
+                .tag("capability", name)
+                .register(registry);
+    }
+}
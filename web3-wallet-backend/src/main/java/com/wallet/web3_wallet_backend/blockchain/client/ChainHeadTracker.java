@@ -0,0 +1,140 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the chain head and tells interested components when a new block arrives.
+ * <p>
+ * The head is polled with {@code eth_blockNumber} on the raw RPC transport, below any
+ * caching layer, and can also be fed from other sources through {@link #observe(BigInteger)}.
+ * The head only ever moves forward, so a lagging provider cannot roll it back.
+ * </p>
+ * <p>
+ * When heads are pushed over a subscription (see {@link #observePushed(BigInteger)}),
+ * polling pauses for as long as pushes keep arriving within the push timeout and
+ * resumes on its own if the subscription goes quiet.
+ * </p>
+ * <p>
+ * Listeners run on the thread that observed the new head and should hand any slow work
+ * off to another thread.
+ * </p>
+ */
+public class ChainHeadTracker {
+
+    private final Web3jService transport;
+    private final AtomicReference<BigInteger> head = new AtomicReference<>();
+    private final List<Consumer<BigInteger>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService poller;
+    private final long pushTimeoutNanos;
+    private volatile long lastPushNanos;
+    private volatile boolean pushed;
+
+    /**
+     * Creates a tracker that relies on polling alone.
+     *
+     * @param transport    The transport used to poll the head block number
+     * @param pollInterval How often to poll; a fraction of the block time keeps the head fresh
+     */
+    public ChainHeadTracker(Web3jService transport, Duration pollInterval) {
+        this(transport, pollInterval, Duration.ZERO);
+    }
+
+    /**
+     * Creates a tracker and starts polling for new heads.
+     *
+     * @param transport    The transport used to poll the head block number
+     * @param pollInterval How often to poll; a fraction of the block time keeps the head fresh
+     * @param pushTimeout  How long after the last pushed head polling stays paused;
+     *                     should be a few block times
+     */
+    public ChainHeadTracker(Web3jService transport, Duration pollInterval, Duration pushTimeout) {
+        this.transport = transport;
+        this.pushTimeoutNanos = pushTimeout.toNanos();
+        this.poller = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("chain-head-poller"));
+        this.poller.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return The latest head seen, or null before the first successful observation
+     */
+    public BigInteger currentHead() {
+        return head.get();
+    }
+
+    /**
+     * Registers a callback invoked with every new head block number.
+     *
+     * @param listener The callback to register
+     */
+    public void addListener(Consumer<BigInteger> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Records a head block number seen anywhere in the application.
+     * Listeners are notified only if it is newer than the current head.
+     *
+     * @param blockNumber The observed head block number
+     */
+    public void observe(BigInteger blockNumber) {
+        if (blockNumber == null) {
+            return;
+        }
+        BigInteger previous = head.getAndAccumulate(blockNumber,
+                (current, observed) -> current == null ? observed : current.max(observed));
+        if (previous == null || blockNumber.compareTo(previous) > 0) {
+            for (Consumer<BigInteger> listener : listeners) {
+                try {
+                    listener.accept(blockNumber);
+                } catch (RuntimeException e) {
+                    // One faulty listener must not stop the others from seeing the head
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a head delivered by a push subscription and pauses polling while pushes stay fresh.
+     *
+     * @param blockNumber The pushed head block number
+     */
+    public void observePushed(BigInteger blockNumber) {
+        lastPushNanos = System.nanoTime();
+        pushed = true;
+        observe(blockNumber);
+    }
+
+    /**
+     * Stops polling. Called by Spring when the context shuts down.
+     */
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    private void poll() {
+        if (pushed && System.nanoTime() - lastPushNanos < pushTimeoutNanos) {
+            return;
+        }
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            EthBlockNumber response = new Request<>("eth_blockNumber", List.<String>of(), transport, EthBlockNumber.class)
+                    .send();
+            if (!response.hasError()) {
+                observe(response.getBlockNumber());
+            }
+        } catch (Exception e) {
+            // Provider unreachable; the head stays where it was until the next poll succeeds
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.reactivex.Flowable;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.PublishProcessor;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.EthSubscribe;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.websocket.WebSocketService;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.protocol.websocket.events.PendingTransactionNotification;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes chain events to the application over a WebSocket {@code eth_subscribe} connection.
+ * <p>
+ * Three hot streams are exposed: new block headers, logs matching a filter, and pending
+ * transaction hashes. The streams outlive the connection: when the socket drops, a new one
+ * is opened with exponential backoff and the subscriptions are re-established behind the
+ * same {@link Flowable}s, so consumers subscribe once for the lifetime of the application.
+ * </p>
+ * <p>
+ * Gaps are backfilled over HTTP. Whenever a head arrives more than one block after the
+ * previous one, the missing headers are fetched with {@code eth_getBlockByNumber} and
+ * emitted first, so consumers see every block in order. After a reconnect, logs are
+ * fetched with {@code eth_getLogs} from the last head seen before the drop; duplicates
+ * of logs already delivered are filtered out. Pending transactions cannot be recovered
+ * and those announced while disconnected are lost.
+ * </p>
+ * <p>
+ * Every head is also fed to the {@link ChainHeadTracker}, which pauses its polling while
+ * the subscription is live. Events are emitted on the socket's reader thread, so
+ * consumers should hand slow work off to another thread.
+ * </p>
+ */
+public class ChainSubscriptionService {
+
+    private static final long INITIAL_RECONNECT_DELAY_MS = 1000;
+
+    /** Log identities remembered per stream to drop duplicates delivered by backfill. */
+    private static final int RECENT_LOG_KEYS = 4096;
+
+    private final String wsUrl;
+    private final Web3j http;
+    private final ChainHeadTracker headTracker;
+    private final long maxReconnectDelayMs;
+    private final int maxBackfillBlocks;
+
+    /** Runs every connection change so they never race each other. */
+    private final ScheduledExecutorService reconnector;
+
+    private final FlowableProcessor<EthBlock.Block> heads = PublishProcessor.<EthBlock.Block>create().toSerialized();
+    private final FlowableProcessor<String> pendingTransactions = PublishProcessor.<String>create().toSerialized();
+    private final List<LogStream> logStreams = new CopyOnWriteArrayList<>();
+
+    /** Guards {@link #lastHeadNumber} and {@link #lastHeadHash}. */
+    private final Object headLock = new Object();
+    private BigInteger lastHeadNumber;
+    private String lastHeadHash;
+
+    // Only touched on the reconnector thread
+    private long reconnectDelayMs = INITIAL_RECONNECT_DELAY_MS;
+
+    private volatile WebSocketService socket;
+    private volatile boolean closed;
+
+    /**
+     * Creates the service and starts connecting in the background.
+     *
+     * @param wsUrl             The node's WebSocket endpoint
+     * @param http              Client used to backfill gaps
+     * @param headTracker       Tracker fed with every head received
+     * @param maxReconnectDelay Upper bound of the exponential reconnect backoff
+     * @param maxBackfillBlocks Most headers fetched to close one gap; older blocks are skipped
+     */
+    public ChainSubscriptionService(String wsUrl, Web3j http, ChainHeadTracker headTracker,
+                                    Duration maxReconnectDelay, int maxBackfillBlocks) {
+        this.wsUrl = wsUrl;
+        this.http = http;
+        this.headTracker = headTracker;
+        this.maxReconnectDelayMs = maxReconnectDelay.toMillis();
+        this.maxBackfillBlocks = maxBackfillBlocks;
+        this.reconnector = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ws-subscriptions"));
+        this.reconnector.execute(this::connect);
+    }
+
+    /**
+     * @return Every new block header, in block order, including headers backfilled after a gap
+     */
+    public Flowable<EthBlock.Block> newHeads() {
+        return heads.hide();
+    }
+
+    /**
+     * @return Hashes of transactions entering the node's mempool while connected
+     */
+    public Flowable<String> pendingTransactions() {
+        return pendingTransactions.hide();
+    }
+
+    /**
+     * Opens a log stream. Each call registers a subscription that lasts as long as the
+     * service, so this is meant for long-lived consumers rather than per-request use.
+     *
+     * @param addresses Contract addresses to match; empty matches every contract
+     * @param topics    Topics to match by position; a null entry matches any topic
+     * @return Logs matching the filter, including ones backfilled after a reconnect
+     */
+    public Flowable<Log> logs(List<String> addresses, List<String> topics) {
+        LogStream stream = new LogStream(List.copyOf(addresses), Collections.unmodifiableList(new ArrayList<>(topics)));
+        // Registered on the reconnector thread so a concurrent connect cannot subscribe it twice
+        reconnector.execute(() -> {
+            logStreams.add(stream);
+            WebSocketService current = socket;
+            if (current != null) {
+                subscribeLogs(current, stream);
+            }
+        });
+        return stream.processor.hide();
+    }
+
+    /**
+     * @return true while the WebSocket is connected
+     */
+    public boolean isConnected() {
+        return socket != null;
+    }
+
+    /**
+     * Closes the connection and completes every stream. Called by Spring on shutdown.
+     */
+    public void close() {
+        closed = true;
+        reconnector.shutdownNow();
+        WebSocketService current = socket;
+        socket = null;
+        if (current != null) {
+            current.close();
+        }
+        heads.onComplete();
+        pendingTransactions.onComplete();
+        logStreams.forEach(stream -> stream.processor.onComplete());
+    }
+
+    private void connect() {
+        if (closed) {
+            return;
+        }
+        WebSocketService ws = new WebSocketService(wsUrl, false);
+        try {
+            // Disconnects are handled on the reconnector thread, after this method returns
+            ws.connect(message -> { }, error -> { }, () -> connectionLost(ws));
+        } catch (Exception e) {
+            ws.close();
+            scheduleReconnect();
+            return;
+        }
+
+        socket = ws;
+        reconnectDelayMs = INITIAL_RECONNECT_DELAY_MS;
+        BigInteger resumeFrom = lastHeadNumber();
+
+        subscribe(ws, List.of("newHeads"), HeadNotification.class)
+                .subscribe(n -> onHead(n.getParams().getResult()), error -> connectionLost(ws));
+        // Not every provider offers pending transactions, so a failed subscription is tolerated
+        subscribe(ws, List.of("newPendingTransactions"), PendingTransactionNotification.class)
+                .subscribe(n -> pendingTransactions.onNext(n.getParams().getResult()), error -> { });
+        for (LogStream stream : logStreams) {
+            subscribeLogs(ws, stream);
+        }
+
+        catchUp(resumeFrom);
+    }
+
+    private void connectionLost(WebSocketService ws) {
+        if (!closed) {
+            reconnector.execute(() -> onDisconnected(ws));
+        }
+    }
+
+    private void onDisconnected(WebSocketService ws) {
+        if (closed || ws != socket) {
+            return;
+        }
+        // The closed socket has already terminated its subscriptions; unsubscribing would fail
+        socket = null;
+        ws.close();
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        if (closed) {
+            return;
+        }
+        reconnector.schedule(this::connect, reconnectDelayMs, TimeUnit.MILLISECONDS);
+        reconnectDelayMs = Math.min(reconnectDelayMs * 2, maxReconnectDelayMs);
+    }
+
+    private void subscribeLogs(WebSocketService ws, LogStream stream) {
+        subscribe(ws, List.of("logs", stream.params()), LogsNotification.class)
+                .subscribe(n -> stream.emit(n.getParams().getResult()), error -> { });
+    }
+
+    /**
+     * Brings the streams up to date after connecting: the latest head closes any header
+     * gap, and logs are fetched from the last head seen before the connection dropped.
+     */
+    private void catchUp(BigInteger resumeFrom) {
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            EthBlock.Block latest = http.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false).send().getBlock();
+            if (latest == null) {
+                return;
+            }
+            onHead(latest);
+            if (resumeFrom != null) {
+                for (LogStream stream : logStreams) {
+                    backfillLogs(stream, resumeFrom, latest.getNumber());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The next live head still closes the header gap; only missed logs stay missed
+        }
+    }
+
+    private void backfillLogs(LogStream stream, BigInteger from, BigInteger to) throws IOException {
+        EthFilter filter = new EthFilter(DefaultBlockParameter.valueOf(from), DefaultBlockParameter.valueOf(to),
+                stream.addresses);
+        for (String topic : stream.topics) {
+            if (topic == null) {
+                filter.addNullTopic();
+            } else {
+                filter.addSingleTopic(topic);
+            }
+        }
+        EthLog response = http.ethGetLogs(filter).send();
+        if (response.hasError() || response.getLogs() == null) {
+            return;
+        }
+        for (EthLog.LogResult<?> result : response.getLogs()) {
+            if (result.get() instanceof Log log) {
+                stream.emit(log);
+            }
+        }
+    }
+
+    private void onHead(EthBlock.Block block) {
+        if (block == null || block.getNumberRaw() == null) {
+            return;
+        }
+        BigInteger number = block.getNumber();
+        synchronized (headLock) {
+            if (lastHeadNumber != null) {
+                int order = number.compareTo(lastHeadNumber);
+                // Older heads and repeats are dropped; a different hash at the same height is a reorg
+                if (order < 0 || (order == 0 && block.getHash() != null && block.getHash().equals(lastHeadHash))) {
+                    return;
+                }
+                BigInteger from = lastHeadNumber.add(BigInteger.ONE)
+                        .max(number.subtract(BigInteger.valueOf(maxBackfillBlocks)));
+                for (BigInteger n = from; n.compareTo(number) < 0; n = n.add(BigInteger.ONE)) {
+                    EthBlock.Block missed = fetchHeader(n);
+                    if (missed == null) {
+                        break;
+                    }
+                    emitHead(missed);
+                }
+            }
+            emitHead(block);
+        }
+    }
+
+    private EthBlock.Block fetchHeader(BigInteger number) {
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            return http.ethGetBlockByNumber(DefaultBlockParameter.valueOf(number), false).send().getBlock();
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void emitHead(EthBlock.Block block) {
+        lastHeadNumber = block.getNumber();
+        lastHeadHash = block.getHash();
+        heads.onNext(block);
+        headTracker.observePushed(lastHeadNumber);
+    }
+
+    private BigInteger lastHeadNumber() {
+        synchronized (headLock) {
+            return lastHeadNumber;
+        }
+    }
+
+    private static <T extends Notification<?>> Flowable<T> subscribe(WebSocketService ws, List<?> params,
+                                                                      Class<T> notificationType) {
+        Request<?, EthSubscribe> request = new Request<>("eth_subscribe", params, ws, EthSubscribe.class);
+        return ws.subscribe(request, "eth_unsubscribe", notificationType);
+    }
+
+    /**
+     * A registered log filter and the stream its matches are published on.
+     */
+    private static final class LogStream {
+        private final List<String> addresses;
+        private final List<String> topics;
+        private final FlowableProcessor<Log> processor = PublishProcessor.<Log>create().toSerialized();
+        private final Set<String> recent = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > RECENT_LOG_KEYS;
+            }
+        });
+
+        LogStream(List<String> addresses, List<String> topics) {
+            this.addresses = addresses;
+            this.topics = topics;
+        }
+
+        Map<String, Object> params() {
+            Map<String, Object> params = new LinkedHashMap<>();
+            if (!addresses.isEmpty()) {
+                params.put("address", addresses);
+            }
+            if (!topics.isEmpty()) {
+                params.put("topics", topics);
+            }
+            return params;
+        }
+
+        /**
+         * Publishes a log unless the same log, in the same removed state, was already published.
+         */
+        synchronized void emit(Log log) {
+            if (recent.add(log.getBlockHash() + ":" + log.getLogIndexRaw() + ":" + log.isRemoved())) {
+                processor.onNext(log);
+            }
+        }
+    }
+
+    /**
+     * {@code newHeads} notification decoded into a web3j block, which also carries the base fee.
+     */
+    public static class HeadNotification extends Notification<EthBlock.Block> {
+    }
+
+    /**
+     * {@code logs} notification decoded into the same log type {@code eth_getLogs} returns.
+     */
+    public static class LogsNotification extends Notification<Log> {
+    }
+}
@@ -0,0 +1,192 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-based circuit breaker that stops calls to a provider that keeps failing.
+ * <p>
+ * While {@link State#CLOSED} the outcomes of the last calls are kept in a sliding window.
+ * Once enough calls have been seen and the share of failures reaches the threshold, the
+ * circuit opens and every call is refused for the open duration. After that a few probe
+ * calls are let through: if all of them succeed the circuit closes again with an empty
+ * window, and a single failure opens it for another period.
+ * </p>
+ * <p>
+ * Outcomes are only counted in the state their call was admitted in, so slow calls started
+ * before the circuit opened cannot close it or trip it again.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    /**
+     * Circuit states, in the order of their gauge values (0 closed, 1 half-open, 2 open).
+     */
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    /** Guards every field below. */
+    private final Object lock = new Object();
+    private final boolean[] failures;
+    private int windowCount;
+    private int windowNext;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAtNanos;
+    private int probesAdmitted;
+    private int probesSucceeded;
+
+    private final Map<State, LongAdder> transitions = new EnumMap<>(State.class);
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param windowSize           Number of recent outcomes the failure rate is computed over
+     * @param minimumCalls         Outcomes needed in the window before the circuit can open
+     * @param failureRateThreshold Share of failed calls, between 0 and 1, that opens the circuit
+     * @param openDuration         How long an open circuit refuses calls before probing
+     * @param halfOpenProbes       Calls let through to probe, all of which must succeed to close
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int halfOpenProbes) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize
+                || failureRateThreshold <= 0 || failureRateThreshold > 1 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.failures = new boolean[windowSize];
+        for (State target : State.values()) {
+            transitions.put(target, new LongAdder());
+        }
+    }
+
+    /**
+     * Asks to make a call.
+     *
+     * @return The permit, to be passed to {@link #release(Permit, boolean)} once the call
+     *         is over, or null if the circuit refuses the call
+     */
+    public Permit tryAcquire() {
+        synchronized (lock) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAtNanos < openNanos) {
+                    rejected.increment();
+                    return null;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesAdmitted >= halfOpenProbes) {
+                    rejected.increment();
+                    return null;
+                }
+                probesAdmitted++;
+            }
+            return new Permit(generation);
+        }
+    }
+
+    /**
+     * Records the outcome of an admitted call.
+     *
+     * @param permit The permit the call was admitted with
+     * @param failed Whether the provider failed to answer the call
+     */
+    public void release(Permit permit, boolean failed) {
+        synchronized (lock) {
+            if (permit.generation != generation) {
+                // Admitted before the last state change
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                if (failed) {
+                    transitionTo(State.OPEN);
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    transitionTo(State.CLOSED);
+                }
+                return;
+            }
+            record(failed);
+            if (windowCount >= minimumCalls && windowFailures >= failureRateThreshold * windowCount) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    private void record(boolean failed) {
+        if (windowCount == windowSize) {
+            if (failures[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        failures[windowNext] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % windowSize;
+    }
+
+    private void transitionTo(State target) {
+        state = target;
+        generation++;
+        transitions.get(target).increment();
+        switch (target) {
+            case OPEN -> openedAtNanos = System.nanoTime();
+            case HALF_OPEN -> {
+                probesAdmitted = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                windowCount = 0;
+                windowNext = 0;
+                windowFailures = 0;
+            }
+        }
+    }
+
+    public State getState() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
+    /**
+     * @param target A state
+     * @return How many times the circuit has moved into that state
+     */
+    public long getTransitionCount(State target) {
+        return transitions.get(target).sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Admission of one call, tied to the state it was admitted in.
+     */
+    public static final class Permit {
+        private final long generation;
+
+        private Permit(long generation) {
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport decorator that isolates each {@link RpcMethodClass} behind its own circuit
+ * breaker and bulkhead, so a degraded provider makes calls fail fast instead of piling up
+ * request threads behind HTTP timeouts.
+ * <p>
+ * The bulkhead caps how many calls of a class can be in flight at once, counting calls
+ * still queued further down the stack; a call that does not fit is refused straight away.
+ * The {@link CircuitBreaker} refuses calls while the provider keeps failing them. Transport
+ * errors, timeouts and rate limit answers count as failures; other JSON-RPC errors, such as
+ * a reverted call, are answers from a healthy provider.
+ * </p>
+ * <p>
+ * A refused read of a value that is safe to serve slightly out of date, such as the gas
+ * price, the head block number or an account balance, is answered with the last response
+ * seen for the same request if it is recent enough. Every other refused call fails with
+ * {@link RpcRejectedException}.
+ * </p>
+ */
+public class CircuitBreakingWeb3jService extends ForwardingWeb3jService implements MeterBinder {
+
+    /** Reads whose last known answer may stand in for a fresh one while the provider is unavailable. */
+    private static final Set<String> STALE_SAFE_METHODS = Set.of(
+            "eth_chainId",
+            "net_version",
+            "eth_blockNumber",
+            "eth_gasPrice",
+            "eth_maxPriorityFeePerGas",
+            "eth_feeHistory",
+            "eth_getBalance"
+    );
+
+    /** Upper bound on remembered responses. */
+    private static final int MAX_LAST_KNOWN = 10_000;
+
+    /** JSON-RPC error codes providers use for rate limiting. */
+    private static final int RPC_LIMIT_EXCEEDED = -32005;
+    private static final int RPC_TOO_MANY_REQUESTS = 429;
+
+    private final Map<RpcMethodClass, CircuitBreaker> breakers;
+    private final Map<RpcMethodClass, Integer> bulkheadLimits;
+    private final Map<RpcMethodClass, Semaphore> bulkheads = new EnumMap<>(RpcMethodClass.class);
+    private final Map<RpcMethodClass, LongAdder> bulkheadRejections = new EnumMap<>(RpcMethodClass.class);
+    private final Map<RpcMethodClass, LongAdder> staleAnswers = new EnumMap<>(RpcMethodClass.class);
+    private final long maxStaleNanos;
+    private final Map<String, LastKnown> lastKnown = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate       The transport admitted calls are sent through
+     * @param breakers       The circuit breaker of every method class
+     * @param bulkheadLimits The most calls of every method class allowed in flight at once
+     * @param maxStale       Oldest last known response that may answer a refused read
+     */
+    public CircuitBreakingWeb3jService(Web3jService delegate, Map<RpcMethodClass, CircuitBreaker> breakers,
+                                       Map<RpcMethodClass, Integer> bulkheadLimits, Duration maxStale) {
+        super(delegate);
+        for (RpcMethodClass methodClass : RpcMethodClass.values()) {
+            if (!breakers.containsKey(methodClass) || bulkheadLimits.getOrDefault(methodClass, 0) < 1) {
+                throw new IllegalArgumentException("Missing circuit breaker or bulkhead for " + methodClass.tag());
+            }
+            bulkheads.put(methodClass, new Semaphore(bulkheadLimits.get(methodClass)));
+            bulkheadRejections.put(methodClass, new LongAdder());
+            staleAnswers.put(methodClass, new LongAdder());
+        }
+        this.breakers = new EnumMap<>(breakers);
+        this.bulkheadLimits = new EnumMap<>(bulkheadLimits);
+        this.maxStaleNanos = maxStale.toNanos();
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        RpcMethodClass methodClass = RpcMethodClass.of(request.getMethod());
+        Semaphore bulkhead = bulkheads.get(methodClass);
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.get(methodClass).increment();
+            return fallback(request, responseType, methodClass, "bulkhead is full");
+        }
+        try {
+            CircuitBreaker breaker = breakers.get(methodClass);
+            CircuitBreaker.Permit permit = breaker.tryAcquire();
+            if (permit == null) {
+                return fallback(request, responseType, methodClass, "circuit is open");
+            }
+            T response;
+            try {
+                response = delegate.send(request, responseType);
+            } catch (IOException | RuntimeException e) {
+                breaker.release(permit, true);
+                throw e;
+            }
+            breaker.release(permit, isRateLimited(response));
+            remember(request, response);
+            return response;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        RpcMethodClass methodClass = RpcMethodClass.of(request.getMethod());
+        Semaphore bulkhead = bulkheads.get(methodClass);
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.get(methodClass).increment();
+            return fallbackAsync(request, responseType, methodClass, "bulkhead is full");
+        }
+        CircuitBreaker breaker = breakers.get(methodClass);
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == null) {
+            bulkhead.release();
+            return fallbackAsync(request, responseType, methodClass, "circuit is open");
+        }
+        CompletableFuture<T> response;
+        try {
+            response = delegate.sendAsync(request, responseType);
+        } catch (RuntimeException e) {
+            breaker.release(permit, true);
+            bulkhead.release();
+            throw e;
+        }
+        return response.whenComplete((result, error) -> {
+            bulkhead.release();
+            breaker.release(permit, error != null || isRateLimited(result));
+            if (error == null) {
+                remember(request, result);
+            }
+        });
+    }
+
+    private <T extends Response> T fallback(Request<?, ?> request, Class<T> responseType,
+                                            RpcMethodClass methodClass, String reason) throws IOException {
+        T stale = lastKnown(request, responseType);
+        if (stale != null) {
+            staleAnswers.get(methodClass).increment();
+            return stale;
+        }
+        throw new RpcRejectedException(methodClass,
+                request.getMethod() + " refused: " + methodClass.tag() + " " + reason);
+    }
+
+    private <T extends Response> CompletableFuture<T> fallbackAsync(Request<?, ?> request, Class<T> responseType,
+                                                                    RpcMethodClass methodClass, String reason) {
+        try {
+            return CompletableFuture.completedFuture(fallback(request, responseType, methodClass, reason));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void remember(Request<?, ?> request, Response<?> response) {
+        if (response == null || response.hasError() || !STALE_SAFE_METHODS.contains(request.getMethod())) {
+            return;
+        }
+        String key = RpcRequestKey.of(request);
+        if (lastKnown.size() < MAX_LAST_KNOWN || lastKnown.containsKey(key)) {
+            lastKnown.put(key, new LastKnown(response, System.nanoTime()));
+        }
+    }
+
+    private <T extends Response> T lastKnown(Request<?, ?> request, Class<T> responseType) {
+        if (!STALE_SAFE_METHODS.contains(request.getMethod())) {
+            return null;
+        }
+        LastKnown entry = lastKnown.get(RpcRequestKey.of(request));
+        if (entry == null || System.nanoTime() - entry.storedNanos > maxStaleNanos
+                || !responseType.isInstance(entry.response)) {
+            return null;
+        }
+        return responseType.cast(entry.response);
+    }
+
+    private static boolean isRateLimited(Response<?> response) {
+        if (response == null || !response.hasError()) {
+            return false;
+        }
+        int code = response.getError().getCode();
+        return code == RPC_LIMIT_EXCEEDED || code == RPC_TOO_MANY_REQUESTS;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RpcMethodClass methodClass : RpcMethodClass.values()) {
+            CircuitBreaker breaker = breakers.get(methodClass);
+            Semaphore bulkhead = bulkheads.get(methodClass);
+            int limit = bulkheadLimits.get(methodClass);
+            String tag = methodClass.tag();
+
+            Gauge.builder("web3.rpc.circuit.state", breaker, b -> b.getState().ordinal())
+                    .description("Circuit state of a JSON-RPC method class: 0 closed, 1 half-open, 2 open")
+                    .tag("class", tag)
+                    .register(registry);
+            for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                FunctionCounter.builder("web3.rpc.circuit.transitions", breaker, b -> b.getTransitionCount(state))
+                        .description("Times a JSON-RPC method class circuit moved into a state")
+                        .tag("class", tag)
+                        .tag("state", state.name().toLowerCase())
+                        .register(registry);
+            }
+            FunctionCounter.builder("web3.rpc.circuit.rejected", breaker, CircuitBreaker::getRejectedCount)
+                    .description("JSON-RPC calls refused without reaching the provider")
+                    .tag("class", tag)
+                    .tag("reason", "open")
+                    .register(registry);
+            FunctionCounter.builder("web3.rpc.circuit.rejected", bulkheadRejections.get(methodClass), LongAdder::sum)
+                    .description("JSON-RPC calls refused without reaching the provider")
+                    .tag("class", tag)
+                    .tag("reason", "bulkhead")
+                    .register(registry);
+            FunctionCounter.builder("web3.rpc.circuit.stale", staleAnswers.get(methodClass), LongAdder::sum)
+                    .description("Refused JSON-RPC reads answered with the last known response")
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder("web3.rpc.bulkhead.inflight", bulkhead, b -> limit - b.availablePermits())
+                    .description("JSON-RPC calls of a method class holding a bulkhead slot")
+                    .tag("class", tag)
+                    .register(registry);
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker(RpcMethodClass methodClass) {
+        return breakers.get(methodClass);
+    }
+
+    public long getStaleAnswerCount(RpcMethodClass methodClass) {
+        return staleAnswers.get(methodClass).sum();
+    }
+
+    private record LastKnown(Response<?> response, long storedNanos) {
+    }
+}
@@ -0,0 +1,195 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport decorator that keeps the number of calls in flight to the provider within an
+ * {@link AdaptiveConcurrencyLimiter}.
+ * <p>
+ * HTTP 429 and 503 answers, JSON-RPC rate limit errors and timeouts tell the limiter to
+ * back off; everything else lets it grow. Each call waits in the lane of its
+ * {@link RpcPriority}, and gives up with an {@link IOException} if no slot frees up
+ * within the queue timeout.
+ * </p>
+ */
+public class ConcurrencyLimitedWeb3jService extends ForwardingWeb3jService implements MeterBinder {
+
+    /** JSON-RPC error codes providers use for rate limiting. */
+    private static final int RPC_LIMIT_EXCEEDED = -32005;
+    private static final int RPC_TOO_MANY_REQUESTS = 429;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long queueTimeoutMillis;
+    private final LongAdder queueTimeouts = new LongAdder();
+
+    /**
+     * @param delegate     The transport calls are sent through once admitted
+     * @param limiter      The limit shared by every call
+     * @param queueTimeout Longest a call waits for a slot
+     */
+    public ConcurrencyLimitedWeb3jService(Web3jService delegate, AdaptiveConcurrencyLimiter limiter,
+                                          Duration queueTimeout) {
+        super(delegate);
+        this.limiter = limiter;
+        this.queueTimeoutMillis = queueTimeout.toMillis();
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        AdaptiveConcurrencyLimiter.Permit permit = admit(RpcPriority.of(request.getMethod()));
+        try {
+            T response = delegate.send(request, responseType);
+            limiter.release(permit, isRateLimited(response));
+            return response;
+        } catch (IOException | RuntimeException e) {
+            limiter.release(permit, isOverload(e));
+            throw e;
+        }
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        // The priority belongs to the calling thread, so resolve it before any hand-off
+        RpcPriority priority = RpcPriority.of(request.getMethod());
+        return acquire(priority).thenCompose(permit -> {
+            CompletableFuture<T> response;
+            try {
+                response = delegate.sendAsync(request, responseType);
+            } catch (RuntimeException e) {
+                limiter.release(permit, false);
+                throw e;
+            }
+            return response.whenComplete((result, error) -> limiter.release(permit,
+                    error != null ? isOverload(unwrap(error)) : isRateLimited(result)));
+        });
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        // A batch is one round trip to the provider and takes one slot
+        AdaptiveConcurrencyLimiter.Permit permit = admit(RpcPriority.of(null));
+        try {
+            BatchResponse response = delegate.sendBatch(batchRequest);
+            limiter.release(permit, false);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            limiter.release(permit, isOverload(e));
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        return acquire(RpcPriority.of(null)).thenCompose(permit -> delegate.sendBatchAsync(batchRequest)
+                .whenComplete((result, error) -> limiter.release(permit,
+                        error != null && isOverload(unwrap(error)))));
+    }
+
+    /**
+     * Waits on the calling thread for a slot.
+     */
+    private AdaptiveConcurrencyLimiter.Permit admit(RpcPriority priority) throws IOException {
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> admission = limiter.acquire(priority)
+                .orTimeout(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            return admission.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Withdraw the request, or give the slot back if it was granted meanwhile
+            if (!admission.completeExceptionally(e)) {
+                limiter.release(admission.join(), false);
+            }
+            throw new IOException("Interrupted while waiting for a concurrency slot", e);
+        } catch (ExecutionException e) {
+            throw queueTimeout();
+        }
+    }
+
+    /**
+     * Asks for a slot without blocking; the future fails with an {@link IOException} on timeout.
+     */
+    private CompletableFuture<AdaptiveConcurrencyLimiter.Permit> acquire(RpcPriority priority) {
+        return limiter.acquire(priority)
+                .orTimeout(queueTimeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    throw new CompletionException(queueTimeout());
+                });
+    }
+
+    private IOException queueTimeout() {
+        queueTimeouts.increment();
+        return new IOException("RPC call waited more than " + queueTimeoutMillis + " ms for a concurrency slot");
+    }
+
+    private static boolean isRateLimited(Response<?> response) {
+        if (response == null || !response.hasError()) {
+            return false;
+        }
+        int code = response.getError().getCode();
+        return code == RPC_LIMIT_EXCEEDED || code == RPC_TOO_MANY_REQUESTS;
+    }
+
+    private static boolean isOverload(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedIOException) {
+                // Socket and call timeouts
+                return true;
+            }
+            if (cause instanceof ClientConnectionException && cause.getMessage() != null) {
+                String message = cause.getMessage();
+                if (message.contains(": 429") || message.contains(": 503")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("web3.rpc.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for JSON-RPC calls")
+                .register(registry);
+        Gauge.builder("web3.rpc.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("JSON-RPC calls currently holding a concurrency slot")
+                .register(registry);
+        for (RpcPriority priority : RpcPriority.values()) {
+            Gauge.builder("web3.rpc.limiter.queue", limiter, l -> l.getQueueDepth(priority))
+                    .description("JSON-RPC calls waiting for a concurrency slot")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("web3.rpc.limiter.overloads", limiter, AdaptiveConcurrencyLimiter::getOverloadCount)
+                .description("Calls that were rate limited or timed out by the provider")
+                .register(registry);
+        FunctionCounter.builder("web3.rpc.limiter.queue.timeouts", queueTimeouts, LongAdder::sum)
+                .description("Calls that gave up waiting for a concurrency slot")
+                .register(registry);
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
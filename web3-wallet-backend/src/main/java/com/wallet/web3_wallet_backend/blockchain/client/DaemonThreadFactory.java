@@ -0,0 +1,25 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Names and daemonizes the background threads owned by the RPC transport layers,
+ * so they never keep the JVM alive and are easy to spot in thread dumps.
+ */
+class DaemonThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    DaemonThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,122 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.web3j.protocol.core.Response;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fee-related fields of an {@code eth_getBlockByNumber} result with full transactions,
+ * decoded straight from the token stream.
+ * <p>
+ * Of the block only the number, base fee and gas figures are kept, and of each transaction
+ * only its type and fee fields. Calldata, signatures, access lists and every other value
+ * are skipped by the parser, so a block of several hundred transactions costs a few
+ * objects per transaction instead of a full {@code EthBlock}.
+ * </p>
+ */
+public class EthBlockFees extends Response<EthBlockFees.BlockFees> implements StreamDecodedResponse {
+
+    @Override
+    @JsonDeserialize(using = BlockFeesDeserializer.class)
+    public void setResult(BlockFees result) {
+        super.setResult(result);
+    }
+
+    /**
+     * @return The block's fees, or null if the node does not know the block
+     */
+    public BlockFees getBlockFees() {
+        return getResult();
+    }
+
+    /**
+     * @param number        The block number
+     * @param baseFeePerGas The base fee, or null before EIP-1559
+     * @param gasUsed       Gas used by all transactions of the block
+     * @param gasLimit      The block gas limit
+     * @param transactions  Fee fields of every transaction in block order
+     */
+    public record BlockFees(BigInteger number, BigInteger baseFeePerGas, BigInteger gasUsed, BigInteger gasLimit,
+                            List<TransactionFees> transactions) {
+    }
+
+    /**
+     * @param type                 The transaction type, 0 for legacy transactions
+     * @param gasPrice             The price actually paid per gas
+     * @param maxFeePerGas         The fee cap, or null for legacy transactions
+     * @param maxPriorityFeePerGas The tip cap, or null for legacy transactions
+     */
+    public record TransactionFees(int type, BigInteger gasPrice, BigInteger maxFeePerGas,
+                                  BigInteger maxPriorityFeePerGas) {
+    }
+
+    static class BlockFeesDeserializer extends JsonDeserializer<BlockFees> {
+
+        @Override
+        public BlockFees deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            BigInteger number = null;
+            BigInteger baseFeePerGas = null;
+            BigInteger gasUsed = null;
+            BigInteger gasLimit = null;
+            List<TransactionFees> transactions = new ArrayList<>();
+
+            for (JsonToken token = JsonTokens.enterObject(parser); token == JsonToken.FIELD_NAME;
+                 token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "number" -> number = JsonTokens.quantity(parser);
+                    case "baseFeePerGas" -> baseFeePerGas = JsonTokens.quantity(parser);
+                    case "gasUsed" -> gasUsed = JsonTokens.quantity(parser);
+                    case "gasLimit" -> gasLimit = JsonTokens.quantity(parser);
+                    case "transactions" -> readTransactions(parser, transactions);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new BlockFees(number, baseFeePerGas, gasUsed, gasLimit, transactions);
+        }
+
+        private static void readTransactions(JsonParser parser, List<TransactionFees> transactions)
+                throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return;
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                // Hashes only, when the block was requested without full transactions
+                if (token == JsonToken.START_OBJECT) {
+                    transactions.add(readTransaction(parser));
+                }
+            }
+        }
+
+        private static TransactionFees readTransaction(JsonParser parser) throws IOException {
+            BigInteger type = null;
+            BigInteger gasPrice = null;
+            BigInteger maxFeePerGas = null;
+            BigInteger maxPriorityFeePerGas = null;
+
+            for (JsonToken token = parser.nextToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "type" -> type = JsonTokens.quantity(parser);
+                    case "gasPrice" -> gasPrice = JsonTokens.quantity(parser);
+                    case "maxFeePerGas" -> maxFeePerGas = JsonTokens.quantity(parser);
+                    case "maxPriorityFeePerGas" -> maxPriorityFeePerGas = JsonTokens.quantity(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new TransactionFees(type != null ? type.intValueExact() : 0, gasPrice, maxFeePerGas,
+                    maxPriorityFeePerGas);
+        }
+    }
+}
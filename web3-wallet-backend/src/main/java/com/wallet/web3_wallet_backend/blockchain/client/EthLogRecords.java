@@ -0,0 +1,96 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.web3j.protocol.core.Response;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@code eth_getLogs} result decoded straight from the token stream into compact
+ * records, for scanners that walk large block ranges.
+ * <p>
+ * Block hashes, transaction indexes and any fields a node adds beyond those of
+ * {@link LogRecord} are skipped by the parser, and no intermediate tree or
+ * {@code EthLog.LogResult} wrappers are built.
+ * </p>
+ */
+public class EthLogRecords extends Response<List<EthLogRecords.LogRecord>> implements StreamDecodedResponse {
+
+    @Override
+    @JsonDeserialize(using = LogRecordsDeserializer.class)
+    public void setResult(List<LogRecord> result) {
+        super.setResult(result);
+    }
+
+    /**
+     * @return The matching logs in the order the node returned them
+     */
+    public List<LogRecord> getLogRecords() {
+        return getResult() != null ? getResult() : List.of();
+    }
+
+    /**
+     * @param address         The contract that emitted the log
+     * @param topics          The indexed topics, event signature first
+     * @param data            The non-indexed data as hex
+     * @param blockNumber     The block the log was emitted in
+     * @param transactionHash The transaction that emitted the log
+     * @param logIndex        Position of the log in its block
+     * @param removed         Whether the log was dropped by a reorg
+     */
+    public record LogRecord(String address, List<String> topics, String data, BigInteger blockNumber,
+                            String transactionHash, BigInteger logIndex, boolean removed) {
+    }
+
+    static class LogRecordsDeserializer extends JsonDeserializer<List<LogRecord>> {
+
+        @Override
+        public List<LogRecord> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            List<LogRecord> logs = new ArrayList<>();
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return logs;
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                // Hashes only, the answer to a block or pending transaction filter
+                if (token == JsonToken.START_OBJECT) {
+                    logs.add(readLog(parser));
+                }
+            }
+            return logs;
+        }
+
+        private static LogRecord readLog(JsonParser parser) throws IOException {
+            String address = null;
+            List<String> topics = List.of();
+            String data = null;
+            BigInteger blockNumber = null;
+            String transactionHash = null;
+            BigInteger logIndex = null;
+            boolean removed = false;
+
+            for (JsonToken token = parser.nextToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "address" -> address = JsonTokens.text(parser);
+                    case "topics" -> topics = JsonTokens.texts(parser);
+                    case "data" -> data = JsonTokens.text(parser);
+                    case "blockNumber" -> blockNumber = JsonTokens.quantity(parser);
+                    case "transactionHash" -> transactionHash = JsonTokens.text(parser);
+                    case "logIndex" -> logIndex = JsonTokens.quantity(parser);
+                    case "removed" -> removed = parser.currentToken() == JsonToken.VALUE_TRUE;
+                    default -> parser.skipChildren();
+                }
+            }
+            return new LogRecord(address, topics, data, blockNumber, transactionHash, logIndex, removed);
+        }
+    }
+}
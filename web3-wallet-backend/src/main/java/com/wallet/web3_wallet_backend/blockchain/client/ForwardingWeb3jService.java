@@ -0,0 +1,93 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.reactivex.Flowable;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Base class for transport decorators that sit between the shared {@code Web3j} bean
+ * and the underlying JSON-RPC transport.
+ * <p>
+ * Every call is forwarded to the wrapped service unchanged. Subclasses override only the
+ * methods they need to intercept, so decorators can be stacked in {@link Web3ClientConfig}
+ * without the services that use {@code Web3j} noticing.
+ * </p>
+ */
+public abstract class ForwardingWeb3jService implements Web3jService {
+
+    /** The transport every call is eventually forwarded to. */
+    protected final Web3jService delegate;
+
+    /**
+     * Creates a decorator around the given transport.
+     *
+     * @param delegate The transport to forward calls to
+     */
+    protected ForwardingWeb3jService(Web3jService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        return delegate.send(request, responseType);
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return delegate.sendAsync(request, responseType);
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        return delegate.sendBatch(batchRequest);
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        return delegate.sendBatchAsync(batchRequest);
+    }
+
+    @Override
+    public <T extends Notification<?>> Flowable<T> subscribe(Request request, String unsubscribeMethod,
+                                                             Class<T> responseType) {
+        return delegate.subscribe(request, unsubscribeMethod, responseType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * Blocks until the future completes, translating failures back into the
+     * {@link IOException} contract of {@link #send(Request, Class)}.
+     *
+     * @param future The pending response
+     * @return The completed response
+     * @throws IOException if the request failed or the waiting thread was interrupted
+     */
+    protected static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for RPC response", e);
+        } catch (java.util.concurrent.ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
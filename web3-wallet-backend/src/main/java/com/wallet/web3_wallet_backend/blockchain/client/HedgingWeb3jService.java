@@ -0,0 +1,277 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport decorator that sends a second copy of a slow read and takes whichever answer
+ * arrives first.
+ * <p>
+ * A read that has not been answered after the configured percentile of recent latencies
+ * for its method is hedged: the same request goes out through the hedge transport, which
+ * may route to another provider. The first successful response wins and the other attempt
+ * is cancelled. A read only fails once every attempt it made has failed.
+ * </p>
+ * <p>
+ * Hedges are paid for from a budget that every eligible read tops up by the budget ratio,
+ * so they never add more than that share of extra load, however slow the provider gets.
+ * Writes are never hedged.
+ * </p>
+ */
+public class HedgingWeb3jService extends ForwardingWeb3jService implements MeterBinder {
+
+    /** Largest number of hedges that can be sent back to back after a quiet period. */
+    private static final double MAX_BUDGET = 10.0;
+
+    private final Web3jService hedgeTransport;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final double budgetRatio;
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    /** Guards {@link #budget}. */
+    private final Object budgetLock = new Object();
+    private double budget = MAX_BUDGET;
+
+    private final LongAdder eligible = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    /**
+     * @param delegate       The transport the first attempt is sent through
+     * @param hedgeTransport The transport hedges are sent through; may be the delegate itself
+     * @param percentile     Share of recent reads, between 0 and 1, expected to finish before hedging
+     * @param minDelay       Shortest wait before a hedge
+     * @param maxDelay       Longest wait before a hedge, also used until a method has enough samples
+     * @param budgetRatio    Hedges allowed per eligible read, for example 0.05 for 5% extra load
+     */
+    public HedgingWeb3jService(Web3jService delegate, Web3jService hedgeTransport, double percentile,
+                               Duration minDelay, Duration maxDelay, double budgetRatio) {
+        super(delegate);
+        if (percentile <= 0 || percentile >= 1 || budgetRatio <= 0 || minDelay.compareTo(maxDelay) > 0) {
+            throw new IllegalArgumentException("Invalid hedging settings");
+        }
+        this.hedgeTransport = hedgeTransport;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.budgetRatio = budgetRatio;
+        this.timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("rpc-hedge-timer"));
+        // Most hedges are cancelled because the first attempt answered in time
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (!RpcMethods.isRead(request.getMethod())) {
+            return delegate.send(request, responseType);
+        }
+        return await(sendAsync(request, responseType));
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        if (!RpcMethods.isRead(request.getMethod())) {
+            return delegate.sendAsync(request, responseType);
+        }
+        eligible.increment();
+        synchronized (budgetLock) {
+            budget = Math.min(MAX_BUDGET, budget + budgetRatio);
+        }
+
+        LatencyWindow window = latencies.computeIfAbsent(request.getMethod(), method -> new LatencyWindow());
+        HedgedCall<T> call = new HedgedCall<>(request, responseType, window);
+        call.start(window.threshold());
+        return call.result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        timer.shutdownNow();
+        super.close();
+    }
+
+    private boolean withdrawBudget() {
+        synchronized (budgetLock) {
+            if (budget < 1.0) {
+                return false;
+            }
+            budget -= 1.0;
+            return true;
+        }
+    }
+
+    /**
+     * One read and its possible hedge racing each other.
+     */
+    private final class HedgedCall<T extends Response> {
+
+        private final Request request;
+        private final Class<T> responseType;
+        private final LatencyWindow window;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long startNanos = System.nanoTime();
+
+        /** Guards the fields below. */
+        private final Object lock = new Object();
+        private CompletableFuture<T> primary;
+        private CompletableFuture<T> hedge;
+        private Future<?> scheduledHedge;
+        private Throwable primaryError;
+
+        private HedgedCall(Request request, Class<T> responseType, LatencyWindow window) {
+            this.request = request;
+            this.responseType = responseType;
+            this.window = window;
+        }
+
+        private void start(long delayNanos) {
+            CompletableFuture<T> first = delegate.sendAsync(request, responseType);
+            synchronized (lock) {
+                primary = first;
+                if (!first.isDone()) {
+                    scheduledHedge = timer.schedule(this::launchHedge, delayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            first.whenComplete(this::onPrimary);
+            // Whoever wins, stop the timer and cancel the attempt that lost
+            result.whenComplete((response, error) -> {
+                synchronized (lock) {
+                    if (scheduledHedge != null) {
+                        scheduledHedge.cancel(false);
+                    }
+                    primary.cancel(true);
+                    if (hedge != null) {
+                        hedge.cancel(true);
+                    }
+                }
+            });
+        }
+
+        private void launchHedge() {
+            synchronized (lock) {
+                if (result.isDone() || primary.isDone()) {
+                    return;
+                }
+                if (!withdrawBudget()) {
+                    budgetExhausted.increment();
+                    return;
+                }
+                hedge = hedgeTransport.sendAsync(request, responseType);
+            }
+            hedged.increment();
+            hedge.whenComplete(this::onHedge);
+        }
+
+        private void onPrimary(T response, Throwable error) {
+            if (error == null) {
+                window.record(System.nanoTime() - startNanos);
+                result.complete(response);
+                return;
+            }
+            synchronized (lock) {
+                if (hedge != null && !hedge.isDone()) {
+                    // The hedge may still answer
+                    primaryError = error;
+                    return;
+                }
+            }
+            result.completeExceptionally(error);
+        }
+
+        private void onHedge(T response, Throwable error) {
+            if (error == null) {
+                // Counted before completing, so the caller woken by the answer already sees the win
+                wins.increment();
+                if (result.complete(response)) {
+                    // The first attempt took at least this long; keep the sample so the
+                    // threshold follows the provider rather than the hedges
+                    window.record(System.nanoTime() - startNanos);
+                } else {
+                    wins.decrement();
+                }
+                return;
+            }
+            Throwable failed;
+            synchronized (lock) {
+                failed = primaryError;
+            }
+            if (failed != null) {
+                result.completeExceptionally(failed);
+            }
+        }
+    }
+
+    /**
+     * Recent latencies of one method and the hedge delay derived from them.
+     */
+    private final class LatencyWindow {
+
+        private static final int SIZE = 128;
+        private static final int RECOMPUTE_EVERY = 16;
+
+        private final long[] samples = new long[SIZE];
+        private int count;
+        private int next;
+        private volatile long thresholdNanos = maxDelayNanos;
+
+        synchronized void record(long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % SIZE;
+            count = Math.min(SIZE, count + 1);
+            if (count >= RECOMPUTE_EVERY && next % RECOMPUTE_EVERY == 0) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                long value = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+                thresholdNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, value));
+            }
+        }
+
+        long threshold() {
+            return thresholdNanos;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.rpc.hedge.eligible", eligible, LongAdder::sum)
+                .description("JSON-RPC reads that could be hedged")
+                .register(registry);
+        FunctionCounter.builder("web3.rpc.hedge.sent", hedged, LongAdder::sum)
+                .description("Hedged copies sent for slow JSON-RPC reads")
+                .register(registry);
+        FunctionCounter.builder("web3.rpc.hedge.wins", wins, LongAdder::sum)
+                .description("Hedged copies that answered before the first attempt")
+                .register(registry);
+        FunctionCounter.builder("web3.rpc.hedge.budget.exhausted", budgetExhausted, LongAdder::sum)
+                .description("Slow JSON-RPC reads not hedged because the hedge budget was spent")
+                .register(registry);
+    }
+
+    public long getHedgeCount() {
+        return hedged.sum();
+    }
+
+    public long getWinCount() {
+        return wins.sum();
+    }
+}
@@ -0,0 +1,270 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * HTTP transport that records every JSON-RPC exchange with the provider in Micrometer.
+ * <p>
+ * Each request is timed in {@code web3.rpc.requests}, tagged with its method, the provider
+ * host, the outcome and the JSON-RPC or HTTP error code. Payload sizes go to
+ * {@code web3.rpc.request.size} and {@code web3.rpc.response.size}. Only calls that reach
+ * the wire are recorded: cache hits and coalesced reads never get here. Members of a batch
+ * are each timed with the round trip of the batch, while the batch payload is sized once
+ * under the method {@code batch}.
+ * </p>
+ * <p>
+ * Unlike the base class, which reads every response body into memory before decoding it,
+ * the body is decoded as it arrives, so the fields a streaming decoder skips are never
+ * held in full.
+ * </p>
+ */
+public class InstrumentedHttpService extends HttpService {
+
+    static final String REQUESTS = "web3.rpc.requests";
+    static final String REQUEST_SIZE = "web3.rpc.request.size";
+    static final String RESPONSE_SIZE = "web3.rpc.response.size";
+
+    /**
+     * Fixed latency buckets, kept by every registry, so per-method percentiles can be merged
+     * across series even where percentile histograms are not published.
+     */
+    private static final Duration[] LATENCY_BUCKETS = {
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofSeconds(30)
+    };
+
+    private static final String BATCH_METHOD = "batch";
+    private static final String NO_CODE = "none";
+
+    private final OkHttpClient httpClient;
+    private final String endpoint;
+    private final MeterRegistry registry;
+
+    /** Payload sizes of the exchange running on this thread; the base class sends synchronously. */
+    private final ThreadLocal<Exchange> current = new ThreadLocal<>();
+
+    /**
+     * @param url      The provider URL; only its host is used as the endpoint tag
+     * @param registry Where the meters are registered
+     */
+    public InstrumentedHttpService(String url, MeterRegistry registry) {
+        this(url, HttpService.getOkHttpClientBuilder().build(), registry);
+    }
+
+    private InstrumentedHttpService(String url, OkHttpClient httpClient, MeterRegistry registry) {
+        super(url, httpClient);
+        this.httpClient = httpClient;
+        this.endpoint = RpcEndpoint.hostOf(url);
+        this.registry = registry;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        Exchange exchange = new Exchange();
+        current.set(exchange);
+        long start = System.nanoTime();
+        try {
+            T response = super.send(request, responseType);
+            recordCall(request.getMethod(), System.nanoTime() - start, response, null);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            recordCall(request.getMethod(), System.nanoTime() - start, null, e);
+            throw e;
+        } finally {
+            current.remove();
+            recordSizes(request.getMethod(), exchange);
+        }
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        Exchange exchange = new Exchange();
+        current.set(exchange);
+        long start = System.nanoTime();
+        List<Request<?, ? extends Response<?>>> requests = batchRequest.getRequests();
+        try {
+            BatchResponse batch = super.sendBatch(batchRequest);
+            long elapsed = System.nanoTime() - start;
+            List<? extends Response<?>> responses = batch.getResponses();
+            for (int i = 0; i < requests.size(); i++) {
+                Response<?> response = i < responses.size() ? responses.get(i) : null;
+                recordCall(requests.get(i).getMethod(), elapsed, response, null);
+            }
+            return batch;
+        } catch (IOException | RuntimeException e) {
+            long elapsed = System.nanoTime() - start;
+            for (Request<?, ? extends Response<?>> request : requests) {
+                recordCall(request.getMethod(), elapsed, null, e);
+            }
+            throw e;
+        } finally {
+            current.remove();
+            recordSizes(BATCH_METHOD, exchange);
+        }
+    }
+
+    @Override
+    protected InputStream performIO(String payload) throws IOException {
+        Exchange exchange = current.get();
+        if (exchange != null) {
+            exchange.requestBytes = payload.getBytes(StandardCharsets.UTF_8).length;
+        }
+        okhttp3.Request httpRequest = new okhttp3.Request.Builder()
+                .url(getUrl())
+                .headers(Headers.of(getHeaders()))
+                .post(RequestBody.create(payload, JSON_MEDIA_TYPE))
+                .build();
+        okhttp3.Response httpResponse = httpClient.newCall(httpRequest).execute();
+        processHeaders(httpResponse.headers());
+        ResponseBody body = httpResponse.body();
+        if (!httpResponse.isSuccessful()) {
+            try (httpResponse) {
+                // Same message as the base class, which httpStatusOf relies on
+                String text = body == null ? "N/A" : body.string();
+                throw new ClientConnectionException("Invalid response received: " + httpResponse.code() + "; " + text);
+            }
+        }
+        if (body == null) {
+            httpResponse.close();
+            return null;
+        }
+        // The caller closes the stream once decoded, which releases the connection
+        return new CountingInputStream(body.byteStream(), exchange);
+    }
+
+    private void recordCall(String method, long elapsedNanos, Response<?> response, Exception error) {
+        String outcome;
+        String code = NO_CODE;
+        if (error instanceof ClientConnectionException) {
+            outcome = "http_error";
+            code = httpStatusOf(error.getMessage());
+        } else if (error instanceof InterruptedIOException) {
+            outcome = "timeout";
+        } else if (error != null) {
+            outcome = "io_error";
+        } else if (response != null && response.hasError()) {
+            outcome = "rpc_error";
+            code = Integer.toString(response.getError().getCode());
+        } else {
+            outcome = "success";
+        }
+        Timer.builder(REQUESTS)
+                .description("JSON-RPC requests sent to the provider")
+                .tag("method", method)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .tag("code", code)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(LATENCY_BUCKETS)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry)
+                .record(Duration.ofNanos(elapsedNanos));
+    }
+
+    private void recordSizes(String method, Exchange exchange) {
+        if (exchange.requestBytes >= 0) {
+            size(REQUEST_SIZE, "JSON-RPC request payload size", method).record(exchange.requestBytes);
+        }
+        if (exchange.responseBytes >= 0) {
+            size(RESPONSE_SIZE, "JSON-RPC response payload size", method).record(exchange.responseBytes);
+        }
+    }
+
+    private DistributionSummary size(String name, String description, String method) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .tag("method", method)
+                .tag("endpoint", endpoint)
+                .register(registry);
+    }
+
+    /**
+     * Extracts the status from web3j's "Invalid response received: 429; ..." message.
+     */
+    private static String httpStatusOf(String message) {
+        if (message == null) {
+            return NO_CODE;
+        }
+        int colon = message.indexOf(": ");
+        int end = message.indexOf(';', colon + 2);
+        if (colon < 0 || end < 0) {
+            return NO_CODE;
+        }
+        return message.substring(colon + 2, end).trim();
+    }
+
+    private static final class Exchange {
+        private int requestBytes = -1;
+        private int responseBytes = -1;
+    }
+
+    /**
+     * Response body that sizes its exchange with the bytes read once it is closed.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final Exchange exchange;
+        private int count;
+
+        private CountingInputStream(InputStream in, Exchange exchange) {
+            super(in);
+            this.exchange = exchange;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += (int) skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (exchange != null) {
+                exchange.responseBytes = count;
+            }
+            super.close();
+        }
+    }
+}
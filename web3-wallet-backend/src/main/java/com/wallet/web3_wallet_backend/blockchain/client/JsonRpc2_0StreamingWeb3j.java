@@ -0,0 +1,34 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.JsonRpc2_0Web3j;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.EthFilter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JSON-RPC 2.0 implementation of {@link StreamingWeb3j}.
+ */
+class JsonRpc2_0StreamingWeb3j extends JsonRpc2_0Web3j implements StreamingWeb3j {
+
+    JsonRpc2_0StreamingWeb3j(Web3jService web3jService) {
+        super(web3jService);
+    }
+
+    @Override
+    public Request<?, EthBlockFees> ethGetBlockFees(DefaultBlockParameter defaultBlockParameter) {
+        return new Request<>(
+                "eth_getBlockByNumber",
+                Arrays.asList(defaultBlockParameter.getValue(), true),
+                web3jService,
+                EthBlockFees.class);
+    }
+
+    @Override
+    public Request<?, EthLogRecords> ethGetLogRecords(EthFilter ethFilter) {
+        return new Request<>("eth_getLogs", List.of(ethFilter), web3jService, EthLogRecords.class);
+    }
+}
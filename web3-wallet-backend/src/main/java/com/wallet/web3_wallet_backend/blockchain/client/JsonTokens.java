@@ -0,0 +1,81 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for the streaming decoders, which walk a JSON-RPC result token by token.
+ * Values that are not read are skipped by the parser without being copied out.
+ */
+final class JsonTokens {
+
+    private JsonTokens() {
+    }
+
+    /**
+     * Moves onto the first field of the object the parser is positioned at.
+     *
+     * @return The first field name token, or the closing token of an empty object
+     */
+    static JsonToken enterObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        return token == JsonToken.START_OBJECT ? parser.nextToken() : token;
+    }
+
+    /** Longest quantity, prefix included, that always fits in a long. */
+    private static final int MAX_LONG_QUANTITY_LENGTH = 2 + 15;
+
+    /**
+     * Quantities that fit in a long, which is nearly all of them, are read from the
+     * parser's buffer without copying the text out.
+     *
+     * @return The hex quantity at the current token, or null for a JSON null
+     */
+    static BigInteger quantity(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return null;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (length <= 2 || length > MAX_LONG_QUANTITY_LENGTH || chars[offset] != '0' || chars[offset + 1] != 'x') {
+            return Numeric.decodeQuantity(parser.getText());
+        }
+        long value = 0;
+        for (int i = offset + 2; i < offset + length; i++) {
+            int digit = Character.digit(chars[i], 16);
+            if (digit < 0) {
+                // Rejected with web3j's usual message
+                return Numeric.decodeQuantity(parser.getText());
+            }
+            value = value << 4 | digit;
+        }
+        return BigInteger.valueOf(value);
+    }
+
+    /**
+     * @return The string at the current token, or null for a JSON null
+     */
+    static String text(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+
+    /**
+     * @return The strings of the array at the current token, or an empty list for a JSON null
+     */
+    static List<String> texts(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (parser.currentToken() == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                values.add(text(parser));
+            }
+        }
+        return values;
+    }
+}
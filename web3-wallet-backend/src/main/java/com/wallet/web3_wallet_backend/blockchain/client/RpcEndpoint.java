@@ -0,0 +1,140 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.web3j.protocol.Web3jService;
+
+import java.math.BigInteger;
+import java.net.URI;
+
+/**
+ * One JSON-RPC provider in the {@link RpcEndpointPool} together with its health statistics.
+ * <p>
+ * Latency and error rate are tracked as exponentially weighted moving averages so that
+ * the score reacts to a degrading provider within a handful of calls while a single
+ * slow response does not push an otherwise healthy endpoint out of rotation.
+ * </p>
+ */
+public class RpcEndpoint {
+
+    /** Weight of the newest sample in the moving averages. */
+    private static final double EWMA_ALPHA = 0.2;
+
+    /** Extra score, in milliseconds, charged for every block the endpoint lags behind. */
+    private static final double LAG_PENALTY_MS = 250.0;
+
+    /** How strongly the error rate inflates the latency score. */
+    private static final double ERROR_PENALTY_FACTOR = 10.0;
+
+    /** Error rate above which the endpoint is taken out of preferred rotation. */
+    private static final double UNHEALTHY_ERROR_RATE = 0.5;
+
+    private final String name;
+    private final String url;
+    private final Web3jService transport;
+
+    private double latencyEwmaMs;
+    private double errorRateEwma;
+    private boolean sampled;
+    private int consecutiveFailures;
+    private long ejectedUntilMillis;
+    private BigInteger blockNumber;
+    private long blockLag;
+
+    /**
+     * Creates a pool member.
+     *
+     * @param url       The provider URL; only its host is used when reporting
+     * @param transport The transport used to reach the provider
+     */
+    public RpcEndpoint(String url, Web3jService transport) {
+        this.url = url;
+        this.name = hostOf(url);
+        this.transport = transport;
+    }
+
+    /**
+     * Records a call that reached the provider, whatever the JSON-RPC outcome.
+     *
+     * @param latencyNanos Round-trip time of the call
+     */
+    public synchronized void recordSuccess(long latencyNanos) {
+        sample(latencyNanos, 0.0);
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Records a transport-level failure and ejects the endpoint for the cooldown period
+     * once too many failures happen in a row.
+     *
+     * @param latencyNanos         Time spent before the call failed
+     * @param ejectAfterFailures   Consecutive failures that trigger an ejection
+     * @param cooldownMillis       How long an ejected endpoint is skipped
+     */
+    public synchronized void recordFailure(long latencyNanos, int ejectAfterFailures, long cooldownMillis) {
+        sample(latencyNanos, 1.0);
+        consecutiveFailures++;
+        if (consecutiveFailures >= ejectAfterFailures) {
+            ejectedUntilMillis = System.currentTimeMillis() + cooldownMillis;
+        }
+    }
+
+    /**
+     * Updates the block height reported by the provider and how far it lags the best one.
+     *
+     * @param blockNumber The provider's current head
+     * @param bestBlock   The highest head seen across the pool
+     */
+    public synchronized void updateBlock(BigInteger blockNumber, BigInteger bestBlock) {
+        this.blockNumber = blockNumber;
+        this.blockLag = Math.max(0, bestBlock.subtract(blockNumber).longValue());
+    }
+
+    /**
+     * Lower is better: EWMA latency inflated by the error rate plus a penalty per block of lag.
+     *
+     * @return The routing score in milliseconds
+     */
+    public synchronized double score() {
+        return latencyEwmaMs * (1.0 + ERROR_PENALTY_FACTOR * errorRateEwma) + blockLag * LAG_PENALTY_MS;
+    }
+
+    /**
+     * An endpoint is healthy while it is not ejected, mostly answers, and keeps up with the chain.
+     *
+     * @param maxBlockLag Largest tolerated lag behind the best endpoint
+     * @return true if the endpoint should receive traffic ahead of unhealthy ones
+     */
+    public synchronized boolean isHealthy(long maxBlockLag) {
+        return System.currentTimeMillis() >= ejectedUntilMillis
+                && errorRateEwma < UNHEALTHY_ERROR_RATE
+                && blockLag <= maxBlockLag;
+    }
+
+    private void sample(long latencyNanos, double error) {
+        double latencyMs = latencyNanos / 1_000_000.0;
+        if (!sampled) {
+            latencyEwmaMs = latencyMs;
+            errorRateEwma = error;
+            sampled = true;
+        } else {
+            latencyEwmaMs = EWMA_ALPHA * latencyMs + (1 - EWMA_ALPHA) * latencyEwmaMs;
+            errorRateEwma = EWMA_ALPHA * error + (1 - EWMA_ALPHA) * errorRateEwma;
+        }
+    }
+
+    static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    public String getName() { return name; }
+    public String getUrl() { return url; }
+    public Web3jService getTransport() { return transport; }
+    public synchronized double getLatencyEwmaMs() { return latencyEwmaMs; }
+    public synchronized double getErrorRateEwma() { return errorRateEwma; }
+    public synchronized BigInteger getBlockNumber() { return blockNumber; }
+    public synchronized long getBlockLag() { return blockLag; }
+}
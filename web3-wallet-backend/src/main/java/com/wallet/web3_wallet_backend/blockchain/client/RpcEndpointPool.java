@@ -0,0 +1,292 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.reactivex.Flowable;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.utils.Async;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Transport that spreads JSON-RPC traffic over several providers.
+ * <p>
+ * Each call is routed to the healthy endpoint with the best score (see {@link RpcEndpoint#score()}).
+ * If the provider cannot be reached, or answers with an HTTP error such as a rate limit,
+ * the call fails over to the next endpoint in score order. JSON-RPC level errors are
+ * returned to the caller unchanged, since another node would answer them the same way.
+ * Calls that change node state, such as broadcasts, only fail over when the provider
+ * surely did not take the request: it could not be connected to, or turned the request
+ * away as rate limited or unavailable. After a timeout or a dropped connection the
+ * request may already have been handled, so the failure is returned to the caller.
+ * </p>
+ * <p>
+ * A background probe asks every endpoint for its block number at a fixed interval. This
+ * measures latency for idle endpoints, works out how far each one lags behind the pool,
+ * and brings ejected endpoints back into rotation once they recover.
+ * </p>
+ */
+public class RpcEndpointPool implements Web3jService {
+
+    /** HTTP status in the message web3j gives a {@link ClientConnectionException} */
+    private static final Pattern HTTP_STATUS = Pattern.compile("Invalid response received: (\\d+)");
+
+    private final List<RpcEndpoint> endpoints;
+    private final long maxBlockLag;
+    private final int ejectAfterFailures;
+    private final long cooldownMillis;
+    private final ScheduledExecutorService prober;
+
+    /**
+     * Creates a pool and starts probing its endpoints.
+     *
+     * @param endpoints          The providers to route between, in order of preference for ties
+     * @param probeInterval      How often every endpoint is probed for its head block
+     * @param maxBlockLag        Largest lag, in blocks, tolerated for a healthy endpoint
+     * @param ejectAfterFailures Consecutive transport failures that eject an endpoint
+     * @param cooldown           How long an ejected endpoint is skipped
+     */
+    public RpcEndpointPool(List<RpcEndpoint> endpoints, Duration probeInterval, long maxBlockLag,
+                           int ejectAfterFailures, Duration cooldown) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one RPC endpoint is required");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.maxBlockLag = maxBlockLag;
+        this.ejectAfterFailures = ejectAfterFailures;
+        this.cooldownMillis = cooldown.toMillis();
+        this.prober = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("rpc-pool-probe"));
+        this.prober.scheduleWithFixedDelay(this::probe, 0, probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        IOException lastFailure = null;
+        for (RpcEndpoint endpoint : rankedEndpoints()) {
+            long start = System.nanoTime();
+            try {
+                T response = endpoint.getTransport().send(request, responseType);
+                endpoint.recordSuccess(System.nanoTime() - start);
+                return response;
+            } catch (IOException | ClientConnectionException e) {
+                recordFailure(endpoint, start);
+                lastFailure = asIOException(e);
+                if (!canFailOver(request, e)) {
+                    break;
+                }
+            }
+        }
+        throw lastFailure;
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return sendAsync(rankedEndpoints(), 0, request, responseType);
+    }
+
+    private <T extends Response> CompletableFuture<T> sendAsync(List<RpcEndpoint> ranked, int index,
+                                                                Request request, Class<T> responseType) {
+        RpcEndpoint endpoint = ranked.get(index);
+        long start = System.nanoTime();
+        return endpoint.getTransport().sendAsync(request, responseType)
+                .handle((response, error) -> {
+                    if (error == null) {
+                        endpoint.recordSuccess(System.nanoTime() - start);
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    Throwable cause = unwrap(error);
+                    if (!isTransportFailure(cause)) {
+                        return CompletableFuture.<T>failedFuture(cause);
+                    }
+                    recordFailure(endpoint, start);
+                    if (index + 1 < ranked.size() && canFailOver(request, cause)) {
+                        return sendAsync(ranked, index + 1, request, responseType);
+                    }
+                    return CompletableFuture.<T>failedFuture(cause);
+                })
+                .thenCompose(future -> future);
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        IOException lastFailure = null;
+        for (RpcEndpoint endpoint : rankedEndpoints()) {
+            long start = System.nanoTime();
+            try {
+                BatchResponse response = endpoint.getTransport().sendBatch(batchRequest);
+                endpoint.recordSuccess(System.nanoTime() - start);
+                return response;
+            } catch (IOException | ClientConnectionException e) {
+                recordFailure(endpoint, start);
+                lastFailure = asIOException(e);
+            }
+        }
+        throw lastFailure;
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        return Async.run(() -> sendBatch(batchRequest));
+    }
+
+    @Override
+    public <T extends Notification<?>> Flowable<T> subscribe(Request request, String unsubscribeMethod,
+                                                             Class<T> responseType) {
+        return rankedEndpoints().get(0).getTransport().subscribe(request, unsubscribeMethod, responseType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        prober.shutdownNow();
+        for (RpcEndpoint endpoint : endpoints) {
+            endpoint.getTransport().close();
+        }
+    }
+
+    /**
+     * A view of the pool that tries the best endpoint last, used to send hedged reads to a
+     * different provider than the attempt they race. Closing it leaves the pool open.
+     *
+     * @return A transport over the same endpoints
+     */
+    public Web3jService alternateRoute() {
+        return new ForwardingWeb3jService(this) {
+            @Override
+            public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+                return await(sendAsync(request, responseType));
+            }
+
+            @Override
+            public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+                List<RpcEndpoint> ranked = rankedEndpoints();
+                ranked.add(ranked.remove(0));
+                return RpcEndpointPool.this.sendAsync(ranked, 0, request, responseType);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Healthy endpoints by ascending score, followed by the unhealthy ones as a last resort.
+     *
+     * @return Every endpoint in the order calls should try them
+     */
+    public List<RpcEndpoint> rankedEndpoints() {
+        // Scores move while calls complete, so sort on a snapshot to keep the ordering consistent
+        Map<RpcEndpoint, Double> scores = new IdentityHashMap<>(endpoints.size());
+        List<RpcEndpoint> healthy = new ArrayList<>(endpoints.size());
+        List<RpcEndpoint> unhealthy = new ArrayList<>();
+        for (RpcEndpoint endpoint : endpoints) {
+            scores.put(endpoint, endpoint.score());
+            (endpoint.isHealthy(maxBlockLag) ? healthy : unhealthy).add(endpoint);
+        }
+        Comparator<RpcEndpoint> byScore = Comparator.comparingDouble(scores::get);
+        healthy.sort(byScore);
+        unhealthy.sort(byScore);
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    /**
+     * @return The pool members in configuration order
+     */
+    public List<RpcEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Asks every endpoint for its head block and recomputes block lag across the pool.
+     */
+    void probe() {
+        List<BigInteger> heads = new ArrayList<>(endpoints.size());
+        BigInteger best = BigInteger.ZERO;
+        for (RpcEndpoint endpoint : endpoints) {
+            BigInteger head = probe(endpoint);
+            heads.add(head);
+            if (head != null && head.compareTo(best) > 0) {
+                best = head;
+            }
+        }
+        for (int i = 0; i < endpoints.size(); i++) {
+            if (heads.get(i) != null) {
+                endpoints.get(i).updateBlock(heads.get(i), best);
+            }
+        }
+    }
+
+    private BigInteger probe(RpcEndpoint endpoint) {
+        Web3jService transport = endpoint.getTransport();
+        long start = System.nanoTime();
+        try {
+            EthBlockNumber response = new Request<>("eth_blockNumber", List.<String>of(), transport, EthBlockNumber.class)
+                    .send();
+            endpoint.recordSuccess(System.nanoTime() - start);
+            return response.hasError() ? null : response.getBlockNumber();
+        } catch (Exception e) {
+            recordFailure(endpoint, start);
+            return null;
+        }
+    }
+
+    private void recordFailure(RpcEndpoint endpoint, long startNanos) {
+        endpoint.recordFailure(System.nanoTime() - startNanos, ejectAfterFailures, cooldownMillis);
+    }
+
+    private static boolean isTransportFailure(Throwable error) {
+        return error instanceof IOException || error instanceof ClientConnectionException;
+    }
+
+    /**
+     * Reads can be sent again anywhere. A call with side effects is only sent to another
+     * endpoint if the failed one never took it.
+     */
+    private static boolean canFailOver(Request request, Throwable error) {
+        return RpcMethods.isRead(request.getMethod()) || isRefused(error);
+    }
+
+    private static boolean isRefused(Throwable error) {
+        if (error instanceof ConnectException || error instanceof UnknownHostException
+                || error instanceof NoRouteToHostException) {
+            return true;
+        }
+        if (error instanceof ClientConnectionException && error.getMessage() != null) {
+            Matcher status = HTTP_STATUS.matcher(error.getMessage());
+            // Rate limited or unavailable; a gateway timeout may have reached the node
+            return status.find() && (status.group(1).equals("429") || status.group(1).equals("503"));
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static IOException asIOException(Exception e) {
+        return e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+    }
+}
@@ -0,0 +1,58 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import java.util.Set;
+
+/**
+ * Group of JSON-RPC methods that share a circuit breaker and a bulkhead in
+ * {@link CircuitBreakingWeb3jService}, so a provider that struggles with one kind of call
+ * does not take the others down with it.
+ */
+public enum RpcMethodClass {
+
+    /** Account and contract state reads, receipts and transaction lookups. */
+    READ,
+
+    /** Gas estimation and fee lookups. */
+    ESTIMATE,
+
+    /** Signed transactions and any other call that changes node state. */
+    BROADCAST,
+
+    /** Head and block fetches. */
+    BLOCK;
+
+    private static final Set<String> ESTIMATES = Set.of(
+            "eth_estimateGas",
+            "eth_gasPrice",
+            "eth_maxPriorityFeePerGas",
+            "eth_feeHistory"
+    );
+
+    private static final Set<String> BLOCKS = Set.of(
+            "eth_blockNumber",
+            "eth_getBlockByNumber",
+            "eth_getBlockByHash",
+            "eth_getLogs"
+    );
+
+    /**
+     * @param method The JSON-RPC method
+     * @return The class the method belongs to
+     */
+    public static RpcMethodClass of(String method) {
+        if (ESTIMATES.contains(method)) {
+            return ESTIMATE;
+        }
+        if (BLOCKS.contains(method)) {
+            return BLOCK;
+        }
+        return RpcMethods.isRead(method) ? READ : BROADCAST;
+    }
+
+    /**
+     * @return The name used in configuration keys and metric tags
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,42 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import java.util.Set;
+
+/**
+ * Classification of the JSON-RPC methods this backend calls, shared by the transport
+ * decorators that treat reads and writes differently.
+ */
+final class RpcMethods {
+
+    /** Methods that only read chain state and can be repeated or shared freely. */
+    private static final Set<String> READS = Set.of(
+            "eth_blockNumber",
+            "eth_chainId",
+            "net_version",
+            "eth_gasPrice",
+            "eth_maxPriorityFeePerGas",
+            "eth_feeHistory",
+            "eth_getBalance",
+            "eth_getCode",
+            "eth_getStorageAt",
+            "eth_getTransactionCount",
+            "eth_call",
+            "eth_estimateGas",
+            "eth_getBlockByNumber",
+            "eth_getBlockByHash",
+            "eth_getTransactionByHash",
+            "eth_getTransactionReceipt",
+            "eth_getLogs"
+    );
+
+    private RpcMethods() {
+    }
+
+    /**
+     * @param method A JSON-RPC method name
+     * @return true if calling the method has no side effects on the node
+     */
+    static boolean isRead(String method) {
+        return READS.contains(method);
+    }
+}
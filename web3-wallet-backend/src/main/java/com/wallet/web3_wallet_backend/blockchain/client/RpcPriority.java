@@ -0,0 +1,71 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+/**
+ * Scheduling class of a JSON-RPC call, used by the {@link AdaptiveConcurrencyLimiter} to
+ * decide who goes first when the provider's capacity is exhausted.
+ * <p>
+ * Raw transaction broadcasts are always {@link #BROADCAST}. Other calls are
+ * {@link #INTERACTIVE} unless the calling thread has entered a {@link #BACKGROUND} scope,
+ * which monitoring loops and pollers do around their RPC work:
+ * </p>
+ * <pre>
+ * try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+ *     web3j.ethGetTransactionReceipt(hash).send();
+ * }
+ * </pre>
+ */
+public enum RpcPriority {
+
+    /** Signed transactions on their way to the network. */
+    BROADCAST,
+
+    /** Reads a user is waiting on. */
+    INTERACTIVE,
+
+    /** Monitoring, polling and fee sampling that can tolerate delay. */
+    BACKGROUND;
+
+    private static final String SEND_RAW_TRANSACTION = "eth_sendRawTransaction";
+
+    private static final ThreadLocal<RpcPriority> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Marks calls made by this thread with this priority until the scope is closed.
+     *
+     * @return A scope that restores the previous priority when closed
+     */
+    public Scope enter() {
+        RpcPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Works out the priority of a call about to be made on the current thread.
+     *
+     * @param method The JSON-RPC method
+     * @return The priority the call is scheduled with
+     */
+    public static RpcPriority of(String method) {
+        if (SEND_RAW_TRANSACTION.equals(method)) {
+            return BROADCAST;
+        }
+        RpcPriority current = CURRENT.get();
+        return current != null ? current : INTERACTIVE;
+    }
+
+    /**
+     * A priority scope that can be used in try-with-resources.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,21 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling the provider when the circuit for the call's
+ * {@link RpcMethodClass} is open or its bulkhead is full.
+ */
+public class RpcRejectedException extends IOException {
+
+    private final RpcMethodClass methodClass;
+
+    public RpcRejectedException(RpcMethodClass methodClass, String message) {
+        super(message);
+        this.methodClass = methodClass;
+    }
+
+    public RpcMethodClass getMethodClass() {
+        return methodClass;
+    }
+}
@@ -0,0 +1,30 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.core.Request;
+
+/**
+ * Identity of a JSON-RPC call for caching and de-duplication: its method plus its
+ * parameters serialized exactly as they would be sent to the node, and the type its
+ * response is decoded into, since the same call can be decoded in more than one way.
+ * The request id is deliberately left out.
+ */
+final class RpcRequestKey {
+
+    private RpcRequestKey() {
+    }
+
+    /**
+     * @param request The request to identify
+     * @return A key equal for every request with the same method, parameters and response type
+     */
+    static String of(Request<?, ?> request) {
+        try {
+            return request.getMethod() + ObjectMapperFactory.getObjectMapper().writeValueAsString(request.getParams())
+                    + ":" + request.getResponseType().getName();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize params of " + request.getMethod(), e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint ({@code /actuator/rpc}) summarising {@code web3.rpc.requests} per
+ * JSON-RPC method, to show which methods dominate provider traffic and latency.
+ * <p>
+ * The p99 is read from the latency buckets of every endpoint and outcome of a method
+ * merged together, so it is the upper bound of the bucket holding the 99th percentile
+ * rather than an exact value; calls slower than the last bucket report the slowest call.
+ * </p>
+ */
+@Endpoint(id = "rpc")
+public class RpcStatsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final MeterRegistry registry;
+
+    public RpcStatsEndpoint(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param limit How many methods to list in each ranking, 10 by default
+     * @return The busiest and the slowest methods
+     */
+    @ReadOperation
+    public RpcStats rpc(@Nullable Integer limit) {
+        int top = limit != null && limit > 0 ? limit : DEFAULT_LIMIT;
+        List<MethodStats> methods = methodStats();
+
+        List<MethodStats> byCount = new ArrayList<>(methods);
+        byCount.sort(Comparator.comparingLong(MethodStats::count).reversed());
+        List<MethodStats> byP99 = new ArrayList<>(methods);
+        byP99.sort(Comparator.comparingDouble(MethodStats::p99Ms).reversed());
+
+        return new RpcStats(
+                byCount.subList(0, Math.min(top, byCount.size())),
+                byP99.subList(0, Math.min(top, byP99.size())));
+    }
+
+    private List<MethodStats> methodStats() {
+        Map<String, Aggregate> aggregates = new HashMap<>();
+        for (Timer timer : registry.find(InstrumentedHttpService.REQUESTS).timers()) {
+            String method = timer.getId().getTag("method");
+            Aggregate aggregate = aggregates.computeIfAbsent(method, m -> new Aggregate());
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            aggregate.count += snapshot.count();
+            aggregate.totalNanos += snapshot.total(TimeUnit.NANOSECONDS);
+            aggregate.maxNanos = Math.max(aggregate.maxNanos, snapshot.max(TimeUnit.NANOSECONDS));
+            if (!"success".equals(timer.getId().getTag("outcome"))) {
+                aggregate.errors += snapshot.count();
+            }
+            for (CountAtBucket bucket : snapshot.histogramCounts()) {
+                aggregate.buckets.merge(bucket.bucket(TimeUnit.NANOSECONDS), bucket.count(), Double::sum);
+            }
+        }
+
+        List<MethodStats> stats = new ArrayList<>(aggregates.size());
+        aggregates.forEach((method, aggregate) -> {
+            if (aggregate.count > 0) {
+                stats.add(new MethodStats(method, aggregate.count, aggregate.errors,
+                        aggregate.totalNanos / aggregate.count / 1_000_000.0, aggregate.p99Nanos() / 1_000_000.0));
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Counts of one method across all of its timers; histogram buckets are cumulative.
+     */
+    private static final class Aggregate {
+        private long count;
+        private long errors;
+        private double totalNanos;
+        private double maxNanos;
+        private final TreeMap<Double, Double> buckets = new TreeMap<>();
+
+        private double p99Nanos() {
+            double threshold = count * 0.99;
+            for (Map.Entry<Double, Double> bucket : buckets.entrySet()) {
+                if (bucket.getValue() >= threshold) {
+                    return bucket.getKey();
+                }
+            }
+            // Slower than the largest bucket
+            return maxNanos;
+        }
+    }
+
+    public record RpcStats(List<MethodStats> topByCount, List<MethodStats> topByP99) {
+    }
+
+    public record MethodStats(String method, long count, long errors, double meanMs, double p99Ms) {
+    }
+}
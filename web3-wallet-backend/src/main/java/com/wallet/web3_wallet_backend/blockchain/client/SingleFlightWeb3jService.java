@@ -0,0 +1,103 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport decorator that lets concurrent callers of an identical read share one request.
+ * <p>
+ * The first caller of a (method, params) pair sends the request; anyone asking for the same
+ * thing while it is still in flight waits for that request and receives the same response.
+ * Once the response arrives the entry is forgotten, so no result outlives the request that
+ * produced it. Methods with side effects are always sent as-is.
+ * </p>
+ */
+public class SingleFlightWeb3jService extends ForwardingWeb3jService implements MeterBinder {
+
+    private final Map<String, CompletableFuture<Response<?>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param delegate The transport the leading request of each flight is sent through
+     */
+    public SingleFlightWeb3jService(Web3jService delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (!RpcMethods.isRead(request.getMethod())) {
+            return delegate.send(request, responseType);
+        }
+
+        String key = RpcRequestKey.of(request);
+        CompletableFuture<Response<?>> flight = new CompletableFuture<>();
+        CompletableFuture<Response<?>> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            return responseType.cast(await(leader));
+        }
+
+        // This caller leads the flight and sends on its own thread
+        try {
+            T response = delegate.send(request, responseType);
+            inFlight.remove(key, flight);
+            flight.complete(response);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        if (!RpcMethods.isRead(request.getMethod())) {
+            return delegate.sendAsync(request, responseType);
+        }
+
+        String key = RpcRequestKey.of(request);
+        CompletableFuture<Response<?>> flight = new CompletableFuture<>();
+        CompletableFuture<Response<?>> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            return leader.thenApply(responseType::cast);
+        }
+
+        delegate.sendAsync(request, responseType).whenComplete((response, error) -> {
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.completeExceptionally(error);
+            } else {
+                flight.complete(response);
+            }
+        });
+        return flight.thenApply(responseType::cast);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.rpc.singleflight.coalesced", coalesced, LongAdder::sum)
+                .description("JSON-RPC reads that joined an identical request already in flight")
+                .register(registry);
+        Gauge.builder("web3.rpc.singleflight.inflight", inFlight, Map::size)
+                .description("Distinct JSON-RPC reads currently in flight")
+                .register(registry);
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+}
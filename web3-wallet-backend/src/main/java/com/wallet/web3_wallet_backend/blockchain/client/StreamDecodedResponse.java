@@ -0,0 +1,13 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+/**
+ * Marks a response whose result is decoded field by field from the JSON token stream,
+ * keeping only the values callers asked for instead of building web3j's object graph.
+ * <p>
+ * Such responses are never put in a batch: web3j reads a whole batch response into a
+ * tree before decoding its members, which would bring back the allocations the
+ * streaming decoder avoids.
+ * </p>
+ */
+interface StreamDecodedResponse {
+}
@@ -0,0 +1,45 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.EthFilter;
+
+/**
+ * {@link Web3j} with extra block and log reads whose responses are decoded straight from
+ * the token stream, keeping only the fields their callers use.
+ * <p>
+ * They send the same JSON-RPC calls as their web3j counterparts and go through the same
+ * transport stack, so caching, de-duplication and limits apply to them as usual.
+ * </p>
+ */
+public interface StreamingWeb3j extends Web3j {
+
+    /**
+     * Construct a new StreamingWeb3j instance.
+     *
+     * @param web3jService The transport requests are sent through
+     * @return A new StreamingWeb3j instance
+     */
+    static StreamingWeb3j build(Web3jService web3jService) {
+        return new JsonRpc2_0StreamingWeb3j(web3jService);
+    }
+
+    /**
+     * {@code eth_getBlockByNumber} with full transactions, keeping only the block's fee
+     * fields and those of its transactions.
+     *
+     * @param defaultBlockParameter The block to read
+     * @return The request
+     */
+    Request<?, EthBlockFees> ethGetBlockFees(DefaultBlockParameter defaultBlockParameter);
+
+    /**
+     * {@code eth_getLogs} decoded into compact log records.
+     *
+     * @param ethFilter The logs to read
+     * @return The request
+     */
+    Request<?, EthLogRecords> ethGetLogRecords(EthFilter ethFilter);
+}
@@ -1,18 +1,221 @@
 package com.wallet.web3_wallet_backend.blockchain.client;
 
 import com.wallet.web3_wallet_backend.blockchain.transaction.TransactionBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
 import org.web3j.protocol.http.HttpService;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 public class Web3ClientConfig {
 
+    /**
+     * The raw JSON-RPC transport: one provider or a pool of them, optionally batched, with
+     * slow reads hedged, behind an adaptive concurrency limit and per-method-class circuit
+     * breakers and bulkheads.
+     * Closed by {@link Web3j#shutdown()} along with the decorators stacked on top of it.
+     */
+    @Bean(destroyMethod = "")
+    public Web3jService rpcTransport(@Value("${web3.ethereum.rpcUrl:http://localhost:8545}") String rpcUrl,
+                                     @Value("${web3.ethereum.rpcUrls:}") String[] rpcUrls,
+                                     @Value("${web3.ethereum.pool.probeIntervalMs:5000}") long probeIntervalMs,
+                                     @Value("${web3.ethereum.pool.maxBlockLag:3}") long maxBlockLag,
+                                     @Value("${web3.ethereum.pool.ejectAfterFailures:3}") int ejectAfterFailures,
+                                     @Value("${web3.ethereum.pool.cooldownMs:30000}") long cooldownMs,
+                                     @Value("${web3.ethereum.batch.enabled:false}") boolean batchEnabled,
+                                     @Value("${web3.ethereum.batch.windowMs:5}") long batchWindowMs,
+                                     @Value("${web3.ethereum.batch.maxSize:50}") int batchMaxSize,
+                                     @Value("${web3.ethereum.hedge.enabled:false}") boolean hedgeEnabled,
+                                     @Value("${web3.ethereum.hedge.percentile:0.95}") double hedgePercentile,
+                                     @Value("${web3.ethereum.hedge.minDelayMs:50}") long hedgeMinDelayMs,
+                                     @Value("${web3.ethereum.hedge.maxDelayMs:2000}") long hedgeMaxDelayMs,
+                                     @Value("${web3.ethereum.hedge.budgetRatio:0.05}") double hedgeBudgetRatio,
+                                     @Value("${web3.ethereum.limiter.enabled:false}") boolean limiterEnabled,
+                                     @Value("${web3.ethereum.limiter.initialLimit:20}") int initialLimit,
+                                     @Value("${web3.ethereum.limiter.minLimit:1}") int minLimit,
+                                     @Value("${web3.ethereum.limiter.maxLimit:200}") int maxLimit,
+                                     @Value("${web3.ethereum.limiter.backoffRatio:0.7}") double backoffRatio,
+                                     @Value("${web3.ethereum.limiter.queueTimeoutMs:10000}") long queueTimeoutMs,
+                                     @Value("${web3.ethereum.circuit.enabled:false}") boolean circuitEnabled,
+                                     @Value("${web3.ethereum.circuit.windowSize:20}") int circuitWindowSize,
+                                     @Value("${web3.ethereum.circuit.minimumCalls:10}") int circuitMinimumCalls,
+                                     @Value("${web3.ethereum.circuit.failureRateThreshold:0.5}") double circuitFailureRate,
+                                     @Value("${web3.ethereum.circuit.openMs:10000}") long circuitOpenMs,
+                                     @Value("${web3.ethereum.circuit.halfOpenProbes:3}") int circuitHalfOpenProbes,
+                                     @Value("${web3.ethereum.circuit.maxStaleMs:60000}") long circuitMaxStaleMs,
+                                     @Value("${web3.ethereum.bulkhead.read:64}") int bulkheadRead,
+                                     @Value("${web3.ethereum.bulkhead.estimate:32}") int bulkheadEstimate,
+                                     @Value("${web3.ethereum.bulkhead.broadcast:16}") int bulkheadBroadcast,
+                                     @Value("${web3.ethereum.bulkhead.block:32}") int bulkheadBlock,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        List<String> urls = Arrays.stream(rpcUrls)
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        Web3jService service;
+        Web3jService hedgeRoute = null;
+        if (urls.size() > 1) {
+            // Several providers configured: route between them by health score
+            List<RpcEndpoint> endpoints = urls.stream()
+                    .map(url -> new RpcEndpoint(url, httpTransport(url, registry)))
+                    .toList();
+            RpcEndpointPool pool = new RpcEndpointPool(endpoints, Duration.ofMillis(probeIntervalMs), maxBlockLag,
+                    ejectAfterFailures, Duration.ofMillis(cooldownMs));
+            hedgeRoute = pool.alternateRoute();
+            service = pool;
+        } else {
+            service = httpTransport(urls.isEmpty() ? rpcUrl : urls.get(0), registry);
+        }
+
+        if (batchEnabled) {
+            service = new BatchingWeb3jService(service, Duration.ofMillis(batchWindowMs), batchMaxSize);
+        }
+
+        if (hedgeEnabled) {
+            // With a pool, hedges skip the batch window and go to a different provider;
+            // with a single provider they are sent through the same transport again
+            HedgingWeb3jService hedging = new HedgingWeb3jService(service,
+                    hedgeRoute != null ? hedgeRoute : service, hedgePercentile,
+                    Duration.ofMillis(hedgeMinDelayMs), Duration.ofMillis(hedgeMaxDelayMs), hedgeBudgetRatio);
+            meterRegistry.ifAvailable(hedging::bindTo);
+            service = hedging;
+        }
+
+        if (limiterEnabled) {
+            // Above batching so every call counts against the provider's quota, not every batch;
+            // a hedged read holds its one slot for both attempts
+            AdaptiveConcurrencyLimiter limiter =
+                    new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio);
+            ConcurrencyLimitedWeb3jService limited =
+                    new ConcurrencyLimitedWeb3jService(service, limiter, Duration.ofMillis(queueTimeoutMs));
+            meterRegistry.ifAvailable(limited::bindTo);
+            service = limited;
+        }
+
+        if (circuitEnabled) {
+            // Outermost, so refused calls fail before taking a limiter slot or waiting in its queue
+            Map<RpcMethodClass, CircuitBreaker> breakers = new EnumMap<>(RpcMethodClass.class);
+            for (RpcMethodClass methodClass : RpcMethodClass.values()) {
+                breakers.put(methodClass, new CircuitBreaker(circuitWindowSize, circuitMinimumCalls,
+                        circuitFailureRate, Duration.ofMillis(circuitOpenMs), circuitHalfOpenProbes));
+            }
+            Map<RpcMethodClass, Integer> bulkheads = new EnumMap<>(Map.of(
+                    RpcMethodClass.READ, bulkheadRead,
+                    RpcMethodClass.ESTIMATE, bulkheadEstimate,
+                    RpcMethodClass.BROADCAST, bulkheadBroadcast,
+                    RpcMethodClass.BLOCK, bulkheadBlock));
+            CircuitBreakingWeb3jService circuit = new CircuitBreakingWeb3jService(service, breakers, bulkheads,
+                    Duration.ofMillis(circuitMaxStaleMs));
+            meterRegistry.ifAvailable(circuit::bindTo);
+            service = circuit;
+        }
+        return service;
+    }
+
+    /**
+     * The HTTP client for one provider, recording every exchange when metrics are available.
+     */
+    private static HttpService httpTransport(String url, MeterRegistry registry) {
+        return registry != null ? new InstrumentedHttpService(url, registry) : new HttpService(url);
+    }
+
+    /**
+     * Per-method summary of the provider traffic recorded by {@link InstrumentedHttpService}.
+     */
+    @Bean
+    public RpcStatsEndpoint rpcStatsEndpoint(MeterRegistry meterRegistry) {
+        return new RpcStatsEndpoint(meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ChainHeadTracker chainHeadTracker(Web3jService rpcTransport,
+                                             @Value("${web3.ethereum.head.pollIntervalMs:1000}") long pollIntervalMs,
+                                             @Value("${web3.ethereum.head.pushTimeoutMs:30000}") long pushTimeoutMs) {
+        return new ChainHeadTracker(rpcTransport, Duration.ofMillis(pollIntervalMs), Duration.ofMillis(pushTimeoutMs));
+    }
+
+    /**
+     * WebSocket event streams, only created when {@code web3.ethereum.wsUrl} is set.
+     * Gaps left by dropped connections are backfilled through the HTTP client.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("'${web3.ethereum.wsUrl:}' != ''")
+    public ChainSubscriptionService chainSubscriptionService(
+            @Value("${web3.ethereum.wsUrl}") String wsUrl,
+            Web3j web3j,
+            ChainHeadTracker chainHeadTracker,
+            @Value("${web3.ethereum.ws.maxReconnectDelayMs:30000}") long maxReconnectDelayMs,
+            @Value("${web3.ethereum.ws.maxBackfillBlocks:128}") int maxBackfillBlocks,
+            BlockHeaderCache blockHeaderCache) {
+        ChainSubscriptionService subscriptions = new ChainSubscriptionService(wsUrl, web3j, chainHeadTracker,
+                Duration.ofMillis(maxReconnectDelayMs), maxBackfillBlocks);
+        // Pushed headers go straight into the header cache, before the tracker announces them
+        subscriptions.newHeads().subscribe(blockHeaderCache::put, error -> { });
+        return subscriptions;
+    }
+
     @Bean
-    public Web3j web3j(@Value("${web3.ethereum.rpcUrl:http://localhost:8545}") String rpcUrl) {
-        return Web3j.build(new HttpService(rpcUrl));
+    public StreamingWeb3j web3j(Web3jService rpcTransport,
+                                ChainHeadTracker chainHeadTracker,
+                                ObjectProvider<MeterRegistry> meterRegistry,
+                                @Value("${web3.ethereum.singleFlight.enabled:true}") boolean singleFlightEnabled,
+                                @Value("${web3.ethereum.cache.enabled:true}") boolean cacheEnabled,
+                                @Value("${web3.ethereum.cache.maxEntries:10000}") int cacheMaxEntries) {
+        Web3jService service = rpcTransport;
+        if (singleFlightEnabled) {
+            SingleFlightWeb3jService singleFlight = new SingleFlightWeb3jService(service);
+            meterRegistry.ifAvailable(singleFlight::bindTo);
+            service = singleFlight;
+        }
+        if (cacheEnabled) {
+            BlockScopedCacheWeb3jService cache =
+                    new BlockScopedCacheWeb3jService(service, chainHeadTracker, cacheMaxEntries);
+            meterRegistry.ifAvailable(cache::bindTo);
+            service = cache;
+        }
+        return StreamingWeb3j.build(service);
+    }
+
+    /**
+     * Block headers shared by the gas, monitoring and status paths, with the head header
+     * fetched once per block.
+     */
+    @Bean
+    public BlockHeaderCache blockHeaderCache(StreamingWeb3j web3j,
+                                             ChainHeadTracker chainHeadTracker,
+                                             @Value("${web3.ethereum.headers.maxEntries:1024}") int maxEntries,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        BlockHeaderCache cache = new BlockHeaderCache(web3j, chainHeadTracker, maxEntries);
+        meterRegistry.ifAvailable(cache::bindTo);
+        return cache;
+    }
+
+    /**
+     * What the chain supports, probed in the background at startup and then refreshed rarely.
+     */
+    @Bean(destroyMethod = "close")
+    public ChainCapabilities chainCapabilities(StreamingWeb3j web3j,
+                                               @Value("${web3.ethereum.chainId:1}") long chainId,
+                                               @Value("${web3.ethereum.capabilities.refreshMs:3600000}") long refreshMs,
+                                               @Value("${web3.ethereum.capabilities.retryMs:5000}") long retryMs,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        ChainCapabilities capabilities =
+                new ChainCapabilities(web3j, chainId, Duration.ofMillis(refreshMs), Duration.ofMillis(retryMs));
+        meterRegistry.ifAvailable(capabilities::bindTo);
+        return capabilities;
     }
 
     @Bean
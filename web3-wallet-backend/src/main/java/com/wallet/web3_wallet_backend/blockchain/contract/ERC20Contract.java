@@ -15,6 +15,7 @@ import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ERC-20 Token Contract Interface.
@@ -24,6 +25,10 @@ import java.util.List;
  * contract wrappers. It exposes common ERC-20 read-only methods and helpers for encoding
  * transactions.
  * </p>
+ * <p>
+ * Every read also has an asynchronous variant built on {@code sendAsync()}, which returns
+ * immediately and completes once the node answers.
+ * </p>
  */
 public class ERC20Contract {
 
@@ -271,4 +276,116 @@ public class ERC20Contract {
         // Return the allowance or zero if not present
         return result.isEmpty() ? BigInteger.ZERO : (BigInteger) result.get(0).getValue();
     }
+
+    /**
+     * Asynchronous variant of {@link #name()}.
+     *
+     * @return A future completing with the token's name, or an empty string if not available.
+     */
+    public CompletableFuture<String> nameAsync() {
+        Function function = new Function(
+            "name",
+            Collections.emptyList(),
+            Arrays.asList(new TypeReference<Utf8String>() {})
+        );
+        return callAsync(function).thenApply(result -> result.isEmpty() ? "" : (String) result.get(0).getValue());
+    }
+
+    /**
+     * Asynchronous variant of {@link #symbol()}.
+     *
+     * @return A future completing with the token's symbol, or an empty string if not available.
+     */
+    public CompletableFuture<String> symbolAsync() {
+        Function function = new Function(
+            "symbol",
+            Collections.emptyList(),
+            Arrays.asList(new TypeReference<Utf8String>() {})
+        );
+        return callAsync(function).thenApply(result -> result.isEmpty() ? "" : (String) result.get(0).getValue());
+    }
+
+    /**
+     * Asynchronous variant of {@link #decimals()}.
+     *
+     * @return A future completing with the number of decimals (default 18 if not present).
+     */
+    public CompletableFuture<Integer> decimalsAsync() {
+        Function function = new Function(
+            "decimals",
+            Collections.emptyList(),
+            Arrays.asList(new TypeReference<Uint8>() {})
+        );
+        return callAsync(function)
+            .thenApply(result -> result.isEmpty() ? 18 : ((BigInteger) result.get(0).getValue()).intValue());
+    }
+
+    /**
+     * Asynchronous variant of {@link #balanceOf(String)}.
+     *
+     * @param owner The address to query the balance for.
+     * @return A future completing with the balance in the smallest unit.
+     */
+    public CompletableFuture<BigInteger> balanceOfAsync(String owner) {
+        Function function = new Function(
+            "balanceOf",
+            Arrays.asList(new Address(owner)),
+            Arrays.asList(new TypeReference<Uint256>() {})
+        );
+        return callAsync(function).thenApply(ERC20Contract::firstUint);
+    }
+
+    /**
+     * Asynchronous variant of {@link #totalSupply()}.
+     *
+     * @return A future completing with the total supply.
+     */
+    public CompletableFuture<BigInteger> totalSupplyAsync() {
+        Function function = new Function(
+            "totalSupply",
+            Collections.emptyList(),
+            Arrays.asList(new TypeReference<Uint256>() {})
+        );
+        return callAsync(function).thenApply(ERC20Contract::firstUint);
+    }
+
+    /**
+     * Asynchronous variant of {@link #allowance(String, String)}.
+     *
+     * @param owner   The address of the token owner.
+     * @param spender The address of the spender.
+     * @return A future completing with the remaining allowance.
+     */
+    public CompletableFuture<BigInteger> allowanceAsync(String owner, String spender) {
+        Function function = new Function(
+            "allowance",
+            Arrays.asList(new Address(owner), new Address(spender)),
+            Arrays.asList(new TypeReference<Uint256>() {})
+        );
+        return callAsync(function).thenApply(ERC20Contract::firstUint);
+    }
+
+    /**
+     * Sends a read-only call to the contract without blocking and decodes its return values.
+     *
+     * @param function The function to call.
+     * @return A future completing with the decoded return values.
+     */
+    private CompletableFuture<List<org.web3j.abi.datatypes.Type>> callAsync(Function function) {
+        String encodedFunction = org.web3j.abi.FunctionEncoder.encode(function);
+        return web3j.ethCall(
+            Transaction.createEthCallTransaction(null, contractAddress, encodedFunction),
+            DefaultBlockParameterName.LATEST
+        ).sendAsync().thenApply(response -> org.web3j.abi.FunctionReturnDecoder.decode(
+            response.getValue(),
+            function.getOutputParameters()
+        ));
+    }
+
+    /**
+     * @return The first decoded value as a BigInteger, or zero if nothing was returned.
+     */
+    private static BigInteger firstUint(List<org.web3j.abi.datatypes.Type> result) {
+        return result.isEmpty() ? BigInteger.ZERO : (BigInteger) result.get(0).getValue();
+    }
 }
@@ -0,0 +1,370 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import com.wallet.web3_wallet_backend.blockchain.client.ChainHeadTracker;
+import com.wallet.web3_wallet_backend.blockchain.client.EthBlockFees;
+import com.wallet.web3_wallet_backend.blockchain.client.RpcPriority;
+import com.wallet.web3_wallet_backend.blockchain.client.StreamingWeb3j;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.response.EthFeeHistory;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rolling window of per-block fee summaries, updated as each new head arrives, from which
+ * fee recommendations are read without a round trip to the node.
+ * <p>
+ * Each block in the window is summarized by its base fee, gas used ratio and the priority
+ * fee paid at each tier's percentile. A new head only fetches the blocks added since the
+ * previous update, with one {@code eth_feeHistory} call, or by streaming those blocks' fee
+ * fields where the node lacks that method, plus an {@code eth_gasPrice} for legacy prices.
+ * The tier fees are then aggregated once into a {@link Snapshot}, so reads cost a volatile
+ * load however many requests ask.
+ * </p>
+ * <p>
+ * Updates never overlap: a head arriving while one is running makes it run again once it
+ * finishes. A failed update leaves the previous snapshot in place and is retried shortly
+ * after, without waiting for the next head, so the window is refreshed ahead of the head
+ * moving on far enough for readers to stop trusting it. Blocks replaced by a reorg keep
+ * their summary until they slide out of the window.
+ * </p>
+ * <p>
+ * Update durations are timed in {@code web3.fees.window.refresh} by result, and how far the
+ * snapshot trails the head is published in blocks as {@code web3.fees.window.lag} and in
+ * time as {@code web3.fees.window.age}.
+ * </p>
+ */
+class FeeWindow implements MeterBinder {
+
+    /** JSON-RPC error code of a method the node does not implement */
+    private static final int METHOD_NOT_FOUND = -32601;
+
+    /** EIP-1559 base fee change denominator: the base fee moves at most 1/8 per block */
+    private static final BigInteger BASE_FEE_CHANGE_DENOMINATOR = BigInteger.valueOf(8);
+
+    /** Delay before a failed update is retried if no new head has triggered one */
+    private static final long RETRY_DELAY_MS = 1000;
+
+    /**
+     * Fee figures of one block.
+     *
+     * @param number       The block number
+     * @param baseFee      The block's base fee, or null before EIP-1559
+     * @param gasUsedRatio Share of the block gas limit used
+     * @param rewards      Priority fee paid at each tier's percentile, slowest first
+     */
+    record BlockFeeSummary(long number, BigInteger baseFee, double gasUsedRatio, List<BigInteger> rewards) {
+    }
+
+    /**
+     * Aggregated fee data as of one head.
+     *
+     * @param head        The newest block in the window
+     * @param nextBaseFee Base fee of the block after the head, or null before EIP-1559
+     * @param gasPrice    The node's legacy gas price, or null if it has not answered yet
+     * @param tierFees    Median priority fee of each tier over the window, slowest first
+     */
+    record Snapshot(long head, BigInteger nextBaseFee, BigInteger gasPrice, List<BigInteger> tierFees) {
+    }
+
+    private final StreamingWeb3j web3j;
+    private final ChainHeadTracker chainHeadTracker;
+    private final boolean useFeeHistory;
+    private final List<Double> rewardPercentiles;
+
+    /** Summaries indexed by block number modulo the capacity; only touched by the running update */
+    private final BlockFeeSummary[] ring;
+    private long newestBlock = -1;
+
+    private final AtomicBoolean updating = new AtomicBoolean();
+    private volatile boolean updateRequested;
+    private volatile boolean feeHistoryUnsupported;
+    private volatile boolean closed;
+    private volatile Snapshot snapshot;
+    private volatile long publishedAtMillis;
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshNanos = new LongAdder();
+    private final LongAdder failedRefreshes = new LongAdder();
+    private final LongAdder failedRefreshNanos = new LongAdder();
+
+    /**
+     * @param web3j             The Web3j instance fees are read through
+     * @param chainHeadTracker  Announces the heads that trigger updates
+     * @param capacity          Number of recent blocks kept
+     * @param useFeeHistory     Whether blocks are summarized with eth_feeHistory when the node has it
+     * @param rewardPercentiles Reward percentile of each tier, in increasing order
+     */
+    FeeWindow(StreamingWeb3j web3j, ChainHeadTracker chainHeadTracker, int capacity, boolean useFeeHistory,
+              List<Double> rewardPercentiles) {
+        this.web3j = web3j;
+        this.chainHeadTracker = chainHeadTracker;
+        this.useFeeHistory = useFeeHistory;
+        this.rewardPercentiles = rewardPercentiles;
+        this.ring = new BlockFeeSummary[capacity];
+        chainHeadTracker.addListener(head -> requestUpdate());
+        // Warm up from whatever head is already known
+        requestUpdate();
+    }
+
+    /**
+     * @return The latest aggregated fee data, or null until the first update has completed
+     */
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Stops updating; the last snapshot stays readable.
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Starts an update, or makes the running one start another when it finishes.
+     */
+    private void requestUpdate() {
+        if (closed) {
+            return;
+        }
+        updateRequested = true;
+        if (updating.compareAndSet(false, true)) {
+            update();
+        }
+    }
+
+    private void update() {
+        updateRequested = false;
+        BigInteger head = chainHeadTracker.currentHead();
+        long started = System.nanoTime();
+        boolean refreshing = head != null && head.longValueExact() > newestBlock;
+        CompletableFuture<Void> done;
+        if (!refreshing) {
+            done = CompletableFuture.completedFuture(null);
+        } else {
+            long to = head.longValueExact();
+            long from = Math.max(newestBlock + 1, Math.max(0, to - ring.length + 1));
+            // Fee tracking yields to user-facing calls
+            try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+                CompletableFuture<EthGasPrice> gasPrice = web3j.ethGasPrice().sendAsync();
+                done = fetch(from, to)
+                    .thenCombine(gasPrice.handle((response, error) ->
+                        error == null && !response.hasError() ? response.getGasPrice() : null),
+                        (nextBaseFee, price) -> {
+                            publish(to, nextBaseFee, price);
+                            return null;
+                        });
+            } catch (RuntimeException e) {
+                done = CompletableFuture.failedFuture(e);
+            }
+        }
+        done.whenComplete((ignored, error) -> {
+            if (refreshing) {
+                record(System.nanoTime() - started, error == null);
+            }
+            updating.set(false);
+            if (updateRequested) {
+                requestUpdate();
+            } else if (error != null && !closed) {
+                CompletableFuture.delayedExecutor(RETRY_DELAY_MS, TimeUnit.MILLISECONDS).execute(this::requestUpdate);
+            }
+        });
+    }
+
+    private void record(long elapsedNanos, boolean succeeded) {
+        if (succeeded) {
+            refreshes.increment();
+            refreshNanos.add(elapsedNanos);
+        } else {
+            failedRefreshes.increment();
+            failedRefreshNanos.add(elapsedNanos);
+        }
+    }
+
+    /**
+     * Summarizes the given blocks into the ring.
+     *
+     * @return A future completing with the base fee of the block after {@code to}
+     */
+    private CompletableFuture<BigInteger> fetch(long from, long to) {
+        if (!useFeeHistory || feeHistoryUnsupported) {
+            return sampleBlocks(from, to);
+        }
+        return web3j.ethFeeHistory((int) (to - from + 1), DefaultBlockParameter.valueOf(BigInteger.valueOf(to)),
+                rewardPercentiles).sendAsync()
+            .thenCompose(response -> {
+                if (response.hasError() && response.getError().getCode() == METHOD_NOT_FOUND) {
+                    feeHistoryUnsupported = true;
+                    return sampleBlocks(from, to);
+                }
+                if (response.hasError() || response.getFeeHistory() == null) {
+                    return CompletableFuture.failedFuture(
+                        new IllegalStateException("eth_feeHistory failed for blocks " + from + "-" + to));
+                }
+                List<BlockFeeSummary> summaries = summarize(response.getFeeHistory());
+                summaries.forEach(this::store);
+                List<BigInteger> baseFees = response.getFeeHistory().getBaseFeePerGas();
+                return CompletableFuture.completedFuture(baseFees.get(baseFees.size() - 1));
+            });
+    }
+
+    /**
+     * Summarizes the given blocks from their streamed fee fields. Tier fees are plain
+     * percentiles of the tips of EIP-1559 transactions, since the fee fields carry no gas
+     * used per transaction to weigh them by.
+     */
+    private CompletableFuture<BigInteger> sampleBlocks(long from, long to) {
+        List<CompletableFuture<EthBlockFees>> blocks = new ArrayList<>();
+        for (long number = from; number <= to; number++) {
+            blocks.add(web3j.ethGetBlockFees(DefaultBlockParameter.valueOf(BigInteger.valueOf(number))).sendAsync());
+        }
+        return CompletableFuture.allOf(blocks.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                EthBlockFees.BlockFees newest = null;
+                for (CompletableFuture<EthBlockFees> block : blocks) {
+                    EthBlockFees.BlockFees fees = block.join().getBlockFees();
+                    if (fees == null) {
+                        throw new IllegalStateException("Block not available yet");
+                    }
+                    store(summarize(fees));
+                    newest = fees;
+                }
+                return nextBaseFee(newest);
+            });
+    }
+
+    private void store(BlockFeeSummary summary) {
+        ring[(int) (summary.number() % ring.length)] = summary;
+        newestBlock = Math.max(newestBlock, summary.number());
+    }
+
+    private void publish(long head, BigInteger nextBaseFee, BigInteger gasPrice) {
+        List<BlockFeeSummary> window = new ArrayList<>(ring.length);
+        for (BlockFeeSummary summary : ring) {
+            // Slots still holding blocks from before a gap in the heads are left out
+            if (summary != null && summary.number() > head - ring.length) {
+                window.add(summary);
+            }
+        }
+        Snapshot previous = snapshot;
+        BigInteger price = gasPrice != null ? gasPrice : previous != null ? previous.gasPrice() : null;
+        snapshot = new Snapshot(head, nextBaseFee, price, tierFees(window, rewardPercentiles.size()));
+        publishedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Splits a fee history into one summary per block.
+     */
+    static List<BlockFeeSummary> summarize(EthFeeHistory.FeeHistory history) {
+        List<BigInteger> baseFees = history.getBaseFeePerGas();
+        List<Double> gasUsedRatios = history.getGasUsedRatio();
+        List<List<BigInteger>> rewards = history.getRewardRaw() != null ? history.getReward() : List.of();
+        long oldest = history.getOldestBlock().longValueExact();
+        List<BlockFeeSummary> summaries = new ArrayList<>();
+        for (int i = 0; i < gasUsedRatios.size(); i++) {
+            summaries.add(new BlockFeeSummary(oldest + i, i < baseFees.size() ? baseFees.get(i) : null,
+                gasUsedRatios.get(i), i < rewards.size() && rewards.get(i) != null ? rewards.get(i) : List.of()));
+        }
+        return summaries;
+    }
+
+    private BlockFeeSummary summarize(EthBlockFees.BlockFees block) {
+        BigInteger baseFee = block.baseFeePerGas();
+        List<BigInteger> tips = new ArrayList<>();
+        if (baseFee != null) {
+            for (EthBlockFees.TransactionFees tx : block.transactions()) {
+                // Legacy transactions did not choose a tip, so they are left out
+                if (tx.maxPriorityFeePerGas() != null && tx.gasPrice() != null && tx.gasPrice().compareTo(baseFee) > 0) {
+                    tips.add(tx.gasPrice().subtract(baseFee));
+                }
+            }
+        }
+        Collections.sort(tips);
+        List<BigInteger> rewards = new ArrayList<>(rewardPercentiles.size());
+        for (double percentile : rewardPercentiles) {
+            int index = (int) Math.ceil(percentile / 100 * tips.size()) - 1;
+            rewards.add(tips.isEmpty() ? BigInteger.ZERO : tips.get(Math.max(0, Math.min(tips.size() - 1, index))));
+        }
+        double gasUsedRatio = block.gasLimit() == null || block.gasLimit().signum() == 0 ? 0
+            : block.gasUsed().doubleValue() / block.gasLimit().doubleValue();
+        return new BlockFeeSummary(block.number().longValueExact(), baseFee, gasUsedRatio, rewards);
+    }
+
+    /**
+     * Median priority fee of each tier over the non-empty blocks, which would otherwise
+     * drag every tier down with their zero rewards.
+     */
+    static List<BigInteger> tierFees(List<BlockFeeSummary> summaries, int tiers) {
+        List<BigInteger> tierFees = new ArrayList<>(tiers);
+        for (int tier = 0; tier < tiers; tier++) {
+            List<BigInteger> fees = new ArrayList<>();
+            for (BlockFeeSummary summary : summaries) {
+                if (summary.gasUsedRatio() > 0 && tier < summary.rewards().size()) {
+                    fees.add(summary.rewards().get(tier));
+                }
+            }
+            tierFees.add(GasManager.calculateMedian(GasManager.withDefaultPriorityFee(fees)));
+        }
+        return tierFees;
+    }
+
+    /**
+     * EIP-1559 base fee of the block following the given one.
+     */
+    private static BigInteger nextBaseFee(EthBlockFees.BlockFees block) {
+        BigInteger baseFee = block.baseFeePerGas();
+        if (baseFee == null || block.gasUsed() == null || block.gasLimit() == null) {
+            return baseFee;
+        }
+        BigInteger target = block.gasLimit().divide(BigInteger.TWO);
+        if (target.signum() == 0) {
+            return baseFee;
+        }
+        int comparison = block.gasUsed().compareTo(target);
+        if (comparison == 0) {
+            return baseFee;
+        }
+        BigInteger delta = baseFee.multiply(block.gasUsed().subtract(target).abs())
+            .divide(target).divide(BASE_FEE_CHANGE_DENOMINATOR);
+        return comparison > 0 ? baseFee.add(delta.max(BigInteger.ONE)) : baseFee.subtract(delta);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("web3.fees.window.refresh", refreshes, LongAdder::sum,
+                        ignored -> refreshNanos.sum(), TimeUnit.NANOSECONDS)
+                .tag("result", "success")
+                .description("Fee window updates that published a new snapshot")
+                .register(registry);
+        FunctionTimer.builder("web3.fees.window.refresh", failedRefreshes, LongAdder::sum,
+                        ignored -> failedRefreshNanos.sum(), TimeUnit.NANOSECONDS)
+                .tag("result", "failure")
+                .description("Fee window updates that failed and kept the previous snapshot")
+                .register(registry);
+        Gauge.builder("web3.fees.window.lag", this, window -> {
+                    Snapshot current = window.snapshot;
+                    BigInteger head = window.chainHeadTracker.currentHead();
+                    return current == null || head == null ? Double.NaN : head.longValueExact() - current.head();
+                })
+                .description("Blocks the fee window's snapshot trails the chain head by")
+                .baseUnit("blocks")
+                .register(registry);
+        Gauge.builder("web3.fees.window.age", this, window -> window.snapshot == null
+                        ? Double.NaN : (System.currentTimeMillis() - window.publishedAtMillis) / 1000.0)
+                .description("Time since the fee window last published a snapshot")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+}
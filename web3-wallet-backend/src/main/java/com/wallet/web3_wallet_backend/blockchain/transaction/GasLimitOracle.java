@@ -0,0 +1,391 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthGetCode;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks gas limits for transactions that do not set one, calling {@code eth_estimateGas}
+ * only when nothing better is known.
+ * <p>
+ * A plain transfer to an account without code always uses 21000 gas, so whether each
+ * recipient has code is remembered: accounts with code for as long as they stay in the
+ * cache, accounts without code for a configurable time, since code can still be deployed
+ * to them. Calls to contracts are answered from the gas used by earlier receipts of the
+ * same function, keyed by contract and selector, once there are enough receipts and they
+ * agree closely enough. Gas used in a receipt is net of refunds, which since London are
+ * capped at a fifth of the gas the call needed, so the limit is the highest gas used seen
+ * scaled back up by that cap, plus the same 10% margin as an estimate. A reverted receipt
+ * discards what was learned for its function.
+ * </p>
+ */
+@Component
+public class GasLimitOracle implements MeterBinder {
+
+    /** Gas used by a transfer of ETH with no data to an account without code */
+    public static final BigInteger TRANSFER_GAS_LIMIT = BigInteger.valueOf(21000L);
+
+    /** Receipts of one function the learned limit is derived from */
+    private static final int SAMPLE_WINDOW = 32;
+
+    /** Length of {@code 0x} followed by a 4-byte function selector */
+    private static final int SELECTOR_LENGTH = 10;
+
+    /**
+     * Gas needed before refunds per unit of gas used after them, in percent, at most:
+     * refunds are capped at 20% of the gas needed (EIP-3529), so gas used is at least 80%
+     */
+    private static final long REFUND_CAP_FACTOR_PERCENT = 125;
+
+    private final Web3j web3j;
+    private final GasManager gasManager;
+    /** Null when nothing is learned from receipts */
+    private final TransactionMonitor transactionMonitor;
+    private final int minSamples;
+    private final double maxSpread;
+    private final long accountTtlMillis;
+
+    private final Map<String, AccountCode> accounts;
+    private final Map<String, GasUsage> usage;
+
+    private final LongAdder transfers = new LongAdder();
+    private final LongAdder learned = new LongAdder();
+    private final LongAdder estimated = new LongAdder();
+
+    /**
+     * Whether an account had code when it was last checked.
+     */
+    private record AccountCode(boolean hasCode, long checkedAtMillis) {
+    }
+
+    /**
+     * Creates an oracle that does not learn from receipts.
+     *
+     * @param web3j      The Web3j instance code lookups go through
+     * @param gasManager Estimates gas limits the oracle cannot answer
+     */
+    public GasLimitOracle(Web3j web3j, GasManager gasManager) {
+        this(web3j, gasManager, null, 5, 0.4, 600000, 10000);
+    }
+
+    /**
+     * @param web3j              The Web3j instance code lookups go through
+     * @param gasManager         Estimates gas limits the oracle cannot answer
+     * @param transactionMonitor Reports the receipts gas used is learned from
+     * @param minSamples         Receipts of a function needed before its limit is learned
+     * @param maxSpread          Largest spread of gas used, as a fraction of the highest,
+     *                           at which a learned limit is used
+     * @param accountTtlMillis   How long an account without code is remembered as such
+     * @param maxEntries         Most accounts, and most functions, remembered
+     */
+    @Autowired
+    public GasLimitOracle(Web3j web3j,
+                          GasManager gasManager,
+                          TransactionMonitor transactionMonitor,
+                          @Value("${web3.ethereum.gasLimit.minSamples:5}") int minSamples,
+                          @Value("${web3.ethereum.gasLimit.maxSpread:0.4}") double maxSpread,
+                          @Value("${web3.ethereum.gasLimit.accountTtlMs:600000}") long accountTtlMillis,
+                          @Value("${web3.ethereum.gasLimit.maxEntries:10000}") int maxEntries) {
+        if (minSamples < 1 || minSamples > SAMPLE_WINDOW || maxSpread < 0 || maxEntries < 1) {
+            throw new IllegalArgumentException("Invalid gas limit oracle settings");
+        }
+        this.web3j = web3j;
+        this.gasManager = gasManager;
+        this.transactionMonitor = transactionMonitor;
+        this.minSamples = minSamples;
+        this.maxSpread = maxSpread;
+        this.accountTtlMillis = accountTtlMillis;
+        this.accounts = boundedMap(maxEntries);
+        this.usage = boundedMap(maxEntries);
+    }
+
+    /**
+     * Picks the gas limit for a transaction, falling back to the gas manager's default
+     * when it has to be estimated and estimation fails.
+     *
+     * @param from  The sender's address
+     * @param to    The recipient's address, or null for a contract creation
+     * @param value The amount of ETH to transfer in Wei
+     * @param data  The transaction data, or empty for a plain transfer
+     * @return The gas limit
+     */
+    public BigInteger gasLimit(String from, String to, BigInteger value, String data) {
+        return gasLimit(from, to, value, data, null);
+    }
+
+    /**
+     * Picks the gas limit for a transaction.
+     *
+     * @param from         The sender's address
+     * @param to           The recipient's address, or null for a contract creation
+     * @param value        The amount of ETH to transfer in Wei
+     * @param data         The transaction data, or empty for a plain transfer
+     * @param defaultLimit The limit used if estimation fails, or null for the gas manager's default
+     * @return The gas limit
+     */
+    public BigInteger gasLimit(String from, String to, BigInteger value, String data, BigInteger defaultLimit) {
+        String selector = selector(data);
+        if (to == null || selector == null) {
+            return estimate(from, to, value, data, defaultLimit);
+        }
+        if (selector.isEmpty()) {
+            Boolean hasCode = knownCode(to);
+            if (hasCode == null) {
+                hasCode = fetchCode(to);
+            }
+            if (Boolean.FALSE.equals(hasCode)) {
+                transfers.increment();
+                return TRANSFER_GAS_LIMIT;
+            }
+        }
+        BigInteger learnedLimit = learnedLimit(to, selector);
+        return learnedLimit != null ? learnedLimit : estimate(from, to, value, data, defaultLimit);
+    }
+
+    /**
+     * Asynchronous variant of {@link #gasLimit(String, String, BigInteger, String, BigInteger)}.
+     *
+     * @return A future completing with the gas limit; it never fails
+     */
+    public CompletableFuture<BigInteger> gasLimitAsync(String from, String to, BigInteger value, String data,
+                                                       BigInteger defaultLimit) {
+        String selector = selector(data);
+        if (to == null || selector == null) {
+            return estimateAsync(from, to, value, data, defaultLimit);
+        }
+        if (selector.isEmpty()) {
+            Boolean hasCode = knownCode(to);
+            CompletableFuture<Boolean> code = hasCode != null
+                ? CompletableFuture.completedFuture(hasCode)
+                : fetchCodeAsync(to);
+            return code.thenCompose(contract -> {
+                if (Boolean.FALSE.equals(contract)) {
+                    transfers.increment();
+                    return CompletableFuture.completedFuture(TRANSFER_GAS_LIMIT);
+                }
+                return learnedOrEstimateAsync(from, to, value, data, selector, defaultLimit);
+            });
+        }
+        return learnedOrEstimateAsync(from, to, value, data, selector, defaultLimit);
+    }
+
+    /**
+     * Asynchronous variant of {@link #gasLimit(String, String, BigInteger, String)}.
+     *
+     * @return A future completing with the gas limit; it never fails
+     */
+    public CompletableFuture<BigInteger> gasLimitAsync(String from, String to, BigInteger value, String data) {
+        return gasLimitAsync(from, to, value, data, null);
+    }
+
+    /**
+     * Learns the gas used by a broadcast transaction from its receipt, once it is mined.
+     * Does nothing when the oracle was created without a transaction monitor.
+     *
+     * @param transactionHash The broadcast transaction's hash
+     * @param to              Its recipient, or null for a contract creation
+     * @param data            Its data
+     */
+    public void observe(String transactionHash, String to, String data) {
+        String selector = selector(data);
+        if (transactionMonitor == null || transactionHash == null || to == null || selector == null) {
+            return;
+        }
+        transactionMonitor.monitorTransaction(transactionHash, 1, (receipt, confirmations) -> {
+            // Null once the monitor gives up on the transaction
+            if (receipt != null) {
+                record(to, selector, receipt);
+            }
+        });
+    }
+
+    private void record(String to, String selector, TransactionReceipt receipt) {
+        String key = key(to, selector);
+        if (!receipt.isStatusOK()) {
+            // The limit may have been too low; relearn from estimates
+            usage.remove(key);
+            return;
+        }
+        if (receipt.getGasUsed() == null) {
+            return;
+        }
+        // The call ran code, whatever the code cache says
+        if (selector.isEmpty() && receipt.getGasUsed().compareTo(TRANSFER_GAS_LIMIT) > 0) {
+            accounts.put(normalize(to), new AccountCode(true, System.currentTimeMillis()));
+        }
+        usage.computeIfAbsent(key, ignored -> new GasUsage()).add(receipt.getGasUsed().longValue());
+    }
+
+    private BigInteger learnedLimit(String to, String selector) {
+        GasUsage gasUsage = usage.get(key(to, selector));
+        BigInteger limit = gasUsage != null ? gasUsage.limit(minSamples, maxSpread) : null;
+        if (limit != null) {
+            learned.increment();
+        }
+        return limit;
+    }
+
+    private CompletableFuture<BigInteger> learnedOrEstimateAsync(String from, String to, BigInteger value, String data,
+                                                                 String selector, BigInteger defaultLimit) {
+        BigInteger learnedLimit = learnedLimit(to, selector);
+        return learnedLimit != null
+            ? CompletableFuture.completedFuture(learnedLimit)
+            : estimateAsync(from, to, value, data, defaultLimit);
+    }
+
+    private BigInteger estimate(String from, String to, BigInteger value, String data, BigInteger defaultLimit) {
+        estimated.increment();
+        return defaultLimit != null
+            ? gasManager.estimateGasLimit(from, to, value, data, defaultLimit)
+            : gasManager.estimateGasLimit(from, to, value, data);
+    }
+
+    private CompletableFuture<BigInteger> estimateAsync(String from, String to, BigInteger value, String data,
+                                                        BigInteger defaultLimit) {
+        estimated.increment();
+        return defaultLimit != null
+            ? gasManager.estimateGasLimitAsync(from, to, value, data, defaultLimit)
+            : gasManager.estimateGasLimitAsync(from, to, value, data);
+    }
+
+    /**
+     * @return Whether the account has code, or null if it was not checked recently enough
+     */
+    private Boolean knownCode(String address) {
+        AccountCode code = accounts.get(normalize(address));
+        if (code == null) {
+            return null;
+        }
+        if (!code.hasCode() && System.currentTimeMillis() - code.checkedAtMillis() > accountTtlMillis) {
+            return null;
+        }
+        return code.hasCode();
+    }
+
+    /**
+     * @return Whether the account has code, or null if the node could not be asked
+     */
+    private Boolean fetchCode(String address) {
+        try {
+            return rememberCode(address, web3j.ethGetCode(address, DefaultBlockParameterName.LATEST).send());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private CompletableFuture<Boolean> fetchCodeAsync(String address) {
+        return web3j.ethGetCode(address, DefaultBlockParameterName.LATEST).sendAsync()
+            .handle((response, error) -> error == null ? rememberCode(address, response) : null);
+    }
+
+    private Boolean rememberCode(String address, EthGetCode response) {
+        if (response.hasError() || response.getCode() == null) {
+            return null;
+        }
+        boolean hasCode = response.getCode().length() > 2;
+        accounts.put(normalize(address), new AccountCode(hasCode, System.currentTimeMillis()));
+        return hasCode;
+    }
+
+    /**
+     * @return The function selector of the data, empty for a plain transfer, or null if
+     *         the data is too short to call a function
+     */
+    private static String selector(String data) {
+        if (data == null || data.isEmpty() || data.equals("0x")) {
+            return "";
+        }
+        String prefixed = data.startsWith("0x") ? data : "0x" + data;
+        if (prefixed.length() < SELECTOR_LENGTH) {
+            return null;
+        }
+        return prefixed.substring(0, SELECTOR_LENGTH).toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String to, String selector) {
+        return normalize(to) + ":" + selector;
+    }
+
+    private static String normalize(String address) {
+        return address.toLowerCase(Locale.ROOT);
+    }
+
+    private static <V> Map<String, V> boundedMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Gas used by the most recent receipts of one contract function.
+     */
+    private static final class GasUsage {
+        private final long[] samples = new long[SAMPLE_WINDOW];
+        private int count;
+        private int next;
+
+        synchronized void add(long gasUsed) {
+            samples[next] = gasUsed;
+            next = (next + 1) % SAMPLE_WINDOW;
+            count = Math.min(count + 1, SAMPLE_WINDOW);
+        }
+
+        /**
+         * @return The most gas the highest gas used can have needed before refunds, plus a
+         *         10% margin, or null if there are too few samples or they spread too
+         *         widely to rely on
+         */
+        synchronized BigInteger limit(int minSamples, double maxSpread) {
+            if (count < minSamples) {
+                return null;
+            }
+            long min = Long.MAX_VALUE;
+            long max = 0;
+            for (int i = 0; i < count; i++) {
+                min = Math.min(min, samples[i]);
+                max = Math.max(max, samples[i]);
+            }
+            if (max - min > max * maxSpread) {
+                return null;
+            }
+            // Same 10% safety margin as an estimate, on top of the gas refunded
+            return BigInteger.valueOf(max)
+                .multiply(BigInteger.valueOf(REFUND_CAP_FACTOR_PERCENT * 110))
+                .divide(BigInteger.valueOf(100 * 100));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.gas.limit.requests", transfers, LongAdder::sum)
+                .tag("source", "transfer")
+                .description("Gas limits of plain transfers to accounts without code, picked without an estimate")
+                .register(registry);
+        FunctionCounter.builder("web3.gas.limit.requests", learned, LongAdder::sum)
+                .tag("source", "learned")
+                .description("Gas limits learned from the receipts of earlier calls to the same function")
+                .register(registry);
+        FunctionCounter.builder("web3.gas.limit.requests", estimated, LongAdder::sum)
+                .tag("source", "estimate")
+                .description("Gas limits that needed an eth_estimateGas call")
+                .register(registry);
+    }
+}
@@ -1,46 +1,170 @@
 package com.wallet.web3_wallet_backend.blockchain.transaction;
 
-import org.springframework.cache.annotation.Cacheable;
+import com.wallet.web3_wallet_backend.blockchain.client.BlockHeaderCache;
+import com.wallet.web3_wallet_backend.blockchain.client.ChainCapabilities;
+import com.wallet.web3_wallet_backend.blockchain.client.ChainHeadTracker;
+import com.wallet.web3_wallet_backend.blockchain.client.EthBlockFees;
+import com.wallet.web3_wallet_backend.blockchain.client.RpcPriority;
+import com.wallet.web3_wallet_backend.blockchain.client.StreamingWeb3j;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
-import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
 import org.web3j.protocol.core.methods.request.Transaction;
 import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthFeeHistory;
 import org.web3j.protocol.core.methods.response.EthGasPrice;
 import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Manages gas-related operations for Ethereum transactions including gas estimation,
  * gas price calculation for both legacy and EIP-1559 transactions, and nonce management.
+ * Each RPC-backed operation also has an asynchronous variant that never blocks the caller.
+ * <p>
+ * EIP-1559 recommendations come from the configured {@link FeeOracle}. The fee history
+ * oracle falls back to block sampling for nodes that do not implement
+ * {@code eth_feeHistory}.
+ * </p>
+ * <p>
+ * Gas prices are read from a {@link FeeWindow} that follows the chain head, so the request
+ * path does not wait on the node for them. The node is only asked directly while the
+ * window has not caught up, at startup or if its updates keep failing. Which of the two
+ * answered each gas price read is counted in {@code web3.fees.requests}.
+ * </p>
  */
 @Component
-public class GasManager {
+public class GasManager implements MeterBinder {
     
-    private final Web3j web3j;
+    /**
+     * How EIP-1559 priority fee tiers are derived.
+     */
+    public enum FeeOracle {
+        /** One {@code eth_feeHistory} call, reading a reward percentile per speed tier. */
+        FEE_HISTORY,
+        /** Fractions of the median tip paid by the EIP-1559 transactions of recent blocks. */
+        BLOCK_SAMPLING
+    }
+    
+    /** JSON-RPC error code of a method the node does not implement */
+    private static final int METHOD_NOT_FOUND = -32601;
+    
+    /** Most blocks a node serves in one eth_feeHistory call */
+    private static final int MAX_FEE_HISTORY_BLOCKS = 1024;
+    
+    /** Blocks the fee window may trail the head while the update for the newest one runs */
+    private static final long MAX_WINDOW_LAG_BLOCKS = 1;
+    
+    private final StreamingWeb3j web3j;
+    private final FeeOracle feeOracle;
+    private final int feeHistoryBlocks;
+    private final List<Double> rewardPercentiles;
+    private final ChainHeadTracker chainHeadTracker;
+    /** Null when EIP-1559 support is probed on every check */
+    private final ChainCapabilities chainCapabilities;
+    /** Null when the latest block is fetched whenever it is needed */
+    private final BlockHeaderCache blockHeaderCache;
+    /** Null when gas prices are always read from the node */
+    private final FeeWindow feeWindow;
+    
+    /** Set once the node has answered that it does not implement eth_feeHistory */
+    private volatile boolean feeHistoryUnsupported;
+    
+    private final LongAdder windowReads = new LongAdder();
+    private final LongAdder nodeReads = new LongAdder();
     
     /** Default gas limit for simple ETH transfers (21,000 gas units) */
     private static final BigInteger DEFAULT_GAS_LIMIT = BigInteger.valueOf(21000L);
     
-    /** Conversion factor from Gwei to Wei (1 Gwei = 10^9 Wei) */
-    private static final BigDecimal GWEI_TO_WEI = new BigDecimal("1000000000");
-    
     /**
      * Constructs a GasManager with the provided Web3j instance.
      * 
+     * @param web3j The Web3j instance for blockchain communication, whose streaming reads
+     *              are used to sample recent blocks
+     */
+    public GasManager(StreamingWeb3j web3j) {
+        this(web3j, null, null, null, FeeOracle.FEE_HISTORY, 10, new double[] {10, 50, 90}, false);
+    }
+    
+    /**
+     * Constructs a GasManager with the given EIP-1559 fee oracle.
+     * 
      * @param web3j The Web3j instance for blockchain communication
+     * @param chainHeadTracker Announces the heads that keep the fee window current
+     * @param chainCapabilities What the chain supports, probed at startup
+     * @param blockHeaderCache Shared block headers, from which the latest base fee is read
+     * @param feeOracle How EIP-1559 priority fee tiers are derived
+     * @param feeHistoryBlocks Number of recent blocks the fee oracle and the fee window cover
+     * @param rewardPercentiles Reward percentiles of the slow, medium and fast tiers, in increasing order
+     * @param feeWindowEnabled Whether gas prices are served from the fee window rather than the node
      */
-    public GasManager(Web3j web3j) {
+    @Autowired
+    public GasManager(StreamingWeb3j web3j,
+                      ChainHeadTracker chainHeadTracker,
+                      ChainCapabilities chainCapabilities,
+                      BlockHeaderCache blockHeaderCache,
+                      @Value("${web3.ethereum.fees.oracle:FEE_HISTORY}") FeeOracle feeOracle,
+                      @Value("${web3.ethereum.fees.historyBlocks:10}") int feeHistoryBlocks,
+                      @Value("${web3.ethereum.fees.rewardPercentiles:10,50,90}") double[] rewardPercentiles,
+                      @Value("${web3.ethereum.fees.window.enabled:true}") boolean feeWindowEnabled) {
+        if (feeHistoryBlocks < 1 || feeHistoryBlocks > MAX_FEE_HISTORY_BLOCKS || rewardPercentiles.length != 3
+                || rewardPercentiles[0] < 0 || rewardPercentiles[2] > 100
+                || rewardPercentiles[0] > rewardPercentiles[1] || rewardPercentiles[1] > rewardPercentiles[2]) {
+            throw new IllegalArgumentException("Invalid fee history settings");
+        }
         this.web3j = web3j;
+        this.feeOracle = feeOracle;
+        this.feeHistoryBlocks = feeHistoryBlocks;
+        this.rewardPercentiles = Arrays.stream(rewardPercentiles).boxed().toList();
+        this.chainHeadTracker = chainHeadTracker;
+        this.chainCapabilities = chainCapabilities;
+        this.blockHeaderCache = blockHeaderCache;
+        this.feeWindow = feeWindowEnabled && chainHeadTracker != null
+            ? new FeeWindow(web3j, chainHeadTracker, feeHistoryBlocks, feeOracle == FeeOracle.FEE_HISTORY,
+                this.rewardPercentiles)
+            : null;
     }
     
+    /**
+     * Stops following the chain head. Called by Spring when the context shuts down.
+     */
+    @PreDestroy
+    public void close() {
+        if (feeWindow != null) {
+            feeWindow.close();
+        }
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.fees.requests", windowReads, LongAdder::sum)
+                .tag("source", "window")
+                .description("Gas price reads answered from the fee window")
+                .register(registry);
+        FunctionCounter.builder("web3.fees.requests", nodeReads, LongAdder::sum)
+                .tag("source", "node")
+                .description("Gas price reads that had to wait on the node")
+                .register(registry);
+        if (feeWindow != null) {
+            feeWindow.bindTo(registry);
+        }
+    }
+
     /**
      * Estimates the gas limit required for a transaction.
      * Adds a 10% safety margin to the estimated gas to prevent transaction failures.
@@ -52,6 +176,22 @@ public class GasManager {
      * @return The estimated gas limit with safety margin, or default limit if estimation fails
      */
     public BigInteger estimateGasLimit(String from, String to, BigInteger value, String data) {
+        return estimateGasLimit(from, to, value, data, DEFAULT_GAS_LIMIT);
+    }
+    
+    /**
+     * Estimates the gas limit required for a transaction, with the given limit used when
+     * estimation fails.
+     * 
+     * @param from The sender's address
+     * @param to The recipient's address
+     * @param value The amount of ETH to transfer in Wei
+     * @param data The transaction data (contract call data or empty for simple transfers)
+     * @param defaultLimit The limit returned if estimation fails
+     * @return The estimated gas limit with safety margin, or the default limit
+     */
+    public BigInteger estimateGasLimit(String from, String to, BigInteger value, String data,
+                                       BigInteger defaultLimit) {
         try {
             Transaction transaction = Transaction.createFunctionCallTransaction(
                 from, 
@@ -65,7 +205,7 @@ public class GasManager {
             
             var response = web3j.ethEstimateGas(transaction).send();
             if (response.hasError()) {
-                return DEFAULT_GAS_LIMIT;
+                return defaultLimit;
             }
             
             BigInteger estimated = response.getAmountUsed();
@@ -73,27 +213,88 @@ public class GasManager {
             return estimated.multiply(BigInteger.valueOf(110)).divide(BigInteger.valueOf(100));
             
         } catch (Exception e) {
-            return DEFAULT_GAS_LIMIT;
+            return defaultLimit;
         }
     }
     
+    /**
+     * Asynchronous variant of {@link #estimateGasLimit(String, String, BigInteger, String)}.
+     *
+     * @param from The sender's address
+     * @param to The recipient's address
+     * @param value The amount of ETH to transfer in Wei
+     * @param data The transaction data (contract call data or empty for simple transfers)
+     * @return A future completing with the estimated gas limit with safety margin, or the
+     *         default limit if estimation fails; it never fails
+     */
+    public CompletableFuture<BigInteger> estimateGasLimitAsync(String from, String to, BigInteger value, String data) {
+        return estimateGasLimitAsync(from, to, value, data, DEFAULT_GAS_LIMIT);
+    }
+    
+    /**
+     * Asynchronous variant of {@link #estimateGasLimit(String, String, BigInteger, String, BigInteger)}.
+     *
+     * @param from The sender's address
+     * @param to The recipient's address
+     * @param value The amount of ETH to transfer in Wei
+     * @param data The transaction data (contract call data or empty for simple transfers)
+     * @param defaultLimit The limit the future completes with if estimation fails
+     * @return A future completing with the estimated gas limit with safety margin, or the
+     *         default limit; it never fails
+     */
+    public CompletableFuture<BigInteger> estimateGasLimitAsync(String from, String to, BigInteger value, String data,
+                                                               BigInteger defaultLimit) {
+        Transaction transaction = Transaction.createFunctionCallTransaction(from, null, null, null, to, value, data);
+        return web3j.ethEstimateGas(transaction).sendAsync()
+            .handle((response, error) -> {
+                if (error != null || response.hasError()) {
+                    return defaultLimit;
+                }
+                // Add 10% safety margin to prevent transaction failures
+                return response.getAmountUsed().multiply(BigInteger.valueOf(110)).divide(BigInteger.valueOf(100));
+            });
+    }
+    
     /**
      * Retrieves gas prices for legacy transactions (pre-EIP-1559).
      * Provides slow, medium, and fast gas price options based on network conditions.
-     * Cached for 30 seconds to reduce RPC calls.
+     * Read from the fee window when it is current, so at most one block old.
      *
      * @return GasPrices object containing slow, medium, and fast gas prices
      * @throws IOException if the network request fails
      */
-    @Cacheable(value = "gasPrices", key = "'legacy'")
     public GasPrices getLegacyGasPrices() throws IOException {
+        FeeWindow.Snapshot fees = countedFees(true);
+        if (fees != null) {
+            return legacyPrices(fees.gasPrice());
+        }
         EthGasPrice ethGasPrice = web3j.ethGasPrice().send();
-        BigInteger basePrice = ethGasPrice.getGasPrice();
-        
+        return legacyPrices(ethGasPrice.getGasPrice());
+    }
+    
+    /**
+     * Asynchronous variant of {@link #getLegacyGasPrices()}.
+     *
+     * @return A future completing with slow, medium, and fast gas prices
+     */
+    public CompletableFuture<GasPrices> getLegacyGasPricesAsync() {
+        FeeWindow.Snapshot fees = countedFees(true);
+        if (fees != null) {
+            return CompletableFuture.completedFuture(legacyPrices(fees.gasPrice()));
+        }
+        return web3j.ethGasPrice().sendAsync()
+            .thenApply(ethGasPrice -> legacyPrices(ethGasPrice.getGasPrice()));
+    }
+    
+    /**
+     * Derives the legacy speed options from the node's gas price.
+     */
+    private static GasPrices legacyPrices(BigInteger basePrice) {
         // Calculate gas prices with different multipliers for various speed preferences
-        BigInteger slow = basePrice.multiply(BigInteger.valueOf(90)).divide(BigInteger.valueOf(100));  // 90% of base
+        Wei base = Wei.of(basePrice);
+        BigInteger slow = base.percent(90).toBigInteger();  // 90% of base
         BigInteger medium = basePrice;  // 100% of base
-        BigInteger fast = basePrice.multiply(BigInteger.valueOf(120)).divide(BigInteger.valueOf(100)); // 120% of base
+        BigInteger fast = base.percent(120).toBigInteger(); // 120% of base
         
         return new GasPrices(slow, medium, fast);
     }
@@ -101,36 +302,183 @@ public class GasManager {
     /**
      * Retrieves gas prices for EIP-1559 transactions.
      * Calculates both maxFeePerGas and maxPriorityFeePerGas based on recent network activity.
-     * Cached for 30 seconds to reduce RPC calls.
+     * Read from the fee window when it is current, so at most one block old.
      *
      * @return EIP1559GasPrices object containing max fee and priority fee options
      * @throws IOException if the network request fails
      * @throws UnsupportedOperationException if the network doesn't support EIP-1559
      */
-    @Cacheable(value = "gasPrices", key = "'eip1559'")
     public EIP1559GasPrices getEIP1559GasPrices() throws IOException {
-        EthBlock.Block block = web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false)
-            .send()
-            .getBlock();
+        FeeWindow.Snapshot fees = countedFees(false);
+        if (fees != null) {
+            return windowPrices(fees);
+        }
+        if (usesFeeHistory()) {
+            EIP1559GasPrices prices = feeHistoryPrices(feeHistory().send());
+            if (prices != null) {
+                return prices;
+            }
+        }
+        return sampledEIP1559GasPrices();
+    }
+    
+    /**
+     * Asynchronous variant of {@link #getEIP1559GasPrices()}.
+     *
+     * @return A future completing with max fee and priority fee options, or failing with
+     *         {@link UnsupportedOperationException} if the network doesn't support EIP-1559
+     */
+    public CompletableFuture<EIP1559GasPrices> getEIP1559GasPricesAsync() {
+        FeeWindow.Snapshot fees = countedFees(false);
+        if (fees != null) {
+            try {
+                return CompletableFuture.completedFuture(windowPrices(fees));
+            } catch (UnsupportedOperationException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (!usesFeeHistory()) {
+            return sampledEIP1559GasPricesAsync();
+        }
+        return feeHistory().sendAsync()
+            .thenCompose(response -> {
+                EIP1559GasPrices prices = feeHistoryPrices(response);
+                return prices != null ? CompletableFuture.completedFuture(prices) : sampledEIP1559GasPricesAsync();
+            });
+    }
+    
+    /**
+     * @return The fee window's data if it is at most one block behind the head, otherwise null
+     */
+    private FeeWindow.Snapshot currentFees() {
+        if (feeWindow == null) {
+            return null;
+        }
+        FeeWindow.Snapshot fees = feeWindow.snapshot();
+        BigInteger head = chainHeadTracker.currentHead();
+        if (fees == null || head == null || head.longValueExact() - fees.head() > MAX_WINDOW_LAG_BLOCKS) {
+            return null;
+        }
+        return fees;
+    }
+    
+    /**
+     * @return The fee window's data for a gas price read, counting whether the read is
+     *         answered from it or has to go to the node
+     */
+    private FeeWindow.Snapshot countedFees(boolean needsGasPrice) {
+        FeeWindow.Snapshot fees = currentFees();
+        if (fees != null && (!needsGasPrice || fees.gasPrice() != null)) {
+            windowReads.increment();
+            return fees;
+        }
+        nodeReads.increment();
+        return null;
+    }
+    
+    /**
+     * Derives the EIP-1559 speed options from the fee window.
+     */
+    private static EIP1559GasPrices windowPrices(FeeWindow.Snapshot fees) {
+        if (fees.nextBaseFee() == null) {
+            throw new UnsupportedOperationException("Network does not support EIP-1559");
+        }
+        List<BigInteger> tiers = fees.tierFees();
+        return eip1559Prices(fees.nextBaseFee(), tiers.get(0), tiers.get(1), tiers.get(2));
+    }
+    
+    private boolean usesFeeHistory() {
+        return feeOracle == FeeOracle.FEE_HISTORY && !feeHistoryUnsupported
+            && (chainCapabilities == null || !Boolean.FALSE.equals(chainCapabilities.supportsFeeHistory()));
+    }
+    
+    private Request<?, EthFeeHistory> feeHistory() {
+        return web3j.ethFeeHistory(feeHistoryBlocks, DefaultBlockParameterName.LATEST, rewardPercentiles);
+    }
+    
+    /**
+     * Derives the EIP-1559 speed options from a fee history: each tier's priority fee is the
+     * median over the non-empty blocks of its reward percentile, and the base fee is the one
+     * the history projects for the next block.
+     *
+     * @return The speed options, or null if the node could not answer and block sampling
+     *         should be used instead
+     */
+    private EIP1559GasPrices feeHistoryPrices(EthFeeHistory response) {
+        if (response.hasError()) {
+            if (response.getError().getCode() == METHOD_NOT_FOUND) {
+                feeHistoryUnsupported = true;
+            }
+            return null;
+        }
+        EthFeeHistory.FeeHistory history = response.getFeeHistory();
+        if (history == null || history.getBaseFeePerGasRaw() == null || history.getBaseFeePerGasRaw().isEmpty()
+                || history.getRewardRaw() == null) {
+            return null;
+        }
+        List<BigInteger> baseFees = history.getBaseFeePerGas();
+        // One entry more than there are blocks: the last one is the base fee of the next block
+        BigInteger nextBaseFee = baseFees.get(baseFees.size() - 1);
+        List<BigInteger> tiers = FeeWindow.tierFees(FeeWindow.summarize(history), rewardPercentiles.size());
+        return eip1559Prices(nextBaseFee, tiers.get(0), tiers.get(1), tiers.get(2));
+    }
+    
+    /**
+     * EIP-1559 speed options from the latest base fee and recent block sampling.
+     */
+    private EIP1559GasPrices sampledEIP1559GasPrices() throws IOException {
+        BlockHeaderCache.BlockHeader latest = latestHeader();
         
-        BigInteger baseFee = extractBaseFee(block);
+        BigInteger baseFee = latest.baseFeePerGas();
         if (baseFee == null) {
             throw new UnsupportedOperationException("Network does not support EIP-1559");
         }
         
         // Analyze recent priority fees from the last 10 blocks
-        List<BigInteger> priorityFees = getRecentPriorityFees(10);
-        BigInteger medianPriorityFee = calculateMedian(priorityFees);
-        
+        List<BigInteger> priorityFees = getRecentPriorityFees(latest.number(), 10);
+        return eip1559Prices(baseFee, calculateMedian(priorityFees));
+    }
+    
+    /**
+     * Asynchronous variant of {@link #sampledEIP1559GasPrices()}.
+     * The recent blocks used for priority fees are fetched concurrently.
+     */
+    private CompletableFuture<EIP1559GasPrices> sampledEIP1559GasPricesAsync() {
+        return latestHeaderAsync()
+            .thenCompose(latest -> {
+                BigInteger baseFee = latest.baseFeePerGas();
+                if (baseFee == null) {
+                    return CompletableFuture.failedFuture(
+                        new UnsupportedOperationException("Network does not support EIP-1559"));
+                }
+                return getRecentPriorityFeesAsync(latest.number(), 10)
+                    .thenApply(priorityFees -> eip1559Prices(baseFee, calculateMedian(priorityFees)));
+            });
+    }
+    
+    /**
+     * Derives the EIP-1559 speed options from the base fee and the median recent priority fee.
+     */
+    private static EIP1559GasPrices eip1559Prices(BigInteger baseFee, BigInteger medianPriorityFee) {
         // Calculate priority fees for different speed preferences
-        BigInteger slowPriority = medianPriorityFee.multiply(BigInteger.valueOf(80)).divide(BigInteger.valueOf(100));   // 80% of median
+        Wei median = Wei.of(medianPriorityFee);
+        BigInteger slowPriority = median.percent(80).toBigInteger();   // 80% of median
         BigInteger mediumPriority = medianPriorityFee;  // 100% of median
-        BigInteger fastPriority = medianPriorityFee.multiply(BigInteger.valueOf(150)).divide(BigInteger.valueOf(100)); // 150% of median
-        
+        BigInteger fastPriority = median.percent(150).toBigInteger(); // 150% of median
+        return eip1559Prices(baseFee, slowPriority, mediumPriority, fastPriority);
+    }
+    
+    /**
+     * Derives the EIP-1559 speed options from the base fee and a priority fee per speed.
+     */
+    private static EIP1559GasPrices eip1559Prices(BigInteger baseFee, BigInteger slowPriority,
+                                                  BigInteger mediumPriority, BigInteger fastPriority) {
         // Calculate max fees (base fee + priority fee with different multipliers)
-        BigInteger slowMaxFee = baseFee.multiply(BigInteger.valueOf(2)).add(slowPriority);    // 2x base + priority
-        BigInteger mediumMaxFee = baseFee.multiply(BigInteger.valueOf(2)).add(mediumPriority); // 2x base + priority
-        BigInteger fastMaxFee = baseFee.multiply(BigInteger.valueOf(3)).add(fastPriority);    // 3x base + priority
+        Wei base = Wei.of(baseFee);
+        Wei doubleBase = base.times(2);
+        BigInteger slowMaxFee = doubleBase.plus(Wei.of(slowPriority)).toBigInteger();      // 2x base + priority
+        BigInteger mediumMaxFee = doubleBase.plus(Wei.of(mediumPriority)).toBigInteger();  // 2x base + priority
+        BigInteger fastMaxFee = base.times(3).plus(Wei.of(fastPriority)).toBigInteger();   // 3x base + priority
         
         return new EIP1559GasPrices(
             new GasPrices(slowMaxFee, mediumMaxFee, fastMaxFee),
@@ -140,20 +488,44 @@ public class GasManager {
     
     /**
      * Checks if the connected network supports EIP-1559 transactions.
+     * Answered from the chain capabilities once they have been probed, without calling the node.
      * 
      * @return true if EIP-1559 is supported, false otherwise
      */
     public boolean supportsEIP1559() {
+        Boolean probed = chainCapabilities != null ? chainCapabilities.supportsEIP1559() : null;
+        if (probed != null) {
+            return probed;
+        }
+        FeeWindow.Snapshot fees = currentFees();
+        if (fees != null) {
+            return fees.nextBaseFee() != null;
+        }
         try {
-            EthBlock.Block block = web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false)
-                .send()
-                .getBlock();
-            return extractBaseFee(block) != null;
+            return latestHeader().baseFeePerGas() != null;
         } catch (Exception e) {
             return false;
         }
     }
     
+    /**
+     * Asynchronous variant of {@link #supportsEIP1559()}.
+     *
+     * @return A future completing with true if EIP-1559 is supported; it never fails
+     */
+    public CompletableFuture<Boolean> supportsEIP1559Async() {
+        Boolean probed = chainCapabilities != null ? chainCapabilities.supportsEIP1559() : null;
+        if (probed != null) {
+            return CompletableFuture.completedFuture(probed);
+        }
+        FeeWindow.Snapshot fees = currentFees();
+        if (fees != null) {
+            return CompletableFuture.completedFuture(fees.nextBaseFee() != null);
+        }
+        return latestHeaderAsync()
+            .handle((latest, error) -> error == null && latest.baseFeePerGas() != null);
+    }
+    
     /**
      * Retrieves the current nonce for the specified address.
      * Uses PENDING state to include transactions that are pending but not yet mined.
@@ -171,71 +543,135 @@ public class GasManager {
     }
     
     /**
-     * Extracts the base fee from a block using reflection.
-     * This is necessary because the base fee field may not be available in all Web3j versions.
+     * Reads the latest block header from the shared header cache, or from the node without one.
      * 
-     * @param block The block to extract the base fee from
-     * @return The base fee in Wei, or null if not available
+     * @return The latest block header
+     * @throws IOException if the network request fails
      */
-    private BigInteger extractBaseFee(EthBlock.Block block) {
-        try {
-            return (BigInteger) block.getClass().getMethod("getBaseFeePerGas").invoke(block);
-        } catch (Exception e) {
-            return null;
+    private BlockHeaderCache.BlockHeader latestHeader() throws IOException {
+        if (blockHeaderCache != null) {
+            return blockHeaderCache.latest();
         }
+        EthBlock.Block block = web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false)
+            .send()
+            .getBlock();
+        if (block == null) {
+            throw new IOException("Latest block not available");
+        }
+        return BlockHeaderCache.BlockHeader.of(block);
+    }
+    
+    /**
+     * Asynchronous variant of {@link #latestHeader()}.
+     */
+    private CompletableFuture<BlockHeaderCache.BlockHeader> latestHeaderAsync() {
+        if (blockHeaderCache != null) {
+            return blockHeaderCache.latestAsync();
+        }
+        return web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false).sendAsync()
+            .thenApply(response -> {
+                if (response.getBlock() == null) {
+                    throw new IllegalStateException("Latest block not available");
+                }
+                return BlockHeaderCache.BlockHeader.of(response.getBlock());
+            });
     }
     
     /**
      * Analyzes recent blocks to collect priority fees from EIP-1559 transactions.
-     * This helps determine appropriate priority fee recommendations.
+     * This helps determine appropriate priority fee recommendations. Only the fee fields
+     * of each block are decoded, not its full transactions.
      * 
+     * @param latestBlockNumber The newest block to analyze
      * @param blockCount The number of recent blocks to analyze
      * @return List of priority fees found in recent transactions
      */
-    private List<BigInteger> getRecentPriorityFees(int blockCount) {
+    private List<BigInteger> getRecentPriorityFees(BigInteger latestBlockNumber, int blockCount) {
         List<BigInteger> fees = new ArrayList<>();
-        try {
-            BigInteger latestBlockNumber = web3j.ethBlockNumber().send().getBlockNumber();
-            
+        // Fee sampling is bulk history reading and yields to user-facing calls
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
             // Analyze the specified number of recent blocks
             for (int i = 0; i < blockCount; i++) {
                 BigInteger blockNumber = latestBlockNumber.subtract(BigInteger.valueOf(i));
-                EthBlock.Block block = web3j.ethGetBlockByNumber(
-                    org.web3j.protocol.core.DefaultBlockParameter.valueOf(blockNumber),
-                    true
-                ).send().getBlock();
-                
-                if (block != null && block.getTransactions() != null) {
-                    BigInteger baseFee = extractBaseFee(block);
-                    if (baseFee != null) {
-                        // Extract priority fees from EIP-1559 transactions
-                        block.getTransactions().forEach(txResult -> {
-                            if (txResult instanceof EthBlock.TransactionObject) {
-                                EthBlock.TransactionObject tx = (EthBlock.TransactionObject) txResult;
-                                BigInteger gasPrice = tx.getGasPrice();
-                                // Priority fee = gas price - base fee (for EIP-1559 transactions)
-                                // Calculate priority fee for EIP-1559 transactions
-                                // Priority fee = gas price - base fee (for EIP-1559 transactions)
-                                if (gasPrice != null && gasPrice.compareTo(baseFee) > 0) {
-                                    BigInteger priorityFee = gasPrice.subtract(baseFee);
-                                    fees.add(priorityFee);
-                                }
-                            }
-                        });
-                    }
+                // Young chains have fewer blocks than requested
+                if (blockNumber.signum() < 0) {
+                    break;
                 }
+                EthBlockFees.BlockFees block = web3j.ethGetBlockFees(DefaultBlockParameter.valueOf(blockNumber))
+                    .send()
+                    .getBlockFees();
+                
+                collectPriorityFees(block, fees);
             }
         } catch (Exception e) {
             // Log error but continue with default fallback
             // Could add proper logging here in production
         }
         
-        // Fallback to default priority fee if no recent fees found
+        return withDefaultPriorityFee(fees);
+    }
+    
+    /**
+     * Asynchronous variant of {@link #getRecentPriorityFees(BigInteger, int)} that requests all blocks
+     * at once instead of one after another.
+     *
+     * @param latestBlockNumber The newest block to analyze
+     * @param blockCount The number of recent blocks to analyze
+     * @return A future completing with the priority fees found; it never fails
+     */
+    private CompletableFuture<List<BigInteger>> getRecentPriorityFeesAsync(BigInteger latestBlockNumber, int blockCount) {
+        List<CompletableFuture<EthBlockFees>> blocks = new ArrayList<>(blockCount);
+        // The priority is read when each request is issued, so the scope only needs to cover that
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            for (int i = 0; i < blockCount; i++) {
+                BigInteger blockNumber = latestBlockNumber.subtract(BigInteger.valueOf(i));
+                // Young chains have fewer blocks than requested
+                if (blockNumber.signum() < 0) {
+                    break;
+                }
+                blocks.add(web3j.ethGetBlockFees(DefaultBlockParameter.valueOf(blockNumber)).sendAsync());
+            }
+        }
+        return CompletableFuture.allOf(blocks.toArray(new CompletableFuture[0]))
+            .handle((ignored, error) -> {
+                List<BigInteger> fees = new ArrayList<>();
+                for (CompletableFuture<EthBlockFees> block : blocks) {
+                    // Blocks that failed to load are skipped, like in the blocking variant
+                    if (!block.isCompletedExceptionally()) {
+                        collectPriorityFees(block.join().getBlockFees(), fees);
+                    }
+                }
+                return withDefaultPriorityFee(fees);
+            });
+    }
+    
+    /**
+     * Adds the priority fees paid by the EIP-1559 transactions of a block to the list.
+     * Legacy transactions are left out: their whole gas price above the base fee is a
+     * tip the sender did not choose, and counting it would inflate the median.
+     */
+    private static void collectPriorityFees(EthBlockFees.BlockFees block, List<BigInteger> fees) {
+        if (block != null && block.baseFeePerGas() != null) {
+            BigInteger baseFee = block.baseFeePerGas();
+            // Extract priority fees from EIP-1559 transactions
+            for (EthBlockFees.TransactionFees tx : block.transactions()) {
+                BigInteger gasPrice = tx.gasPrice();
+                // Priority fee = gas price - base fee (for EIP-1559 transactions)
+                if (tx.maxPriorityFeePerGas() != null && gasPrice != null && gasPrice.compareTo(baseFee) > 0) {
+                    fees.add(gasPrice.subtract(baseFee));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Falls back to a default priority fee if no recent fees were found.
+     */
+    static List<BigInteger> withDefaultPriorityFee(List<BigInteger> fees) {
         if (fees.isEmpty()) {
             // Default to 1 Gwei (1,000,000,000 Wei) as minimum priority fee
             fees.add(BigInteger.valueOf(1_000_000_000L));
         }
-        
         return fees;
     }
     
@@ -246,7 +682,7 @@ public class GasManager {
      * @param values List of values to calculate median from
      * @return Median value, or BigInteger.ZERO if list is empty
      */
-    private BigInteger calculateMedian(List<BigInteger> values) {
+    static BigInteger calculateMedian(List<BigInteger> values) {
         if (values.isEmpty()) {
             return BigInteger.ZERO;
         }
@@ -275,7 +711,7 @@ public class GasManager {
      * @return The value in Gwei, rounded to 2 decimal places
      */
     public static BigDecimal weiToGwei(BigInteger wei) {
-        return new BigDecimal(wei).divide(GWEI_TO_WEI, 2, RoundingMode.HALF_UP);
+        return Wei.of(wei).toGwei();
     }
     
     /**
@@ -285,7 +721,7 @@ public class GasManager {
      * @return The value in Wei
      */
     public static BigInteger gweiToWei(BigDecimal gwei) {
-        return gwei.multiply(GWEI_TO_WEI).toBigInteger();
+        return Wei.fromGwei(gwei).toBigInteger();
     }
     
     /**
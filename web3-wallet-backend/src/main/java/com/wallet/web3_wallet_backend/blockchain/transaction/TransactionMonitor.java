@@ -1,32 +1,73 @@
 package com.wallet.web3_wallet_backend.blockchain.transaction;
 
+import com.wallet.web3_wallet_backend.blockchain.client.BlockHeaderCache;
+import com.wallet.web3_wallet_backend.blockchain.client.ChainHeadTracker;
+import com.wallet.web3_wallet_backend.blockchain.client.RpcPriority;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 
-import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 
+/**
+ * Watches broadcast transactions until they have enough confirmations.
+ * <p>
+ * No thread is held per transaction. Every new head, or the poll interval if no head is
+ * announced, triggers one sweep that looks up the receipts of all watched transactions with
+ * non-blocking calls, a bounded number at a time, so thousands of transactions cost no more
+ * threads than one and their lookups can share JSON-RPC batches.
+ * </p>
+ */
 @Component
 public class TransactionMonitor {
     
     private final Web3j web3j;
+    private final ChainHeadTracker chainHeadTracker;
+    /** Null when the head is read from the tracker alone */
+    private final BlockHeaderCache blockHeaderCache;
     private final Map<String, MonitoringTask> activeTasks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile boolean sweepRequested;
     
     private static final int DEFAULT_CONFIRMATION_BLOCKS = 12;
     private static final long POLL_INTERVAL_MS = 3000;
     private static final long MAX_WAIT_TIME_MS = 600000;
+    /** Receipt lookups a sweep keeps in flight at once; well within the read bulkhead. */
+    private static final int SWEEP_CHUNK_SIZE = 50;
     
-    public TransactionMonitor(Web3j web3j) {
+    public TransactionMonitor(Web3j web3j, ChainHeadTracker chainHeadTracker) {
+        this(web3j, chainHeadTracker, null);
+    }
+    
+    @Autowired
+    public TransactionMonitor(Web3j web3j, ChainHeadTracker chainHeadTracker, BlockHeaderCache blockHeaderCache) {
         this.web3j = web3j;
+        this.chainHeadTracker = chainHeadTracker;
+        this.blockHeaderCache = blockHeaderCache;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Receipts only change when a block lands, so sweep on each new head
+        chainHeadTracker.addListener(head -> requestSweep());
+        // Fallback in case no head is announced
+        scheduler.scheduleWithFixedDelay(this::requestSweep, POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
     
     @Async
@@ -38,18 +79,17 @@ public class TransactionMonitor {
     public CompletableFuture<TransactionReceipt> waitForTransaction(String transactionHash, int confirmations) {
         CompletableFuture<TransactionReceipt> future = new CompletableFuture<>();
         
-        MonitoringTask task = new MonitoringTask(transactionHash, confirmations, (receipt, confirmed) -> {
-            if (confirmed) {
+        MonitoringTask task = new MonitoringTask(transactionHash, confirmations, (receipt, reached) -> {
+            if (receipt != null) {
                 future.complete(receipt);
             }
         });
         
-        activeTasks.put(transactionHash, task);
         startMonitoring(task);
         
         future.orTimeout(MAX_WAIT_TIME_MS, TimeUnit.MILLISECONDS)
             .whenComplete((receipt, error) -> {
-                activeTasks.remove(transactionHash);
+                activeTasks.remove(transactionHash, task);
             });
         
         return future;
@@ -61,71 +101,107 @@ public class TransactionMonitor {
     
     public void monitorTransaction(String transactionHash, int requiredConfirmations, 
                                   BiConsumer<TransactionReceipt, Integer> callback) {
-        MonitoringTask task = new MonitoringTask(transactionHash, requiredConfirmations, (receipt, confirmed) -> {
-            BigInteger currentBlock = getCurrentBlockNumber();
-            if (currentBlock != null && receipt.getBlockNumber() != null) {
-                int confirmations = currentBlock.subtract(receipt.getBlockNumber()).intValue() + 1;
+        MonitoringTask task = new MonitoringTask(transactionHash, requiredConfirmations, (receipt, confirmations) -> {
+            if (receipt != null) {
                 callback.accept(receipt, confirmations);
-                
-                if (confirmed) {
-                    activeTasks.remove(transactionHash);
-                }
             }
         });
         
-        activeTasks.put(transactionHash, task);
         startMonitoring(task);
     }
     
     private void startMonitoring(MonitoringTask task) {
-        CompletableFuture.runAsync(() -> {
-            long startTime = System.currentTimeMillis();
-            
-            while (!task.isComplete() && (System.currentTimeMillis() - startTime) < MAX_WAIT_TIME_MS) {
-                try {
-                    Optional<TransactionReceipt> receiptOpt = getTransactionReceipt(task.transactionHash);
-                    
-                    if (receiptOpt.isPresent()) {
-                        TransactionReceipt receipt = receiptOpt.get();
-                        BigInteger currentBlock = getCurrentBlockNumber();
-                        
-                        if (currentBlock != null && receipt.getBlockNumber() != null) {
-                            int confirmations = currentBlock.subtract(receipt.getBlockNumber()).intValue() + 1;
-                            
-                            if (confirmations >= task.requiredConfirmations) {
-                                task.complete(receipt);
-                                break;
-                            } else {
-                                task.updateConfirmations(confirmations);
-                            }
-                        }
-                    }
-                    
-                    Thread.sleep(POLL_INTERVAL_MS);
-                    
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                }
+        activeTasks.put(task.transactionHash, task);
+        // The transaction may already be mined, so check without waiting for the next head
+        requestSweep();
+    }
+    
+    /**
+     * Starts a sweep, or makes the running one start another when it finishes.
+     */
+    private void requestSweep() {
+        sweepRequested = true;
+        if (sweeping.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::sweep);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                sweeping.set(false);
             }
-            
-            if (!task.isComplete()) {
-                task.timeout();
+        }
+    }
+    
+    private void sweep() {
+        sweepRequested = false;
+        List<MonitoringTask> tasks = new ArrayList<>(activeTasks.values());
+        currentHead()
+            .thenCompose(head -> head == null ? CompletableFuture.completedFuture(null) : checkFrom(tasks, 0, head))
+            .whenComplete((ignored, error) -> {
+                sweeping.set(false);
+                if (sweepRequested) {
+                    requestSweep();
+                }
+            });
+    }
+    
+    private CompletableFuture<BigInteger> currentHead() {
+        BigInteger head = blockHeaderCache != null ? blockHeaderCache.headNumber() : chainHeadTracker.currentHead();
+        if (head != null) {
+            return CompletableFuture.completedFuture(head);
+        }
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            return web3j.ethBlockNumber().sendAsync()
+                .handle((response, error) -> error == null && !response.hasError() ? response.getBlockNumber() : null);
+        }
+    }
+    
+    /**
+     * Checks the tasks from the given offset, one chunk after another.
+     */
+    private CompletableFuture<Void> checkFrom(List<MonitoringTask> tasks, int offset, BigInteger head) {
+        int end = Math.min(tasks.size(), offset + SWEEP_CHUNK_SIZE);
+        CompletableFuture<?>[] checks = new CompletableFuture<?>[end - offset];
+        // Receipt polling yields to broadcasts and user-facing reads
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            for (int i = offset; i < end; i++) {
+                checks[i - offset] = check(tasks.get(i), head);
             }
-        });
+        }
+        CompletableFuture<Void> chunk = CompletableFuture.allOf(checks);
+        return end < tasks.size() ? chunk.thenCompose(ignored -> checkFrom(tasks, end, head)) : chunk;
     }
     
-    private Optional<TransactionReceipt> getTransactionReceipt(String transactionHash) throws IOException {
-        EthGetTransactionReceipt response = web3j.ethGetTransactionReceipt(transactionHash).send();
-        return response.getTransactionReceipt();
+    private CompletableFuture<Void> check(MonitoringTask task, BigInteger head) {
+        if (task.isComplete()) {
+            activeTasks.remove(task.transactionHash, task);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (task.isExpired()) {
+            task.timeout();
+            activeTasks.remove(task.transactionHash, task);
+            return CompletableFuture.completedFuture(null);
+        }
+        return web3j.ethGetTransactionReceipt(task.transactionHash).sendAsync()
+            .handle((response, error) -> {
+                // A failed lookup is retried on the next sweep
+                if (error == null && !response.hasError()) {
+                    response.getTransactionReceipt().ifPresent(receipt -> onReceipt(task, receipt, head));
+                }
+                return null;
+            });
     }
     
-    private BigInteger getCurrentBlockNumber() {
-        try {
-            return web3j.ethBlockNumber().send().getBlockNumber();
-        } catch (IOException e) {
-            return null;
+    private void onReceipt(MonitoringTask task, TransactionReceipt receipt, BigInteger head) {
+        if (receipt.getBlockNumber() == null) {
+            return;
+        }
+        int confirmations = head.subtract(receipt.getBlockNumber()).intValue() + 1;
+        if (confirmations >= task.requiredConfirmations) {
+            // Removed first so the callback sees the transaction as no longer watched
+            activeTasks.remove(task.transactionHash, task);
+            task.complete(receipt, confirmations);
+        } else {
+            task.updateConfirmations(confirmations);
         }
     }
     
@@ -149,25 +225,36 @@ public class TransactionMonitor {
         return activeTasks.size();
     }
     
+    /**
+     * Stops sweeping. Called by Spring when the context shuts down.
+     */
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+    
     private static class MonitoringTask {
         private final String transactionHash;
         private final int requiredConfirmations;
-        private final BiConsumer<TransactionReceipt, Boolean> callback;
+        /** Called once with the receipt and its confirmations, or with a null receipt on timeout. */
+        private final BiConsumer<TransactionReceipt, Integer> callback;
+        private final long deadline = System.currentTimeMillis() + MAX_WAIT_TIME_MS;
         private volatile boolean complete = false;
         private volatile boolean cancelled = false;
         private volatile int currentConfirmations = 0;
         
         public MonitoringTask(String transactionHash, int requiredConfirmations,
-                            BiConsumer<TransactionReceipt, Boolean> callback) {
+                            BiConsumer<TransactionReceipt, Integer> callback) {
             this.transactionHash = transactionHash;
             this.requiredConfirmations = requiredConfirmations;
             this.callback = callback;
         }
         
-        public void complete(TransactionReceipt receipt) {
+        public synchronized void complete(TransactionReceipt receipt, int confirmations) {
             if (!cancelled && !complete) {
                 complete = true;
-                callback.accept(receipt, true);
+                currentConfirmations = confirmations;
+                callback.accept(receipt, confirmations);
             }
         }
         
@@ -175,10 +262,10 @@ public class TransactionMonitor {
             this.currentConfirmations = confirmations;
         }
         
-        public void timeout() {
+        public synchronized void timeout() {
             if (!cancelled && !complete) {
                 complete = true;
-                callback.accept(null, false);
+                callback.accept(null, currentConfirmations);
             }
         }
         
@@ -190,5 +277,9 @@ public class TransactionMonitor {
         public boolean isComplete() {
             return complete || cancelled;
         }
+        
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= deadline;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount in an asset's smallest unit: wei for ETH, the base unit for a token.
+ * <p>
+ * Amounts that fit in a {@code long}, which covers every gas price, fee and transaction
+ * cost and any value below about 9.2 ETH, are held and computed on as a plain long, so fee
+ * tiers and cost estimates do not build intermediate BigIntegers. Whether a product fits
+ * is checked on its full 128-bit result, and anything larger falls back to exact BigInteger
+ * arithmetic with the same results.
+ * </p>
+ * <p>
+ * Conversions to and from decimal units (gwei, ether, a token's decimals) move the decimal
+ * point of a BigDecimal rather than multiplying or dividing by a power of ten, and give
+ * the same values as {@link org.web3j.utils.Convert}.
+ * </p>
+ */
+public final class Wei implements Comparable<Wei> {
+
+    public static final Wei ZERO = new Wei(0, null);
+
+    /** Decimals of gwei */
+    public static final int GWEI_DECIMALS = 9;
+
+    /** Decimals of ether */
+    public static final int ETHER_DECIMALS = 18;
+
+    /** Integer digits that always fit in a long */
+    private static final int LONG_DIGITS = 18;
+
+    /** Scale of gwei amounts shown to users */
+    private static final int GWEI_DISPLAY_SCALE = 2;
+
+    private static final BigInteger HUNDRED = BigInteger.valueOf(100);
+
+    /** The amount, when {@link #big} is null */
+    private final long small;
+    /** The amount when it does not fit in a long, otherwise null */
+    private final BigInteger big;
+
+    private Wei(long small, BigInteger big) {
+        this.small = small;
+        this.big = big;
+    }
+
+    public static Wei of(long amount) {
+        return amount == 0 ? ZERO : new Wei(amount, null);
+    }
+
+    public static Wei of(BigInteger amount) {
+        return amount.bitLength() < Long.SIZE ? of(amount.longValue()) : new Wei(0, amount);
+    }
+
+    /**
+     * Converts an amount in a unit with the given decimals to the smallest unit, dropping
+     * any fraction below it.
+     *
+     * @param amount   The amount, e.g. 1.5 tokens
+     * @param decimals Decimals of the unit, e.g. 6 for USDC or 18 for ether
+     * @return The amount in the smallest unit
+     */
+    public static Wei fromDecimal(BigDecimal amount, int decimals) {
+        BigDecimal scaled = amount.scaleByPowerOfTen(decimals);
+        if (scaled.precision() - scaled.scale() <= LONG_DIGITS) {
+            return of(scaled.setScale(0, RoundingMode.DOWN).longValue());
+        }
+        return of(scaled.toBigInteger());
+    }
+
+    public static Wei fromGwei(BigDecimal gwei) {
+        return fromDecimal(gwei, GWEI_DECIMALS);
+    }
+
+    public static Wei fromEther(BigDecimal ether) {
+        return fromDecimal(ether, ETHER_DECIMALS);
+    }
+
+    public Wei plus(Wei other) {
+        if (big == null && other.big == null) {
+            long sum = small + other.small;
+            // Overflowed only if both operands have the sign the sum lacks
+            if (((small ^ sum) & (other.small ^ sum)) >= 0) {
+                return of(sum);
+            }
+        }
+        return of(toBigInteger().add(other.toBigInteger()));
+    }
+
+    public Wei times(long factor) {
+        if (big == null) {
+            long high = Math.multiplyHigh(small, factor);
+            long low = small * factor;
+            // The 128-bit product fits in a long when its high half only extends the sign
+            if (high == low >> 63) {
+                return of(low);
+            }
+        }
+        return of(toBigInteger().multiply(BigInteger.valueOf(factor)));
+    }
+
+    public Wei times(BigInteger factor) {
+        return factor.bitLength() < Long.SIZE ? times(factor.longValue()) : of(toBigInteger().multiply(factor));
+    }
+
+    /**
+     * @param percent The percentage, e.g. 110 for the amount plus 10%
+     * @return The given percentage of the amount, rounded toward zero
+     */
+    public Wei percent(long percent) {
+        if (big == null) {
+            long high = Math.multiplyHigh(small, percent);
+            long low = small * percent;
+            if (high == low >> 63) {
+                return of(low / 100);
+            }
+        }
+        return of(toBigInteger().multiply(BigInteger.valueOf(percent)).divide(HUNDRED));
+    }
+
+    public BigInteger toBigInteger() {
+        return big != null ? big : BigInteger.valueOf(small);
+    }
+
+    /**
+     * Converts the amount to a unit with the given decimals, exactly and without trailing
+     * zeros, as {@link org.web3j.utils.Convert#fromWei(BigDecimal, org.web3j.utils.Convert.Unit)} does.
+     *
+     * @param decimals Decimals of the unit
+     * @return The amount in that unit
+     */
+    public BigDecimal toDecimal(int decimals) {
+        BigDecimal value = big != null ? new BigDecimal(big, decimals) : BigDecimal.valueOf(small, decimals);
+        value = value.stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    /**
+     * @return The amount in gwei, rounded half up to two decimals for display
+     */
+    public BigDecimal toGwei() {
+        BigDecimal value = big != null ? new BigDecimal(big, GWEI_DECIMALS) : BigDecimal.valueOf(small, GWEI_DECIMALS);
+        return value.setScale(GWEI_DISPLAY_SCALE, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal toEther() {
+        return toDecimal(ETHER_DECIMALS);
+    }
+
+    public int signum() {
+        return big != null ? big.signum() : Long.signum(small);
+    }
+
+    @Override
+    public int compareTo(Wei other) {
+        if (big == null && other.big == null) {
+            return Long.compare(small, other.small);
+        }
+        return toBigInteger().compareTo(other.toBigInteger());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Wei other)) {
+            return false;
+        }
+        // Amounts are always held as a long when they fit, so the forms never mix
+        return big != null ? big.equals(other.big) : other.big == null && small == other.small;
+    }
+
+    @Override
+    public int hashCode() {
+        return big != null ? big.hashCode() : Long.hashCode(small);
+    }
+
+    @Override
+    public String toString() {
+        return big != null ? big.toString() : Long.toString(small);
+    }
+}
@@ -0,0 +1,25 @@
+package com.wallet.web3_wallet_backend.model;
+
+import java.time.Instant;
+
+/**
+ * Latest known state of one nonce of a sender address, as kept in the nonce ledger.
+ */
+public record NonceLedgerEntry(
+        String address,     // Sender address, lower case
+        long nonce,
+        Status status,
+        Instant updatedAt
+) {
+
+    public enum Status {
+        /** Handed out to a transaction that has not been broadcast yet */
+        RESERVED,
+        /** Accepted into the node's pool */
+        BROADCAST,
+        /** Known to be used on chain */
+        CONFIRMED,
+        /** Given back after a failed broadcast, free to be handed out again */
+        RELEASED
+    }
+}
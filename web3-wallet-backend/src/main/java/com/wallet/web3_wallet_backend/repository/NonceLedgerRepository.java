@@ -0,0 +1,110 @@
+package com.wallet.web3_wallet_backend.repository;
+
+import com.wallet.web3_wallet_backend.model.NonceLedgerEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batched access to the {@code nonce_ledger} table.
+ * <p>
+ * Plain JDBC rather than JPA, so a whole batch of ledger updates goes to the database in
+ * one round trip without reading the rows first. Upserts are an UPDATE batch followed by
+ * an INSERT batch for the rows that did not exist yet, which works the same on H2 and
+ * PostgreSQL.
+ * </p>
+ */
+@Repository
+public class NonceLedgerRepository {
+
+    private static final String UPDATE =
+        "UPDATE nonce_ledger SET status = ?, updated_at = ? WHERE address = ? AND nonce = ?";
+    private static final String INSERT =
+        "INSERT INTO nonce_ledger (address, nonce, status, updated_at) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_BELOW =
+        "DELETE FROM nonce_ledger WHERE address = ? AND nonce < ?";
+    private static final String DELETE_SETTLED_BELOW =
+        "DELETE FROM nonce_ledger WHERE address = ? AND nonce < ? AND status IN ('BROADCAST', 'CONFIRMED')";
+    private static final String SELECT_ALL =
+        "SELECT address, nonce, status, updated_at FROM nonce_ledger ORDER BY address, nonce";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NonceLedgerRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Writes the entries, replacing the stored state of any nonce already in the ledger.
+     *
+     * @param entries Entries with distinct address and nonce pairs
+     */
+    @Transactional
+    public void saveAll(List<NonceLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE, entries.stream()
+            .map(entry -> new Object[] {
+                entry.status().name(), Timestamp.from(entry.updatedAt()), entry.address(), entry.nonce()})
+            .toList());
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (updated[i] == 0) {
+                NonceLedgerEntry entry = entries.get(i);
+                inserts.add(new Object[] {
+                    entry.address(), entry.nonce(), entry.status().name(), Timestamp.from(entry.updatedAt())});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, inserts);
+        }
+    }
+
+    /**
+     * Deletes every entry of each address below the given nonce.
+     *
+     * @param floors Per address, the lowest nonce to keep
+     */
+    @Transactional
+    public void deleteBelow(Map<String, Long> floors) {
+        delete(DELETE_BELOW, floors);
+    }
+
+    /**
+     * Deletes the broadcast and confirmed entries of each address below the given nonce,
+     * keeping reserved and released ones.
+     *
+     * @param floors Per address, the lowest nonce to keep every entry of
+     */
+    @Transactional
+    public void deleteSettledBelow(Map<String, Long> floors) {
+        delete(DELETE_SETTLED_BELOW, floors);
+    }
+
+    private void delete(String sql, Map<String, Long> floors) {
+        if (floors.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, floors.entrySet().stream()
+            .map(floor -> new Object[] {floor.getKey(), floor.getValue()})
+            .toList());
+    }
+
+    /**
+     * @return Every entry in the ledger, ordered by address and nonce
+     */
+    public List<NonceLedgerEntry> findAll() {
+        return jdbcTemplate.query(SELECT_ALL, (rs, rowNum) -> new NonceLedgerEntry(
+            rs.getString("address"),
+            rs.getLong("nonce"),
+            NonceLedgerEntry.Status.valueOf(rs.getString("status")),
+            rs.getTimestamp("updated_at").toInstant()));
+    }
+}
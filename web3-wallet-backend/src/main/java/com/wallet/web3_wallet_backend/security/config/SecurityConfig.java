@@ -1,6 +1,7 @@
 package com.wallet.web3_wallet_backend.security.config;
 
 import com.wallet.web3_wallet_backend.security.jwt.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -29,6 +30,10 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Controllers returning a CompletableFuture write their response in an async
+                // dispatch; the request was already authorized when it first came in, but the
+                // stateless JWT context is not carried over to that dispatch
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(
                     "/",
                     "/index.html",
@@ -0,0 +1,284 @@
+package com.wallet.web3_wallet_backend.service;
+
+import com.wallet.web3_wallet_backend.blockchain.client.RpcPriority;
+import com.wallet.web3_wallet_backend.blockchain.transaction.GasManager;
+import com.wallet.web3_wallet_backend.blockchain.transaction.TransactionBuilder;
+import com.wallet.web3_wallet_backend.blockchain.transaction.Wei;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.transaction.type.Transaction1559;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds nonce gaps that hold back an address's transactions, and fills them.
+ * <p>
+ * A nonce released after the node rejected its transaction is handed out again to the
+ * next send from the address. When a send is rejected, the sender's key is also kept for a
+ * zero-value transfer from the sender to itself with the same nonce, unless the rejection
+ * is one such a transfer would meet too. Every check interval, the released and reserved
+ * nonces of each address are compared with the node's pending count. A nonce the node is
+ * still waiting for, and that no send has taken within the fill delay, is filled with that
+ * transfer, priced from the current fees plus a margin rather than from the rejected
+ * transaction, whose fees may be why it was rejected. A transfer the sender's balance
+ * cannot pay for at those fees is not sent, and the gap waits for the next send. The key
+ * is dropped once the gap is filled or taken. Released nonces below the pending count
+ * were used by other transactions and are forgotten.
+ * </p>
+ * <p>
+ * A reservation the node is still waiting for that was not broadcast within the fill
+ * delay was abandoned, for example by a send that failed after taking its nonce or by
+ * an instance that restarted before broadcasting. It is released, so the next send from
+ * the address takes it; there is no key to sign a self-transfer with.
+ * </p>
+ */
+@Component
+public class NonceGapFiller implements MeterBinder {
+
+    private static final BigInteger TRANSFER_GAS = BigInteger.valueOf(21_000);
+    /**
+     * Fees of a self-transfer as a percentage of the current medium fees, so that the base
+     * fee rising 12.5% a block does not price it out before it is mined
+     */
+    private static final long FILL_FEE_PERCENT = 125;
+    /** Rejections of the signature itself, which a self-transfer signed the same way meets too */
+    private static final List<String> UNFIXABLE_ERRORS = List.of("invalid sender", "invalid chain id");
+
+    private final NonceManager nonceManager;
+    private final Web3j web3j;
+    private final GasManager gasManager;
+    private final TransactionBuilder transactionBuilder;
+    private final boolean enabled;
+    private final long fillAfterMs;
+    /** Self-transfers waiting to fill a gap, per address and nonce */
+    private final Map<Key, Filler> fillers = new ConcurrentHashMap<>();
+    /** Gaps found by the last check, per address */
+    private final Map<String, Integer> openGaps = new ConcurrentHashMap<>();
+    /** Null when gap filling is disabled */
+    private final ScheduledExecutorService detector;
+
+    private final LongAdder filled = new LongAdder();
+    private final LongAdder failedFills = new LongAdder();
+    private final LongAdder reassigned = new LongAdder();
+
+    /**
+     * @param nonceManager Tracks the nonces handed out per address
+     * @param web3j The Web3j instance for blockchain communication
+     * @param gasManager Prices the self-transfers when they are sent
+     * @param transactionBuilder Builds and signs the self-transfers
+     * @param enabled Whether gaps are looked for and filled at all
+     * @param checkIntervalMs How often released and reserved nonces are compared with the node
+     * @param fillAfterMs How long a send may take a released nonce before it is filled, and
+     *                    how long a reservation may go without a broadcast before it is released
+     */
+    public NonceGapFiller(NonceManager nonceManager,
+                          Web3j web3j,
+                          GasManager gasManager,
+                          TransactionBuilder transactionBuilder,
+                          @Value("${web3.ethereum.nonce.gapFiller.enabled:true}") boolean enabled,
+                          @Value("${web3.ethereum.nonce.gapFiller.checkIntervalMs:5000}") long checkIntervalMs,
+                          @Value("${web3.ethereum.nonce.gapFiller.fillAfterMs:10000}") long fillAfterMs) {
+        if (enabled && (checkIntervalMs < 1 || fillAfterMs < 0)) {
+            throw new IllegalArgumentException("Invalid nonce gap filler settings");
+        }
+        this.nonceManager = nonceManager;
+        this.web3j = web3j;
+        this.gasManager = gasManager;
+        this.transactionBuilder = transactionBuilder;
+        this.enabled = enabled;
+        this.fillAfterMs = fillAfterMs;
+        if (enabled) {
+            this.detector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "nonce-gap-filler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            detector.scheduleWithFixedDelay(this::detect, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.detector = null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (detector != null) {
+            detector.shutdownNow();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.nonce.gap.fills", filled, LongAdder::sum)
+            .tag("outcome", "filled")
+            .description("Nonce gaps filled with a self-transfer")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.gap.fills", failedFills, LongAdder::sum)
+            .tag("outcome", "failed")
+            .description("Self-transfers the node rejected or that could not be sent")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.gap.reassigned", reassigned, LongAdder::sum)
+            .description("Nonce gaps taken by a later send before they were filled")
+            .register(registry);
+        Gauge.builder("web3.nonce.gaps", openGaps, gaps -> gaps.values().stream().mapToInt(Integer::intValue).sum())
+            .description("Released nonces the node was still waiting for at the last check")
+            .register(registry);
+    }
+
+    /**
+     * Prepares the self-transfer that fills the gap a rejected transaction leaves. Call
+     * after the nonce was released; nothing is prepared if the nonce was used anyway, the
+     * release left no gap or a self-transfer would be rejected the same way.
+     *
+     * @param address The sender
+     * @param rejected The transaction the node rejected
+     * @param credentials The sender's key
+     * @param errorMessage Why the node rejected it
+     */
+    public void prepare(String address, RawTransaction rejected, Credentials credentials, String errorMessage) {
+        BigInteger nonce = rejected.getNonce();
+        if (!enabled || NonceManager.isNonceUsedError(errorMessage) || NonceManager.isAlreadyKnownError(errorMessage)
+                || isUnfixable(errorMessage) || !nonceManager.isReleased(address, nonce)) {
+            return;
+        }
+        fillers.put(new Key(address.toLowerCase(), nonce), new Filler(credentials,
+            rejected.getTransaction() instanceof Transaction1559, System.currentTimeMillis()));
+    }
+
+    private static boolean isUnfixable(String errorMessage) {
+        String message = errorMessage == null ? "" : errorMessage.toLowerCase(Locale.ROOT);
+        return UNFIXABLE_ERRORS.stream().anyMatch(message::contains);
+    }
+
+    /**
+     * Compares the released and reserved nonces of every address with the node's pending
+     * count and fills the gaps that are due. Runs on the detector thread.
+     *
+     * @return Completes once every address has been checked
+     */
+    CompletableFuture<Void> detect() {
+        // Self-transfers for nonces a send has taken since are no longer needed
+        fillers.forEach((key, filler) -> {
+            if (!nonceManager.isReleased(key.address(), key.nonce()) && fillers.remove(key, filler)) {
+                reassigned.increment();
+            }
+        });
+        long reservedBefore = System.currentTimeMillis() - fillAfterMs;
+        List<String> addresses = nonceManager.getAddressesWithPossibleGaps(reservedBefore);
+        openGaps.keySet().retainAll(addresses);
+
+        List<CompletableFuture<Void>> checks = new ArrayList<>();
+        for (String address : addresses) {
+            // Gap checks yield to broadcasts and user-facing reads
+            try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+                checks.add(web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING)
+                    .sendAsync()
+                    .thenAccept(response -> {
+                        if (!response.hasError()) {
+                            fillGaps(address,
+                                nonceManager.findGaps(address, response.getTransactionCount(), reservedBefore));
+                        }
+                    })
+                    .exceptionally(error -> null));
+            }
+        }
+        return CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new));
+    }
+
+    private void fillGaps(String address, List<BigInteger> gaps) {
+        openGaps.put(address, gaps.size());
+        long dueBefore = System.currentTimeMillis() - fillAfterMs;
+        for (BigInteger nonce : gaps) {
+            Key key = new Key(address, nonce);
+            Filler filler = fillers.get(key);
+            // Without a self-transfer, the gap waits for the next send from the address
+            if (filler != null && filler.preparedAt() <= dueBefore && fillers.remove(key, filler)
+                    && nonceManager.claimGap(address, nonce)) {
+                fill(address, nonce, filler);
+            }
+        }
+        fillers.keySet().removeIf(key -> key.address().equals(address) && !gaps.contains(key.nonce()));
+    }
+
+    private void fill(String address, BigInteger nonce, Filler filler) {
+        selfTransfer(address, nonce, filler.eip1559())
+            .thenCompose(selfTransfer -> web3j.ethGetBalance(address, DefaultBlockParameterName.PENDING).sendAsync()
+                .thenCompose(balance -> {
+                    if (balance.getBalance().compareTo(TRANSFER_GAS.multiply(maxFee(selfTransfer))) < 0) {
+                        throw new IllegalStateException("Balance does not cover the self-transfer");
+                    }
+                    return web3j.ethSendRawTransaction(
+                        transactionBuilder.signTransaction(selfTransfer, filler.credentials())).sendAsync();
+                }))
+            .thenAccept(response -> {
+                if (response.hasError() && !NonceManager.isAlreadyKnownError(response.getError().getMessage())) {
+                    failedFills.increment();
+                    nonceManager.broadcastFailed(address, nonce, response.getError().getMessage());
+                    return;
+                }
+                filled.increment();
+                nonceManager.markBroadcast(address, nonce);
+                CompletableFuture.runAsync(() -> nonceManager.confirmTransaction(address, nonce),
+                    CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS));
+            })
+            .exceptionally(error -> {
+                failedFills.increment();
+                nonceManager.releaseNonce(address, nonce);
+                return null;
+            });
+    }
+
+    /**
+     * Builds a self-transfer of the same type as the rejected transaction, priced from the
+     * current medium fees plus a margin.
+     */
+    private CompletableFuture<RawTransaction> selfTransfer(String address, BigInteger nonce, boolean eip1559) {
+        if (eip1559) {
+            return gasManager.getEIP1559GasPricesAsync()
+                .thenApply(prices -> transactionBuilder.buildEIP1559Transaction(nonce, address, BigInteger.ZERO,
+                    TRANSFER_GAS, Wei.of(prices.maxPriorityFeePerGas.medium).percent(FILL_FEE_PERCENT).toBigInteger(),
+                    Wei.of(prices.maxFeePerGas.medium).percent(FILL_FEE_PERCENT).toBigInteger(), ""));
+        }
+        return gasManager.getLegacyGasPricesAsync()
+            .thenApply(prices -> transactionBuilder.buildLegacyTransaction(nonce, address, BigInteger.ZERO,
+                TRANSFER_GAS, Wei.of(prices.medium).percent(FILL_FEE_PERCENT).toBigInteger(), ""));
+    }
+
+    private static BigInteger maxFee(RawTransaction transaction) {
+        return transaction.getTransaction() instanceof Transaction1559 fees
+            ? fees.getMaxFeePerGas()
+            : transaction.getGasPrice();
+    }
+
+    public long getFilledCount() {
+        return filled.sum();
+    }
+
+    public long getReassignedCount() {
+        return reassigned.sum();
+    }
+
+    private record Key(String address, BigInteger nonce) {
+    }
+
+    private record Filler(Credentials credentials, boolean eip1559, long preparedAt) {
+    }
+}
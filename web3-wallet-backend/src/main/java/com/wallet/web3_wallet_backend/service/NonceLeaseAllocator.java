@@ -0,0 +1,63 @@
+package com.wallet.web3_wallet_backend.service;
+
+import java.math.BigInteger;
+
+/**
+ * Coordinates nonce allocation for one sender address between application instances.
+ * <p>
+ * Each instance leases a contiguous range of nonces and hands them out locally, so the
+ * instances only coordinate when a lease runs out. Nonces an instance will not use, the
+ * rest of a range or a released nonce, are given back, and they are leased again before
+ * any new ones, so they do not stay a gap that blocks later transactions from the address.
+ * Every lease covers only the nonces its owner still holds: renewing it drops the ones
+ * broadcast since, and giving back part of it splits it around that part. A lease its
+ * owner stops renewing, for instance because the instance crashed, is taken back the same
+ * way once it expires, so only nonces that may never have reached the node are leased
+ * again.
+ * </p>
+ */
+public interface NonceLeaseAllocator {
+
+    /**
+     * Leases nonces for the address: given-back nonces first, otherwise a new range that
+     * starts at or above the floor.
+     *
+     * @param address The sender, lower case
+     * @param floor Lowest nonce that may be leased, usually the node's pending count
+     * @param size Most nonces to lease
+     * @return The leased range, never empty
+     */
+    Lease acquire(String address, BigInteger floor, int size);
+
+    /**
+     * Extends a lease of this instance for the address, keeping only the nonces this
+     * instance still holds. A lease whose nonces are all broadcast or given back is removed.
+     *
+     * @param address The sender, lower case
+     * @param held From the lowest nonce of the lease still held, or the end if none is,
+     *             to the end of the lease
+     * @return False if the lease expired and was taken back, so no more nonces may be
+     *         handed out from it
+     */
+    boolean renew(String address, Lease held);
+
+    /**
+     * Gives back nonces of a lease that will not be used: the part not handed out yet, or
+     * a nonce released after it was. The lease keeps the nonces on either side. Does
+     * nothing if the lease expired and was taken back.
+     *
+     * @param address The sender, lower case
+     * @param unused Nonces within one lease of this instance
+     */
+    void giveBack(String address, Lease unused);
+
+    /**
+     * Nonces from {@code start}, inclusive, to {@code end}, exclusive.
+     */
+    record Lease(BigInteger start, BigInteger end) {
+
+        public boolean isEmpty() {
+            return start.compareTo(end) >= 0;
+        }
+    }
+}
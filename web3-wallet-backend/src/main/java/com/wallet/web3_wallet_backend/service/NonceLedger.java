@@ -0,0 +1,213 @@
+package com.wallet.web3_wallet_backend.service;
+
+import com.wallet.web3_wallet_backend.model.NonceLedgerEntry;
+import com.wallet.web3_wallet_backend.repository.NonceLedgerRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable record of the nonces {@link NonceManager} hands out, so its trackers can be
+ * rebuilt after a restart or crash without asking the node about every sender.
+ * <p>
+ * Recording a state change only puts it in an in-memory map keyed by address and nonce,
+ * where a later change to the same nonce replaces an earlier one that has not been written
+ * yet. A background thread writes what has accumulated every flush interval in batches.
+ * A confirmed nonce is recorded a fixed time after its broadcast rather than once mined,
+ * so it only drops the broadcast and confirmed entries below it; reserved and released
+ * entries below it may still be gaps to fill after a restart. Every entry below the
+ * node's pending count is dropped, as the node already holds a transaction for each of
+ * those nonces; the nonce right below the count is kept as confirmed. A failed write is retried on the next flush unless the nonce has changed
+ * state again in the meantime.
+ * </p>
+ */
+@Component
+public class NonceLedger implements MeterBinder {
+
+    private final NonceLedgerRepository repository;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    /** Changes not yet written, the latest per address and nonce */
+    private final Map<Key, NonceLedgerEntry> unwritten = new ConcurrentHashMap<>();
+    /** Per address, the highest nonce the node is known to hold, entries below it not yet dropped */
+    private final Map<String, Long> usedBelow = new ConcurrentHashMap<>();
+    /** Null when the ledger is disabled */
+    private final ScheduledExecutorService writer;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    /**
+     * @param repository Access to the ledger table
+     * @param enabled Whether nonce state is persisted at all
+     * @param flushIntervalMs How often accumulated changes are written
+     * @param maxBatchSize Most entries written in one batch
+     */
+    public NonceLedger(NonceLedgerRepository repository,
+                       @Value("${web3.ethereum.nonce.ledger.enabled:true}") boolean enabled,
+                       @Value("${web3.ethereum.nonce.ledger.flushIntervalMs:200}") long flushIntervalMs,
+                       @Value("${web3.ethereum.nonce.ledger.maxBatchSize:500}") int maxBatchSize) {
+        if (enabled && (flushIntervalMs < 1 || maxBatchSize < 1)) {
+            throw new IllegalArgumentException("Invalid nonce ledger settings");
+        }
+        this.repository = repository;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        if (enabled) {
+            this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "nonce-ledger-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Stops the writer and writes whatever is still pending. Called by Spring when the
+     * context shuts down.
+     */
+    @PreDestroy
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.nonce.ledger.writes", written, LongAdder::sum)
+            .description("Nonce state changes written to the ledger")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.ledger.failures", failedFlushes, LongAdder::sum)
+            .description("Ledger flushes that failed and were left for the next one")
+            .register(registry);
+        Gauge.builder("web3.nonce.ledger.backlog", unwritten, Map::size)
+            .description("Nonce state changes waiting to be written to the ledger")
+            .register(registry);
+    }
+
+    /**
+     * Records the new state of a nonce, to be written on the next flush.
+     *
+     * @param address The sender, lower case
+     * @param nonce The nonce
+     * @param status Its new state
+     */
+    public void record(String address, BigInteger nonce, NonceLedgerEntry.Status status) {
+        if (!enabled) {
+            return;
+        }
+        unwritten.put(new Key(address, nonce.longValueExact()),
+            new NonceLedgerEntry(address, nonce.longValueExact(), status, Instant.now()));
+    }
+
+    /**
+     * Records that the node holds a transaction for every nonce below its pending count,
+     * so the nonce right below it is confirmed and every entry below that can be dropped.
+     *
+     * @param address The sender, lower case
+     * @param networkNonce The node's pending transaction count
+     */
+    public void recordUsedBelow(String address, BigInteger networkNonce) {
+        if (!enabled || networkNonce.signum() <= 0) {
+            return;
+        }
+        BigInteger used = networkNonce.subtract(BigInteger.ONE);
+        record(address, used, NonceLedgerEntry.Status.CONFIRMED);
+        usedBelow.merge(address, used.longValueExact(), Math::max);
+    }
+
+    /**
+     * Reads the ledger, including changes not written yet.
+     *
+     * @return Per lower-case address, its entries ordered by nonce; empty if the ledger is
+     *         disabled or cannot be read
+     */
+    public Map<String, List<NonceLedgerEntry>> load() {
+        Map<String, List<NonceLedgerEntry>> byAddress = new LinkedHashMap<>();
+        if (!enabled) {
+            return byAddress;
+        }
+        List<NonceLedgerEntry> stored;
+        try {
+            stored = repository.findAll();
+        } catch (RuntimeException e) {
+            // Trackers are then seeded from the node as senders come back
+            return byAddress;
+        }
+        Map<Key, NonceLedgerEntry> merged = new LinkedHashMap<>();
+        stored.forEach(entry -> merged.put(new Key(entry.address(), entry.nonce()), entry));
+        merged.putAll(unwritten);
+        merged.values().stream()
+            .sorted((a, b) -> Long.compare(a.nonce(), b.nonce()))
+            .forEach(entry -> byAddress.computeIfAbsent(entry.address(), k -> new ArrayList<>()).add(entry));
+        return byAddress;
+    }
+
+    /**
+     * Writes the changes recorded so far. Runs on the writer thread, and once more when the
+     * ledger is closed.
+     */
+    synchronized void flush() {
+        if (unwritten.isEmpty() && usedBelow.isEmpty()) {
+            return;
+        }
+        List<NonceLedgerEntry> batch = new ArrayList<>(unwritten.values());
+        Map<String, Long> nodeFloors = new HashMap<>(usedBelow);
+        try {
+            for (int from = 0; from < batch.size(); from += maxBatchSize) {
+                repository.saveAll(batch.subList(from, Math.min(batch.size(), from + maxBatchSize)));
+            }
+            Map<String, Long> floors = new HashMap<>();
+            for (NonceLedgerEntry entry : batch) {
+                if (entry.status() == NonceLedgerEntry.Status.CONFIRMED) {
+                    floors.merge(entry.address(), entry.nonce(), Math::max);
+                }
+            }
+            repository.deleteSettledBelow(floors);
+            repository.deleteBelow(nodeFloors);
+        } catch (RuntimeException e) {
+            failedFlushes.increment();
+            return;
+        }
+        // Keep any change recorded while the batch was being written
+        for (NonceLedgerEntry entry : batch) {
+            unwritten.remove(new Key(entry.address(), entry.nonce()), entry);
+        }
+        nodeFloors.forEach(usedBelow::remove);
+        written.add(batch.size());
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    private record Key(String address, long nonce) {
+    }
+}
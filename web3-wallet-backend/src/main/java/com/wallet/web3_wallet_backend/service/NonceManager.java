@@ -1,38 +1,428 @@
 package com.wallet.web3_wallet_backend.service;
 
+import com.wallet.web3_wallet_backend.blockchain.client.RpcPriority;
+import com.wallet.web3_wallet_backend.blockchain.client.RpcRejectedException;
+import com.wallet.web3_wallet_backend.model.NonceLedgerEntry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Hands out transaction nonces per sender address.
+ * <p>
+ * By default every allocation reads the sender's pending transaction count from the node
+ * and takes the higher of it and the next local nonce. In local-authoritative mode, an
+ * address whose tracker has already been seeded from the node is allocated from memory
+ * alone. Trackers are then reconciled with the node's pending count every reconcile
+ * interval, and right away when a broadcast is rejected because its nonce was already
+ * used. Allocations by source, reconciliations, corrections and the drift found between
+ * local and network nonces are published as {@code web3.nonce.*} metrics.
+ * </p>
+ * <p>
+ * With a {@link NonceLedger}, every reservation, broadcast, confirmation and release is
+ * also recorded durably, and the trackers are rebuilt from the ledger when the manager is
+ * created. Reservations whose fate was not recorded before a restart are held back until
+ * the first comparison with the node's pending count: those below it were used, the
+ * others never reached the node and are handed out again. With a lease allocator, the
+ * trackers are not rebuilt, as the ledger holds the rows of every instance alike.
+ * </p>
+ * <p>
+ * When several instances send from the same addresses, a {@link NonceLeaseAllocator}
+ * hands each instance contiguous ranges of nonces per address. Nonces are allocated
+ * locally within the range, and the allocator is only consulted to renew it, with the
+ * node's pending count as the floor. A lease left idle for the lease idle time, or held at
+ * shutdown, is given back so another instance can use the rest of it. Every reconciliation
+ * renews each lease still holding nonces not known to be broadcast, used up or not, and
+ * trims it to them. A released nonce is not handed out again locally but given back to the
+ * allocator along with the rest of the current lease, so the next allocation from any
+ * instance leases it first and no instance can take it while another still holds it.
+ * </p>
+ * <p>
+ * A released nonce below the next one is a gap that holds back every later transaction
+ * from the address, so it is handed out again before any new nonce. {@link NonceGapFiller}
+ * fills the gaps no send has taken in time.
+ * </p>
+ */
 @Service
-public class NonceManager {
+public class NonceManager implements MeterBinder {
+    
+    /** Broadcast errors meaning the nonce is already used on the network */
+    private static final List<String> NONCE_USED_ERRORS =
+        List.of("nonce too low", "replacement transaction underpriced");
+    /** Broadcast errors meaning the node already holds this exact transaction */
+    private static final List<String> ALREADY_KNOWN_ERRORS =
+        List.of("already known", "known transaction", "already imported");
     
     private final Web3j web3j;
+    /** Null when nonce state is kept in memory only */
+    private final NonceLedger nonceLedger;
+    /** Null when this instance is the only one allocating nonces */
+    private final NonceLeaseAllocator leaseAllocator;
+    private final boolean localAuthoritative;
+    private final int leaseSize;
+    private final long leaseIdleMs;
     private final Map<String, NonceTracker> nonceTrackers = new ConcurrentHashMap<>();
+    /** Null when trackers are not reconciled in the background */
+    private final ScheduledExecutorService reconciler;
+    /** Renews leases for asynchronous allocations; null without a lease allocator */
+    private final ExecutorService leaseRenewer;
+    
+    private final LongAdder localAllocations = new LongAdder();
+    private final LongAdder networkAllocations = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+    private final LongAdder scheduledCorrections = new LongAdder();
+    private final LongAdder broadcastCorrections = new LongAdder();
+    private final LongAdder leasesAcquired = new LongAdder();
+    private final LongAdder leasesReturned = new LongAdder();
+    private final LongAdder abandonedReservations = new LongAdder();
+    /** Registries the drift between local and network nonces is recorded in */
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
     
     public NonceManager(Web3j web3j) {
+        this(web3j, null, false, 0);
+    }
+    
+    public NonceManager(Web3j web3j, boolean localAuthoritative, long reconcileIntervalMs) {
+        this(web3j, null, localAuthoritative, reconcileIntervalMs);
+    }
+    
+    public NonceManager(Web3j web3j, NonceLedger nonceLedger, boolean localAuthoritative, long reconcileIntervalMs) {
+        this(web3j, nonceLedger, (NonceLeaseAllocator) null, localAuthoritative, reconcileIntervalMs, 0, 0);
+    }
+    
+    @Autowired
+    public NonceManager(Web3j web3j,
+                        NonceLedger nonceLedger,
+                        ObjectProvider<NonceLeaseAllocator> leaseAllocator,
+                        @Value("${web3.ethereum.nonce.localAuthoritative:false}") boolean localAuthoritative,
+                        @Value("${web3.ethereum.nonce.reconcileIntervalMs:30000}") long reconcileIntervalMs,
+                        @Value("${web3.ethereum.nonce.distributed.leaseSize:16}") int leaseSize,
+                        @Value("${web3.ethereum.nonce.distributed.leaseIdleMs:10000}") long leaseIdleMs) {
+        this(web3j, nonceLedger, leaseAllocator.getIfAvailable(), localAuthoritative, reconcileIntervalMs,
+            leaseSize, leaseIdleMs);
+    }
+    
+    /**
+     * @param web3j The Web3j instance for blockchain communication
+     * @param nonceLedger Durable record of nonce state the trackers are rebuilt from, or null
+     * @param leaseAllocator Coordinates nonce ranges with other instances, or null
+     * @param localAuthoritative Whether seeded trackers allocate without asking the node
+     * @param reconcileIntervalMs How often trackers are reconciled with the node in
+     *                            local-authoritative or distributed mode
+     * @param leaseSize Nonces leased at a time in distributed mode
+     * @param leaseIdleMs How long an unused lease is held before it is given back
+     */
+    public NonceManager(Web3j web3j,
+                        NonceLedger nonceLedger,
+                        NonceLeaseAllocator leaseAllocator,
+                        boolean localAuthoritative,
+                        long reconcileIntervalMs,
+                        int leaseSize,
+                        long leaseIdleMs) {
+        boolean background = localAuthoritative || leaseAllocator != null;
+        if (background && reconcileIntervalMs < 1) {
+            throw new IllegalArgumentException("Invalid nonce reconcile interval: " + reconcileIntervalMs);
+        }
+        if (leaseAllocator != null && (leaseSize < 1 || leaseIdleMs < 1)) {
+            throw new IllegalArgumentException("Invalid nonce lease settings");
+        }
         this.web3j = web3j;
+        this.nonceLedger = nonceLedger;
+        this.leaseAllocator = leaseAllocator;
+        this.localAuthoritative = localAuthoritative;
+        this.leaseSize = leaseSize;
+        this.leaseIdleMs = leaseIdleMs;
+        if (nonceLedger != null && leaseAllocator == null) {
+            restore(nonceLedger.load());
+        }
+        if (background) {
+            this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "nonce-reconciler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Restored reservations are checked against the node right away
+            reconciler.scheduleWithFixedDelay(this::reconcileAll, nonceTrackers.isEmpty() ? reconcileIntervalMs : 0,
+                reconcileIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.reconciler = null;
+        }
+        if (leaseAllocator != null) {
+            this.leaseRenewer = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "nonce-lease-renewer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.leaseRenewer = null;
+        }
     }
     
-    public synchronized BigInteger getNextNonce(String address) throws IOException {
-        String normalizedAddress = address.toLowerCase();
-        NonceTracker tracker = nonceTrackers.computeIfAbsent(normalizedAddress, k -> new NonceTracker());
-        
-        BigInteger networkNonce = getNetworkNonce(address);
-        BigInteger localNonce = tracker.getNextNonce();
-        
-        if (localNonce == null || networkNonce.compareTo(localNonce) > 0) {
-            tracker.reset(networkNonce);
-            return networkNonce;
+    /**
+     * Rebuilds the trackers from the ledger, without asking the node about any sender.
+     */
+    private void restore(Map<String, List<NonceLedgerEntry>> ledger) {
+        ledger.forEach((address, entries) -> {
+            NonceTracker tracker = new NonceTracker(leaseAllocator != null);
+            if (tracker.restore(entries)) {
+                nonceTrackers.put(address, tracker);
+            }
+        });
+    }
+    
+    /**
+     * Stops reconciling and gives back the unused part of every lease. Called by Spring
+     * when the context shuts down.
+     */
+    @PreDestroy
+    public void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
         }
-        
-        return localNonce;
+        if (leaseRenewer != null) {
+            leaseRenewer.shutdownNow();
+        }
+        if (leaseAllocator != null) {
+            nonceTrackers.forEach((address, tracker) -> {
+                returnReleased(address, tracker);
+                giveBack(address, tracker.surrender(Long.MAX_VALUE));
+            });
+        }
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("web3.nonce.allocations", localAllocations, LongAdder::sum)
+            .tag("source", "local")
+            .description("Nonces allocated from a seeded tracker without asking the node")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.allocations", networkAllocations, LongAdder::sum)
+            .tag("source", "network")
+            .description("Nonces allocated after reading the pending transaction count")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.reconciliations", reconciliations, LongAdder::sum)
+            .description("Trackers compared with the node's pending transaction count")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.corrections", scheduledCorrections, LongAdder::sum)
+            .tag("trigger", "scheduled")
+            .description("Trackers moved forward by the periodic reconciliation")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.corrections", broadcastCorrections, LongAdder::sum)
+            .tag("trigger", "broadcast")
+            .description("Trackers moved forward after a broadcast was rejected for its nonce")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.leases", leasesAcquired, LongAdder::sum)
+            .tag("event", "acquired")
+            .description("Nonce ranges leased from the allocator shared with other instances")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.leases", leasesReturned, LongAdder::sum)
+            .tag("event", "returned")
+            .description("Unused parts of nonce leases given back to the shared allocator")
+            .register(registry);
+        FunctionCounter.builder("web3.nonce.abandoned", abandonedReservations, LongAdder::sum)
+            .description("Reserved nonces never broadcast that were released for the next send")
+            .register(registry);
+        Gauge.builder("web3.nonce.trackers", nonceTrackers, Map::size)
+            .description("Sender addresses with a nonce tracker")
+            .register(registry);
+        registries.add(registry);
+    }
+    
+    public BigInteger getNextNonce(String address) throws IOException {
+        NonceTracker tracker = tracker(address);
+        if (localAuthoritative || leaseAllocator != null) {
+            BigInteger local = allocateLocal(address, tracker);
+            if (local != null) {
+                return local;
+            }
+        }
+        if (leaseAllocator != null) {
+            return allocateLeased(address, tracker);
+        }
+        return allocateNonce(address, getNetworkNonce(address));
+    }
+    
+    /**
+     * Asynchronous variant of {@link #getNextNonce(String)}. The network nonce is fetched
+     * without holding any lock.
+     */
+    public CompletableFuture<BigInteger> getNextNonceAsync(String address) {
+        NonceTracker tracker = tracker(address);
+        if (localAuthoritative || leaseAllocator != null) {
+            BigInteger local = allocateLocal(address, tracker);
+            if (local != null) {
+                return CompletableFuture.completedFuture(local);
+            }
+        }
+        if (leaseAllocator != null) {
+            // Renewing a lease blocks on the node and the allocator, but only once per lease,
+            // and on threads of its own rather than the common pool
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return allocateLeased(address, tracker);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, leaseRenewer);
+        }
+        return web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING)
+            .sendAsync()
+            .thenApply(response -> allocateNonce(address, response.getTransactionCount()));
+    }
+    
+    private BigInteger allocateLocal(String address, NonceTracker tracker) {
+        BigInteger local = tracker.allocateLocal();
+        if (local != null) {
+            localAllocations.increment();
+            record(address, local, NonceLedgerEntry.Status.RESERVED);
+        }
+        return local;
+    }
+    
+    /**
+     * Leases a new range once the current one is used up, then allocates from it. Renewals
+     * for one address are serialized, so senders that run out at the same time lease one
+     * range between them.
+     */
+    private BigInteger allocateLeased(String address, NonceTracker tracker) throws IOException {
+        while (true) {
+            tracker.renewal.lock();
+            try {
+                if (!tracker.hasLeaseRoom()) {
+                    BigInteger floor = getNetworkNonce(address);
+                    tracker.grantLease(leaseAllocator.acquire(address.toLowerCase(), floor, leaseSize));
+                    leasesAcquired.increment();
+                }
+            } finally {
+                tracker.renewal.unlock();
+            }
+            BigInteger local = allocateLocal(address, tracker);
+            if (local != null) {
+                return local;
+            }
+        }
+    }
+    
+    /**
+     * @return Whether the allocator took the nonces, or has taken them back already
+     */
+    private boolean giveBack(String address, NonceLeaseAllocator.Lease unused) {
+        if (unused == null) {
+            return true;
+        }
+        try {
+            leaseAllocator.giveBack(address, unused);
+            leasesReturned.increment();
+            return true;
+        } catch (RuntimeException e) {
+            // Taken back by the allocator once the lease expires
+            return false;
+        }
+    }
+    
+    /**
+     * Gives the tracker's released nonces back to the allocator on a lease renewer thread.
+     */
+    private void returnReleasedLater(String address, NonceTracker tracker) {
+        try {
+            leaseRenewer.execute(() -> returnReleased(address, tracker));
+        } catch (RejectedExecutionException e) {
+            // Shutting down, which gives them back
+        }
+    }
+    
+    /**
+     * Gives the tracker's released nonces back to the allocator, then the rest of its
+     * lease, so the next allocation leases them before any new nonce. A nonce the allocator
+     * could not be reached for stays released until the next reconciliation.
+     */
+    private void returnReleased(String address, NonceTracker tracker) {
+        tracker.renewal.lock();
+        try {
+            List<BigInteger> released = tracker.takeReleased();
+            if (released.isEmpty()) {
+                return;
+            }
+            for (BigInteger nonce : released) {
+                NonceLeaseAllocator.Lease unused = new NonceLeaseAllocator.Lease(nonce, nonce.add(BigInteger.ONE));
+                if (giveBack(address, unused)) {
+                    tracker.gaveBack(unused);
+                } else {
+                    tracker.keepReleased(nonce);
+                }
+            }
+            giveBack(address, tracker.surrender(Long.MAX_VALUE));
+        } finally {
+            tracker.renewal.unlock();
+        }
+    }
+    
+    /**
+     * Renews every lease of the tracker, trimmed to the nonces it still holds, and stops
+     * handing out nonces from a lease the allocator already took back.
+     */
+    private void renewLeases(String address, NonceTracker tracker) {
+        for (NonceLeaseAllocator.Lease held : tracker.heldLeases()) {
+            try {
+                if (leaseAllocator.renew(address, held)) {
+                    tracker.renewed(held);
+                } else {
+                    tracker.dropLease(held.end());
+                }
+            } catch (RuntimeException e) {
+                // Tried again on the next reconciliation, well before the lease expires
+            }
+        }
+    }
+    
+    /**
+     * Allocates under the lock of the address's own tracker, so senders with different
+     * addresses never wait for each other.
+     */
+    private BigInteger allocateNonce(String address, BigInteger networkNonce) {
+        networkAllocations.increment();
+        BigInteger nonce = tracker(address).allocate(networkNonce);
+        record(address, nonce, NonceLedgerEntry.Status.RESERVED);
+        return nonce;
+    }
+    
+    private void record(String address, BigInteger nonce, NonceLedgerEntry.Status status) {
+        if (nonceLedger != null) {
+            nonceLedger.record(address.toLowerCase(), nonce, status);
+        }
+    }
+    
+    private NonceTracker tracker(String address) {
+        return nonceTrackers.computeIfAbsent(address.toLowerCase(), k -> new NonceTracker(leaseAllocator != null));
     }
     
     public void confirmTransaction(String address, BigInteger nonce) {
@@ -41,6 +431,83 @@ public class NonceManager {
         if (tracker != null) {
             tracker.confirm(nonce);
         }
+        record(address, nonce, NonceLedgerEntry.Status.CONFIRMED);
+    }
+    
+    /**
+     * Records that the node accepted the transaction using the nonce.
+     */
+    public void markBroadcast(String address, BigInteger nonce) {
+        NonceTracker tracker = nonceTrackers.get(address.toLowerCase());
+        if (tracker != null) {
+            tracker.markBroadcast(nonce);
+        }
+        record(address, nonce, NonceLedgerEntry.Status.BROADCAST);
+    }
+    
+    /**
+     * @return Whether the nonce was released and has not been handed out again
+     */
+    public boolean isReleased(String address, BigInteger nonce) {
+        NonceTracker tracker = nonceTrackers.get(address.toLowerCase());
+        return tracker != null && tracker.isReleased(nonce);
+    }
+    
+    /**
+     * @param reservedBefore Reservations not broadcast by this time count as possible gaps
+     * @return The lower-case addresses that have released nonces not handed out again, or
+     *         reservations that were not broadcast in time
+     */
+    public List<String> getAddressesWithPossibleGaps(long reservedBefore) {
+        List<String> addresses = new ArrayList<>();
+        nonceTrackers.forEach((address, tracker) -> {
+            if (tracker.hasPossibleGaps(reservedBefore)) {
+                addresses.add(address);
+            }
+        });
+        return addresses;
+    }
+    
+    /**
+     * Compares the address's released and reserved nonces with the node's pending count.
+     * Released nonces below it have been used by other transactions and are forgotten.
+     * Reservations at or above it that were not broadcast by the given time were abandoned,
+     * for example by a send that failed between taking the nonce and broadcasting, so they
+     * are released for the next send from the address.
+     *
+     * @param address The sender
+     * @param networkNonce The node's pending transaction count for the address
+     * @param reservedBefore Reservations not broadcast by this time are released
+     * @return The released nonces the node is still waiting for, in order
+     */
+    public List<BigInteger> findGaps(String address, BigInteger networkNonce, long reservedBefore) {
+        NonceTracker tracker = nonceTrackers.get(address.toLowerCase());
+        if (tracker == null) {
+            return List.of();
+        }
+        List<BigInteger> abandoned = tracker.releaseAbandoned(networkNonce, reservedBefore);
+        for (BigInteger nonce : abandoned) {
+            abandonedReservations.increment();
+            record(address, nonce, NonceLedgerEntry.Status.RELEASED);
+        }
+        if (leaseAllocator != null && !abandoned.isEmpty()) {
+            returnReleasedLater(address.toLowerCase(), tracker);
+        }
+        return tracker.findGaps(networkNonce);
+    }
+    
+    /**
+     * Reserves a released nonce for a transaction that fills the gap it left.
+     *
+     * @return Whether the nonce was still released; if not, it must not be used
+     */
+    public boolean claimGap(String address, BigInteger nonce) {
+        NonceTracker tracker = nonceTrackers.get(address.toLowerCase());
+        if (tracker == null || !tracker.claim(nonce)) {
+            return false;
+        }
+        record(address, nonce, NonceLedgerEntry.Status.RESERVED);
+        return true;
     }
     
     public void releaseNonce(String address, BigInteger nonce) {
@@ -48,14 +515,90 @@ public class NonceManager {
         NonceTracker tracker = nonceTrackers.get(normalizedAddress);
         if (tracker != null) {
             tracker.release(nonce);
+            if (leaseAllocator != null) {
+                returnReleasedLater(normalizedAddress, tracker);
+            }
         }
+        record(address, nonce, NonceLedgerEntry.Status.RELEASED);
+    }
+    
+    /**
+     * Releases the nonce of a transaction the node rejected. If the rejection means the
+     * nonce was already used, it is dropped instead, since it would be rejected again, and
+     * the tracker is reconciled with the node without waiting for the next scheduled
+     * reconciliation. If the node already holds the transaction itself, it was broadcast.
+     *
+     * @param address The sender
+     * @param nonce The nonce of the rejected transaction
+     * @param errorMessage The node's error message
+     */
+    public void broadcastFailed(String address, BigInteger nonce, String errorMessage) {
+        if (isAlreadyKnownError(errorMessage)) {
+            markBroadcast(address, nonce);
+            return;
+        }
+        if (!isNonceUsedError(errorMessage)) {
+            releaseNonce(address, nonce);
+            return;
+        }
+        NonceTracker tracker = nonceTrackers.get(address.toLowerCase());
+        if (tracker != null) {
+            tracker.discard(nonce);
+        }
+        reconcile(address.toLowerCase(), true);
+    }
+    
+    /**
+     * Settles the nonce of a transaction whose broadcast got no reply from the node. If the
+     * call was refused before it was sent, the nonce is released. Otherwise the node may
+     * hold the transaction, so the nonce stays reserved and the tracker is reconciled with
+     * the node right away. A reservation the node never got is released by
+     * {@link NonceGapFiller} once it is overdue.
+     *
+     * @param address The sender
+     * @param nonce The nonce of the transaction
+     * @param error Why the broadcast call failed
+     */
+    public void broadcastError(String address, BigInteger nonce, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RpcRejectedException) {
+            releaseNonce(address, nonce);
+            return;
+        }
+        reconcile(address.toLowerCase(), true);
+    }
+    
+    static boolean isNonceUsedError(String errorMessage) {
+        return matches(errorMessage, NONCE_USED_ERRORS);
+    }
+    
+    /**
+     * Whether the broadcast was rejected because the node already holds the very same
+     * signed transaction, for example from an earlier attempt whose reply was lost. The
+     * transaction is then in the pool under its own hash, so the broadcast succeeded.
+     */
+    static boolean isAlreadyKnownError(String errorMessage) {
+        return matches(errorMessage, ALREADY_KNOWN_ERRORS);
+    }
+    
+    private static boolean matches(String errorMessage, List<String> errors) {
+        if (errorMessage == null) {
+            return false;
+        }
+        String message = errorMessage.toLowerCase(Locale.ROOT);
+        return errors.stream().anyMatch(message::contains);
     }
     
     public void resetNonce(String address) throws IOException {
-        String normalizedAddress = address.toLowerCase();
         BigInteger networkNonce = getNetworkNonce(address);
-        nonceTrackers.put(normalizedAddress, new NonceTracker());
-        nonceTrackers.get(normalizedAddress).reset(networkNonce);
+        NonceTracker tracker = tracker(address);
+        if (leaseAllocator != null) {
+            // The next allocation leases again from the network nonce
+            giveBack(address.toLowerCase(), tracker.surrender(Long.MAX_VALUE));
+        }
+        // Reset the existing tracker in place so allocations racing with the reset use its lock
+        tracker.reset(networkNonce);
+        recordUsedBelow(address, networkNonce);
     }
     
     public BigInteger getPendingNonce(String address) throws IOException {
@@ -68,17 +611,364 @@ public class NonceManager {
             .getTransactionCount();
     }
     
+    /**
+     * Reconciles every seeded tracker with the node's pending count, gives back released
+     * nonces and leases that have been idle too long and renews the others. The reads are
+     * non-blocking, so they can share JSON-RPC batches.
+     */
+    void reconcileAll() {
+        for (String address : new ArrayList<>(nonceTrackers.keySet())) {
+            reconcile(address, false);
+        }
+        if (leaseAllocator != null) {
+            long idleSince = System.currentTimeMillis() - leaseIdleMs;
+            nonceTrackers.forEach((address, tracker) -> {
+                tracker.renewal.lock();
+                try {
+                    returnReleased(address, tracker);
+                    giveBack(address, tracker.surrender(idleSince));
+                    renewLeases(address, tracker);
+                } finally {
+                    tracker.renewal.unlock();
+                }
+            });
+        }
+    }
+    
+    private CompletableFuture<Void> reconcile(String address, boolean afterBroadcast) {
+        NonceTracker tracker = nonceTrackers.get(address);
+        if (tracker == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Reconciliation yields to broadcasts and user-facing reads
+        try (RpcPriority.Scope ignored = RpcPriority.BACKGROUND.enter()) {
+            return web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING)
+                .sendAsync()
+                .thenAccept(response -> {
+                    if (response.hasError()) {
+                        return;
+                    }
+                    BigInteger networkNonce = response.getTransactionCount();
+                    BigInteger drift = tracker.reconcile(networkNonce);
+                    reconciliations.increment();
+                    if (drift == null || drift.signum() == 0) {
+                        return;
+                    }
+                    recordDrift(drift);
+                    if (drift.signum() < 0) {
+                        (afterBroadcast ? broadcastCorrections : scheduledCorrections).increment();
+                        recordUsedBelow(address, networkNonce);
+                    }
+                })
+                .exceptionally(error -> null);
+        }
+    }
+    
+    /**
+     * Records every nonce below the network nonce as used, which also lets the ledger drop
+     * what it held about them.
+     */
+    private void recordUsedBelow(String address, BigInteger networkNonce) {
+        if (nonceLedger != null) {
+            nonceLedger.recordUsedBelow(address.toLowerCase(), networkNonce);
+        }
+    }
+    
+    private void recordDrift(BigInteger drift) {
+        for (MeterRegistry registry : registries) {
+            DistributionSummary.builder("web3.nonce.drift")
+                .tag("ahead", drift.signum() > 0 ? "local" : "network")
+                .description("Nonces between the tracker and the node's pending count when they disagreed")
+                .register(registry)
+                .record(drift.abs().doubleValue());
+        }
+    }
+    
+    /**
+     * Forgets the address's next nonce, so the next allocation starts again from the node's
+     * pending count. The unused part of its lease is given back. Reservations still in
+     * flight and released nonces are kept, so they are neither handed out twice nor lost.
+     */
     public void clearCache(String address) {
-        nonceTrackers.remove(address.toLowerCase());
+        String normalizedAddress = address.toLowerCase();
+        NonceTracker tracker = nonceTrackers.get(normalizedAddress);
+        if (tracker != null) {
+            clear(normalizedAddress, tracker);
+        }
     }
     
     public void clearAllCaches() {
-        nonceTrackers.clear();
+        nonceTrackers.forEach(this::clear);
+    }
+    
+    private void clear(String address, NonceTracker tracker) {
+        if (leaseAllocator != null) {
+            giveBack(address, tracker.surrender(Long.MAX_VALUE));
+        }
+        // Cleared in place so allocations racing with it use the tracker's lock
+        tracker.clear();
+    }
+    
+    public long getLocalAllocationCount() {
+        return localAllocations.sum();
+    }
+    
+    public long getNetworkAllocationCount() {
+        return networkAllocations.sum();
+    }
+    
+    public long getReconciliationCount() {
+        return reconciliations.sum();
+    }
+    
+    public long getCorrectionCount() {
+        return scheduledCorrections.sum() + broadcastCorrections.sum();
+    }
+    
+    public long getLeaseCount() {
+        return leasesAcquired.sum();
     }
     
     private static class NonceTracker {
         private final AtomicReference<BigInteger> currentNonce = new AtomicReference<>();
         private final Map<BigInteger, NonceStatus> pendingNonces = new ConcurrentHashMap<>();
+        /** When each nonce still pending and not known to be broadcast was reserved */
+        private final Map<BigInteger, Long> reservedAt = new ConcurrentHashMap<>();
+        /** Whether nonces are only handed out from a leased range */
+        private final boolean leased;
+        /** Serializes lease renewals, which wait on the node and the allocator */
+        private final ReentrantLock renewal = new ReentrantLock();
+        /** Leases held with the allocator, start by end, as last renewed or split */
+        private final TreeMap<BigInteger, BigInteger> leases = new TreeMap<>();
+        /** End of the leased range nonces are handed out from, exclusive; null before the first lease */
+        private BigInteger leaseEnd;
+        /** When the lease was granted or last allocated from */
+        private long leaseUsedAt;
+        
+        NonceTracker(boolean leased) {
+            this.leased = leased;
+        }
+        
+        /**
+         * Reserves the next local nonce, or the network nonce if it is ahead of the local one.
+         * Nonces below the network nonce are forgotten as used; reservations at or above it
+         * may still be in flight, so they are kept and skipped.
+         */
+        public synchronized BigInteger allocate(BigInteger networkNonce) {
+            verifyRestored(networkNonce);
+            // Released nonces below the network's were used by other transactions
+            pendingNonces.entrySet().removeIf(entry ->
+                entry.getValue() == NonceStatus.RELEASED && entry.getKey().compareTo(networkNonce) < 0);
+            BigInteger current = currentNonce.get();
+            
+            if (current == null || networkNonce.compareTo(current) > 0) {
+                forgetBelow(networkNonce);
+                currentNonce.set(networkNonce);
+            }
+            
+            return getNextNonce();
+        }
+        
+        /**
+         * Seeds the tracker from ledger entries ordered by nonce. Broadcast nonces stay
+         * reserved, while reserved ones and released ones below the next nonce are held
+         * back until {@link #verifyRestored}, since the node may have used them since.
+         *
+         * @return Whether the entries gave the tracker a next nonce
+         */
+        public synchronized boolean restore(List<NonceLedgerEntry> entries) {
+            BigInteger next = null;
+            for (NonceLedgerEntry entry : entries) {
+                if (entry.status() != NonceLedgerEntry.Status.RELEASED) {
+                    next = BigInteger.valueOf(entry.nonce() + 1);
+                }
+            }
+            if (next == null) {
+                return false;
+            }
+            currentNonce.set(next);
+            for (NonceLedgerEntry entry : entries) {
+                BigInteger nonce = BigInteger.valueOf(entry.nonce());
+                switch (entry.status()) {
+                    case RESERVED -> pendingNonces.put(nonce, NonceStatus.RESTORED);
+                    case BROADCAST -> pendingNonces.put(nonce, NonceStatus.BROADCAST);
+                    case RELEASED -> {
+                        if (nonce.compareTo(next) < 0) {
+                            pendingNonces.put(nonce, NonceStatus.RESTORED);
+                        }
+                    }
+                    case CONFIRMED -> {
+                        // Used, and below every nonce still to be handed out
+                    }
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Reserves the next local nonce without consulting the network. With a lease, nonces
+         * only come from the current lease; released ones are given back to the allocator
+         * instead.
+         *
+         * @return The nonce, or null if the tracker has not been seeded from the network yet
+         *         or has no lease room left
+         */
+        public synchronized BigInteger allocateLocal() {
+            if (currentNonce.get() == null) {
+                return null;
+            }
+            if (leased && !hasLeaseRoom()) {
+                return null;
+            }
+            BigInteger nonce = getNextNonce();
+            if (leased) {
+                if (nonce.compareTo(leaseEnd) >= 0) {
+                    // Skipped past the lease over nonces still reserved; take it back
+                    pendingNonces.remove(nonce);
+                    reservedAt.remove(nonce);
+                    currentNonce.set(nonce);
+                    return null;
+                }
+                leaseUsedAt = System.currentTimeMillis();
+            }
+            return nonce;
+        }
+        
+        public synchronized boolean hasLeaseRoom() {
+            BigInteger nonce = currentNonce.get();
+            return leaseEnd != null && nonce != null && nonce.compareTo(leaseEnd) < 0;
+        }
+        
+        public synchronized void dropLease(BigInteger end) {
+            leases.remove(end);
+            if (end.equals(leaseEnd)) {
+                leaseEnd = null;
+            }
+        }
+        
+        public synchronized void grantLease(NonceLeaseAllocator.Lease lease) {
+            currentNonce.set(lease.start());
+            leaseEnd = lease.end();
+            leases.put(lease.end(), lease.start());
+            leaseUsedAt = System.currentTimeMillis();
+        }
+        
+        /**
+         * @return Each lease from its lowest nonce this tracker still holds, not handed out
+         *         yet, reserved but not known to be broadcast, or released but not given
+         *         back, to its end; empty if it holds none of them
+         */
+        public synchronized List<NonceLeaseAllocator.Lease> heldLeases() {
+            List<NonceLeaseAllocator.Lease> held = new ArrayList<>();
+            leases.forEach((end, start) -> {
+                BigInteger nonce = start;
+                while (nonce.compareTo(end) < 0 && !holds(nonce, end)) {
+                    nonce = nonce.add(BigInteger.ONE);
+                }
+                held.add(new NonceLeaseAllocator.Lease(nonce, end));
+            });
+            return held;
+        }
+        
+        private boolean holds(BigInteger nonce, BigInteger end) {
+            BigInteger next = currentNonce.get();
+            if (end.equals(leaseEnd) && next != null && nonce.compareTo(next) >= 0) {
+                return true;
+            }
+            NonceStatus status = pendingNonces.get(nonce);
+            return status == NonceStatus.PENDING || status == NonceStatus.RELEASED
+                || status == NonceStatus.RETURNING;
+        }
+        
+        /**
+         * Trims a lease the allocator renewed to the nonces still held, forgetting it once
+         * none are.
+         */
+        public synchronized void renewed(NonceLeaseAllocator.Lease held) {
+            leases.computeIfPresent(held.end(), (end, start) -> held.isEmpty() ? null : start.max(held.start()));
+        }
+        
+        /**
+         * Marks the released nonces as being given back, so they are not claimed meanwhile.
+         *
+         * @return The nonces, in order
+         */
+        public synchronized List<BigInteger> takeReleased() {
+            List<BigInteger> released = pendingNonces.entrySet().stream()
+                .filter(entry -> entry.getValue() == NonceStatus.RELEASED)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+            released.forEach(nonce -> pendingNonces.put(nonce, NonceStatus.RETURNING));
+            return released;
+        }
+        
+        /**
+         * Forgets a released nonce the allocator took back, splitting its lease around it.
+         */
+        public synchronized void gaveBack(NonceLeaseAllocator.Lease unused) {
+            pendingNonces.remove(unused.start(), NonceStatus.RETURNING);
+            split(unused);
+        }
+        
+        public synchronized void keepReleased(BigInteger nonce) {
+            pendingNonces.replace(nonce, NonceStatus.RETURNING, NonceStatus.RELEASED);
+        }
+        
+        /**
+         * Splits the lease holding the given nonces around them, as the allocator does when
+         * they are given back.
+         */
+        private void split(NonceLeaseAllocator.Lease unused) {
+            Map.Entry<BigInteger, BigInteger> lease = leases.ceilingEntry(unused.end());
+            if (lease == null || lease.getValue().compareTo(unused.start()) > 0) {
+                return;
+            }
+            leases.remove(lease.getKey());
+            if (lease.getValue().compareTo(unused.start()) < 0) {
+                leases.put(unused.start(), lease.getValue());
+            }
+            if (unused.end().compareTo(lease.getKey()) < 0) {
+                leases.put(lease.getKey(), unused.end());
+            }
+        }
+        
+        /**
+         * Ends the lease if it has not been used since the given time.
+         *
+         * @return The nonces of the lease not handed out, or null if there are none or the
+         *         lease is still in use
+         */
+        public synchronized NonceLeaseAllocator.Lease surrender(long idleSince) {
+            if (!hasLeaseRoom() || leaseUsedAt > idleSince) {
+                return null;
+            }
+            NonceLeaseAllocator.Lease unused = new NonceLeaseAllocator.Lease(currentNonce.get(), leaseEnd);
+            split(unused);
+            leaseEnd = null;
+            return unused;
+        }
+        
+        /**
+         * Moves the tracker forward to the network nonce if the network is ahead. A network
+         * nonce behind the local one is left alone, as reserved nonces may not have been
+         * broadcast yet.
+         *
+         * @return Next local nonce minus the network nonce, or null if the tracker is not seeded
+         */
+        public synchronized BigInteger reconcile(BigInteger networkNonce) {
+            BigInteger localNonce = currentNonce.get();
+            if (localNonce == null) {
+                return null;
+            }
+            BigInteger drift = localNonce.subtract(networkNonce);
+            forgetBelow(networkNonce);
+            if (drift.signum() < 0) {
+                currentNonce.set(networkNonce);
+            }
+            verifyRestored(networkNonce);
+            return drift;
+        }
         
         public synchronized BigInteger getNextNonce() {
             BigInteger nonce = currentNonce.get();
@@ -86,32 +976,185 @@ public class NonceManager {
                 return null;
             }
             
+            // A released nonce holds back everything above it, so it goes first, unless it is
+            // to be given back to the lease allocator
+            BigInteger released = leased ? null : lowestReleased();
+            if (released != null) {
+                reserve(released);
+                return released;
+            }
+            
             while (pendingNonces.containsKey(nonce)) {
                 NonceStatus status = pendingNonces.get(nonce);
-                if (status == NonceStatus.RELEASED) {
+                if (status == NonceStatus.RELEASED && !leased) {
                     pendingNonces.remove(nonce);
                     break;
                 }
                 nonce = nonce.add(BigInteger.ONE);
             }
             
-            pendingNonces.put(nonce, NonceStatus.PENDING);
+            reserve(nonce);
             currentNonce.set(nonce.add(BigInteger.ONE));
             return nonce;
         }
         
+        private void reserve(BigInteger nonce) {
+            pendingNonces.put(nonce, NonceStatus.PENDING);
+            reservedAt.put(nonce, System.currentTimeMillis());
+        }
+        
+        /**
+         * Forgets the nonces below the network's, which are used whatever this tracker
+         * thought of them.
+         */
+        private void forgetBelow(BigInteger networkNonce) {
+            pendingNonces.keySet().removeIf(nonce -> nonce.compareTo(networkNonce) < 0);
+            reservedAt.keySet().removeIf(nonce -> nonce.compareTo(networkNonce) < 0);
+        }
+        
+        /**
+         * Starts again from the network nonce, forgetting every reservation. Released nonces
+         * still to be given back to the lease allocator are kept.
+         */
         public synchronized void reset(BigInteger networkNonce) {
             currentNonce.set(networkNonce);
-            pendingNonces.clear();
+            pendingNonces.values().removeIf(status -> !leased
+                || (status != NonceStatus.RELEASED && status != NonceStatus.RETURNING));
+            reservedAt.clear();
+            leaseEnd = null;
+        }
+        
+        /**
+         * Forgets the next nonce and the settled nonces, keeping reservations and released
+         * nonces.
+         */
+        public synchronized void clear() {
+            currentNonce.set(null);
+            leaseEnd = null;
+            pendingNonces.values().removeIf(status -> status == NonceStatus.CONFIRMED);
+        }
+        
+        public synchronized void markBroadcast(BigInteger nonce) {
+            if (pendingNonces.get(nonce) == NonceStatus.PENDING) {
+                pendingNonces.put(nonce, NonceStatus.BROADCAST);
+            }
+            reservedAt.remove(nonce);
         }
         
         public synchronized void confirm(BigInteger nonce) {
             pendingNonces.put(nonce, NonceStatus.CONFIRMED);
+            reservedAt.remove(nonce);
             cleanupConfirmedNonces();
         }
         
         public synchronized void release(BigInteger nonce) {
             pendingNonces.put(nonce, NonceStatus.RELEASED);
+            reservedAt.remove(nonce);
+            rollBackReleased();
+        }
+        
+        /**
+         * Resolves reserved and released nonces restored from the ledger once the node's
+         * pending count is known: below it they were used, otherwise they never reached the
+         * node and can be handed out again.
+         */
+        private void verifyRestored(BigInteger networkNonce) {
+            if (!pendingNonces.containsValue(NonceStatus.RESTORED)) {
+                return;
+            }
+            pendingNonces.entrySet().removeIf(entry ->
+                entry.getValue() == NonceStatus.RESTORED && entry.getKey().compareTo(networkNonce) < 0);
+            pendingNonces.replaceAll((nonce, status) ->
+                status == NonceStatus.RESTORED ? NonceStatus.RELEASED : status);
+            rollBackReleased();
+        }
+        
+        /**
+         * Released nonces right below the next one are handed out again next, so they leave
+         * no gap; the next nonce moves back over them. With a lease, they are given back to
+         * the allocator instead.
+         */
+        private void rollBackReleased() {
+            if (leased) {
+                return;
+            }
+            BigInteger next = currentNonce.get();
+            while (next != null && next.signum() > 0
+                    && pendingNonces.get(next.subtract(BigInteger.ONE)) == NonceStatus.RELEASED) {
+                next = next.subtract(BigInteger.ONE);
+                pendingNonces.remove(next);
+            }
+            currentNonce.set(next);
+        }
+        
+        /**
+         * Forgets a nonce used elsewhere, without handing it out again.
+         */
+        public synchronized void discard(BigInteger nonce) {
+            pendingNonces.remove(nonce);
+            reservedAt.remove(nonce);
+        }
+        
+        public synchronized boolean isReleased(BigInteger nonce) {
+            return pendingNonces.get(nonce) == NonceStatus.RELEASED;
+        }
+        
+        public synchronized boolean hasPossibleGaps(long reservedBefore) {
+            return pendingNonces.containsValue(NonceStatus.RELEASED)
+                || reservedAt.values().stream().anyMatch(at -> at <= reservedBefore);
+        }
+        
+        public synchronized boolean claim(BigInteger nonce) {
+            if (pendingNonces.get(nonce) != NonceStatus.RELEASED) {
+                return false;
+            }
+            reserve(nonce);
+            return true;
+        }
+        
+        /**
+         * Releases the reservations at or above the network nonce that were not broadcast by
+         * the given time. Those below it reached the node after all, so they are no longer
+         * watched.
+         *
+         * @return The nonces released
+         */
+        public synchronized List<BigInteger> releaseAbandoned(BigInteger networkNonce, long reservedBefore) {
+            reservedAt.keySet().removeIf(nonce -> nonce.compareTo(networkNonce) < 0);
+            List<BigInteger> abandoned = new ArrayList<>();
+            reservedAt.forEach((nonce, at) -> {
+                if (at <= reservedBefore && nonce.compareTo(networkNonce) >= 0
+                        && pendingNonces.get(nonce) == NonceStatus.PENDING) {
+                    abandoned.add(nonce);
+                }
+            });
+            for (BigInteger nonce : abandoned) {
+                pendingNonces.put(nonce, NonceStatus.RELEASED);
+                reservedAt.remove(nonce);
+            }
+            rollBackReleased();
+            return abandoned;
+        }
+        
+        public synchronized List<BigInteger> findGaps(BigInteger networkNonce) {
+            pendingNonces.entrySet().removeIf(entry ->
+                entry.getValue() == NonceStatus.RELEASED && entry.getKey().compareTo(networkNonce) < 0);
+            return pendingNonces.entrySet().stream()
+                .filter(entry -> entry.getValue() == NonceStatus.RELEASED)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        }
+        
+        private BigInteger lowestReleased() {
+            BigInteger lowest = null;
+            for (Map.Entry<BigInteger, NonceStatus> entry : pendingNonces.entrySet()) {
+                if (entry.getValue() == NonceStatus.RELEASED
+                        && (lowest == null || entry.getKey().compareTo(lowest) < 0)) {
+                    lowest = entry.getKey();
+                }
+            }
+            return lowest;
         }
         
         private void cleanupConfirmedNonces() {
@@ -128,16 +1171,22 @@ public class NonceManager {
             }
             
             final BigInteger threshold = lowestPending;
-            pendingNonces.entrySet().removeIf(entry -> 
-                entry.getValue() == NonceStatus.CONFIRMED && 
+            pendingNonces.entrySet().removeIf(entry ->
+                entry.getValue() == NonceStatus.CONFIRMED &&
                 entry.getKey().compareTo(threshold) < 0
             );
         }
         
         private enum NonceStatus {
+            /** Reserved, not yet known to have reached the node */
             PENDING,
+            BROADCAST,
             CONFIRMED,
-            RELEASED
+            RELEASED,
+            /** Released and being given back to the lease allocator */
+            RETURNING,
+            /** Reserved or released before a restart, not yet checked against the node */
+            RESTORED
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.wallet.web3_wallet_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link NonceLeaseAllocator} shared through Redis.
+ * <p>
+ * Per address, Redis holds the next nonce never leased, a sorted set of given-back nonces
+ * and a hash of the leases handed out, keyed by their end, each with its owner and expiry
+ * time. Leasing, renewing and giving back are Lua scripts, so each is atomic across
+ * instances, and expiry times come from the Redis clock. All keys of an address share a
+ * hash tag, so they are in the same slot of a Redis Cluster.
+ * </p>
+ * <p>
+ * Owners renew every lease they hold at every reconciliation, moving its start past the
+ * nonces they have broadcast since and removing it once none are left. Giving back part of
+ * a lease splits it, so no lease covers a given-back nonce. A lease that was not renewed
+ * within the lease TTL, because its owner crashed, is taken back on the next acquire: its
+ * nonces join the given-back ones, and those below the node's pending count are dropped
+ * there as used. So nonces an instance leased but never broadcast do not stay a gap that
+ * the node waits on forever, while those it broadcast are not leased again. A given-back
+ * range that still ends at the next nonce is taken off the top instead of being kept in
+ * the set.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "web3.ethereum.nonce.distributed.enabled", havingValue = "true")
+public class RedisNonceLeaseAllocator implements NonceLeaseAllocator {
+
+    /**
+     * KEYS: next nonce, given-back set, leases. ARGV: floor, size, owner, TTL in ms. Returns
+     * the start and end of the lease: the lowest run of given-back nonces at or above the
+     * floor, else a new range.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ACQUIRE = new DefaultRedisScript<>("""
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+        local floor = tonumber(ARGV[1])
+        local size = tonumber(ARGV[2])
+        local leases = redis.call('HGETALL', KEYS[3])
+        for i = 1, #leases, 2 do
+          local lease_end = tonumber(leases[i])
+          local start, owner, expires = string.match(leases[i + 1], '^(%d+) (%S+) (%d+)$')
+          if tonumber(expires) < now then
+            redis.call('HDEL', KEYS[3], leases[i])
+            for nonce = tonumber(start), lease_end - 1 do
+              redis.call('ZADD', KEYS[2], nonce, nonce)
+            end
+          end
+        end
+        redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', '(' .. ARGV[1])
+        local start
+        local finish
+        local returned = redis.call('ZRANGE', KEYS[2], 0, size - 1, 'WITHSCORES')
+        if #returned > 0 then
+          start = tonumber(returned[2])
+          local count = 1
+          while count < #returned / 2 and tonumber(returned[2 * count + 2]) == start + count do
+            count = count + 1
+          end
+          redis.call('ZREMRANGEBYSCORE', KEYS[2], start, start + count - 1)
+          finish = start + count
+        else
+          start = tonumber(redis.call('GET', KEYS[1]) or '0')
+          if floor > start then
+            start = floor
+          end
+          finish = start + size
+          redis.call('SET', KEYS[1], finish)
+        end
+        redis.call('HSET', KEYS[3], finish, start .. ' ' .. ARGV[3] .. ' ' .. (now + tonumber(ARGV[4])))
+        return {start, finish}
+        """, List.class);
+
+    /**
+     * KEYS: leases. ARGV: lowest nonce still held, lease end, owner, TTL in ms. The lease
+     * start only moves forward, and a lease with no nonce left is removed. Returns 1 if the
+     * lease was still the owner's, 0 if it expired and was taken back.
+     */
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>("""
+        local lease = redis.call('HGET', KEYS[1], ARGV[2])
+        if not lease then
+          return 0
+        end
+        local start, owner = string.match(lease, '^(%d+) (%S+) ')
+        if owner ~= ARGV[3] then
+          return 0
+        end
+        start = math.max(tonumber(start), tonumber(ARGV[1]))
+        if start >= tonumber(ARGV[2]) then
+          redis.call('HDEL', KEYS[1], ARGV[2])
+          return 1
+        end
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+        redis.call('HSET', KEYS[1], ARGV[2], start .. ' ' .. owner .. ' ' .. (now + tonumber(ARGV[4])))
+        return 1
+        """, Long.class);
+
+    /**
+     * KEYS: next nonce, given-back set, leases. ARGV: start, end of the unused range, owner.
+     * The owner's lease holding the range is split around it. A lease that expired and was
+     * taken back is ignored, as its nonces may have been leased again.
+     */
+    private static final RedisScript<Long> GIVE_BACK = new DefaultRedisScript<>("""
+        local first = tonumber(ARGV[1])
+        local finish = tonumber(ARGV[2])
+        local leases = redis.call('HGETALL', KEYS[3])
+        local found
+        for i = 1, #leases, 2 do
+          local start, owner, rest = string.match(leases[i + 1], '^(%d+) (%S+) (%d+)$')
+          if owner == ARGV[3] and tonumber(start) <= first and tonumber(leases[i]) >= finish then
+            found = {leases[i], tonumber(start), rest}
+          end
+        end
+        if not found then
+          return -1
+        end
+        redis.call('HDEL', KEYS[3], found[1])
+        if found[2] < first then
+          redis.call('HSET', KEYS[3], first, found[2] .. ' ' .. ARGV[3] .. ' ' .. found[3])
+        end
+        if finish < tonumber(found[1]) then
+          redis.call('HSET', KEYS[3], found[1], finish .. ' ' .. ARGV[3] .. ' ' .. found[3])
+        end
+        if tonumber(redis.call('GET', KEYS[1]) or '-1') == finish then
+          redis.call('SET', KEYS[1], ARGV[1])
+          return 0
+        end
+        for nonce = tonumber(ARGV[1]), tonumber(ARGV[2]) - 1 do
+          redis.call('ZADD', KEYS[2], nonce, nonce)
+        end
+        return 1
+        """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long leaseTtlMs;
+    /** Identifies this instance's leases */
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * @param redisTemplate Access to Redis
+     * @param leaseTtlMs How long a lease is held without being renewed before it is taken back
+     * @param reconcileIntervalMs How often leases are renewed
+     */
+    public RedisNonceLeaseAllocator(StringRedisTemplate redisTemplate,
+                                    @Value("${web3.ethereum.nonce.distributed.leaseTtlMs:90000}") long leaseTtlMs,
+                                    @Value("${web3.ethereum.nonce.reconcileIntervalMs:30000}") long reconcileIntervalMs) {
+        if (leaseTtlMs < 2 * reconcileIntervalMs) {
+            throw new IllegalArgumentException("Nonce lease TTL " + leaseTtlMs
+                + " ms must be at least twice the reconcile interval " + reconcileIntervalMs + " ms");
+        }
+        this.redisTemplate = redisTemplate;
+        this.leaseTtlMs = leaseTtlMs;
+    }
+
+    @Override
+    public Lease acquire(String address, BigInteger floor, int size) {
+        List<?> range = redisTemplate.execute(ACQUIRE, keys(address), floor.toString(), Integer.toString(size),
+            owner, Long.toString(leaseTtlMs));
+        if (range == null || range.size() != 2) {
+            throw new IllegalStateException("Unexpected nonce lease reply for " + address + ": " + range);
+        }
+        return new Lease(BigInteger.valueOf(((Number) range.get(0)).longValue()),
+            BigInteger.valueOf(((Number) range.get(1)).longValue()));
+    }
+
+    @Override
+    public boolean renew(String address, Lease held) {
+        Long renewed = redisTemplate.execute(RENEW, List.of(keys(address).get(2)), held.start().toString(),
+            held.end().toString(), owner, Long.toString(leaseTtlMs));
+        return renewed != null && renewed == 1;
+    }
+
+    @Override
+    public void giveBack(String address, Lease unused) {
+        if (unused.isEmpty()) {
+            return;
+        }
+        redisTemplate.execute(GIVE_BACK, keys(address), unused.start().toString(), unused.end().toString(), owner);
+    }
+
+    private static List<String> keys(String address) {
+        String tag = "wallet:nonce:{" + address + "}";
+        return List.of(tag + ":next", tag + ":returned", tag + ":leases");
+    }
+}
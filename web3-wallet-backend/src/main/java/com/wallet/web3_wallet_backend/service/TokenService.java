@@ -5,20 +5,24 @@ import com.wallet.web3_wallet_backend.api.dto.TokenInfoResponse;
 import com.wallet.web3_wallet_backend.api.dto.TokenTransferRequest;
 import com.wallet.web3_wallet_backend.api.dto.TransactionResponse;
 import com.wallet.web3_wallet_backend.blockchain.contract.ERC20Contract;
+import com.wallet.web3_wallet_backend.blockchain.transaction.GasLimitOracle;
 import com.wallet.web3_wallet_backend.blockchain.transaction.GasManager;
 import com.wallet.web3_wallet_backend.blockchain.transaction.TransactionBuilder;
+import com.wallet.web3_wallet_backend.blockchain.transaction.Wei;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Hash;
 import org.web3j.crypto.RawTransaction;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.methods.response.EthSendTransaction;
-import org.web3j.utils.Convert;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for ERC-20 token operations.
@@ -26,16 +30,24 @@ import java.time.Instant;
 @Service
 public class TokenService {
 
+    /** Gas limit of a transfer whose gas could not be estimated */
+    private static final BigInteger DEFAULT_TRANSFER_GAS_LIMIT = BigInteger.valueOf(65000);
+
     private final Web3j web3j;
     private final GasManager gasManager;
+    private final GasLimitOracle gasLimitOracle;
     private final NonceManager nonceManager;
+    private final NonceGapFiller nonceGapFiller;
     private final TransactionBuilder transactionBuilder;
 
-    public TokenService(Web3j web3j, GasManager gasManager, NonceManager nonceManager,
-                       TransactionBuilder transactionBuilder) {
+    public TokenService(Web3j web3j, GasManager gasManager, GasLimitOracle gasLimitOracle,
+                        NonceManager nonceManager, NonceGapFiller nonceGapFiller,
+                        TransactionBuilder transactionBuilder) {
         this.web3j = web3j;
         this.gasManager = gasManager;
+        this.gasLimitOracle = gasLimitOracle;
         this.nonceManager = nonceManager;
+        this.nonceGapFiller = nonceGapFiller;
         this.transactionBuilder = transactionBuilder;
     }
 
@@ -61,6 +73,29 @@ public class TokenService {
         );
     }
 
+    /**
+     * Get token information without blocking, querying all fields concurrently.
+     * Shares the cache of {@link #getTokenInfo(String)}.
+     */
+    @Cacheable(value = "tokenInfo", key = "#contractAddress")
+    public CompletableFuture<TokenInfoResponse> getTokenInfoAsync(String contractAddress) {
+        ERC20Contract contract = new ERC20Contract(web3j, contractAddress);
+
+        CompletableFuture<String> name = contract.nameAsync();
+        CompletableFuture<String> symbol = contract.symbolAsync();
+        CompletableFuture<Integer> decimals = contract.decimalsAsync();
+        CompletableFuture<BigInteger> totalSupply = contract.totalSupplyAsync();
+
+        return CompletableFuture.allOf(name, symbol, decimals, totalSupply)
+            .thenApply(ignored -> new TokenInfoResponse(
+                contractAddress,
+                name.join(),
+                symbol.join(),
+                decimals.join(),
+                totalSupply.join().toString()
+            ));
+    }
+
     /**
      * Get token balance for an address.
      * Cached for 5 minutes to reduce RPC calls.
@@ -74,25 +109,149 @@ public class TokenService {
         int decimals = contract.decimals();
         BigInteger balance = contract.balanceOf(address);
 
-        // Format balance with proper decimals
-        BigDecimal balanceDecimal = new BigDecimal(balance)
-            .divide(BigDecimal.TEN.pow(decimals), decimals, RoundingMode.DOWN);
+        return tokenBalanceResponse(address, contractAddress, name, symbol, decimals, balance);
+    }
 
-        return new TokenBalanceResponse(
-            address,
-            contractAddress,
-            name,
-            symbol,
-            decimals,
-            balance.toString(),
-            balanceDecimal.stripTrailingZeros().toPlainString()
-        );
+    /**
+     * Get token balance for an address without blocking, querying all fields concurrently.
+     * Shares the cache of {@link #getTokenBalance(String, String)}.
+     */
+    @Cacheable(value = "tokenBalance", key = "#address + ':' + #contractAddress")
+    public CompletableFuture<TokenBalanceResponse> getTokenBalanceAsync(String address, String contractAddress) {
+        ERC20Contract contract = new ERC20Contract(web3j, contractAddress);
+
+        CompletableFuture<String> name = contract.nameAsync();
+        CompletableFuture<String> symbol = contract.symbolAsync();
+        CompletableFuture<Integer> decimals = contract.decimalsAsync();
+        CompletableFuture<BigInteger> balance = contract.balanceOfAsync(address);
+
+        return CompletableFuture.allOf(name, symbol, decimals, balance)
+            .thenApply(ignored -> tokenBalanceResponse(
+                address, contractAddress, name.join(), symbol.join(), decimals.join(), balance.join()));
     }
 
     /**
      * Transfer ERC-20 tokens.
      */
     public TransactionResponse transferToken(TokenTransferRequest request) throws Exception {
+        validateTransfer(request);
+        Credentials credentials = credentialsFor(request);
+
+        // Get token decimals and convert amount to smallest unit (wei equivalent for tokens)
+        ERC20Contract contract = new ERC20Contract(web3j, request.tokenContract());
+        BigInteger amountInSmallestUnit = toSmallestUnit(request.amount(), contract.decimals());
+
+        // Check balance
+        requireBalance(contract.balanceOf(request.from()), amountInSmallestUnit);
+
+        // Encode transfer function call
+        String data = contract.encodeTransfer(request.to(), amountInSmallestUnit);
+
+        // Gas limit learned from earlier transfers of this token, or estimated
+        BigInteger gasLimit = request.gasLimit() != null
+            ? BigInteger.valueOf(request.gasLimit())
+            : gasLimitOracle.gasLimit(request.from(), request.tokenContract(), BigInteger.ZERO, data,
+                DEFAULT_TRANSFER_GAS_LIMIT);
+
+        // Get nonce
+        BigInteger nonce = nonceManager.getNextNonce(request.from());
+
+        // Look up network fees unless the request sets them
+        NetworkFees fees = null;
+        if (needsNetworkFees(request)) {
+            fees = gasManager.supportsEIP1559()
+                ? new NetworkFees(gasManager.getEIP1559GasPrices(), null)
+                : new NetworkFees(null, gasManager.getLegacyGasPrices());
+        }
+
+        // Build and sign transaction
+        RawTransaction rawTransaction = buildTransfer(request, nonce, gasLimit, data, fees);
+        String signedTx = transactionBuilder.signTransaction(rawTransaction, credentials);
+
+        // Send transaction
+        EthSendTransaction ethSendTransaction = web3j.ethSendRawTransaction(signedTx).send();
+        return afterBroadcast(request, rawTransaction, data, signedTx, ethSendTransaction);
+    }
+
+    /**
+     * Transfer ERC-20 tokens without blocking. Decimals, balance and network fees are
+     * looked up concurrently, then the gas limit, and a nonce is only taken once the
+     * transfer can go ahead.
+     *
+     * @return a future completing with the pending transaction, or failing with
+     *         IllegalArgumentException for an invalid request
+     */
+    public CompletableFuture<TransactionResponse> transferTokenAsync(TokenTransferRequest request) {
+        Credentials credentials;
+        try {
+            validateTransfer(request);
+            credentials = credentialsFor(request);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        ERC20Contract contract = new ERC20Contract(web3j, request.tokenContract());
+        CompletableFuture<BigInteger> amount = contract.decimalsAsync()
+            .thenApply(decimals -> toSmallestUnit(request.amount(), decimals));
+        CompletableFuture<BigInteger> balance = contract.balanceOfAsync(request.from());
+        CompletableFuture<NetworkFees> fees = networkFeesAsync(request);
+
+        CompletableFuture<String> data = amount.thenCombine(balance, (amountInSmallestUnit, available) -> {
+            requireBalance(available, amountInSmallestUnit);
+            return contract.encodeTransfer(request.to(), amountInSmallestUnit);
+        });
+        CompletableFuture<BigInteger> gasLimit = request.gasLimit() != null
+            ? CompletableFuture.completedFuture(BigInteger.valueOf(request.gasLimit()))
+            : data.thenCompose(encoded -> gasLimitOracle.gasLimitAsync(
+                request.from(), request.tokenContract(), BigInteger.ZERO, encoded, DEFAULT_TRANSFER_GAS_LIMIT));
+
+        CompletableFuture<BigInteger> nonce = CompletableFuture.allOf(data, fees, gasLimit)
+            .thenCompose(ignored -> nonceManager.getNextNonceAsync(request.from()));
+        CompletableFuture<RawTransaction> rawTransaction = nonce
+            .thenApply(taken -> buildTransfer(request, taken, gasLimit.join(), data.join(), fees.join()));
+        CompletableFuture<String> signedTx = rawTransaction
+            .thenApply(transaction -> transactionBuilder.signTransaction(transaction, credentials));
+        return signedTx
+            .thenCompose(signed -> web3j.ethSendRawTransaction(signed).sendAsync())
+            .handle((ethSendTransaction, error) -> {
+                if (error != null) {
+                    if (nonce.isDone() && !nonce.isCompletedExceptionally()) {
+                        if (signedTx.isCompletedExceptionally()) {
+                            // Failed while building or signing, so the transfer was never sent
+                            nonceManager.releaseNonce(request.from(), nonce.join());
+                        } else {
+                            nonceManager.broadcastError(request.from(), nonce.join(), error);
+                        }
+                    }
+                    throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                }
+                return afterBroadcast(request, rawTransaction.join(), data.join(), signedTx.join(),
+                    ethSendTransaction);
+            });
+    }
+
+    /**
+     * Gas prices looked up from the network when the request does not set them;
+     * exactly one of the fields is set.
+     */
+    private record NetworkFees(GasManager.EIP1559GasPrices eip1559, GasManager.GasPrices legacy) {
+    }
+
+    private boolean needsNetworkFees(TokenTransferRequest request) {
+        boolean eip1559 = request.maxFeePerGas() != null && request.maxPriorityFeePerGas() != null;
+        return !eip1559 && request.gasPrice() == null;
+    }
+
+    private CompletableFuture<NetworkFees> networkFeesAsync(TokenTransferRequest request) {
+        if (!needsNetworkFees(request)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return gasManager.supportsEIP1559Async().thenCompose(supported -> supported
+            ? gasManager.getEIP1559GasPricesAsync().thenApply(prices -> new NetworkFees(prices, null))
+            : gasManager.getLegacyGasPricesAsync().thenApply(prices -> new NetworkFees(null, prices)));
+    }
+
+    private void validateTransfer(TokenTransferRequest request) {
         // Validate addresses
         if (!isValidAddress(request.from()) || !isValidAddress(request.to()) ||
             !isValidAddress(request.tokenContract())) {
@@ -102,43 +261,31 @@ public class TokenService {
         if (request.amount().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
+    }
 
-        // Get token decimals
-        ERC20Contract contract = new ERC20Contract(web3j, request.tokenContract());
-        int decimals = contract.decimals();
-
-        // Convert amount to smallest unit (wei equivalent for tokens)
-        BigInteger amountInSmallestUnit = request.amount()
-            .multiply(BigDecimal.TEN.pow(decimals))
-            .toBigInteger();
+    private static BigInteger toSmallestUnit(BigDecimal amount, int decimals) {
+        return Wei.fromDecimal(amount, decimals).toBigInteger();
+    }
 
-        // Check balance
-        BigInteger balance = contract.balanceOf(request.from());
-        if (balance.compareTo(amountInSmallestUnit) < 0) {
+    private static void requireBalance(BigInteger balance, BigInteger required) {
+        if (balance.compareTo(required) < 0) {
             throw new RuntimeException("Insufficient token balance. Balance: " + balance +
-                ", Required: " + amountInSmallestUnit);
+                ", Required: " + required);
         }
+    }
 
-        // Encode transfer function call
-        String data = contract.encodeTransfer(request.to(), amountInSmallestUnit);
-
-        // Get nonce
-        BigInteger nonce = nonceManager.getNextNonce(request.from());
-
-        // Estimate gas limit (token transfers typically use ~65000 gas)
-        BigInteger gasLimit = request.gasLimit() != null
-            ? BigInteger.valueOf(request.gasLimit())
-            : BigInteger.valueOf(65000);
-
-        // Build transaction
-        RawTransaction rawTransaction;
-
+    /**
+     * Build the transfer transaction from the fees in the request, or from network fees
+     * when the request sets none.
+     */
+    private RawTransaction buildTransfer(TokenTransferRequest request, BigInteger nonce, BigInteger gasLimit,
+                                         String data, NetworkFees fees) {
         if (request.maxFeePerGas() != null && request.maxPriorityFeePerGas() != null) {
             // EIP-1559 transaction
-            BigInteger maxPriorityFee = Convert.toWei(request.maxPriorityFeePerGas(), Convert.Unit.GWEI).toBigInteger();
-            BigInteger maxFee = Convert.toWei(request.maxFeePerGas(), Convert.Unit.GWEI).toBigInteger();
+            BigInteger maxPriorityFee = Wei.fromGwei(request.maxPriorityFeePerGas()).toBigInteger();
+            BigInteger maxFee = Wei.fromGwei(request.maxFeePerGas()).toBigInteger();
 
-            rawTransaction = transactionBuilder.buildEIP1559Transaction(
+            return transactionBuilder.buildEIP1559Transaction(
                 nonce,
                 request.tokenContract(),
                 BigInteger.ZERO, // Value is 0 for token transfers
@@ -149,9 +296,9 @@ public class TokenService {
             );
         } else if (request.gasPrice() != null) {
             // Legacy transaction
-            BigInteger gasPrice = Convert.toWei(request.gasPrice(), Convert.Unit.GWEI).toBigInteger();
+            BigInteger gasPrice = Wei.fromGwei(request.gasPrice()).toBigInteger();
 
-            rawTransaction = transactionBuilder.buildLegacyTransaction(
+            return transactionBuilder.buildLegacyTransaction(
                 nonce,
                 request.tokenContract(),
                 BigInteger.ZERO,
@@ -159,33 +306,34 @@ public class TokenService {
                 gasPrice,
                 data
             );
+        } else if (fees.eip1559() != null) {
+            // Network supports EIP-1559
+            return transactionBuilder.buildEIP1559Transaction(
+                nonce,
+                request.tokenContract(),
+                BigInteger.ZERO,
+                gasLimit,
+                fees.eip1559().maxPriorityFeePerGas.medium,
+                fees.eip1559().maxFeePerGas.medium,
+                data
+            );
         } else {
-            // Auto-detect network support
-            if (gasManager.supportsEIP1559()) {
-                GasManager.EIP1559GasPrices gasPrices = gasManager.getEIP1559GasPrices();
-                rawTransaction = transactionBuilder.buildEIP1559Transaction(
-                    nonce,
-                    request.tokenContract(),
-                    BigInteger.ZERO,
-                    gasLimit,
-                    gasPrices.maxPriorityFeePerGas.medium,
-                    gasPrices.maxFeePerGas.medium,
-                    data
-                );
-            } else {
-                GasManager.GasPrices gasPrices = gasManager.getLegacyGasPrices();
-                rawTransaction = transactionBuilder.buildLegacyTransaction(
-                    nonce,
-                    request.tokenContract(),
-                    BigInteger.ZERO,
-                    gasLimit,
-                    gasPrices.medium,
-                    data
-                );
-            }
+            return transactionBuilder.buildLegacyTransaction(
+                nonce,
+                request.tokenContract(),
+                BigInteger.ZERO,
+                gasLimit,
+                fees.legacy().medium,
+                data
+            );
         }
+    }
 
-        // Sign transaction
+    /**
+     * The sender's key, checked against the 'from' address before a nonce is taken, so a
+     * wrong key never holds a nonce.
+     */
+    private Credentials credentialsFor(TokenTransferRequest request) {
         Credentials credentials = Credentials.create(normalizePrivateKey(request.privateKey()));
 
         // Verify private key matches from address
@@ -193,27 +341,35 @@ public class TokenService {
             throw new RuntimeException("Private key does not match the 'from' address");
         }
 
-        String signedTx = transactionBuilder.signTransaction(rawTransaction, credentials);
-
-        // Send transaction
-        EthSendTransaction ethSendTransaction = web3j.ethSendRawTransaction(signedTx).send();
+        return credentials;
+    }
 
-        if (ethSendTransaction.hasError()) {
-            nonceManager.releaseNonce(request.from(), nonce);
+    /**
+     * Release the nonce of a rejected transfer and prepare a self-transfer to fill the gap it
+     * may leave, or schedule its confirmation, learn its gas used once mined and report the
+     * transfer as pending. A transfer the node already holds, for example from a broadcast
+     * retried on another provider, was broadcast.
+     */
+    private TransactionResponse afterBroadcast(TokenTransferRequest request, RawTransaction rawTransaction,
+                                               String data, String signedTx, EthSendTransaction ethSendTransaction) {
+        BigInteger nonce = rawTransaction.getNonce();
+        boolean alreadyKnown = ethSendTransaction.hasError()
+            && NonceManager.isAlreadyKnownError(ethSendTransaction.getError().getMessage());
+        if (ethSendTransaction.hasError() && !alreadyKnown) {
+            String message = ethSendTransaction.getError().getMessage();
+            nonceManager.broadcastFailed(request.from(), nonce, message);
+            nonceGapFiller.prepare(request.from(), rawTransaction,
+                Credentials.create(normalizePrivateKey(request.privateKey())), message);
             throw new RuntimeException("Token transfer failed: " + ethSendTransaction.getError().getMessage());
         }
 
-        String transactionHash = ethSendTransaction.getTransactionHash();
+        String transactionHash = alreadyKnown ? Hash.sha3(signedTx) : ethSendTransaction.getTransactionHash();
+        nonceManager.markBroadcast(request.from(), nonce);
+        gasLimitOracle.observe(transactionHash, request.tokenContract(), data);
 
-        // Confirm nonce asynchronously
-        java.util.concurrent.CompletableFuture.runAsync(() -> {
-            try {
-                Thread.sleep(1000);
-                nonceManager.confirmTransaction(request.from(), nonce);
-            } catch (Exception e) {
-                // Ignore
-            }
-        });
+        // Confirm nonce after a short delay, without holding a thread while waiting
+        CompletableFuture.runAsync(() -> nonceManager.confirmTransaction(request.from(), nonce),
+            CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS));
 
         return new TransactionResponse(
             transactionHash,
@@ -228,6 +384,22 @@ public class TokenService {
         );
     }
 
+    private static TokenBalanceResponse tokenBalanceResponse(String address, String contractAddress, String name,
+                                                             String symbol, int decimals, BigInteger balance) {
+        // Format balance with proper decimals, without trailing zeros
+        BigDecimal balanceDecimal = Wei.of(balance).toDecimal(decimals);
+
+        return new TokenBalanceResponse(
+            address,
+            contractAddress,
+            name,
+            symbol,
+            decimals,
+            balance.toString(),
+            balanceDecimal.toPlainString()
+        );
+    }
+
     /**
      * Validate Ethereum address format.
      */
@@ -1,16 +1,19 @@
 package com.wallet.web3_wallet_backend.service;
 
 import com.wallet.web3_wallet_backend.api.dto.*;
+import com.wallet.web3_wallet_backend.blockchain.client.BlockHeaderCache;
+import com.wallet.web3_wallet_backend.blockchain.transaction.GasLimitOracle;
 import com.wallet.web3_wallet_backend.blockchain.transaction.GasManager;
 import com.wallet.web3_wallet_backend.blockchain.transaction.TransactionBuilder;
+import com.wallet.web3_wallet_backend.blockchain.transaction.Wei;
 import org.springframework.stereotype.Service;
 import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Hash;
 import org.web3j.crypto.RawTransaction;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.methods.response.EthSendTransaction;
 import org.web3j.protocol.core.methods.response.EthTransaction;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
-import org.web3j.utils.Convert;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -18,6 +21,8 @@ import java.math.BigInteger;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class TransactionService {
@@ -25,18 +30,26 @@ public class TransactionService {
     // Dependencies for blockchain interaction and transaction management
     private final Web3j web3j;
     private final GasManager gasManager;
+    private final GasLimitOracle gasLimitOracle;
     private final NonceManager nonceManager;
+    private final NonceGapFiller nonceGapFiller;
     private final TransactionBuilder transactionBuilder;
     private final WalletService walletService;
     private final com.wallet.web3_wallet_backend.repository.TransactionRepository transactionRepository;
+    private final BlockHeaderCache blockHeaderCache;
 
     // Constructor injection for dependencies
-    public TransactionService(Web3j web3j, GasManager gasManager, NonceManager nonceManager,
+    public TransactionService(Web3j web3j, GasManager gasManager, GasLimitOracle gasLimitOracle,
+                              NonceManager nonceManager, NonceGapFiller nonceGapFiller,
                               TransactionBuilder transactionBuilder, WalletService walletService,
-                              com.wallet.web3_wallet_backend.repository.TransactionRepository transactionRepository) {
+                              com.wallet.web3_wallet_backend.repository.TransactionRepository transactionRepository,
+                              BlockHeaderCache blockHeaderCache) {
         this.web3j = web3j;
+        this.blockHeaderCache = blockHeaderCache;
         this.gasManager = gasManager;
+        this.gasLimitOracle = gasLimitOracle;
         this.nonceManager = nonceManager;
+        this.nonceGapFiller = nonceGapFiller;
         this.transactionBuilder = transactionBuilder;
         this.walletService = walletService;
         this.transactionRepository = transactionRepository;
@@ -57,7 +70,7 @@ public class TransactionService {
         String from = request.from();
         String to = request.to();
         // Convert value from ETH to Wei (smallest unit)
-        BigInteger value = Convert.toWei(request.value(), Convert.Unit.ETHER).toBigInteger();
+        BigInteger value = Wei.fromEther(request.value()).toBigInteger();
         String data = request.data() != null ? request.data() : "";
 
         // Determine nonce (transaction count for the sender)
@@ -65,100 +78,78 @@ public class TransactionService {
                 ? BigInteger.valueOf(request.nonce())
                 : nonceManager.getNextNonce(from);
 
-        // Determine gas limit (max gas allowed for transaction)
+        // Determine gas limit (max gas allowed for transaction), estimated only when the
+        // oracle has neither a plain transfer nor learned gas usage to go by
         BigInteger gasLimit = request.gasLimit() != null
                 ? BigInteger.valueOf(request.gasLimit())
-                : gasManager.estimateGasLimit(from, to, value, data);
-
-        RawTransaction rawTransaction;
-
-        // Build the transaction based on type (EIP-1559 or legacy)
-        if (request.isEIP1559()) {
-            // For EIP-1559, use maxPriorityFeePerGas and maxFeePerGas
-            BigInteger maxPriorityFee = Convert.toWei(request.maxPriorityFeePerGas(), Convert.Unit.GWEI).toBigInteger();
-            BigInteger maxFee = Convert.toWei(request.maxFeePerGas(), Convert.Unit.GWEI).toBigInteger();
-
-            rawTransaction = transactionBuilder.buildEIP1559Transaction(
-                    nonce, to, value, gasLimit, maxPriorityFee, maxFee, data
-            );
-        } else if (request.isLegacy()) {
-            // For legacy, use gasPrice
-            BigInteger gasPrice = Convert.toWei(request.gasPrice(), Convert.Unit.GWEI).toBigInteger();
-
-            rawTransaction = transactionBuilder.buildLegacyTransaction(
-                    nonce, to, value, gasLimit, gasPrice, data
-            );
-        } else {
-            // If not specified, auto-detect based on network support
-            if (gasManager.supportsEIP1559()) {
-                GasManager.EIP1559GasPrices eipPrices = gasManager.getEIP1559GasPrices();
-                rawTransaction = transactionBuilder.buildEIP1559Transaction(
-                        nonce, to, value, gasLimit,
-                        eipPrices.maxPriorityFeePerGas.medium,
-                        eipPrices.maxFeePerGas.medium,
-                        data
-                );
-            } else {
-                GasManager.GasPrices legacyPrices = gasManager.getLegacyGasPrices();
-                rawTransaction = transactionBuilder.buildLegacyTransaction(
-                        nonce, to, value, gasLimit, legacyPrices.medium, data
-                );
-            }
-        }
-
-        // Sign the transaction with the sender's private key
-        Credentials credentials = Credentials.create(normalizePrivateKey(request.privateKey()));
-
-        // Verify private key matches the from address
-        String derivedAddress = credentials.getAddress();
-        System.out.println("[DEBUG] Address derived from private key: " + derivedAddress);
-        System.out.println("[DEBUG] Requested from address: " + from);
-
-        if (!derivedAddress.equalsIgnoreCase(from)) {
-            throw new RuntimeException("Private key does not match the 'from' address. " +
-                    "Private key controls: " + derivedAddress + ", but you specified: " + from);
+                : gasLimitOracle.gasLimit(from, to, value, data);
+
+        // If fees are not specified, auto-detect based on network support
+        NetworkFees fees = null;
+        if (!request.isEIP1559() && !request.isLegacy()) {
+            fees = gasManager.supportsEIP1559()
+                    ? new NetworkFees(gasManager.getEIP1559GasPrices(), null)
+                    : new NetworkFees(null, gasManager.getLegacyGasPrices());
         }
 
-        System.out.println("[DEBUG] Transaction details:");
-        System.out.println("  From: " + from);
-        System.out.println("  To: " + to);
-        System.out.println("  Value (Wei): " + value);
-        System.out.println("  Nonce: " + nonce);
-        System.out.println("  Gas Limit: " + gasLimit);
-
-        String signedTx = transactionBuilder.signTransaction(rawTransaction, credentials);
+        RawTransaction rawTransaction = buildTransaction(request, nonce, value, gasLimit, data, fees);
+        String signedTx = signTransaction(request, rawTransaction);
 
         // Send the signed transaction to the blockchain
         EthSendTransaction ethSendTransaction = web3j.ethSendRawTransaction(signedTx).send();
+        return afterBroadcast(request, rawTransaction, signedTx, ethSendTransaction);
+    }
 
-        // If there is an error, release the nonce and throw an exception
-        if (ethSendTransaction.hasError()) {
-            nonceManager.releaseNonce(from, nonce);
-            System.err.println("[ERROR] Transaction failed: " + ethSendTransaction.getError().getMessage());
-            System.err.println("[ERROR] Error code: " + ethSendTransaction.getError().getCode());
-            throw new RuntimeException("Transaction failed: " + ethSendTransaction.getError().getMessage());
+    /**
+     * Sends a transaction to the blockchain without blocking the calling thread.
+     * Nonce, gas limit and network fees are looked up concurrently.
+     * @param request TransactionRequest object containing all transaction details
+     * @return a future completing with the pending transaction, or failing with
+     *         IllegalArgumentException for an invalid request
+     */
+    public CompletableFuture<TransactionResponse> sendTransactionAsync(TransactionRequest request) {
+        try {
+            validateTransactionRequest(request);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
         }
 
-        // Get the transaction hash from the response
-        String transactionHash = ethSendTransaction.getTransactionHash();
-
-        // Confirm the nonce asynchronously after a short delay
-        CompletableFuture.runAsync(() -> {
-            try {
-                Thread.sleep(1000);
-                nonceManager.confirmTransaction(from, nonce);
-            } catch (Exception e) {
-                // Ignore exceptions in async confirmation
-            }
-        });
+        String from = request.from();
+        String to = request.to();
+        BigInteger value = Wei.fromEther(request.value()).toBigInteger();
+        String data = request.data() != null ? request.data() : "";
 
-        // Return a pending transaction response
-        return createPendingTransactionResponse(
-                transactionHash,
-                from,
-                to,
-                request.value().toString()
-        );
+        CompletableFuture<BigInteger> nonce = request.nonce() != null
+                ? CompletableFuture.completedFuture(BigInteger.valueOf(request.nonce()))
+                : nonceManager.getNextNonceAsync(from);
+        CompletableFuture<BigInteger> gasLimit = request.gasLimit() != null
+                ? CompletableFuture.completedFuture(BigInteger.valueOf(request.gasLimit()))
+                : gasLimitOracle.gasLimitAsync(from, to, value, data);
+        CompletableFuture<NetworkFees> fees = request.isEIP1559() || request.isLegacy()
+                ? CompletableFuture.completedFuture(null)
+                : networkFeesAsync();
+
+        CompletableFuture<RawTransaction> rawTransaction = CompletableFuture.allOf(nonce, gasLimit, fees)
+                .thenApply(ignored ->
+                        buildTransaction(request, nonce.join(), value, gasLimit.join(), data, fees.join()));
+        CompletableFuture<String> signedTx = rawTransaction
+                .thenApply(transaction -> signTransaction(request, transaction));
+        return signedTx
+                .thenCompose(signed -> web3j.ethSendRawTransaction(signed).sendAsync())
+                .handle((ethSendTransaction, error) -> {
+                    if (error != null) {
+                        if (request.nonce() == null && nonce.isDone() && !nonce.isCompletedExceptionally()) {
+                            if (signedTx.isCompletedExceptionally()) {
+                                // Failed while building or signing, so the transaction was never sent
+                                nonceManager.releaseNonce(from, nonce.join());
+                            } else {
+                                nonceManager.broadcastError(from, nonce.join(), error);
+                            }
+                        }
+                        throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                    }
+                    return afterBroadcast(request, rawTransaction.join(), signedTx.join(), ethSendTransaction);
+                });
     }
 
     /**
@@ -168,19 +159,43 @@ public class TransactionService {
     public GasEstimateResponse estimateGas(String from, String to, BigDecimal value, String data) throws IOException {
         // Convert value to Wei, or use zero if null
         BigInteger weiValue = value != null
-                ? Convert.toWei(value, Convert.Unit.ETHER).toBigInteger()
+                ? Wei.fromEther(value).toBigInteger()
                 : BigInteger.ZERO;
 
         // Estimate gas limit for the transaction
         BigInteger gasLimit = gasManager.estimateGasLimit(from, to, weiValue, data);
 
+        // If EIP-1559 is supported, provide EIP-1559 gas price/costs, otherwise legacy ones
+        NetworkFees fees = gasManager.supportsEIP1559()
+                ? new NetworkFees(gasManager.getEIP1559GasPrices(), null)
+                : new NetworkFees(null, gasManager.getLegacyGasPrices());
+        return gasEstimateResponse(gasLimit, fees);
+    }
+
+    /**
+     * Estimates gas usage and cost for a transaction without blocking the calling thread.
+     * The gas limit and the gas prices are looked up concurrently.
+     */
+    public CompletableFuture<GasEstimateResponse> estimateGasAsync(String from, String to, BigDecimal value, String data) {
+        BigInteger weiValue = value != null
+                ? Wei.fromEther(value).toBigInteger()
+                : BigInteger.ZERO;
+
+        return gasManager.estimateGasLimitAsync(from, to, weiValue, data)
+                .thenCombine(networkFeesAsync(), this::gasEstimateResponse);
+    }
+
+    /**
+     * Builds the gas estimate with the prices and slow/medium/fast costs (in ETH) for the
+     * fee model the network supports.
+     */
+    private GasEstimateResponse gasEstimateResponse(BigInteger gasLimit, NetworkFees fees) {
         GasEstimateResponse.GasPrice legacyPrices = null;
         GasEstimateResponse.EIP1559GasPrice eip1559Prices = null;
-        GasEstimateResponse.EstimatedCost estimatedCost;
+        GasManager.GasPrices costBasis;
 
-        // If EIP-1559 is supported, provide EIP-1559 gas price/costs
-        if (gasManager.supportsEIP1559()) {
-            GasManager.EIP1559GasPrices eip = gasManager.getEIP1559GasPrices();
+        if (fees.eip1559() != null) {
+            GasManager.EIP1559GasPrices eip = fees.eip1559();
 
             eip1559Prices = new GasEstimateResponse.EIP1559GasPrice(
                     new GasEstimateResponse.EIP1559GasPrice.MaxFee(
@@ -194,55 +209,29 @@ public class TransactionService {
                             GasManager.weiToGwei(eip.maxPriorityFeePerGas.fast)
                     )
             );
-
-            // Calculate estimated cost for slow, medium, and fast speeds (in ETH)
-            BigDecimal slowCost = Convert.fromWei(
-                    new BigDecimal(gasLimit.multiply(eip.maxFeePerGas.slow)),
-                    Convert.Unit.ETHER
-            );
-            BigDecimal mediumCost = Convert.fromWei(
-                    new BigDecimal(gasLimit.multiply(eip.maxFeePerGas.medium)),
-                    Convert.Unit.ETHER
-            );
-            BigDecimal fastCost = Convert.fromWei(
-                    new BigDecimal(gasLimit.multiply(eip.maxFeePerGas.fast)),
-                    Convert.Unit.ETHER
-            );
-
-            estimatedCost = new GasEstimateResponse.EstimatedCost(slowCost, mediumCost, fastCost);
+            costBasis = eip.maxFeePerGas;
         } else {
-            // Otherwise, provide legacy gas price/costs
-            GasManager.GasPrices legacy = gasManager.getLegacyGasPrices();
+            GasManager.GasPrices legacy = fees.legacy();
 
             legacyPrices = new GasEstimateResponse.GasPrice(
                     GasManager.weiToGwei(legacy.slow),
                     GasManager.weiToGwei(legacy.medium),
                     GasManager.weiToGwei(legacy.fast)
             );
-
-            // Calculate estimated cost for slow, medium, and fast speeds (in ETH)
-            BigDecimal slowCost = Convert.fromWei(
-                    new BigDecimal(gasLimit.multiply(legacy.slow)),
-                    Convert.Unit.ETHER
-            );
-            BigDecimal mediumCost = Convert.fromWei(
-                    new BigDecimal(gasLimit.multiply(legacy.medium)),
-                    Convert.Unit.ETHER
-            );
-            BigDecimal fastCost = Convert.fromWei(
-                    new BigDecimal(gasLimit.multiply(legacy.fast)),
-                    Convert.Unit.ETHER
-            );
-
-            estimatedCost = new GasEstimateResponse.EstimatedCost(slowCost, mediumCost, fastCost);
+            costBasis = legacy;
         }
 
+        // Calculate estimated cost for slow, medium, and fast speeds (in ETH)
+        BigDecimal slowCost = Wei.of(costBasis.slow).times(gasLimit).toEther();
+        BigDecimal mediumCost = Wei.of(costBasis.medium).times(gasLimit).toEther();
+        BigDecimal fastCost = Wei.of(costBasis.fast).times(gasLimit).toEther();
+
         // Return the gas estimate response with all calculated values
         return new GasEstimateResponse(
                 gasLimit.longValue(),
                 legacyPrices,
                 eip1559Prices,
-                estimatedCost
+                new GasEstimateResponse.EstimatedCost(slowCost, mediumCost, fastCost)
         );
     }
 
@@ -262,8 +251,62 @@ public class TransactionService {
 
         org.web3j.protocol.core.methods.response.Transaction tx = txOpt.get();
 
-        // Get the current block number and the block number of the transaction
-        BigInteger currentBlock = web3j.ethBlockNumber().send().getBlockNumber();
+        // Get the current block number from the shared head, and the receipt and block header
+        // once the transaction is mined
+        BigInteger currentBlock = blockHeaderCache.headNumber();
+        if (currentBlock == null) {
+            currentBlock = web3j.ethBlockNumber().send().getBlockNumber();
+        }
+        Optional<TransactionReceipt> receiptOpt = tx.getBlockNumber() == null
+                ? Optional.empty()
+                : web3j.ethGetTransactionReceipt(transactionHash).send().getTransactionReceipt();
+        BlockHeaderCache.BlockHeader txBlock = tx.getBlockNumber() == null
+                ? null
+                : blockHeaderCache.header(tx.getBlockNumber());
+
+        return transactionStatusResponse(transactionHash, tx, currentBlock, receiptOpt, txBlock);
+    }
+
+    /**
+     * Gets the status of a transaction by its hash without blocking the calling thread.
+     * The receipt and the block header are fetched concurrently once the transaction is found.
+     */
+    public CompletableFuture<TransactionStatusResponse> getTransactionStatusAsync(String transactionHash) {
+        return web3j.ethGetTransactionByHash(transactionHash).sendAsync()
+                .thenCompose(ethTransaction -> {
+                    Optional<org.web3j.protocol.core.methods.response.Transaction> txOpt = ethTransaction.getTransaction();
+                    if (txOpt.isEmpty()) {
+                        return CompletableFuture.completedFuture(createNotFoundTransactionStatusResponse(transactionHash));
+                    }
+
+                    org.web3j.protocol.core.methods.response.Transaction tx = txOpt.get();
+                    BigInteger head = blockHeaderCache.headNumber();
+                    CompletableFuture<BigInteger> currentBlock = head != null
+                            ? CompletableFuture.completedFuture(head)
+                            : web3j.ethBlockNumber().sendAsync().thenApply(response -> response.getBlockNumber());
+                    CompletableFuture<Optional<TransactionReceipt>> receiptOpt = tx.getBlockNumber() == null
+                            ? CompletableFuture.completedFuture(Optional.empty())
+                            : web3j.ethGetTransactionReceipt(transactionHash).sendAsync()
+                                    .thenApply(response -> response.getTransactionReceipt());
+                    CompletableFuture<BlockHeaderCache.BlockHeader> txBlock = tx.getBlockNumber() == null
+                            ? CompletableFuture.completedFuture(null)
+                            : blockHeaderCache.headerAsync(tx.getBlockNumber());
+
+                    return currentBlock.thenCombine(receiptOpt, (block, receipt) -> txBlock.thenApply(
+                                    header -> transactionStatusResponse(transactionHash, tx, block, receipt, header)))
+                            .thenCompose(response -> response);
+                });
+    }
+
+    /**
+     * Works out the status and confirmations of a known transaction.
+     */
+    private TransactionStatusResponse transactionStatusResponse(
+            String transactionHash,
+            org.web3j.protocol.core.methods.response.Transaction tx,
+            BigInteger currentBlock,
+            Optional<TransactionReceipt> receiptOpt,
+            BlockHeaderCache.BlockHeader txBlockHeader) {
         BigInteger txBlock = tx.getBlockNumber();
 
         TransactionStatusResponse.Status status;
@@ -276,11 +319,7 @@ public class TransactionService {
             // Calculate number of confirmations
             confirmations = currentBlock.subtract(txBlock).intValue() + 1;
 
-            // Try to get the transaction receipt to check if it succeeded
-            Optional<TransactionReceipt> receiptOpt = web3j.ethGetTransactionReceipt(transactionHash)
-                    .send()
-                    .getTransactionReceipt();
-
+            // Check the transaction receipt to see if it succeeded
             if (receiptOpt.isPresent()) {
                 TransactionReceipt receipt = receiptOpt.get();
                 boolean success = "0x1".equals(receipt.getStatus());
@@ -301,7 +340,7 @@ public class TransactionService {
         }
 
         // Convert transaction value from Wei to ETH
-        BigDecimal value = Convert.fromWei(new BigDecimal(tx.getValue()), Convert.Unit.ETHER);
+        BigDecimal value = Wei.of(tx.getValue()).toEther();
 
         // Build and return the transaction status response
         return new TransactionStatusResponse(
@@ -315,11 +354,131 @@ public class TransactionService {
                 tx.getGas().longValue(),
                 GasManager.weiToGwei(tx.getGasPrice()),
                 Instant.now(),
-                null,
+                txBlockHeader != null ? txBlockHeader.time() : null,
                 null
         );
     }
 
+    /**
+     * Gas prices looked up from the network; exactly one of the fields is set.
+     */
+    private record NetworkFees(GasManager.EIP1559GasPrices eip1559, GasManager.GasPrices legacy) {
+    }
+
+    private CompletableFuture<NetworkFees> networkFeesAsync() {
+        return gasManager.supportsEIP1559Async().thenCompose(supported -> supported
+                ? gasManager.getEIP1559GasPricesAsync().thenApply(prices -> new NetworkFees(prices, null))
+                : gasManager.getLegacyGasPricesAsync().thenApply(prices -> new NetworkFees(null, prices)));
+    }
+
+    /**
+     * Builds the transaction based on type: EIP-1559 or legacy as requested, otherwise
+     * whichever the network fees were looked up for.
+     */
+    private RawTransaction buildTransaction(TransactionRequest request, BigInteger nonce, BigInteger value,
+                                            BigInteger gasLimit, String data, NetworkFees fees) {
+        String to = request.to();
+        if (request.isEIP1559()) {
+            // For EIP-1559, use maxPriorityFeePerGas and maxFeePerGas
+            BigInteger maxPriorityFee = Wei.fromGwei(request.maxPriorityFeePerGas()).toBigInteger();
+            BigInteger maxFee = Wei.fromGwei(request.maxFeePerGas()).toBigInteger();
+
+            return transactionBuilder.buildEIP1559Transaction(
+                    nonce, to, value, gasLimit, maxPriorityFee, maxFee, data
+            );
+        } else if (request.isLegacy()) {
+            // For legacy, use gasPrice
+            BigInteger gasPrice = Wei.fromGwei(request.gasPrice()).toBigInteger();
+
+            return transactionBuilder.buildLegacyTransaction(
+                    nonce, to, value, gasLimit, gasPrice, data
+            );
+        } else if (fees.eip1559() != null) {
+            return transactionBuilder.buildEIP1559Transaction(
+                    nonce, to, value, gasLimit,
+                    fees.eip1559().maxPriorityFeePerGas.medium,
+                    fees.eip1559().maxFeePerGas.medium,
+                    data
+            );
+        } else {
+            return transactionBuilder.buildLegacyTransaction(
+                    nonce, to, value, gasLimit, fees.legacy().medium, data
+            );
+        }
+    }
+
+    /**
+     * Signs the transaction with the sender's private key after checking that the key
+     * controls the 'from' address.
+     */
+    private String signTransaction(TransactionRequest request, RawTransaction rawTransaction) {
+        String from = request.from();
+        Credentials credentials = Credentials.create(normalizePrivateKey(request.privateKey()));
+
+        // Verify private key matches the from address
+        String derivedAddress = credentials.getAddress();
+        System.out.println("[DEBUG] Address derived from private key: " + derivedAddress);
+        System.out.println("[DEBUG] Requested from address: " + from);
+
+        if (!derivedAddress.equalsIgnoreCase(from)) {
+            throw new RuntimeException("Private key does not match the 'from' address. " +
+                    "Private key controls: " + derivedAddress + ", but you specified: " + from);
+        }
+
+        System.out.println("[DEBUG] Transaction details:");
+        System.out.println("  From: " + from);
+        System.out.println("  To: " + request.to());
+        System.out.println("  Value (Wei): " + rawTransaction.getValue());
+        System.out.println("  Nonce: " + rawTransaction.getNonce());
+        System.out.println("  Gas Limit: " + rawTransaction.getGasLimit());
+
+        return transactionBuilder.signTransaction(rawTransaction, credentials);
+    }
+
+    /**
+     * Releases the nonce of a rejected transaction and prepares a self-transfer to fill the gap
+     * it may leave, or schedules its confirmation and returns a pending response. A
+     * transaction the node already holds, for example from a broadcast retried on another
+     * provider, was broadcast.
+     */
+    private TransactionResponse afterBroadcast(TransactionRequest request, RawTransaction rawTransaction,
+                                               String signedTx, EthSendTransaction ethSendTransaction) {
+        String from = request.from();
+        BigInteger nonce = rawTransaction.getNonce();
+        boolean alreadyKnown = ethSendTransaction.hasError()
+                && NonceManager.isAlreadyKnownError(ethSendTransaction.getError().getMessage());
+
+        // If there is an error, release the nonce and throw an exception
+        if (ethSendTransaction.hasError() && !alreadyKnown) {
+            String message = ethSendTransaction.getError().getMessage();
+            nonceManager.broadcastFailed(from, nonce, message);
+            nonceGapFiller.prepare(from, rawTransaction,
+                    Credentials.create(normalizePrivateKey(request.privateKey())), message);
+            System.err.println("[ERROR] Transaction failed: " + ethSendTransaction.getError().getMessage());
+            System.err.println("[ERROR] Error code: " + ethSendTransaction.getError().getCode());
+            throw new RuntimeException("Transaction failed: " + ethSendTransaction.getError().getMessage());
+        }
+
+        // Get the transaction hash from the response, or from the transaction the node already holds
+        String transactionHash = alreadyKnown ? Hash.sha3(signedTx) : ethSendTransaction.getTransactionHash();
+        nonceManager.markBroadcast(from, nonce);
+
+        // Learn the gas used from the receipt for later sends to the same function
+        gasLimitOracle.observe(transactionHash, request.to(), request.data());
+
+        // Confirm the nonce after a short delay, without holding a thread while waiting
+        CompletableFuture.runAsync(() -> nonceManager.confirmTransaction(from, nonce),
+                CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS));
+
+        // Return a pending transaction response
+        return createPendingTransactionResponse(
+                transactionHash,
+                from,
+                request.to(),
+                request.value().toString()
+        );
+    }
+
     /**
      * Validates the transaction request fields.
      * Throws IllegalArgumentException if any field is invalid.
@@ -14,6 +14,8 @@ import org.web3j.protocol.core.DefaultBlockParameterName;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.web3j.utils.Convert.fromWei;
 import static org.web3j.utils.Convert.Unit.ETHER;
@@ -133,6 +135,23 @@ public class WalletService {
         }
     }
 
+    /**
+     * Get ETH/EVM coin balance without blocking the calling thread.
+     * @param address the wallet address to query
+     * @return a future completing with the balance in Ether, or failing with a RuntimeException
+     */
+    public CompletableFuture<BigDecimal> getBalanceAsync(String address) {
+        return web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST).sendAsync()
+                .handle((resp, error) -> {
+                    if (error == null && !resp.hasError()) {
+                        return fromWei(new BigDecimal(resp.getBalance()), ETHER);
+                    }
+                    Throwable cause = error == null ? new RuntimeException(resp.getError().getMessage())
+                            : error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    throw new CompletionException(new RuntimeException("Failed to fetch balance for " + address, cause));
+                });
+    }
+
     /**
      * Validate if an address is a proper 20-byte hex with 0x prefix.
      * @param address the address string to validate
@@ -0,0 +1,9 @@
+-- Nonce ledger: latest state of every nonce handed out per sender address, so nonce
+-- trackers survive restarts
+CREATE TABLE nonce_ledger (
+    address VARCHAR(42) NOT NULL,
+    nonce BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (address, nonce)
+);
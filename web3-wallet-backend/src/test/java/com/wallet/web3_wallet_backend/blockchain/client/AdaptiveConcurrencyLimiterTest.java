@@ -0,0 +1,90 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter verifying AIMD limit changes and that freed
+ * slots are handed to the highest priority lane first.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void testQueuedCallsAreAdmittedByPriority() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.5);
+        AdaptiveConcurrencyLimiter.Permit running = limiter.acquire(RpcPriority.INTERACTIVE).join();
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> background = limiter.acquire(RpcPriority.BACKGROUND);
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> interactive = limiter.acquire(RpcPriority.INTERACTIVE);
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> broadcast = limiter.acquire(RpcPriority.BROADCAST);
+        assertEquals(1, limiter.getQueueDepth(RpcPriority.BACKGROUND));
+
+        limiter.release(running, false);
+        assertTrue(broadcast.isDone());
+        assertFalse(interactive.isDone());
+
+        limiter.release(broadcast.join(), false);
+        assertTrue(interactive.isDone());
+        assertFalse(background.isDone());
+
+        limiter.release(interactive.join(), false);
+        assertTrue(background.isDone());
+    }
+
+    @Test
+    void testOverloadShrinksLimitOncePerRound() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5);
+        List<AdaptiveConcurrencyLimiter.Permit> round = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            round.add(limiter.acquire(RpcPriority.INTERACTIVE).join());
+        }
+
+        // Every call of the round was rate limited, but only the first one counts
+        round.forEach(permit -> limiter.release(permit, true));
+        assertEquals(5, limiter.getLimit());
+        assertEquals(4, limiter.getOverloadCount());
+
+        limiter.release(limiter.acquire(RpcPriority.INTERACTIVE).join(), true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void testSuccessGrowsLimitOnlyWhileInUse() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 100, 0.5);
+
+        // A single call at a time never uses half the limit
+        for (int i = 0; i < 20; i++) {
+            limiter.release(limiter.acquire(RpcPriority.INTERACTIVE).join(), false);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            List<AdaptiveConcurrencyLimiter.Permit> round = new ArrayList<>();
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                round.add(limiter.acquire(RpcPriority.INTERACTIVE).join());
+            }
+            round.forEach(permit -> limiter.release(permit, false));
+        }
+        assertTrue(limiter.getLimit() > 4);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testWithdrawnWaiterDoesNotHoldSlot() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.5);
+        AdaptiveConcurrencyLimiter.Permit running = limiter.acquire(RpcPriority.INTERACTIVE).join();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> withdrawn = limiter.acquire(RpcPriority.INTERACTIVE);
+
+        withdrawn.completeExceptionally(new IllegalStateException("timed out"));
+        assertEquals(0, limiter.getQueueDepth(RpcPriority.INTERACTIVE));
+
+        limiter.release(running, false);
+        assertEquals(0, limiter.getInFlight());
+        assertTrue(limiter.acquire(RpcPriority.BACKGROUND).isDone());
+    }
+}
@@ -0,0 +1,148 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BatchingWeb3jService verifying that concurrent calls share one
+ * JSON-RPC batch and that each caller receives its own response.
+ */
+class BatchingWeb3jServiceTest {
+
+    private RecordingService transport;
+    private Web3j web3j;
+
+    @BeforeEach
+    void setUp() {
+        transport = new RecordingService(false);
+        web3j = Web3j.build(new BatchingWeb3jService(transport, Duration.ofMillis(50), 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        web3j.shutdown();
+    }
+
+    @Test
+    void testConcurrentCallsShareOneBatch() throws Exception {
+        CompletableFuture<EthBlockNumber> blockNumber = web3j.ethBlockNumber().sendAsync();
+        CompletableFuture<EthGetBalance> balanceA = web3j.ethGetBalance(
+            "0x0000000000000000000000000000000000000001", DefaultBlockParameterName.LATEST).sendAsync();
+        CompletableFuture<EthGetBalance> balanceB = web3j.ethGetBalance(
+            "0x0000000000000000000000000000000000000002", DefaultBlockParameterName.LATEST).sendAsync();
+
+        assertEquals(BigInteger.valueOf(100), blockNumber.get().getBlockNumber());
+        assertEquals(BigInteger.ONE, balanceA.get().getBalance());
+        assertEquals(BigInteger.TWO, balanceB.get().getBalance());
+
+        assertEquals(1, transport.calls.get(), "All three calls should travel in one HTTP round trip");
+        assertEquals(3, transport.lastBatchSize);
+    }
+
+    @Test
+    void testBatchFlushesWhenFull() throws Exception {
+        List<CompletableFuture<EthBlockNumber>> futures = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            futures.add(web3j.ethBlockNumber().sendAsync());
+        }
+        for (CompletableFuture<EthBlockNumber> future : futures) {
+            assertEquals(BigInteger.valueOf(100), future.get().getBlockNumber());
+        }
+
+        assertEquals(3, transport.calls.get(), "25 calls with a max batch size of 10 need 3 round trips");
+    }
+
+    @Test
+    void testBlockingSendIsBatchedToo() throws Exception {
+        assertEquals(BigInteger.valueOf(100), web3j.ethBlockNumber().send().getBlockNumber());
+        assertEquals(1, transport.calls.get());
+    }
+
+    @Test
+    void testFallsBackToSingleRequestsWhenBatchRejected() throws Exception {
+        web3j.shutdown();
+        transport = new RecordingService(true);
+        web3j = Web3j.build(new BatchingWeb3jService(transport, Duration.ofMillis(50), 10));
+
+        CompletableFuture<EthBlockNumber> first = web3j.ethBlockNumber().sendAsync();
+        CompletableFuture<EthBlockNumber> second = web3j.ethBlockNumber().sendAsync();
+
+        assertEquals(BigInteger.valueOf(100), first.get().getBlockNumber());
+        assertEquals(BigInteger.valueOf(100), second.get().getBlockNumber());
+        assertEquals(3, transport.calls.get(), "One rejected batch followed by two single requests");
+    }
+
+    /**
+     * In-memory JSON-RPC transport that answers eth_blockNumber and eth_getBalance,
+     * optionally rejecting batches the way providers without batch support do.
+     */
+    private static class RecordingService extends Service {
+        private final boolean rejectBatches;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int lastBatchSize;
+
+        RecordingService(boolean rejectBatches) {
+            super(false);
+            this.rejectBatches = rejectBatches;
+        }
+
+        @Override
+        protected InputStream performIO(String payload) throws IOException {
+            calls.incrementAndGet();
+            JsonNode request = objectMapper.readTree(payload);
+            String body;
+            if (request.isArray()) {
+                lastBatchSize = request.size();
+                if (rejectBatches) {
+                    body = "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32600,\"message\":\"batch not supported\"}}";
+                } else {
+                    ArrayNode responses = objectMapper.createArrayNode();
+                    request.forEach(node -> responses.add(answer(node)));
+                    body = responses.toString();
+                }
+            } else {
+                body = answer(request).toString();
+            }
+            return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private ObjectNode answer(JsonNode request) {
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("jsonrpc", "2.0");
+            response.set("id", request.get("id"));
+            if ("eth_getBalance".equals(request.get("method").asText())) {
+                String address = request.get("params").get(0).asText();
+                response.put("result", "0x" + address.substring(address.length() - 1));
+            } else {
+                response.put("result", "0x64");
+            }
+            return response;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
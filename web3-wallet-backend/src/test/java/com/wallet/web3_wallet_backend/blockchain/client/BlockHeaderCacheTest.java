@@ -0,0 +1,147 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BlockHeaderCache verifying that the head header is fetched once per block
+ * and then read from memory, that the least recently used headers are evicted from both
+ * indexes, and that a header replaced by a reorg is dropped.
+ */
+class BlockHeaderCacheTest {
+
+    private StandInEthereumNode node;
+    private Web3j web3j;
+    private ChainHeadTracker tracker;
+    private final AtomicInteger blockCalls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        tracker.close();
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testHeadHeaderIsFetchedOncePerBlock() throws Exception {
+        start(Duration.ofMillis(20));
+        BlockHeaderCache cache = new BlockHeaderCache(web3j, tracker, 16);
+        node.mineBlock();
+        node.mineBlock();
+        awaitHead(cache, 2);
+        int fetched = blockCalls.get();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(BigInteger.TWO, cache.latest().number());
+            assertEquals(BigInteger.TWO, cache.latestAsync().get().number());
+            assertEquals(BigInteger.TWO, cache.headNumber());
+        }
+        BlockHeaderCache.BlockHeader head = cache.head();
+        assertSame(head, cache.header(BigInteger.TWO));
+        assertSame(head, cache.headerByHash(head.hash()));
+        assertNotNull(head.baseFeePerGas());
+        assertEquals(fetched, blockCalls.get());
+        // At most one fetch per head the tracker saw
+        assertTrue(fetched <= 3);
+    }
+
+    @Test
+    void testLeastRecentlyUsedHeadersAreEvicted() throws Exception {
+        start(Duration.ofHours(1));
+        node.mineBlock();
+        node.mineBlock();
+        node.mineBlock();
+        BlockHeaderCache cache = new BlockHeaderCache(web3j, tracker, 2);
+        awaitHead(cache, 3);
+        BlockHeaderCache.BlockHeader first = cache.header(BigInteger.ONE);
+        BlockHeaderCache.BlockHeader second = cache.header(BigInteger.TWO);
+        cache.header(BigInteger.ONE);
+        cache.header(BigInteger.valueOf(3));
+        int fetched = blockCalls.get();
+
+        assertSame(first, cache.headerByHash(first.hash()));
+        assertEquals(fetched, blockCalls.get());
+        assertNotSame(second, cache.headerByHash(second.hash()));
+        assertEquals(fetched + 1, blockCalls.get());
+    }
+
+    @Test
+    void testReorgedHeaderIsReplaced() throws Exception {
+        start(Duration.ofHours(1));
+        BlockHeaderCache cache = new BlockHeaderCache(web3j, tracker, 16);
+        awaitHead(cache, 0);
+        cache.put(block(5, "0xa5", "0xa4"));
+        cache.put(block(6, "0xa6", "0xa5"));
+        int fetched = blockCalls.get();
+
+        cache.put(block(6, "0xb6", "0xb5"));
+
+        assertEquals("0xb6", cache.head().hash());
+        assertEquals("0xb6", cache.header(BigInteger.valueOf(6)).hash());
+        assertEquals(fetched, blockCalls.get());
+        // The old parent is not on the new chain, so it is fetched again
+        cache.header(BigInteger.valueOf(5));
+        assertEquals(fetched + 1, blockCalls.get());
+    }
+
+    private void start(Duration pollInterval) throws IOException {
+        node = StandInEthereumNode.builder().build().start();
+        web3j = Web3j.build(new ForwardingWeb3jService(new HttpService(node.getUrl())) {
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+                count(request);
+                return super.send(request, responseType);
+            }
+
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+                count(request);
+                return super.sendAsync(request, responseType);
+            }
+        });
+        // The tracker polls through its own transport so only header fetches are counted
+        tracker = new ChainHeadTracker(new HttpService(node.getUrl()), pollInterval);
+    }
+
+    private void count(Request<?, ?> request) {
+        if (request.getMethod().startsWith("eth_getBlockBy")) {
+            blockCalls.incrementAndGet();
+        }
+    }
+
+    private static void awaitHead(BlockHeaderCache cache, long number) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while ((cache.head() == null || cache.head().number().longValue() < number)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(number, cache.head().number().longValue());
+    }
+
+    private static EthBlock.Block block(long number, String hash, String parentHash) {
+        EthBlock.Block block = new EthBlock.Block();
+        block.setNumber("0x" + Long.toHexString(number));
+        block.setHash(hash);
+        block.setParentHash(parentHash);
+        block.setTimestamp("0x" + Long.toHexString(1_700_000_000L + number * 12));
+        block.setGasUsed("0x0");
+        block.setGasLimit("0x1c9c380");
+        return block;
+    }
+}
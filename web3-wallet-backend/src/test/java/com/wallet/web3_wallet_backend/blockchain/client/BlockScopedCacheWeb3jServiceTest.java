@@ -0,0 +1,79 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BlockScopedCacheWeb3jService verifying that reads are served from memory
+ * within a block and that a new head invalidates them.
+ */
+class BlockScopedCacheWeb3jServiceTest {
+
+    private static final String ADDRESS = "0x0000000000000000000000000000000000000001";
+
+    private final AtomicLong balance = new AtomicLong(1);
+    private ScriptedRpcService node;
+    private ChainHeadTracker headTracker;
+    private BlockScopedCacheWeb3jService cache;
+    private Web3j web3j;
+
+    @BeforeEach
+    void setUp() {
+        node = new ScriptedRpcService(request -> switch (request.get("method").asText()) {
+            case "eth_blockNumber" -> "0x10";
+            case "eth_getBalance", "eth_getTransactionCount" -> "0x" + Long.toHexString(balance.get());
+            default -> null;
+        });
+        headTracker = new ChainHeadTracker(node, Duration.ofHours(1));
+        headTracker.observe(BigInteger.valueOf(0x10));
+        cache = new BlockScopedCacheWeb3jService(node, headTracker, 100);
+        web3j = Web3j.build(cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        headTracker.close();
+        web3j.shutdown();
+    }
+
+    @Test
+    void testRepeatedReadsWithinBlockHitCache() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(BigInteger.ONE,
+                web3j.ethGetBalance(ADDRESS, DefaultBlockParameterName.LATEST).send().getBalance());
+        }
+
+        assertEquals(1, node.calls("eth_getBalance"));
+        assertEquals(4, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testNewHeadInvalidatesCache() throws Exception {
+        web3j.ethGetBalance(ADDRESS, DefaultBlockParameterName.LATEST).send();
+        balance.set(2);
+        headTracker.observe(BigInteger.valueOf(0x11));
+
+        assertEquals(BigInteger.TWO,
+            web3j.ethGetBalance(ADDRESS, DefaultBlockParameterName.LATEST).sendAsync().get().getBalance());
+        assertEquals(2, node.calls("eth_getBalance"));
+    }
+
+    @Test
+    void testPendingReadsAreNeverCached() throws Exception {
+        web3j.ethGetTransactionCount(ADDRESS, DefaultBlockParameterName.PENDING).send();
+        web3j.ethGetTransactionCount(ADDRESS, DefaultBlockParameterName.PENDING).send();
+
+        assertEquals(2, node.calls("eth_getTransactionCount"));
+        assertEquals(0, cache.getHitCount());
+    }
+}
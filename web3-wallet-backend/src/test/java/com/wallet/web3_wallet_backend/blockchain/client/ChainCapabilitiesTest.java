@@ -0,0 +1,79 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChainCapabilities verifying that one probe records the chain ID check,
+ * EIP-1559 and eth_feeHistory support, Multicall3 and the block time, and that a failed
+ * probe keeps what was known.
+ */
+class ChainCapabilitiesTest {
+
+    private StandInEthereumNode node;
+    private Web3j web3j;
+    private ChainCapabilities capabilities;
+
+    @AfterEach
+    void tearDown() {
+        capabilities.close();
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testProbeRecordsCapabilities() throws Exception {
+        node = StandInEthereumNode.builder().blockTimeSeconds(2).feeHistory(false).build().start();
+        node.deployToken(ChainCapabilities.MULTICALL3_ADDRESS, "Multicall", "MC", 0);
+        for (int i = 0; i < 5; i++) {
+            node.mineBlock();
+        }
+        web3j = Web3j.build(new HttpService(node.getUrl()));
+        capabilities = new ChainCapabilities(web3j, node.getChainId(), Duration.ofHours(1), Duration.ofSeconds(5));
+
+        ChainCapabilities.Capabilities probed = awaitProbe();
+        assertEquals(node.getChainId(), probed.chainId());
+        assertTrue(probed.chainIdMatches());
+        assertTrue(probed.eip1559());
+        assertFalse(probed.feeHistory());
+        assertTrue(probed.multicall3());
+        assertEquals(Duration.ofSeconds(2), probed.blockTime());
+        assertEquals(Boolean.TRUE, capabilities.supportsEIP1559());
+        assertEquals(Boolean.FALSE, capabilities.supportsFeeHistory());
+    }
+
+    @Test
+    void testWrongChainIsRecordedAndFailedProbeKeepsResult() throws Exception {
+        node = StandInEthereumNode.builder().build().start();
+        web3j = Web3j.build(new HttpService(node.getUrl()));
+        capabilities = new ChainCapabilities(web3j, node.getChainId() + 1, Duration.ofHours(1), Duration.ofSeconds(5));
+
+        ChainCapabilities.Capabilities probed = awaitProbe();
+        assertFalse(probed.chainIdMatches());
+        assertTrue(probed.feeHistory());
+        assertFalse(probed.multicall3());
+        // Only the genesis block: nothing to measure the block time over
+        assertNull(probed.blockTime());
+
+        node.setErrorRate(1.0);
+        assertThrows(IOException.class, () -> capabilities.refresh());
+        assertSame(probed, capabilities.current());
+    }
+
+    private ChainCapabilities.Capabilities awaitProbe() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (capabilities.current() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(capabilities.current());
+        return capabilities.current();
+    }
+}
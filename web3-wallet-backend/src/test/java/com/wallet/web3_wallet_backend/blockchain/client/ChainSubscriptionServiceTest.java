@@ -0,0 +1,142 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChainSubscriptionService against a stand-in WebSocket node, verifying
+ * live streams, reconnects and HTTP backfill of the blocks and logs missed in between.
+ */
+class ChainSubscriptionServiceTest {
+
+    private static final String TOKEN = "0x00000000000000000000000000000000000000aa";
+    private static final String TRANSFER_TOPIC =
+        "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+
+    private final AtomicLong httpHead = new AtomicLong(10);
+    private StandInWebSocketNode wsNode;
+    private ScriptedRpcService httpNode;
+    private Web3j http;
+    private ChainHeadTracker headTracker;
+    private ChainSubscriptionService subscriptions;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        wsNode = new StandInWebSocketNode();
+        String wsUrl = wsNode.startAndGetUrl();
+        httpNode = new ScriptedRpcService(this::answerHttp);
+        http = Web3j.build(httpNode);
+        headTracker = new ChainHeadTracker(httpNode, Duration.ofHours(1), Duration.ofMinutes(1));
+        subscriptions = new ChainSubscriptionService(wsUrl, http, headTracker, Duration.ofSeconds(1), 128);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        subscriptions.close();
+        headTracker.close();
+        http.shutdown();
+        wsNode.stop(1000);
+    }
+
+    @Test
+    void testLiveStreamsDeliverPushedEvents() throws Exception {
+        List<BigInteger> heads = new CopyOnWriteArrayList<>();
+        List<String> pending = new CopyOnWriteArrayList<>();
+        subscriptions.newHeads().subscribe(block -> heads.add(block.getNumber()));
+        subscriptions.pendingTransactions().subscribe(pending::add);
+        awaitTrue(() -> wsNode.subscribeCount("newPendingTransactions") == 1 && heads.contains(BigInteger.TEN));
+
+        wsNode.push("newHeads", block(11));
+        wsNode.push("newPendingTransactions", "0xabc");
+
+        awaitTrue(() -> heads.size() == 2 && pending.size() == 1);
+        assertEquals(List.of(BigInteger.valueOf(10), BigInteger.valueOf(11)), heads);
+        assertEquals(BigInteger.valueOf(11), headTracker.currentHead());
+        assertEquals("0xabc", pending.get(0));
+    }
+
+    @Test
+    void testReconnectBackfillsMissedHeadsAndLogs() throws Exception {
+        List<BigInteger> heads = new CopyOnWriteArrayList<>();
+        List<Log> logs = new CopyOnWriteArrayList<>();
+        subscriptions.newHeads().subscribe(block -> heads.add(block.getNumber()));
+        subscriptions.logs(List.of(TOKEN), List.of(TRANSFER_TOPIC)).subscribe(logs::add);
+        awaitTrue(() -> wsNode.subscribeCount("logs") == 1 && heads.size() == 1);
+
+        wsNode.dropConnections();
+        httpHead.set(14);
+
+        awaitTrue(() -> wsNode.subscribeCount("logs") == 2 && heads.size() == 5 && logs.size() == 1);
+        assertEquals(List.of(10L, 11L, 12L, 13L, 14L), heads.stream().map(BigInteger::longValue).toList());
+        assertEquals(BigInteger.valueOf(12), logs.get(0).getBlockNumber());
+
+        // The same log arriving live after the backfill is not delivered twice
+        wsNode.push("logs", log(12));
+        wsNode.push("newHeads", block(15));
+        awaitTrue(() -> heads.size() == 6);
+        assertEquals(1, logs.size());
+        assertTrue(subscriptions.isConnected());
+    }
+
+    private Object answerHttp(JsonNode request) {
+        return switch (request.get("method").asText()) {
+            case "eth_blockNumber" -> Numeric.toHexStringWithPrefix(BigInteger.valueOf(httpHead.get()));
+            case "eth_getBlockByNumber" -> {
+                String tag = request.get("params").get(0).asText();
+                yield block("latest".equals(tag) ? httpHead.get() : Numeric.toBigInt(tag).longValue());
+            }
+            case "eth_getLogs" -> List.of(log(12));
+            default -> null;
+        };
+    }
+
+    private static Map<String, Object> block(long number) {
+        return Map.of(
+            "number", Numeric.toHexStringWithPrefix(BigInteger.valueOf(number)),
+            "hash", hash(number),
+            "parentHash", hash(number - 1),
+            "timestamp", Numeric.toHexStringWithPrefix(BigInteger.valueOf(1_700_000_000L + number * 12)),
+            "baseFeePerGas", "0x3b9aca00");
+    }
+
+    private static Map<String, Object> log(long blockNumber) {
+        return Map.of(
+            "address", TOKEN,
+            "blockNumber", Numeric.toHexStringWithPrefix(BigInteger.valueOf(blockNumber)),
+            "blockHash", hash(blockNumber),
+            "logIndex", "0x0",
+            "transactionHash", hash(blockNumber + 1000),
+            "topics", List.of(TRANSFER_TOPIC),
+            "data", "0x",
+            "removed", false);
+    }
+
+    private static String hash(long number) {
+        return Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(number), 64);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CircuitBreakingWeb3jService verifying that failing method classes are cut
+ * off on their own, refused reads fall back to their last known value, probes close the
+ * circuit again and bulkheads bound concurrent calls.
+ */
+class CircuitBreakingWeb3jServiceTest {
+
+    private static final String ACCOUNT = "0x00000000000000000000000000000000000000b0";
+
+    private final ScriptedRpcService provider = new ScriptedRpcService(request -> "0x10");
+    private volatile boolean failing;
+
+    /** The provider, failing every call while {@link #failing} is set. */
+    private final ForwardingWeb3jService flakyProvider = new ForwardingWeb3jService(provider) {
+        @Override
+        @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+        public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+            if (failing) {
+                throw new IOException("provider unavailable");
+            }
+            return super.send(request, responseType);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+        public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+            if (failing) {
+                return CompletableFuture.failedFuture(new IOException("provider unavailable"));
+            }
+            return super.sendAsync(request, responseType);
+        }
+    };
+
+    @Test
+    void testFailingClassOpensAndFailsFastWithoutAffectingOthers() throws Exception {
+        CircuitBreakingWeb3jService circuit = circuit(Duration.ofSeconds(30), 8);
+        Web3j web3j = Web3j.build(circuit);
+
+        failing = true;
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> web3j.ethGetTransactionReceipt("0x01").send());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuit.getCircuitBreaker(RpcMethodClass.READ).getState());
+
+        failing = false;
+        assertThrows(RpcRejectedException.class, () -> web3j.ethGetTransactionReceipt("0x01").send());
+        assertEquals(0, provider.calls("eth_getTransactionReceipt"));
+        assertEquals(BigInteger.valueOf(0x10), web3j.ethBlockNumber().send().getBlockNumber());
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getCircuitBreaker(RpcMethodClass.BLOCK).getState());
+        web3j.shutdown();
+    }
+
+    @Test
+    void testOpenCircuitServesLastKnownValue() throws Exception {
+        CircuitBreakingWeb3jService circuit = circuit(Duration.ofSeconds(30), 8);
+        Web3j web3j = Web3j.build(circuit);
+
+        BigInteger balance = web3j.ethGetBalance(ACCOUNT, DefaultBlockParameterName.LATEST).send().getBalance();
+        failing = true;
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> web3j.ethGetTransactionReceipt("0x01").send());
+        }
+
+        assertEquals(balance, web3j.ethGetBalance(ACCOUNT, DefaultBlockParameterName.LATEST).send().getBalance());
+        assertEquals(balance, web3j.ethGetBalance(ACCOUNT, DefaultBlockParameterName.LATEST).sendAsync().get()
+                .getBalance());
+        assertEquals(2, circuit.getStaleAnswerCount(RpcMethodClass.READ));
+        assertEquals(1, provider.calls("eth_getBalance"));
+
+        // Nothing known for another account
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> web3j.ethGetBalance(ACCOUNT.replace("b0", "b1"), DefaultBlockParameterName.LATEST)
+                        .sendAsync().get());
+        assertInstanceOf(RpcRejectedException.class, error.getCause());
+        web3j.shutdown();
+    }
+
+    @Test
+    void testSuccessfulProbesCloseTheCircuit() throws Exception {
+        CircuitBreakingWeb3jService circuit = circuit(Duration.ofMillis(100), 8);
+        Web3j web3j = Web3j.build(circuit);
+        CircuitBreaker breaker = circuit.getCircuitBreaker(RpcMethodClass.BLOCK);
+
+        failing = true;
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false)
+                    .send());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(150);
+        failing = false;
+        web3j.ethBlockNumber().send();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        web3j.ethBlockNumber().send();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getTransitionCount(CircuitBreaker.State.OPEN));
+        assertEquals(1, breaker.getTransitionCount(CircuitBreaker.State.CLOSED));
+        web3j.shutdown();
+    }
+
+    @Test
+    void testBulkheadRefusesCallsBeyondItsLimit() throws Exception {
+        provider.setDelayMs(300);
+        CircuitBreakingWeb3jService circuit = circuit(Duration.ofSeconds(30), 2);
+        Web3j web3j = Web3j.build(circuit);
+
+        CompletableFuture<EthBlockNumber> first = web3j.ethBlockNumber().sendAsync();
+        CompletableFuture<EthBlockNumber> second = web3j.ethBlockNumber().sendAsync();
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false).sendAsync().get());
+        assertInstanceOf(RpcRejectedException.class, error.getCause());
+
+        assertNotNull(first.get().getBlockNumber());
+        assertNotNull(second.get().getBlockNumber());
+        // Refusals are not provider failures
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getCircuitBreaker(RpcMethodClass.BLOCK).getState());
+        web3j.shutdown();
+    }
+
+    private CircuitBreakingWeb3jService circuit(Duration openDuration, int bulkhead) {
+        Map<RpcMethodClass, CircuitBreaker> breakers = new EnumMap<>(RpcMethodClass.class);
+        Map<RpcMethodClass, Integer> bulkheads = new EnumMap<>(RpcMethodClass.class);
+        for (RpcMethodClass methodClass : RpcMethodClass.values()) {
+            breakers.put(methodClass, new CircuitBreaker(10, 4, 0.5, openDuration, 2));
+            bulkheads.put(methodClass, bulkhead);
+        }
+        return new CircuitBreakingWeb3jService(flakyProvider, breakers, bulkheads, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,80 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HedgingWeb3jService verifying that slow reads are raced against a hedge,
+ * fast reads and writes are sent once, and the budget caps the extra load.
+ */
+class HedgingWeb3jServiceTest {
+
+    private final ScriptedRpcService primary = new ScriptedRpcService(request -> "0x10");
+    private final ScriptedRpcService alternate = new ScriptedRpcService(request -> "0x20");
+
+    @Test
+    void testSlowReadIsAnsweredByHedge() throws Exception {
+        primary.setDelayMs(3_000);
+        HedgingWeb3jService hedging = hedging(0.05);
+        Web3j web3j = Web3j.build(hedging);
+
+        long start = System.nanoTime();
+        EthBlockNumber response = web3j.ethBlockNumber().send();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(BigInteger.valueOf(0x20), response.getBlockNumber());
+        assertTrue(elapsedMs < 2_000, "took " + elapsedMs + " ms");
+        assertEquals(1, hedging.getHedgeCount());
+        assertEquals(1, hedging.getWinCount());
+        web3j.shutdown();
+    }
+
+    @Test
+    void testFastReadsAndWritesAreNotHedged() throws Exception {
+        HedgingWeb3jService hedging = hedging(0.05);
+        Web3j web3j = Web3j.build(hedging);
+
+        assertEquals(BigInteger.valueOf(0x10), web3j.ethBlockNumber().send().getBlockNumber());
+        primary.setDelayMs(300);
+        web3j.ethSendRawTransaction("0x01").send();
+
+        assertEquals(0, hedging.getHedgeCount());
+        assertEquals(0, alternate.calls("eth_blockNumber"));
+        assertEquals(0, alternate.calls("eth_sendRawTransaction"));
+        web3j.shutdown();
+    }
+
+    @Test
+    void testBudgetCapsHedges() throws Exception {
+        primary.setDelayMs(300);
+        HedgingWeb3jService hedging = hedging(0.01);
+        Web3j web3j = Web3j.build(hedging);
+
+        List<CompletableFuture<EthBlockNumber>> calls = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            calls.add(web3j.ethBlockNumber().sendAsync());
+        }
+        for (CompletableFuture<EthBlockNumber> call : calls) {
+            assertNotNull(call.get().getBlockNumber());
+        }
+
+        // The initial budget of ten hedges, topped up by only 0.15 from the reads themselves
+        assertEquals(10, hedging.getHedgeCount());
+        assertEquals(10, alternate.calls("eth_blockNumber"));
+        web3j.shutdown();
+    }
+
+    private HedgingWeb3jService hedging(double budgetRatio) {
+        return new HedgingWeb3jService(primary, alternate, 0.95,
+                Duration.ofMillis(10), Duration.ofMillis(100), budgetRatio);
+    }
+}
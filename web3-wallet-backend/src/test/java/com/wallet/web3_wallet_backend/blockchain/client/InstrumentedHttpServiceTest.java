@@ -0,0 +1,92 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InstrumentedHttpService and RpcStatsEndpoint verifying that provider
+ * exchanges are timed and sized per method with their outcome and error code.
+ */
+class InstrumentedHttpServiceTest {
+
+    private static final String ACCOUNT = "0x00000000000000000000000000000000000000b0";
+
+    private StandInEthereumNode node;
+    private SimpleMeterRegistry registry;
+    private Web3j web3j;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = StandInEthereumNode.builder().build().start();
+        registry = new SimpleMeterRegistry();
+        web3j = Web3j.build(new InstrumentedHttpService(node.getUrl(), registry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testCallsAreTaggedByMethodOutcomeAndCode() throws Exception {
+        web3j.ethBlockNumber().send();
+        web3j.ethBlockNumber().sendAsync().get();
+        web3j.ethSendRawTransaction("0x01").send();
+        node.setErrorRate(1.0);
+        assertThrows(ClientConnectionException.class, () -> web3j.ethChainId().send());
+
+        assertEquals(2, timer("eth_blockNumber", "success", "none").count());
+        assertEquals(1, timer("eth_sendRawTransaction", "rpc_error", "-32000").count());
+        assertEquals(1, timer("eth_chainId", "http_error", "429").count());
+
+        DistributionSummary responses = registry.get(InstrumentedHttpService.RESPONSE_SIZE)
+                .tag("method", "eth_blockNumber").summary();
+        assertEquals(2, responses.count());
+        assertTrue(responses.totalAmount() > 0);
+        assertTrue(registry.get(InstrumentedHttpService.REQUEST_SIZE)
+                .tag("method", "eth_sendRawTransaction").summary().totalAmount() > 0);
+    }
+
+    @Test
+    void testBatchMembersAreTimedAndEndpointRanksMethods() throws Exception {
+        web3j.newBatch()
+                .add(web3j.ethBlockNumber())
+                .add(web3j.ethGetBalance(ACCOUNT, DefaultBlockParameterName.LATEST))
+                .send();
+        web3j.ethBlockNumber().send();
+
+        assertEquals(2, timer("eth_blockNumber", "success", "none").count());
+        assertEquals(1, timer("eth_getBalance", "success", "none").count());
+        assertEquals(1, registry.get(InstrumentedHttpService.REQUEST_SIZE).tag("method", "batch").summary().count());
+
+        RpcStatsEndpoint.RpcStats stats = new RpcStatsEndpoint(registry).rpc(1);
+        List<RpcStatsEndpoint.MethodStats> busiest = stats.topByCount();
+        assertEquals(1, busiest.size());
+        assertEquals("eth_blockNumber", busiest.get(0).method());
+        assertEquals(2, busiest.get(0).count());
+        assertTrue(busiest.get(0).p99Ms() > 0);
+        assertEquals(1, stats.topByP99().size());
+    }
+
+    private Timer timer(String method, String outcome, String code) {
+        return registry.get(InstrumentedHttpService.REQUESTS)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("code", code)
+                .tag("endpoint", "127.0.0.1")
+                .timer();
+    }
+}
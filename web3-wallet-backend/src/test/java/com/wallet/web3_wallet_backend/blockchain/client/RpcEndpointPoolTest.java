@@ -0,0 +1,193 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RpcEndpointPool verifying failover, ejection and latency-aware routing,
+ * and that broadcasts only fail over when the provider never took them.
+ */
+class RpcEndpointPoolTest {
+
+    private RpcEndpointPool pool;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testFailsOverWhenEndpointIsDown() throws Exception {
+        FakeNode down = new FakeNode(0x10, 0, true);
+        FakeNode up = new FakeNode(0x10, 0, false);
+        pool = newPool(down, up);
+        Web3j web3j = Web3j.build(pool);
+
+        assertEquals(BigInteger.valueOf(0x10), web3j.ethBlockNumber().send().getBlockNumber());
+        assertEquals(BigInteger.valueOf(0x10), web3j.ethBlockNumber().sendAsync().get().getBlockNumber());
+    }
+
+    @Test
+    void testBroadcastFailsOverWhenProviderTurnsItAway() throws Exception {
+        FakeNode busy = new FakeNode(0x10, 0, false,
+                new ClientConnectionException("Invalid response received: 429; Too Many Requests"));
+        FakeNode behind = new FakeNode(0x0e, 0, false);
+        pool = rankedPool(busy, behind);
+        Web3j web3j = Web3j.build(pool);
+
+        assertEquals("0xe", web3j.ethSendRawTransaction("0x01").send().getTransactionHash());
+        assertEquals("0xe", web3j.ethSendRawTransaction("0x02").sendAsync().get().getTransactionHash());
+        assertTrue(busy.broadcasts.get() > 0);
+    }
+
+    @Test
+    void testBroadcastIsNotSentAgainAfterTimeout() throws Exception {
+        FakeNode slow = new FakeNode(0x10, 0, false, new SocketTimeoutException("Read timed out"));
+        FakeNode behind = new FakeNode(0x0e, 0, false);
+        pool = rankedPool(slow, behind);
+        assertThrows(IOException.class, () -> Web3j.build(pool).ethSendRawTransaction("0x01").send());
+        pool.close();
+
+        // A fresh pool, as the timeout moved the slow endpoint down the ranking
+        pool = rankedPool(slow, behind);
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> Web3j.build(pool).ethSendRawTransaction("0x01").sendAsync().get());
+        assertInstanceOf(IOException.class, error.getCause());
+
+        assertEquals(2, slow.broadcasts.get());
+        assertEquals(0, behind.broadcasts.get(), "The broadcast may have reached the first provider");
+    }
+
+    @Test
+    void testEjectedEndpointStopsReceivingTraffic() throws Exception {
+        FakeNode down = new FakeNode(0x10, 0, true);
+        FakeNode up = new FakeNode(0x10, 0, false);
+        pool = newPool(down, up);
+        Web3j web3j = Web3j.build(pool);
+
+        for (int i = 0; i < 5; i++) {
+            web3j.ethBlockNumber().send();
+        }
+        int callsWhileEjected = down.calls.get();
+        for (int i = 0; i < 5; i++) {
+            web3j.ethBlockNumber().send();
+        }
+
+        assertEquals(callsWhileEjected, down.calls.get(), "Ejected endpoint should be skipped");
+        assertSame(pool.getEndpoints().get(1), pool.rankedEndpoints().get(0));
+    }
+
+    @Test
+    void testPrefersFasterAndUpToDateEndpoint() {
+        FakeNode slow = new FakeNode(0x10, 40, false);
+        FakeNode fast = new FakeNode(0x10, 0, false);
+        FakeNode lagging = new FakeNode(0x01, 0, false);
+        pool = newPool(slow, fast, lagging);
+
+        pool.probe();
+        pool.probe();
+
+        assertSame(pool.getEndpoints().get(1), pool.rankedEndpoints().get(0));
+        assertFalse(pool.getEndpoints().get(2).isHealthy(3), "Endpoint 15 blocks behind should be unhealthy");
+    }
+
+    private static RpcEndpointPool newPool(FakeNode... nodes) {
+        List<RpcEndpoint> endpoints = java.util.Arrays.stream(nodes)
+            .map(node -> new RpcEndpoint("http://node" + System.identityHashCode(node) + ".test", node))
+            .toList();
+        // Long probe interval so only the initial probe and explicit calls run during a test
+        RpcEndpointPool pool = new RpcEndpointPool(endpoints, Duration.ofHours(1), 3, 3, Duration.ofMinutes(1));
+        awaitInitialProbe(nodes[nodes.length - 1]);
+        return pool;
+    }
+
+    /**
+     * A pool that has probed its endpoints, so the ones lagging behind rank last.
+     */
+    private static RpcEndpointPool rankedPool(FakeNode... nodes) {
+        RpcEndpointPool pool = newPool(nodes);
+        pool.probe();
+        pool.probe();
+        return pool;
+    }
+
+    private static void awaitInitialProbe(FakeNode lastProbed) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lastProbed.calls.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Answers every call with a fixed block number after an optional delay, or fails
+     * like a provider returning HTTP 503. Broadcasts can be made to fail on their own.
+     */
+    private static class FakeNode extends Service {
+        private final long blockNumber;
+        private final long delayMs;
+        private final boolean down;
+        /** Thrown for every broadcast, or null */
+        private final Exception broadcastFailure;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger broadcasts = new AtomicInteger();
+
+        FakeNode(long blockNumber, long delayMs, boolean down) {
+            this(blockNumber, delayMs, down, null);
+        }
+
+        FakeNode(long blockNumber, long delayMs, boolean down, Exception broadcastFailure) {
+            super(false);
+            this.blockNumber = blockNumber;
+            this.delayMs = delayMs;
+            this.down = down;
+            this.broadcastFailure = broadcastFailure;
+        }
+
+        @Override
+        protected InputStream performIO(String payload) throws java.io.IOException {
+            calls.incrementAndGet();
+            if (down) {
+                throw new ClientConnectionException("Invalid response received: 503; Service Unavailable");
+            }
+            if ("eth_sendRawTransaction".equals(objectMapper.readTree(payload).get("method").asText())) {
+                broadcasts.incrementAndGet();
+                if (broadcastFailure instanceof IOException io) {
+                    throw io;
+                }
+                if (broadcastFailure != null) {
+                    throw (RuntimeException) broadcastFailure;
+                }
+            }
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long id = objectMapper.readTree(payload).get("id").asLong();
+            String body = "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":\"0x" + Long.toHexString(blockNumber) + "\"}";
+            return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.web3j.protocol.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * In-memory JSON-RPC transport for transport-layer tests. Every call is answered with
+ * the result produced by a script for its method, and calls are counted per method.
+ */
+class ScriptedRpcService extends Service {
+
+    private final Function<JsonNode, Object> script;
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger batches = new AtomicInteger();
+    private volatile long delayMs;
+
+    /**
+     * @param script Produces the JSON-RPC result for a request node
+     */
+    ScriptedRpcService(Function<JsonNode, Object> script) {
+        super(false);
+        this.script = script;
+    }
+
+    void setDelayMs(long delayMs) {
+        this.delayMs = delayMs;
+    }
+
+    int calls(String method) {
+        AtomicInteger count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    int batches() {
+        return batches.get();
+    }
+
+    @Override
+    protected InputStream performIO(String payload) throws IOException {
+        JsonNode request = objectMapper.readTree(payload);
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        JsonNode response;
+        if (request.isArray()) {
+            batches.incrementAndGet();
+            ArrayNode responses = objectMapper.createArrayNode();
+            request.forEach(node -> responses.add(answer(node)));
+            response = responses;
+        } else {
+            response = answer(request);
+        }
+        return new ByteArrayInputStream(response.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ObjectNode answer(JsonNode request) {
+        calls.computeIfAbsent(request.get("method").asText(), m -> new AtomicInteger()).incrementAndGet();
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.get("id"));
+        response.set("result", objectMapper.valueToTree(script.apply(request)));
+        return response;
+    }
+
+    @Override
+    public void close() {
+    }
+}
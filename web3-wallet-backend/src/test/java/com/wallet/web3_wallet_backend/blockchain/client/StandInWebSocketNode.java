@@ -0,0 +1,130 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local WebSocket JSON-RPC server that answers {@code eth_subscribe} and lets a test push
+ * {@code eth_subscription} notifications or drop every connection.
+ */
+class StandInWebSocketNode extends WebSocketServer {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final AtomicInteger nextSubscriptionId = new AtomicInteger();
+    /** Subscription id to its kind and connection. */
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> subscribeCounts = new ConcurrentHashMap<>();
+
+    StandInWebSocketNode() {
+        super(new InetSocketAddress("127.0.0.1", 0));
+        setReuseAddr(true);
+    }
+
+    /**
+     * Starts the server and waits until it accepts connections.
+     *
+     * @return The URL clients connect to
+     */
+    String startAndGetUrl() throws InterruptedException {
+        start();
+        if (!started.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Stand-in node did not start");
+        }
+        return "ws://127.0.0.1:" + getPort();
+    }
+
+    /**
+     * @return How many {@code eth_subscribe} calls were received for the given kind
+     */
+    int subscribeCount(String kind) {
+        AtomicInteger count = subscribeCounts.get(kind);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Sends a notification to every live subscription of the given kind.
+     */
+    void push(String kind, Object result) {
+        subscriptions.forEach((id, subscription) -> {
+            if (subscription.kind.equals(kind) && subscription.connection.isOpen()) {
+                ObjectNode params = objectMapper.createObjectNode();
+                params.put("subscription", id);
+                params.set("result", objectMapper.valueToTree(result));
+                ObjectNode notification = objectMapper.createObjectNode();
+                notification.put("jsonrpc", "2.0");
+                notification.put("method", "eth_subscription");
+                notification.set("params", params);
+                subscription.connection.send(notification.toString());
+            }
+        });
+    }
+
+    /**
+     * Closes every client connection as a failing provider would.
+     */
+    void dropConnections() {
+        subscriptions.clear();
+        getConnections().forEach(WebSocket::close);
+    }
+
+    @Override
+    public void onStart() {
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        subscriptions.values().removeIf(subscription -> subscription.connection == conn);
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        try {
+            JsonNode request = objectMapper.readTree(message);
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("jsonrpc", "2.0");
+            response.set("id", request.get("id"));
+            String method = request.get("method").asText();
+            if ("eth_subscribe".equals(method)) {
+                String kind = request.get("params").get(0).asText();
+                String id = "0x" + Integer.toHexString(nextSubscriptionId.incrementAndGet());
+                subscriptions.put(id, new Subscription(kind, conn));
+                subscribeCounts.computeIfAbsent(kind, k -> new AtomicInteger()).incrementAndGet();
+                response.put("result", id);
+            } else if ("eth_unsubscribe".equals(method)) {
+                subscriptions.remove(request.get("params").get(0).asText());
+                response.put("result", true);
+            } else {
+                ObjectNode error = response.putObject("error");
+                error.put("code", -32601);
+                error.put("message", "Method not supported over the stand-in socket");
+            }
+            conn.send(response.toString());
+        } catch (Exception e) {
+            conn.close();
+        }
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+    }
+
+    private record Subscription(String kind, WebSocket connection) {
+    }
+}
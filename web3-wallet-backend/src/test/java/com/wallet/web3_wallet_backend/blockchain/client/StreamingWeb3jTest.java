@@ -0,0 +1,223 @@
+package com.wallet.web3_wallet_backend.blockchain.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StreamingWeb3j verifying that the streaming decoders read the same values
+ * as web3j's full decoding, allocate a small fraction of it, and are sent on their own
+ * rather than in a batch.
+ */
+class StreamingWeb3jTest {
+
+    private static final ObjectMapper MAPPER = ObjectMapperFactory.getObjectMapper();
+    private static final BigInteger BASE_FEE = BigInteger.valueOf(12_000_000_000L);
+
+    @Test
+    void testBlockFeesMatchFullBlock() throws Exception {
+        byte[] body = blockResponse(300);
+
+        EthBlock.Block full = MAPPER.readValue(new ByteArrayInputStream(body), EthBlock.class).getBlock();
+        EthBlockFees.BlockFees fees = MAPPER.readValue(new ByteArrayInputStream(body), EthBlockFees.class)
+                .getBlockFees();
+
+        assertEquals(full.getNumber(), fees.number());
+        assertEquals(full.getBaseFeePerGas(), fees.baseFeePerGas());
+        assertEquals(full.getGasUsed(), fees.gasUsed());
+        assertEquals(full.getGasLimit(), fees.gasLimit());
+        assertEquals(full.getTransactions().size(), fees.transactions().size());
+        for (int i = 0; i < fees.transactions().size(); i++) {
+            EthBlock.TransactionObject tx = (EthBlock.TransactionObject) full.getTransactions().get(i);
+            EthBlockFees.TransactionFees txFees = fees.transactions().get(i);
+            assertEquals(tx.getGasPrice(), txFees.gasPrice());
+            assertEquals(i % 2 == 0 ? 2 : 0, txFees.type());
+            assertEquals(i % 2 == 0 ? tx.getMaxPriorityFeePerGas() : null, txFees.maxPriorityFeePerGas());
+            assertEquals(i % 2 == 0 ? tx.getMaxFeePerGas() : null, txFees.maxFeePerGas());
+        }
+    }
+
+    @Test
+    void testBlockFeesAllocateFarLessThanFullBlock() throws Exception {
+        byte[] body = blockResponse(300);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // Warm up both paths so class loading and deserializer construction are not counted
+        for (int i = 0; i < 20; i++) {
+            MAPPER.readValue(new ByteArrayInputStream(body), EthBlock.class);
+            MAPPER.readValue(new ByteArrayInputStream(body), EthBlockFees.class);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10; i++) {
+            MAPPER.readValue(new ByteArrayInputStream(body), EthBlock.class);
+        }
+        long fullBytes = threads.getThreadAllocatedBytes(threadId) - start;
+
+        start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10; i++) {
+            MAPPER.readValue(new ByteArrayInputStream(body), EthBlockFees.class);
+        }
+        long streamingBytes = threads.getThreadAllocatedBytes(threadId) - start;
+
+        assertTrue(fullBytes > 10 * streamingBytes,
+                "full decoding allocated " + fullBytes + " bytes, streaming " + streamingBytes);
+    }
+
+    @Test
+    void testMissingBlockDecodesToNull() throws Exception {
+        byte[] body = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":null}".getBytes(StandardCharsets.UTF_8);
+        assertNull(MAPPER.readValue(new ByteArrayInputStream(body), EthBlockFees.class).getBlockFees());
+    }
+
+    @Test
+    void testLogRecordsMatchLogs() throws Exception {
+        ScriptedRpcService provider = new ScriptedRpcService(request -> logs(3));
+        StreamingWeb3j web3j = StreamingWeb3j.build(provider);
+        EthFilter filter = new EthFilter(DefaultBlockParameter.valueOf(BigInteger.ONE),
+                DefaultBlockParameterName.LATEST, "0x00000000000000000000000000000000000000c0");
+
+        List<Log> logs = web3j.ethGetLogs(filter).send().getLogs().stream()
+                .map(result -> (Log) result.get())
+                .toList();
+        List<EthLogRecords.LogRecord> records = web3j.ethGetLogRecords(filter).send().getLogRecords();
+
+        assertEquals(logs.size(), records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Log log = logs.get(i);
+            EthLogRecords.LogRecord record = records.get(i);
+            assertEquals(log.getAddress(), record.address());
+            assertEquals(log.getTopics(), record.topics());
+            assertEquals(log.getData(), record.data());
+            assertEquals(log.getBlockNumber(), record.blockNumber());
+            assertEquals(log.getTransactionHash(), record.transactionHash());
+            assertEquals(log.getLogIndex(), record.logIndex());
+            assertEquals(log.isRemoved(), record.removed());
+        }
+        web3j.shutdown();
+    }
+
+    @Test
+    void testStreamedReadsBypassBatching() throws Exception {
+        ScriptedRpcService provider = new ScriptedRpcService(request -> {
+            ObjectNode block = MAPPER.createObjectNode();
+            block.put("number", request.get("params").get(0).asText());
+            block.putArray("transactions");
+            return block;
+        });
+        StreamingWeb3j web3j = StreamingWeb3j.build(new BatchingWeb3jService(provider, Duration.ofMillis(50), 10));
+
+        List<CompletableFuture<EthBlockFees>> calls = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            calls.add(web3j.ethGetBlockFees(DefaultBlockParameter.valueOf(BigInteger.valueOf(i))).sendAsync());
+        }
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals(BigInteger.valueOf(i + 1), calls.get(i).get().getBlockFees().number());
+        }
+        assertEquals(3, provider.calls("eth_getBlockByNumber"));
+        assertEquals(0, provider.batches());
+        web3j.shutdown();
+    }
+
+    /**
+     * A mainnet-like block response: half EIP-1559 and half legacy transactions, each with
+     * a couple of kilobytes of calldata.
+     */
+    private static byte[] blockResponse(int transactionCount) throws Exception {
+        ObjectNode block = MAPPER.createObjectNode();
+        block.put("number", "0x1312d00");
+        block.put("hash", hash(1));
+        block.put("parentHash", hash(2));
+        block.put("miner", address(1));
+        block.put("baseFeePerGas", hex(BASE_FEE));
+        block.put("gasUsed", "0x1c9c380");
+        block.put("gasLimit", "0x1c9c380");
+        block.put("timestamp", "0x65a0b1c0");
+        block.put("logsBloom", "0x" + "0".repeat(512));
+        block.put("extraData", "0x");
+        ArrayNode transactions = block.putArray("transactions");
+        String input = "0xa9059cbb" + "ab".repeat(1_000);
+        for (int i = 0; i < transactionCount; i++) {
+            ObjectNode tx = transactions.addObject();
+            BigInteger tip = BigInteger.valueOf(1_000_000_000L + i * 1_000L);
+            tx.put("hash", hash(1_000 + i));
+            tx.put("blockHash", hash(1));
+            tx.put("blockNumber", "0x1312d00");
+            tx.put("transactionIndex", hex(BigInteger.valueOf(i)));
+            tx.put("from", address(100 + i));
+            tx.put("to", address(200 + i));
+            tx.put("nonce", hex(BigInteger.valueOf(i)));
+            tx.put("value", "0xde0b6b3a7640000");
+            tx.put("gas", "0x5208");
+            tx.put("gasPrice", hex(BASE_FEE.add(tip)));
+            tx.put("input", input);
+            tx.put("v", "0x1");
+            tx.put("r", hash(5_000 + i));
+            tx.put("s", hash(6_000 + i));
+            tx.put("chainId", "0x1");
+            if (i % 2 == 0) {
+                tx.put("type", "0x2");
+                tx.put("maxFeePerGas", hex(BASE_FEE.multiply(BigInteger.TWO).add(tip)));
+                tx.put("maxPriorityFeePerGas", hex(tip));
+                tx.putArray("accessList");
+            } else {
+                tx.put("type", "0x0");
+            }
+        }
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.put("id", 1);
+        response.set("result", block);
+        return MAPPER.writeValueAsBytes(response);
+    }
+
+    private static JsonNode logs(int count) {
+        ArrayNode logs = MAPPER.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            ObjectNode log = logs.addObject();
+            log.put("address", "0x00000000000000000000000000000000000000c0");
+            log.putArray("topics").add(hash(7)).add(hash(8 + i));
+            log.put("data", "0x" + "00".repeat(31) + "0" + i);
+            log.put("blockNumber", hex(BigInteger.valueOf(10 + i)));
+            log.put("blockHash", hash(9));
+            log.put("transactionHash", hash(20 + i));
+            log.put("transactionIndex", "0x0");
+            log.put("logIndex", hex(BigInteger.valueOf(i)));
+            log.put("removed", i == 2);
+        }
+        return logs;
+    }
+
+    private static String hex(BigInteger value) {
+        return "0x" + value.toString(16);
+    }
+
+    private static String hash(int seed) {
+        return String.format("0x%064x", seed);
+    }
+
+    private static String address(int seed) {
+        return String.format("0x%040x", seed);
+    }
+}
@@ -0,0 +1,980 @@
+package com.wallet.web3_wallet_backend.blockchain.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.SignedRawTransaction;
+import org.web3j.crypto.TransactionDecoder;
+import org.web3j.crypto.transaction.type.Transaction1559;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process Ethereum JSON-RPC node for tests and offline benchmarks.
+ * <p>
+ * It serves the methods this backend calls over plain HTTP, with enough chain semantics
+ * for the wallet flows to behave as on a real network: balances, ERC-20 tokens answering
+ * {@code eth_call}, signed raw transactions checked for chain id, sender signature, nonce
+ * and funds, a mempool with geth-style pending nonces, and blocks with an EIP-1559 base fee.
+ * </p>
+ * <p>
+ * Everything is deterministic. Blocks are only produced by {@link #mineBlock()} or at a
+ * fixed interval, block hashes and timestamps derive from the block number, and latency
+ * jitter and injected errors come from a seeded random source. Injected errors are answered
+ * as HTTP 429, the way rate-limited providers reject calls.
+ * </p>
+ * <p>
+ * To run it standalone on port 8545 with a block every 12 seconds:
+ * </p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode \
+ *     -Dexec.args="port=8545 blockTimeMs=12000 fund=0xYourAddress:100000000000000000000"
+ * </pre>
+ */
+public class StandInEthereumNode implements AutoCloseable {
+
+    public static final long DEFAULT_CHAIN_ID = 11155111L;
+
+    private static final long GENESIS_TIMESTAMP = 1_700_000_000L;
+    private static final BigInteger BLOCK_GAS_LIMIT = BigInteger.valueOf(30_000_000L);
+    private static final BigInteger PRIORITY_FEE = BigInteger.valueOf(1_000_000_000L);
+    private static final long TRANSFER_GAS = 21_000L;
+    private static final long TOKEN_TRANSFER_GAS = 51_000L;
+    private static final long CONTRACT_CALL_GAS = 24_000L;
+    private static final long DEPLOY_GAS = 100_000L;
+
+    private static final String TRANSFER_SELECTOR = "a9059cbb";
+    private static final String BALANCE_OF_SELECTOR = "70a08231";
+    private static final String DECIMALS_SELECTOR = "313ce567";
+    private static final String SYMBOL_SELECTOR = "95d89b41";
+    private static final String NAME_SELECTOR = "06fdde03";
+    private static final String TOTAL_SUPPLY_SELECTOR = "18160ddd";
+    private static final String TRANSFER_TOPIC = Hash.sha3String("Transfer(address,address,uint256)");
+    private static final String TOKEN_CODE = "0x6080604052";
+    private static final String EMPTY_BLOOM = "0x" + "0".repeat(512);
+    private static final String EMPTY_ROOT = "0x" + "0".repeat(64);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long chainId;
+    private final int port;
+    private final long blockTimeSeconds;
+    private final Duration autoMineInterval;
+    private final Random random;
+    private final boolean feeHistoryEnabled;
+
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double errorRate;
+
+    // Chain state, guarded by this
+    private final Map<String, BigInteger> balances = new HashMap<>();
+    private final Map<String, BigInteger> nonces = new HashMap<>();
+    private final Map<String, Token> tokens = new HashMap<>();
+    private final List<Block> blocks = new ArrayList<>();
+    private final Map<String, Block> blocksByHash = new HashMap<>();
+    private final Map<String, Tx> transactions = new HashMap<>();
+    private final List<Tx> mempool = new ArrayList<>();
+
+    private HttpServer server;
+    private ExecutorService handlers;
+    private ScheduledExecutorService miner;
+
+    private StandInEthereumNode(Builder builder) {
+        this.chainId = builder.chainId;
+        this.port = builder.port;
+        this.blockTimeSeconds = builder.blockTimeSeconds;
+        this.autoMineInterval = builder.autoMineInterval;
+        this.random = new Random(builder.seed);
+        this.feeHistoryEnabled = builder.feeHistory;
+        this.latencyMillis = builder.latency.toMillis();
+        this.jitterMillis = builder.jitter.toMillis();
+        this.errorRate = builder.errorRate;
+        Block genesis = new Block(0, blockHash(0), EMPTY_ROOT, GENESIS_TIMESTAMP, builder.baseFee,
+                BigInteger.ZERO, List.of());
+        blocks.add(genesis);
+        blocksByHash.put(genesis.hash, genesis);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts serving JSON-RPC over HTTP, and mining if an interval was configured.
+     *
+     * @return This node
+     */
+    public StandInEthereumNode start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        handlers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-node-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(handlers);
+        server.createContext("/", this::handle);
+        server.start();
+        if (!autoMineInterval.isZero()) {
+            miner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "stand-in-node-miner");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = autoMineInterval.toMillis();
+            miner.scheduleAtFixedRate(this::mineBlock, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (miner != null) {
+            miner.shutdownNow();
+        }
+        if (server != null) {
+            server.stop(0);
+            handlers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return The HTTP URL to point a {@code Web3j} client at
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getChainId() {
+        return chainId;
+    }
+
+    /**
+     * Credits ether to an address.
+     *
+     * @param address The account to fund
+     * @param wei     Amount added to its balance
+     */
+    public synchronized void fund(String address, BigInteger wei) {
+        balances.merge(normalize(address), wei, BigInteger::add);
+    }
+
+    /**
+     * Deploys an ERC-20 token at the given address.
+     *
+     * @return The token, through which balances can be minted
+     */
+    public synchronized Token deployToken(String address, String name, String symbol, int decimals) {
+        Token token = new Token(normalize(address), name, symbol, decimals);
+        tokens.put(token.address, token);
+        return token;
+    }
+
+    public synchronized BigInteger getBalance(String address) {
+        return balances.getOrDefault(normalize(address), BigInteger.ZERO);
+    }
+
+    public synchronized long getBlockNumber() {
+        return blocks.size() - 1;
+    }
+
+    public synchronized int getMempoolSize() {
+        return mempool.size();
+    }
+
+    public void setLatency(Duration latency, Duration jitter) {
+        this.latencyMillis = latency.toMillis();
+        this.jitterMillis = jitter.toMillis();
+    }
+
+    /**
+     * @param errorRate Share of HTTP requests answered with 429, between 0 and 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Produces the next block from the executable part of the mempool.
+     * For every sender transactions are taken in nonce order, stopping at the first gap.
+     *
+     * @return The number of the new block
+     */
+    public synchronized long mineBlock() {
+        Block parent = blocks.get(blocks.size() - 1);
+        long number = parent.number + 1;
+        BigInteger baseFee = nextBaseFee(parent);
+        String hash = blockHash(number);
+
+        List<Tx> included = new ArrayList<>();
+        BigInteger gasUsed = BigInteger.ZERO;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (Tx tx : List.copyOf(mempool)) {
+                if (!tx.nonce.equals(nonceOf(tx.from)) || tx.maxFee.compareTo(baseFee) < 0
+                        || gasUsed.add(tx.gasLimit).compareTo(BLOCK_GAS_LIMIT) > 0) {
+                    continue;
+                }
+                mempool.remove(tx);
+                if (execute(tx, number, hash, included.size(), baseFee, gasUsed)) {
+                    included.add(tx);
+                    gasUsed = gasUsed.add(tx.gasUsed);
+                }
+                progress = true;
+            }
+        }
+
+        Block block = new Block(number, hash, parent.hash, GENESIS_TIMESTAMP + number * blockTimeSeconds,
+                baseFee, gasUsed, included.stream().map(tx -> tx.hash).toList());
+        blocks.add(block);
+        blocksByHash.put(hash, block);
+        return number;
+    }
+
+    /**
+     * Applies a transaction to the state. Gas is always charged; a transfer that cannot be
+     * covered reverts with status 0.
+     *
+     * @return false if the sender cannot even pay for gas and the transaction is dropped
+     */
+    private boolean execute(Tx tx, long blockNumber, String blockHash, int index, BigInteger baseFee,
+                            BigInteger cumulativeBefore) {
+        BigInteger price = tx.effectivePrice(baseFee);
+        long intrinsic = intrinsicGas(tx.to, tx.data);
+        boolean success = intrinsic <= tx.gasLimit.longValue();
+        BigInteger used = success ? BigInteger.valueOf(intrinsic) : tx.gasLimit;
+        BigInteger fee = used.multiply(price);
+        BigInteger balance = balances.getOrDefault(tx.from, BigInteger.ZERO);
+        if (balance.compareTo(fee) < 0) {
+            transactions.remove(tx.hash);
+            return false;
+        }
+        balance = balance.subtract(fee);
+
+        List<ObjectNode> logs = new ArrayList<>();
+        if (success && tx.value.signum() > 0) {
+            if (balance.compareTo(tx.value) < 0) {
+                success = false;
+            } else {
+                balance = balance.subtract(tx.value);
+                balances.merge(tx.to, tx.value, BigInteger::add);
+            }
+        }
+        Token token = tx.to != null ? tokens.get(tx.to) : null;
+        if (success && token != null && tx.data.startsWith(TRANSFER_SELECTOR)) {
+            String recipient = addressArgument(tx.data, 0);
+            BigInteger amount = uintArgument(tx.data, 1);
+            if (!token.transfer(tx.from, recipient, amount)) {
+                success = false;
+            } else {
+                ObjectNode log = objectMapper.createObjectNode();
+                log.put("address", token.address);
+                ArrayNode topics = log.putArray("topics");
+                topics.add(TRANSFER_TOPIC);
+                topics.add(padAddress(tx.from));
+                topics.add(padAddress(recipient));
+                log.put("data", "0x" + Numeric.toHexStringNoPrefixZeroPadded(amount, 64));
+                logs.add(log);
+            }
+        }
+        balances.put(tx.from, balance);
+        nonces.put(tx.from, tx.nonce.add(BigInteger.ONE));
+
+        tx.blockNumber = blockNumber;
+        tx.blockHash = blockHash;
+        tx.index = index;
+        tx.gasUsed = used;
+        tx.cumulativeGasUsed = cumulativeBefore.add(used);
+        tx.effectiveGasPrice = price;
+        tx.success = success;
+        tx.logs = logs;
+        return true;
+    }
+
+    // ---------------------------------------------------------------- HTTP
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            long delay;
+            boolean reject;
+            synchronized (random) {
+                delay = latencyMillis + (jitterMillis > 0 ? (long) (random.nextDouble() * jitterMillis) : 0);
+                reject = errorRate > 0 && random.nextDouble() < errorRate;
+            }
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (reject) {
+                respond(exchange, 429, "Too Many Requests".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            JsonNode request = objectMapper.readTree(body);
+            JsonNode response;
+            if (request.isArray()) {
+                ArrayNode responses = objectMapper.createArrayNode();
+                request.forEach(call -> responses.add(answer(call)));
+                response = responses;
+            } else {
+                response = answer(request);
+            }
+            respond(exchange, 200, objectMapper.writeValueAsBytes(response));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private ObjectNode answer(JsonNode call) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", call.get("id"));
+        String method = call.path("method").asText();
+        JsonNode params = call.path("params");
+        try {
+            Object result;
+            synchronized (this) {
+                result = dispatch(method, params);
+            }
+            response.set("result", objectMapper.valueToTree(result));
+        } catch (RpcError e) {
+            ObjectNode error = response.putObject("error");
+            error.put("code", e.code);
+            error.put("message", e.getMessage());
+        } catch (RuntimeException e) {
+            ObjectNode error = response.putObject("error");
+            error.put("code", -32602);
+            error.put("message", "invalid argument: " + e.getMessage());
+        }
+        return response;
+    }
+
+    private Object dispatch(String method, JsonNode params) {
+        return switch (method) {
+            case "eth_chainId" -> hex(BigInteger.valueOf(chainId));
+            case "net_version" -> Long.toString(chainId);
+            case "eth_blockNumber" -> hex(BigInteger.valueOf(blocks.size() - 1));
+            case "eth_gasPrice" -> hex(nextBaseFee(head()).add(PRIORITY_FEE));
+            case "eth_maxPriorityFeePerGas" -> hex(PRIORITY_FEE);
+            case "eth_feeHistory" -> feeHistory(params.get(0), params.get(1).asText(), params.path(2));
+            case "eth_getBalance" -> hex(balances.getOrDefault(normalize(params.get(0).asText()), BigInteger.ZERO));
+            case "eth_getCode" -> tokens.containsKey(normalize(params.get(0).asText())) ? TOKEN_CODE : "0x";
+            case "eth_getTransactionCount" -> hex(transactionCount(normalize(params.get(0).asText()),
+                    params.path(1).asText("latest")));
+            case "eth_getBlockByNumber" -> blockJson(blockByTag(params.get(0).asText()), params.path(1).asBoolean());
+            case "eth_getBlockByHash" -> blockJson(blocksByHash.get(params.get(0).asText()), params.path(1).asBoolean());
+            case "eth_call" -> call(params.get(0));
+            case "eth_estimateGas" -> hex(BigInteger.valueOf(intrinsicGas(
+                    optionalAddress(params.get(0).path("to")), stripHex(input(params.get(0))))));
+            case "eth_sendRawTransaction" -> sendRawTransaction(params.get(0).asText());
+            case "eth_getTransactionByHash" -> transactionJson(transactions.get(params.get(0).asText()));
+            case "eth_getTransactionReceipt" -> receiptJson(transactions.get(params.get(0).asText()));
+            default -> throw new RpcError(-32601, "the method " + method + " does not exist/is not available");
+        };
+    }
+
+    // ---------------------------------------------------------------- JSON-RPC methods
+
+    private BigInteger transactionCount(String address, String tag) {
+        BigInteger confirmed = nonceOf(address);
+        if (!"pending".equals(tag)) {
+            return confirmed;
+        }
+        // Like geth, the pending nonce only counts transactions without a gap before them
+        BigInteger next = confirmed;
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (Tx tx : mempool) {
+                if (tx.from.equals(address) && tx.nonce.equals(next)) {
+                    next = next.add(BigInteger.ONE);
+                    found = true;
+                }
+            }
+        }
+        return next;
+    }
+
+    private String call(JsonNode transaction) {
+        String to = optionalAddress(transaction.path("to"));
+        Token token = to != null ? tokens.get(to) : null;
+        String data = stripHex(input(transaction));
+        if (token == null || data.length() < 8) {
+            return "0x";
+        }
+        Type<?> result = switch (data.substring(0, 8)) {
+            case BALANCE_OF_SELECTOR -> new Uint256(token.balanceOf(addressArgument(data, 0)));
+            case DECIMALS_SELECTOR -> new Uint8(token.decimals);
+            case SYMBOL_SELECTOR -> new Utf8String(token.symbol);
+            case NAME_SELECTOR -> new Utf8String(token.name);
+            case TOTAL_SUPPLY_SELECTOR -> new Uint256(token.totalSupply);
+            default -> throw new RpcError(3, "execution reverted");
+        };
+        return "0x" + FunctionEncoder.encodeConstructor(List.of(result));
+    }
+
+    private String sendRawTransaction(String raw) {
+        RawTransaction decoded;
+        try {
+            decoded = TransactionDecoder.decode(raw);
+        } catch (RuntimeException e) {
+            throw new RpcError(-32000, "rlp: invalid transaction encoding");
+        }
+        if (!(decoded instanceof SignedRawTransaction signed)) {
+            throw new RpcError(-32000, "transaction is not signed");
+        }
+
+        Long txChainId = decoded.getTransaction() instanceof Transaction1559 eip1559
+                ? Long.valueOf(eip1559.getChainId())
+                : signed.getChainId();
+        if (txChainId == null || txChainId != chainId) {
+            throw new RpcError(-32000, "invalid chain id for signer");
+        }
+        String from;
+        try {
+            from = normalize(signed.getFrom());
+        } catch (SignatureException e) {
+            throw new RpcError(-32000, "invalid sender");
+        }
+
+        String hash = Numeric.toHexString(Hash.sha3(Numeric.hexStringToByteArray(raw)));
+        if (transactions.containsKey(hash)) {
+            throw new RpcError(-32000, "already known");
+        }
+
+        Tx tx = new Tx(hash, from, decoded);
+        if (tx.nonce.compareTo(nonceOf(from)) < 0) {
+            throw new RpcError(-32000, "nonce too low: next nonce " + nonceOf(from) + ", tx nonce " + tx.nonce);
+        }
+        if (tx.maxFee.compareTo(head().baseFee) < 0) {
+            throw new RpcError(-32000, "max fee per gas less than block base fee");
+        }
+        BigInteger cost = tx.gasLimit.multiply(tx.maxFee).add(tx.value);
+        if (balances.getOrDefault(from, BigInteger.ZERO).compareTo(cost) < 0) {
+            throw new RpcError(-32000, "insufficient funds for gas * price + value");
+        }
+        Tx replaced = mempool.stream()
+                .filter(pending -> pending.from.equals(from) && pending.nonce.equals(tx.nonce))
+                .findFirst()
+                .orElse(null);
+        if (replaced != null) {
+            // A replacement must bump the fee by at least 10%, as geth requires
+            if (tx.maxFee.multiply(BigInteger.TEN).compareTo(replaced.maxFee.multiply(BigInteger.valueOf(11))) < 0) {
+                throw new RpcError(-32000, "replacement transaction underpriced");
+            }
+            mempool.remove(replaced);
+            transactions.remove(replaced.hash);
+        }
+        mempool.add(tx);
+        transactions.put(hash, tx);
+        return hash;
+    }
+
+    /**
+     * Base fees, gas used ratios and, like geth, gas-weighted tip percentiles of the
+     * requested blocks. Empty blocks report zero tips.
+     */
+    private ObjectNode feeHistory(JsonNode blockCount, String newestTag, JsonNode percentiles) {
+        if (!feeHistoryEnabled) {
+            throw new RpcError(-32601, "the method eth_feeHistory does not exist/is not available");
+        }
+        long count = blockCount.isNumber() ? blockCount.asLong() : Numeric.toBigInt(blockCount.asText()).longValue();
+        Block newest = blockByTag(newestTag);
+        if (newest == null) {
+            throw new RpcError(-32000, "requested block is beyond the head");
+        }
+        long oldest = Math.max(0, newest.number - count + 1);
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("oldestBlock", hex(BigInteger.valueOf(oldest)));
+        ArrayNode baseFees = json.putArray("baseFeePerGas");
+        ArrayNode ratios = json.putArray("gasUsedRatio");
+        ArrayNode rewards = percentiles.isArray() && !percentiles.isEmpty() ? json.putArray("reward") : null;
+        for (long number = oldest; number <= newest.number; number++) {
+            Block block = blocks.get((int) number);
+            baseFees.add(hex(block.baseFee));
+            ratios.add(block.gasUsed.doubleValue() / BLOCK_GAS_LIMIT.doubleValue());
+            if (rewards != null) {
+                ArrayNode reward = rewards.addArray();
+                List<Tx> included = block.transactionHashes.stream()
+                        .map(transactions::get)
+                        .sorted(Comparator.comparing(tx -> tx.effectiveGasPrice.subtract(block.baseFee)))
+                        .toList();
+                for (JsonNode percentile : percentiles) {
+                    reward.add(hex(tipAt(included, block, percentile.asDouble())));
+                }
+            }
+        }
+        baseFees.add(hex(nextBaseFee(newest)));
+        return json;
+    }
+
+    private static BigInteger tipAt(List<Tx> sortedByTip, Block block, double percentile) {
+        if (sortedByTip.isEmpty()) {
+            return BigInteger.ZERO;
+        }
+        double threshold = block.gasUsed.doubleValue() * percentile / 100;
+        double cumulative = 0;
+        for (Tx tx : sortedByTip) {
+            cumulative += tx.gasUsed.doubleValue();
+            if (cumulative >= threshold) {
+                return tx.effectiveGasPrice.subtract(block.baseFee);
+            }
+        }
+        Tx last = sortedByTip.get(sortedByTip.size() - 1);
+        return last.effectiveGasPrice.subtract(block.baseFee);
+    }
+
+    private Block blockByTag(String tag) {
+        return switch (tag) {
+            case "latest", "pending", "safe", "finalized" -> head();
+            case "earliest" -> blocks.get(0);
+            default -> {
+                long number = Numeric.toBigInt(tag).longValue();
+                yield number < blocks.size() ? blocks.get((int) number) : null;
+            }
+        };
+    }
+
+    private ObjectNode blockJson(Block block, boolean fullTransactions) {
+        if (block == null) {
+            return null;
+        }
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("number", hex(BigInteger.valueOf(block.number)));
+        json.put("hash", block.hash);
+        json.put("parentHash", block.parentHash);
+        json.put("nonce", "0x0000000000000000");
+        json.put("mixHash", EMPTY_ROOT);
+        json.put("sha3Uncles", EMPTY_ROOT);
+        json.put("logsBloom", EMPTY_BLOOM);
+        json.put("transactionsRoot", EMPTY_ROOT);
+        json.put("stateRoot", EMPTY_ROOT);
+        json.put("receiptsRoot", EMPTY_ROOT);
+        json.put("miner", "0x0000000000000000000000000000000000000000");
+        json.put("difficulty", "0x0");
+        json.put("totalDifficulty", "0x0");
+        json.put("extraData", "0x");
+        json.put("size", "0x220");
+        json.put("gasLimit", hex(BLOCK_GAS_LIMIT));
+        json.put("gasUsed", hex(block.gasUsed));
+        json.put("timestamp", hex(BigInteger.valueOf(block.timestamp)));
+        json.put("baseFeePerGas", hex(block.baseFee));
+        ArrayNode txs = json.putArray("transactions");
+        for (String hash : block.transactionHashes) {
+            if (fullTransactions) {
+                txs.add(transactionJson(transactions.get(hash)));
+            } else {
+                txs.add(hash);
+            }
+        }
+        json.putArray("uncles");
+        return json;
+    }
+
+    private ObjectNode transactionJson(Tx tx) {
+        if (tx == null) {
+            return null;
+        }
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("hash", tx.hash);
+        json.put("nonce", hex(tx.nonce));
+        json.put("from", tx.from);
+        json.put("to", tx.to);
+        json.put("value", hex(tx.value));
+        json.put("gas", hex(tx.gasLimit));
+        json.put("input", "0x" + tx.data);
+        json.put("type", tx.eip1559 ? "0x2" : "0x0");
+        json.put("chainId", hex(BigInteger.valueOf(chainId)));
+        json.put("gasPrice", hex(tx.effectiveGasPrice != null ? tx.effectiveGasPrice : tx.maxFee));
+        if (tx.eip1559) {
+            json.put("maxFeePerGas", hex(tx.maxFee));
+            json.put("maxPriorityFeePerGas", hex(tx.maxPriorityFee));
+        }
+        json.put("v", "0x0");
+        json.put("r", EMPTY_ROOT);
+        json.put("s", EMPTY_ROOT);
+        if (tx.blockHash != null) {
+            json.put("blockHash", tx.blockHash);
+            json.put("blockNumber", hex(BigInteger.valueOf(tx.blockNumber)));
+            json.put("transactionIndex", hex(BigInteger.valueOf(tx.index)));
+        } else {
+            json.putNull("blockHash");
+            json.putNull("blockNumber");
+            json.putNull("transactionIndex");
+        }
+        return json;
+    }
+
+    private ObjectNode receiptJson(Tx tx) {
+        if (tx == null || tx.blockHash == null) {
+            return null;
+        }
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("transactionHash", tx.hash);
+        json.put("transactionIndex", hex(BigInteger.valueOf(tx.index)));
+        json.put("blockHash", tx.blockHash);
+        json.put("blockNumber", hex(BigInteger.valueOf(tx.blockNumber)));
+        json.put("from", tx.from);
+        json.put("to", tx.to);
+        json.put("cumulativeGasUsed", hex(tx.cumulativeGasUsed));
+        json.put("gasUsed", hex(tx.gasUsed));
+        json.put("effectiveGasPrice", hex(tx.effectiveGasPrice));
+        json.putNull("contractAddress");
+        json.put("logsBloom", EMPTY_BLOOM);
+        json.put("status", tx.success ? "0x1" : "0x0");
+        json.put("type", tx.eip1559 ? "0x2" : "0x0");
+        ArrayNode logs = json.putArray("logs");
+        for (int i = 0; i < tx.logs.size(); i++) {
+            ObjectNode log = tx.logs.get(i).deepCopy();
+            log.put("blockNumber", hex(BigInteger.valueOf(tx.blockNumber)));
+            log.put("blockHash", tx.blockHash);
+            log.put("transactionHash", tx.hash);
+            log.put("transactionIndex", hex(BigInteger.valueOf(tx.index)));
+            log.put("logIndex", hex(BigInteger.valueOf(i)));
+            log.put("removed", false);
+            logs.add(log);
+        }
+        return json;
+    }
+
+    // ---------------------------------------------------------------- helpers
+
+    private Block head() {
+        return blocks.get(blocks.size() - 1);
+    }
+
+    private BigInteger nonceOf(String address) {
+        return nonces.getOrDefault(address, BigInteger.ZERO);
+    }
+
+    /**
+     * EIP-1559 base fee update, floored at the genesis base fee so quiet chains stay usable.
+     */
+    private BigInteger nextBaseFee(Block parent) {
+        BigInteger target = BLOCK_GAS_LIMIT.divide(BigInteger.TWO);
+        BigInteger delta = parent.baseFee.multiply(parent.gasUsed.subtract(target))
+                .divide(target).divide(BigInteger.valueOf(8));
+        return parent.baseFee.add(delta).max(blocks.get(0).baseFee);
+    }
+
+    private long intrinsicGas(String to, String data) {
+        if (to == null) {
+            return DEPLOY_GAS;
+        }
+        if (data.isEmpty()) {
+            return TRANSFER_GAS;
+        }
+        if (tokens.containsKey(to) && data.startsWith(TRANSFER_SELECTOR)) {
+            return TOKEN_TRANSFER_GAS;
+        }
+        return TRANSFER_GAS + CONTRACT_CALL_GAS + 16L * data.length() / 2;
+    }
+
+    private String blockHash(long number) {
+        return Hash.sha3String("stand-in:" + chainId + ":" + number);
+    }
+
+    private static String input(JsonNode transaction) {
+        JsonNode input = transaction.has("input") ? transaction.get("input") : transaction.path("data");
+        return input.isMissingNode() || input.isNull() ? "" : input.asText();
+    }
+
+    private static String optionalAddress(JsonNode node) {
+        return node.isMissingNode() || node.isNull() || node.asText().isEmpty() ? null : normalize(node.asText());
+    }
+
+    private static String addressArgument(String data, int index) {
+        String word = data.substring(8 + index * 64, 8 + (index + 1) * 64);
+        return "0x" + word.substring(24);
+    }
+
+    private static BigInteger uintArgument(String data, int index) {
+        return new BigInteger(data.substring(8 + index * 64, 8 + (index + 1) * 64), 16);
+    }
+
+    private static String padAddress(String address) {
+        return "0x" + "0".repeat(24) + stripHex(address);
+    }
+
+    private static String stripHex(String value) {
+        return value == null ? "" : Numeric.cleanHexPrefix(value).toLowerCase();
+    }
+
+    private static String normalize(String address) {
+        return "0x" + stripHex(address);
+    }
+
+    private static String hex(BigInteger value) {
+        return Numeric.toHexStringWithPrefix(value);
+    }
+
+    // ---------------------------------------------------------------- model
+
+    /**
+     * An ERC-20 token living on the stand-in chain.
+     */
+    public final class Token {
+        private final String address;
+        private final String name;
+        private final String symbol;
+        private final int decimals;
+        private final Map<String, BigInteger> holdings = new HashMap<>();
+        private BigInteger totalSupply = BigInteger.ZERO;
+
+        private Token(String address, String name, String symbol, int decimals) {
+            this.address = address;
+            this.name = name;
+            this.symbol = symbol;
+            this.decimals = decimals;
+        }
+
+        /**
+         * Creates tokens out of thin air for a holder.
+         */
+        public void mint(String holder, BigInteger amount) {
+            synchronized (StandInEthereumNode.this) {
+                holdings.merge(normalize(holder), amount, BigInteger::add);
+                totalSupply = totalSupply.add(amount);
+            }
+        }
+
+        public BigInteger balanceOf(String holder) {
+            synchronized (StandInEthereumNode.this) {
+                return holdings.getOrDefault(normalize(holder), BigInteger.ZERO);
+            }
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        private boolean transfer(String from, String to, BigInteger amount) {
+            BigInteger balance = holdings.getOrDefault(from, BigInteger.ZERO);
+            if (balance.compareTo(amount) < 0) {
+                return false;
+            }
+            holdings.put(from, balance.subtract(amount));
+            holdings.merge(normalize(to), amount, BigInteger::add);
+            return true;
+        }
+    }
+
+    private record Block(long number, String hash, String parentHash, long timestamp, BigInteger baseFee,
+                         BigInteger gasUsed, List<String> transactionHashes) {
+    }
+
+    /**
+     * A transaction accepted into the mempool, filled in with its receipt once mined.
+     */
+    private static final class Tx {
+        private final String hash;
+        private final String from;
+        private final String to;
+        private final BigInteger nonce;
+        private final BigInteger value;
+        private final BigInteger gasLimit;
+        private final BigInteger maxFee;
+        private final BigInteger maxPriorityFee;
+        private final boolean eip1559;
+        private final String data;
+
+        private long blockNumber;
+        private String blockHash;
+        private int index;
+        private BigInteger gasUsed;
+        private BigInteger cumulativeGasUsed;
+        private BigInteger effectiveGasPrice;
+        private boolean success;
+        private List<ObjectNode> logs = List.of();
+
+        Tx(String hash, String from, RawTransaction raw) {
+            this.hash = hash;
+            this.from = from;
+            this.to = raw.getTo() == null || stripHex(raw.getTo()).isEmpty() ? null : normalize(raw.getTo());
+            this.nonce = raw.getNonce();
+            this.value = raw.getValue() != null ? raw.getValue() : BigInteger.ZERO;
+            this.gasLimit = raw.getGasLimit();
+            this.data = stripHex(raw.getData());
+            if (raw.getTransaction() instanceof Transaction1559 eip1559Tx) {
+                this.eip1559 = true;
+                this.maxFee = eip1559Tx.getMaxFeePerGas();
+                this.maxPriorityFee = eip1559Tx.getMaxPriorityFeePerGas();
+            } else {
+                this.eip1559 = false;
+                this.maxFee = raw.getGasPrice();
+                this.maxPriorityFee = raw.getGasPrice();
+            }
+        }
+
+        BigInteger effectivePrice(BigInteger baseFee) {
+            return eip1559 ? maxFee.min(baseFee.add(maxPriorityFee)) : maxFee;
+        }
+    }
+
+    private static final class RpcError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int code;
+
+        RpcError(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    /**
+     * Settings for a stand-in node; every setting has a default suitable for unit tests.
+     */
+    public static final class Builder {
+        private long chainId = DEFAULT_CHAIN_ID;
+        private int port;
+        private long blockTimeSeconds = 12;
+        private Duration autoMineInterval = Duration.ZERO;
+        private BigInteger baseFee = BigInteger.valueOf(1_000_000_000L);
+        private Duration latency = Duration.ZERO;
+        private Duration jitter = Duration.ZERO;
+        private double errorRate;
+        private long seed = 42;
+        private boolean feeHistory = true;
+
+        private Builder() {
+        }
+
+        public Builder chainId(long chainId) {
+            this.chainId = chainId;
+            return this;
+        }
+
+        /** Port to listen on; 0, the default, picks a free one. */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /** Spacing of block timestamps, independent of how fast blocks are actually mined. */
+        public Builder blockTimeSeconds(long blockTimeSeconds) {
+            this.blockTimeSeconds = blockTimeSeconds;
+            return this;
+        }
+
+        /** Mine a block at this interval; zero, the default, mines only on {@link #mineBlock()}. */
+        public Builder autoMine(Duration interval) {
+            this.autoMineInterval = interval;
+            return this;
+        }
+
+        /** Base fee of the genesis block, also the floor the base fee never drops below. */
+        public Builder baseFee(BigInteger baseFee) {
+            this.baseFee = baseFee;
+            return this;
+        }
+
+        /** Delay added to every HTTP request, plus up to {@code jitter} more. */
+        public Builder latency(Duration latency, Duration jitter) {
+            this.latency = latency;
+            this.jitter = jitter;
+            return this;
+        }
+
+        /** Share of HTTP requests rejected with 429, between 0 and 1. */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /** Seed for latency jitter and error injection. */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /** Whether {@code eth_feeHistory} is served; when not, it is answered as an unknown method. */
+        public Builder feeHistory(boolean feeHistory) {
+            this.feeHistory = feeHistory;
+            return this;
+        }
+
+        public StandInEthereumNode build() {
+            return new StandInEthereumNode(this);
+        }
+    }
+
+    /**
+     * Runs a node until the process is stopped. Arguments are {@code key=value} pairs:
+     * {@code port}, {@code chainId}, {@code blockTimeMs}, {@code latencyMs}, {@code jitterMs},
+     * {@code errorRate}, {@code seed}, and any number of {@code fund=address:wei}.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> funded = new ArrayList<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if ("fund".equals(pair[0])) {
+                funded.add(pair[1]);
+            } else {
+                options.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+        }
+        long blockTimeMs = Long.parseLong(options.getOrDefault("blockTimeMs", "12000"));
+        StandInEthereumNode node = builder()
+                .port(Integer.parseInt(options.getOrDefault("port", "8545")))
+                .chainId(Long.parseLong(options.getOrDefault("chainId", Long.toString(DEFAULT_CHAIN_ID))))
+                .blockTimeSeconds(Math.max(1, blockTimeMs / 1000))
+                .autoMine(Duration.ofMillis(blockTimeMs))
+                .latency(Duration.ofMillis(Long.parseLong(options.getOrDefault("latencyMs", "0"))),
+                        Duration.ofMillis(Long.parseLong(options.getOrDefault("jitterMs", "0"))))
+                .errorRate(Double.parseDouble(options.getOrDefault("errorRate", "0")))
+                .seed(Long.parseLong(options.getOrDefault("seed", "42")))
+                .build();
+        for (String entry : funded) {
+            String[] parts = entry.split(":", 2);
+            node.fund(parts[0], new BigInteger(parts[1]));
+        }
+        node.start();
+        System.out.println("Stand-in Ethereum node listening on " + node.getUrl() + " (chainId " + node.chainId + ")");
+        new CountDownLatch(1).await();
+    }
+}
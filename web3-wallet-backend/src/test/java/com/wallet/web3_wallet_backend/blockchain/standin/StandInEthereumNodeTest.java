@@ -0,0 +1,132 @@
+package com.wallet.web3_wallet_backend.blockchain.standin;
+
+import com.wallet.web3_wallet_backend.blockchain.contract.ERC20Contract;
+import com.wallet.web3_wallet_backend.blockchain.transaction.TransactionBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+import org.web3j.protocol.http.HttpService;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StandInEthereumNode verifying that the wallet's own clients can read
+ * state, broadcast signed transactions and see them mined.
+ */
+class StandInEthereumNodeTest {
+
+    private static final Credentials SENDER =
+        Credentials.create("0x4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318");
+    private static final String RECIPIENT = "0x00000000000000000000000000000000000000b0";
+    private static final String TOKEN = "0x00000000000000000000000000000000000000c0";
+    private static final BigInteger ONE_ETHER = BigInteger.TEN.pow(18);
+    private static final BigInteger GAS_PRICE = BigInteger.valueOf(3_000_000_000L);
+
+    private StandInEthereumNode node;
+    private Web3j web3j;
+    private TransactionBuilder builder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = StandInEthereumNode.builder().build().start();
+        node.fund(SENDER.getAddress(), ONE_ETHER);
+        web3j = Web3j.build(new HttpService(node.getUrl()));
+        builder = new TransactionBuilder(node.getChainId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testTokenReadsThroughErc20Contract() throws Exception {
+        node.deployToken(TOKEN, "Stand-in Token", "SIT", 6).mint(SENDER.getAddress(), BigInteger.valueOf(5_000_000));
+        ERC20Contract contract = new ERC20Contract(web3j, TOKEN);
+
+        assertEquals("SIT", contract.symbol());
+        assertEquals("Stand-in Token", contract.name());
+        assertEquals(6, contract.decimals());
+        assertEquals(BigInteger.valueOf(5_000_000), contract.balanceOf(SENDER.getAddress()));
+        assertEquals("0x", web3j.ethGetCode(RECIPIENT, DefaultBlockParameterName.LATEST).send().getCode());
+    }
+
+    @Test
+    void testSignedTransferIsCheckedMinedAndReceipted() throws Exception {
+        BigInteger value = ONE_ETHER.divide(BigInteger.TEN);
+        String hash = broadcast(BigInteger.ZERO, RECIPIENT, value, "").getTransactionHash();
+        assertEquals(BigInteger.ONE, web3j.ethGetTransactionCount(SENDER.getAddress(), DefaultBlockParameterName.PENDING)
+            .send().getTransactionCount());
+        assertTrue(web3j.ethGetTransactionReceipt(hash).send().getTransactionReceipt().isEmpty());
+
+        node.mineBlock();
+
+        TransactionReceipt receipt = web3j.ethGetTransactionReceipt(hash).send().getTransactionReceipt().orElseThrow();
+        assertTrue(receipt.isStatusOK());
+        assertEquals(BigInteger.ONE, receipt.getBlockNumber());
+        assertEquals(BigInteger.valueOf(21_000), receipt.getGasUsed());
+        assertEquals(value, web3j.ethGetBalance(RECIPIENT, DefaultBlockParameterName.LATEST).send().getBalance());
+
+        EthBlock.Block block = web3j.ethGetBlockByNumber(DefaultBlockParameterName.LATEST, true).send().getBlock();
+        assertEquals(1, block.getTransactions().size());
+        assertNotNull(block.getBaseFeePerGas());
+
+        EthSendTransaction replay = broadcast(BigInteger.ZERO, RECIPIENT, BigInteger.ONE, "");
+        assertTrue(replay.hasError());
+        assertTrue(replay.getError().getMessage().startsWith("nonce too low"));
+    }
+
+    @Test
+    void testTransactionsForAnotherChainAreRejected() throws Exception {
+        RawTransaction raw = builder.buildLegacyTransaction(BigInteger.ZERO, RECIPIENT, BigInteger.ONE,
+            BigInteger.valueOf(21_000), GAS_PRICE, "");
+        String signed = builder.signTransactionWithChainId(raw, SENDER, 1L);
+
+        EthSendTransaction response = web3j.ethSendRawTransaction(signed).send();
+
+        assertTrue(response.hasError());
+        assertEquals(0, node.getMempoolSize());
+    }
+
+    @Test
+    void testTokenTransferEmitsTransferLog() throws Exception {
+        StandInEthereumNode.Token token = node.deployToken(TOKEN, "Stand-in Token", "SIT", 6);
+        token.mint(SENDER.getAddress(), BigInteger.valueOf(1_000));
+        String data = new ERC20Contract(web3j, TOKEN).encodeTransfer(RECIPIENT, BigInteger.valueOf(400));
+
+        String hash = broadcast(BigInteger.ZERO, TOKEN, BigInteger.ZERO, data).getTransactionHash();
+        node.mineBlock();
+
+        TransactionReceipt receipt = web3j.ethGetTransactionReceipt(hash).send().getTransactionReceipt().orElseThrow();
+        assertTrue(receipt.isStatusOK());
+        assertEquals(1, receipt.getLogs().size());
+        assertEquals(BigInteger.valueOf(400), token.balanceOf(RECIPIENT));
+        assertEquals(BigInteger.valueOf(600), token.balanceOf(SENDER.getAddress()));
+    }
+
+    @Test
+    void testInjectedErrorsAreRateLimitResponses() {
+        node.setErrorRate(1.0);
+
+        ClientConnectionException error = assertThrows(ClientConnectionException.class,
+            () -> web3j.ethBlockNumber().send());
+        assertTrue(error.getMessage().contains("429"));
+    }
+
+    private EthSendTransaction broadcast(BigInteger nonce, String to, BigInteger value, String data) throws Exception {
+        RawTransaction raw = builder.buildEIP1559Transaction(nonce, to, value, BigInteger.valueOf(100_000),
+            BigInteger.valueOf(1_000_000_000L), GAS_PRICE, data);
+        return web3j.ethSendRawTransaction(builder.signTransaction(raw, SENDER)).send();
+    }
+}
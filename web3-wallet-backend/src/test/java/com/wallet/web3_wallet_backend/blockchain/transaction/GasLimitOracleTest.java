@@ -0,0 +1,152 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import com.wallet.web3_wallet_backend.blockchain.client.ChainHeadTracker;
+import com.wallet.web3_wallet_backend.blockchain.client.ForwardingWeb3jService;
+import com.wallet.web3_wallet_backend.blockchain.client.StreamingWeb3j;
+import com.wallet.web3_wallet_backend.blockchain.contract.ERC20Contract;
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GasLimitOracle verifying that plain transfers to accounts without code
+ * skip eth_estimateGas after one code lookup, and that calls to a contract function are
+ * answered from the gas used by earlier receipts once enough have been seen.
+ */
+class GasLimitOracleTest {
+
+    private static final Credentials SENDER =
+        Credentials.create("0x4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318");
+    private static final String RECIPIENT = "0x00000000000000000000000000000000000000b0";
+    private static final String TOKEN = "0x00000000000000000000000000000000000000c0";
+
+    private StandInEthereumNode node;
+    private StreamingWeb3j web3j;
+    private ChainHeadTracker tracker;
+    private TransactionMonitor monitor;
+    private GasLimitOracle oracle;
+    private final AtomicInteger estimateCalls = new AtomicInteger();
+    private final AtomicInteger codeCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = StandInEthereumNode.builder().build().start();
+        node.fund(SENDER.getAddress(), BigInteger.TEN.pow(18));
+        node.deployToken(TOKEN, "Stand-in Token", "SIT", 6).mint(SENDER.getAddress(), BigInteger.valueOf(1_000_000));
+        web3j = StreamingWeb3j.build(new ForwardingWeb3jService(new HttpService(node.getUrl())) {
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+                count(request);
+                return super.send(request, responseType);
+            }
+
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+                count(request);
+                return super.sendAsync(request, responseType);
+            }
+        });
+        tracker = new ChainHeadTracker(new HttpService(node.getUrl()), Duration.ofMillis(20));
+        monitor = new TransactionMonitor(web3j, tracker);
+        oracle = new GasLimitOracle(web3j, new GasManager(web3j), monitor, 3, 0.4, 600000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+        tracker.close();
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testTransferToAccountWithoutCodeSkipsEstimate() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(BigInteger.valueOf(21000), oracle.gasLimit(SENDER.getAddress(), RECIPIENT, BigInteger.ONE, ""));
+            assertEquals(BigInteger.valueOf(21000),
+                oracle.gasLimitAsync(SENDER.getAddress(), RECIPIENT, BigInteger.ONE, "0x").get());
+        }
+        assertEquals(1, codeCalls.get());
+        assertEquals(0, estimateCalls.get());
+
+        // A plain transfer to a contract runs its code, so it is estimated
+        oracle.gasLimit(SENDER.getAddress(), TOKEN, BigInteger.ONE, "");
+        assertEquals(2, codeCalls.get());
+        assertEquals(1, estimateCalls.get());
+    }
+
+    @Test
+    void testContractCallUsesGasLearnedFromReceipts() throws Exception {
+        String data = new ERC20Contract(web3j, TOKEN).encodeTransfer(RECIPIENT, BigInteger.TEN);
+        BigInteger estimate = oracle.gasLimit(SENDER.getAddress(), TOKEN, BigInteger.ZERO, data);
+        assertEquals(1, estimateCalls.get());
+
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String hash = broadcast(BigInteger.valueOf(i), data, estimate);
+            oracle.observe(hash, TOKEN, data);
+            hashes.add(hash);
+        }
+        node.mineBlock();
+        awaitReceipts();
+
+        TransactionReceipt receipt = web3j.ethGetTransactionReceipt(hashes.get(0)).send().getTransactionReceipt()
+            .orElseThrow();
+        // Gas used is after refunds, which can be up to a fifth of the gas needed
+        BigInteger learned = receipt.getGasUsed().multiply(BigInteger.valueOf(125 * 110))
+            .divide(BigInteger.valueOf(100 * 100));
+        int estimatesBefore = estimateCalls.get();
+        assertEquals(learned, oracle.gasLimit(SENDER.getAddress(), TOKEN, BigInteger.ZERO, data));
+        assertEquals(learned, oracle.gasLimitAsync(SENDER.getAddress(), TOKEN, BigInteger.ZERO, data).get());
+        assertEquals(estimatesBefore, estimateCalls.get());
+        assertEquals(0, codeCalls.get());
+
+        // Another function of the same contract has nothing learned yet
+        String approve = "0x095ea7b3" + data.substring(10);
+        oracle.gasLimit(SENDER.getAddress(), TOKEN, BigInteger.ZERO, approve);
+        assertEquals(estimatesBefore + 1, estimateCalls.get());
+    }
+
+    private void count(Request<?, ?> request) {
+        switch (request.getMethod()) {
+            case "eth_estimateGas" -> estimateCalls.incrementAndGet();
+            case "eth_getCode" -> codeCalls.incrementAndGet();
+            default -> {
+            }
+        }
+    }
+
+    private String broadcast(BigInteger nonce, String data, BigInteger gasLimit) throws Exception {
+        TransactionBuilder builder = new TransactionBuilder(node.getChainId());
+        RawTransaction raw = builder.buildEIP1559Transaction(nonce, TOKEN, BigInteger.ZERO, gasLimit,
+            BigInteger.valueOf(1_000_000_000L), BigInteger.valueOf(3_000_000_000L), data);
+        return web3j.ethSendRawTransaction(builder.signTransaction(raw, SENDER)).send().getTransactionHash();
+    }
+
+    private void awaitReceipts() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (monitor.getActiveMonitorCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, monitor.getActiveMonitorCount());
+    }
+}
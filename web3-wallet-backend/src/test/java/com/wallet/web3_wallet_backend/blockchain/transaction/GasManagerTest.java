@@ -0,0 +1,244 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import com.wallet.web3_wallet_backend.blockchain.client.ChainHeadTracker;
+import com.wallet.web3_wallet_backend.blockchain.client.ForwardingWeb3jService;
+import com.wallet.web3_wallet_backend.blockchain.client.StreamingWeb3j;
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GasManager verifying that the fee history oracle derives every EIP-1559
+ * tier from a single call, that block sampling takes over, without legacy transactions,
+ * on nodes lacking {@code eth_feeHistory}, and that the fee window serves the same prices
+ * without calling the node while fetching only new blocks as heads arrive, retrying a
+ * failed update before the next head.
+ */
+class GasManagerTest {
+
+    private static final Credentials SENDER =
+        Credentials.create("0x4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318");
+    private static final String RECIPIENT = "0x00000000000000000000000000000000000000b0";
+    private static final BigInteger GWEI = BigInteger.valueOf(1_000_000_000L);
+    private static final BigInteger BASE_FEE = GWEI;
+
+    private StandInEthereumNode node;
+    private StreamingWeb3j web3j;
+    private ChainHeadTracker tracker;
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    /** Methods whose calls fail without reaching the node */
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+    @AfterEach
+    void tearDown() {
+        if (tracker != null) {
+            tracker.close();
+        }
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testFeeHistoryTiersComeFromOneCall() throws Exception {
+        start(true);
+        mineTips(1, 2, 3);
+        GasManager gasManager = new GasManager(web3j, null, null, null, GasManager.FeeOracle.FEE_HISTORY, 10,
+            new double[] {10, 50, 90}, false);
+
+        GasManager.EIP1559GasPrices prices = gasManager.getEIP1559GasPrices();
+
+        assertEquals(GWEI, prices.maxPriorityFeePerGas.slow);
+        assertEquals(GWEI.multiply(BigInteger.TWO), prices.maxPriorityFeePerGas.medium);
+        assertEquals(GWEI.multiply(BigInteger.valueOf(3)), prices.maxPriorityFeePerGas.fast);
+        // The base fee of the quiet next block sits at the stand-in's floor
+        assertEquals(BASE_FEE.multiply(BigInteger.TWO).add(GWEI.multiply(BigInteger.TWO)), prices.maxFeePerGas.medium);
+        assertEquals(1, calls("eth_feeHistory"));
+        assertEquals(0, calls("eth_getBlockByNumber"));
+
+        GasManager.EIP1559GasPrices async = gasManager.getEIP1559GasPricesAsync().get();
+        assertEquals(prices.maxPriorityFeePerGas.medium, async.maxPriorityFeePerGas.medium);
+        assertEquals(prices.maxFeePerGas.fast, async.maxFeePerGas.fast);
+    }
+
+    @Test
+    void testFallsBackToBlockSamplingWithoutFeeHistory() throws Exception {
+        start(false);
+        mineTips(1, 2, 3);
+        broadcastLegacy(BigInteger.valueOf(3), GWEI.multiply(BigInteger.valueOf(50)));
+        node.mineBlock();
+        GasManager gasManager = new GasManager(web3j);
+
+        GasManager.EIP1559GasPrices prices = gasManager.getEIP1559GasPrices();
+        GasManager.EIP1559GasPrices async = gasManager.getEIP1559GasPricesAsync().get();
+
+        // The median EIP-1559 tip; the legacy transaction's 49 gwei would have moved it
+        assertEquals(GWEI.multiply(BigInteger.TWO), prices.maxPriorityFeePerGas.medium);
+        assertEquals(prices.maxPriorityFeePerGas.medium, async.maxPriorityFeePerGas.medium);
+        // Once the node said it lacks the method, it is not asked again
+        assertEquals(1, calls("eth_feeHistory"));
+    }
+
+    @Test
+    void testBlockSamplingCanBeConfigured() throws Exception {
+        start(true);
+        mineTips(1, 2, 3);
+        GasManager gasManager = new GasManager(web3j, null, null, null, GasManager.FeeOracle.BLOCK_SAMPLING, 10,
+            new double[] {10, 50, 90}, false);
+
+        GasManager.EIP1559GasPrices prices = gasManager.getEIP1559GasPrices();
+
+        assertEquals(GWEI.multiply(BigInteger.TWO), prices.maxPriorityFeePerGas.medium);
+        assertEquals(0, calls("eth_feeHistory"));
+    }
+
+    @Test
+    void testFeeWindowServesPricesWithoutCallingTheNode() throws Exception {
+        start(true);
+        mineTips(1, 2, 3);
+        GasManager.EIP1559GasPrices expected = new GasManager(web3j).getEIP1559GasPrices();
+        BigInteger gasPrice = web3j.ethGasPrice().send().getGasPrice();
+        // The tracker polls through its own transport so only the window's calls are counted
+        tracker = new ChainHeadTracker(new HttpService(node.getUrl()), Duration.ofMillis(20));
+        GasManager gasManager = new GasManager(web3j, tracker, null, null, GasManager.FeeOracle.FEE_HISTORY, 10,
+            new double[] {10, 50, 90}, true);
+        awaitFeeHistoryCalls(2);
+
+        int before = totalCalls();
+        GasManager.EIP1559GasPrices prices = gasManager.getEIP1559GasPrices();
+        GasManager.GasPrices legacy = gasManager.getLegacyGasPrices();
+        assertTrue(gasManager.supportsEIP1559Async().get());
+        assertEquals(before, totalCalls());
+        assertEquals(expected.maxPriorityFeePerGas.slow, prices.maxPriorityFeePerGas.slow);
+        assertEquals(expected.maxPriorityFeePerGas.fast, prices.maxPriorityFeePerGas.fast);
+        assertEquals(expected.maxFeePerGas.medium, prices.maxFeePerGas.medium);
+        assertEquals(gasPrice, legacy.medium);
+
+        // Each head only fetches the block it added
+        node.mineBlock();
+        awaitFeeHistoryCalls(3);
+        node.mineBlock();
+        awaitFeeHistoryCalls(4);
+        before = totalCalls();
+        GasManager.EIP1559GasPrices later = gasManager.getEIP1559GasPricesAsync().get();
+        assertEquals(before, totalCalls());
+        // The two empty blocks leave the tiers as they were
+        assertEquals(expected.maxPriorityFeePerGas.medium, later.maxPriorityFeePerGas.medium);
+        gasManager.close();
+    }
+
+    @Test
+    void testFailedWindowUpdateIsRetriedBeforeTheNextHead() throws Exception {
+        start(true);
+        tracker = new ChainHeadTracker(new HttpService(node.getUrl()), Duration.ofMillis(20));
+        GasManager gasManager = new GasManager(web3j, tracker, null, null, GasManager.FeeOracle.FEE_HISTORY, 10,
+            new double[] {10, 50, 90}, true);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        gasManager.bindTo(registry);
+        awaitFeeHistoryCalls(1);
+        gasManager.getEIP1559GasPrices();
+        assertEquals(1, registry.get("web3.fees.requests").tag("source", "window").functionCounter().count());
+        assertEquals(0, registry.get("web3.fees.window.lag").gauge().value());
+
+        failing.add("eth_feeHistory");
+        node.mineBlock();
+        awaitFeeHistoryCalls(2);
+        assertEquals(1, registry.get("web3.fees.window.refresh").tag("result", "failure").functionTimer().count());
+        assertEquals(1, registry.get("web3.fees.window.lag").gauge().value());
+
+        // Caught up again without another head
+        failing.clear();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (registry.get("web3.fees.window.lag").gauge().value() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, registry.get("web3.fees.window.lag").gauge().value());
+        assertEquals(3, calls("eth_feeHistory"));
+        assertEquals(2, registry.get("web3.fees.window.refresh").tag("result", "success").functionTimer().count());
+        assertTrue(registry.get("web3.fees.window.age").gauge().value() < 5);
+        gasManager.close();
+    }
+
+    private void awaitFeeHistoryCalls(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (calls("eth_feeHistory") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, calls("eth_feeHistory"));
+        // Let the update that made the call publish its snapshot
+        Thread.sleep(100);
+    }
+
+    private int totalCalls() {
+        return calls.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    private void start(boolean feeHistory) throws IOException {
+        node = StandInEthereumNode.builder().feeHistory(feeHistory).build().start();
+        node.fund(SENDER.getAddress(), BigInteger.TEN.pow(18));
+        web3j = StreamingWeb3j.build(new ForwardingWeb3jService(new HttpService(node.getUrl())) {
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+                calls.computeIfAbsent(request.getMethod(), method -> new AtomicInteger()).incrementAndGet();
+                if (failing.contains(request.getMethod())) {
+                    throw new IOException("Failing " + request.getMethod());
+                }
+                return super.send(request, responseType);
+            }
+
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+                calls.computeIfAbsent(request.getMethod(), method -> new AtomicInteger()).incrementAndGet();
+                if (failing.contains(request.getMethod())) {
+                    return CompletableFuture.failedFuture(new IOException("Failing " + request.getMethod()));
+                }
+                return super.sendAsync(request, responseType);
+            }
+        });
+    }
+
+    private int calls(String method) {
+        AtomicInteger count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Mines one block holding an EIP-1559 transfer for each tip, given in gwei.
+     */
+    private void mineTips(long... tipsInGwei) throws Exception {
+        TransactionBuilder builder = new TransactionBuilder(node.getChainId());
+        for (int i = 0; i < tipsInGwei.length; i++) {
+            BigInteger tip = GWEI.multiply(BigInteger.valueOf(tipsInGwei[i]));
+            RawTransaction raw = builder.buildEIP1559Transaction(BigInteger.valueOf(i), RECIPIENT, BigInteger.ONE,
+                BigInteger.valueOf(21_000), tip, BASE_FEE.multiply(BigInteger.TEN), "");
+            web3j.ethSendRawTransaction(builder.signTransaction(raw, SENDER)).send();
+        }
+        node.mineBlock();
+    }
+
+    private void broadcastLegacy(BigInteger nonce, BigInteger gasPrice) throws Exception {
+        TransactionBuilder builder = new TransactionBuilder(node.getChainId());
+        RawTransaction raw = builder.buildLegacyTransaction(nonce, RECIPIENT, BigInteger.ONE,
+            BigInteger.valueOf(21_000), gasPrice, "");
+        web3j.ethSendRawTransaction(builder.signTransaction(raw, SENDER)).send();
+    }
+}
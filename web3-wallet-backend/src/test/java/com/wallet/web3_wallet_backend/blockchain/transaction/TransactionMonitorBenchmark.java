@@ -0,0 +1,221 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wallet.web3_wallet_backend.blockchain.client.BatchingWeb3jService;
+import com.wallet.web3_wallet_backend.blockchain.client.ChainHeadTracker;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline benchmark comparing ways of watching many broadcast transactions at once.
+ * <p>
+ * Every transaction is mined in block 1 and needs two confirmations. Once all of them are
+ * being watched, the head moves to block 2 and the benchmark measures how long it takes
+ * until every transaction is reported confirmed, along with the peak thread count and the
+ * number of JSON-RPC calls the provider received. Provider calls take a fixed latency and
+ * go through the same batching transport as in production.
+ * </p>
+ * <ul>
+ *     <li>{@code common-pool}: one polling loop per transaction on the common ForkJoinPool,
+ *     the way transactions used to be watched</li>
+ *     <li>{@code thread-per-tx}: the same loops, each on its own platform thread</li>
+ *     <li>{@code sweep}: {@link TransactionMonitor}, one non-blocking sweep per head</li>
+ * </ul>
+ * <p>
+ * Each mode runs in a fresh JVM so peak thread counts do not carry over:
+ * </p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.wallet.web3_wallet_backend.blockchain.transaction.TransactionMonitorBenchmark \
+ *     -Dexec.args="mode=sweep transactions=10000 latencyMs=20"
+ * </pre>
+ */
+public class TransactionMonitorBenchmark {
+
+    private static final int REQUIRED_CONFIRMATIONS = 2;
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String mode = options.getOrDefault("mode", "sweep");
+        int transactions = Integer.parseInt(options.getOrDefault("transactions", "1000"));
+        long latencyMs = Long.parseLong(options.getOrDefault("latencyMs", "20"));
+
+        SimulatedProvider provider = new SimulatedProvider(latencyMs);
+        BatchingWeb3jService transport = new BatchingWeb3jService(provider, Duration.ofMillis(5), 50);
+        Web3j web3j = Web3j.build(transport);
+        ChainHeadTracker tracker = new ChainHeadTracker(provider, Duration.ofMillis(100));
+        CountDownLatch confirmed = new CountDownLatch(transactions);
+
+        Watcher watcher = switch (mode) {
+            case "sweep" -> new SweepWatcher(new TransactionMonitor(web3j, tracker));
+            case "common-pool" -> new LoopWatcher(web3j, tracker, ForkJoinPool.commonPool());
+            case "thread-per-tx" -> new LoopWatcher(web3j, tracker, Executors.newCachedThreadPool());
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+
+        for (int i = 0; i < transactions; i++) {
+            watcher.watch(String.format("0x%064x", i), confirmed);
+        }
+        // Let every watcher see the transaction mined but unconfirmed
+        Thread.sleep(Math.max(1_000, transactions * latencyMs / 50));
+        long callsBefore = provider.calls.get();
+
+        long start = System.nanoTime();
+        provider.head.set(REQUIRED_CONFIRMATIONS);
+        boolean finished = confirmed.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.out.printf("mode=%s transactions=%d latencyMs=%d%n", mode, transactions, latencyMs);
+        System.out.printf("  confirmed:    %d/%d%s%n", transactions - confirmed.getCount(), transactions,
+                finished ? "" : " (timed out after " + TIMEOUT.toSeconds() + " s)");
+        System.out.printf("  time:         %d ms after the confirming head%n", elapsedMs);
+        System.out.printf("  peak threads: %d%n", threads.getPeakThreadCount());
+        System.out.printf("  rpc calls:    %d while waiting, %d after the head%n",
+                callsBefore, provider.calls.get() - callsBefore);
+        System.exit(0);
+    }
+
+    private interface Watcher {
+        void watch(String transactionHash, CountDownLatch confirmed);
+    }
+
+    private record SweepWatcher(TransactionMonitor monitor) implements Watcher {
+        @Override
+        public void watch(String transactionHash, CountDownLatch confirmed) {
+            monitor.monitorTransaction(transactionHash, REQUIRED_CONFIRMATIONS,
+                    (receipt, confirmations) -> confirmed.countDown());
+        }
+    }
+
+    /**
+     * One blocking loop per transaction that checks the receipt and the head, then waits
+     * for the next head.
+     */
+    private static final class LoopWatcher implements Watcher {
+
+        private final Web3j web3j;
+        private final ExecutorService executor;
+        private final Object newHeadSignal = new Object();
+
+        private LoopWatcher(Web3j web3j, ChainHeadTracker tracker, ExecutorService executor) {
+            this.web3j = web3j;
+            this.executor = executor;
+            tracker.addListener(head -> {
+                synchronized (newHeadSignal) {
+                    newHeadSignal.notifyAll();
+                }
+            });
+        }
+
+        @Override
+        public void watch(String transactionHash, CountDownLatch confirmed) {
+            CompletableFuture.runAsync(() -> {
+                while (true) {
+                    try {
+                        Optional<TransactionReceipt> receipt =
+                                web3j.ethGetTransactionReceipt(transactionHash).send().getTransactionReceipt();
+                        BigInteger head = web3j.ethBlockNumber().send().getBlockNumber();
+                        if (receipt.isPresent() && head.subtract(receipt.get().getBlockNumber()).intValue() + 1
+                                >= REQUIRED_CONFIRMATIONS) {
+                            confirmed.countDown();
+                            return;
+                        }
+                        synchronized (newHeadSignal) {
+                            newHeadSignal.wait(3_000);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (IOException e) {
+                        // Retried on the next iteration
+                    }
+                }
+            }, executor);
+        }
+    }
+
+    /**
+     * Provider whose head is set by the benchmark and which has mined every transaction in
+     * block 1. Each exchange, single or batched, takes the configured latency.
+     */
+    private static final class SimulatedProvider extends Service {
+
+        private final long latencyMs;
+        private final AtomicLong head = new AtomicLong(1);
+        private final AtomicLong calls = new AtomicLong();
+
+        private SimulatedProvider(long latencyMs) {
+            super(false);
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        protected InputStream performIO(String payload) throws IOException {
+            JsonNode request = objectMapper.readTree(payload);
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            JsonNode response;
+            if (request.isArray()) {
+                ArrayNode responses = objectMapper.createArrayNode();
+                request.forEach(member -> responses.add(answer(member)));
+                response = responses;
+            } else {
+                response = answer(request);
+            }
+            return new ByteArrayInputStream(response.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private ObjectNode answer(JsonNode request) {
+            calls.incrementAndGet();
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("jsonrpc", "2.0");
+            response.set("id", request.get("id"));
+            if ("eth_getTransactionReceipt".equals(request.get("method").asText())) {
+                ObjectNode receipt = response.putObject("result");
+                receipt.put("transactionHash", request.get("params").get(0).asText());
+                receipt.put("blockNumber", "0x1");
+                receipt.put("status", "0x1");
+                receipt.putArray("logs");
+            } else {
+                response.put("result", "0x" + Long.toHexString(head.get()));
+            }
+            return response;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
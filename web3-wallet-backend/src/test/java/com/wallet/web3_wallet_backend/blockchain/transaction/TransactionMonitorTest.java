@@ -0,0 +1,106 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import com.wallet.web3_wallet_backend.blockchain.client.ChainHeadTracker;
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.protocol.http.HttpService;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TransactionMonitor verifying that watched transactions are reported once
+ * they reach their confirmations, without a thread per transaction.
+ */
+class TransactionMonitorTest {
+
+    private static final Credentials SENDER =
+        Credentials.create("0x4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318");
+    private static final String RECIPIENT = "0x00000000000000000000000000000000000000b0";
+
+    private StandInEthereumNode node;
+    private Web3j web3j;
+    private ChainHeadTracker tracker;
+    private TransactionMonitor monitor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = StandInEthereumNode.builder().build().start();
+        node.fund(SENDER.getAddress(), BigInteger.TEN.pow(18));
+        web3j = Web3j.build(new HttpService(node.getUrl()));
+        tracker = new ChainHeadTracker(new HttpService(node.getUrl()), Duration.ofMillis(50));
+        monitor = new TransactionMonitor(web3j, tracker);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+        tracker.close();
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testWaitCompletesAfterRequiredConfirmations() throws Exception {
+        String hash = broadcast(BigInteger.ZERO);
+        CompletableFuture<TransactionReceipt> receipt = monitor.waitForTransaction(hash, 2);
+
+        node.mineBlock();
+        Thread.sleep(300);
+        assertFalse(receipt.isDone());
+
+        node.mineBlock();
+        assertTrue(receipt.get(5, TimeUnit.SECONDS).isStatusOK());
+        assertFalse(monitor.isMonitoring(hash));
+    }
+
+    @Test
+    void testManyTransactionsAreWatchedWithoutNewThreads() throws Exception {
+        int transactions = 50;
+        CountDownLatch confirmed = new CountDownLatch(transactions);
+        List<Integer> confirmations = new ArrayList<>();
+        long threadsBefore = monitorThreads();
+        for (int i = 0; i < transactions; i++) {
+            monitor.monitorTransaction(broadcast(BigInteger.valueOf(i)), 1, (receipt, count) -> {
+                synchronized (confirmations) {
+                    confirmations.add(count);
+                }
+                confirmed.countDown();
+            });
+        }
+        assertEquals(transactions, monitor.getActiveMonitorCount());
+        assertEquals(threadsBefore, monitorThreads());
+
+        node.mineBlock();
+
+        assertTrue(confirmed.await(5, TimeUnit.SECONDS));
+        assertTrue(confirmations.stream().allMatch(count -> count == 1));
+        assertEquals(0, monitor.getActiveMonitorCount());
+    }
+
+    private static long monitorThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().startsWith("transaction-monitor"))
+            .count();
+    }
+
+    private String broadcast(BigInteger nonce) throws Exception {
+        TransactionBuilder builder = new TransactionBuilder(node.getChainId());
+        RawTransaction raw = builder.buildEIP1559Transaction(nonce, RECIPIENT, BigInteger.ONE,
+            BigInteger.valueOf(21_000), BigInteger.valueOf(1_000_000_000L), BigInteger.valueOf(3_000_000_000L), "");
+        return web3j.ethSendRawTransaction(builder.signTransaction(raw, SENDER)).send().getTransactionHash();
+    }
+}
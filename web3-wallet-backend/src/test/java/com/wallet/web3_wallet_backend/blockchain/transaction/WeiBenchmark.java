@@ -0,0 +1,137 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import org.web3j.utils.Convert;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offline benchmark comparing the amount math of one transfer and one gas estimate done
+ * with BigDecimal and BigInteger, the way it used to be, against {@link Wei}.
+ * <p>
+ * One operation converts a value in ether and three fees in gwei to wei, scales a token
+ * amount by its decimals, derives the legacy and EIP-1559 speed tiers, prices three
+ * transaction costs in ether and formats six fees in gwei. The benchmark reports the bytes
+ * allocated and the time taken per operation on the measuring thread after a warm-up.
+ * </p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.wallet.web3_wallet_backend.blockchain.transaction.WeiBenchmark \
+ *     -Dexec.args="mode=wei operations=1000000"
+ * </pre>
+ */
+public class WeiBenchmark {
+
+    private static final BigDecimal VALUE_ETHER = new BigDecimal("0.25");
+    private static final BigDecimal TOKEN_AMOUNT = new BigDecimal("1.5");
+    private static final BigDecimal FEE_GWEI = new BigDecimal("31.5");
+    private static final BigInteger GAS_PRICE = BigInteger.valueOf(27_400_000_000L);
+    private static final BigInteger BASE_FEE = BigInteger.valueOf(24_100_000_000L);
+    private static final BigInteger PRIORITY_FEE = BigInteger.valueOf(1_500_000_000L);
+    private static final BigInteger GAS_LIMIT = BigInteger.valueOf(52_000);
+    private static final BigDecimal GWEI_TO_WEI = new BigDecimal("1000000000");
+
+    /** Keeps results reachable so the work is not optimized away */
+    private static long sink;
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String mode = options.getOrDefault("mode", "wei");
+        int operations = Integer.parseInt(options.getOrDefault("operations", "1000000"));
+        Runnable operation = switch (mode) {
+            case "wei" -> WeiBenchmark::weiOperation;
+            case "bigdecimal" -> WeiBenchmark::bigDecimalOperation;
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < operations; i++) {
+            operation.run();
+        }
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            operation.run();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+        System.out.printf("mode=%s operations=%d%n", mode, operations);
+        System.out.printf("  allocated: %d bytes/op%n", bytes / operations);
+        System.out.printf("  time:      %d ns/op%n", elapsedNanos / operations);
+        System.out.printf("  (checksum %d)%n", sink);
+    }
+
+    private static void bigDecimalOperation() {
+        BigInteger value = Convert.toWei(VALUE_ETHER, Convert.Unit.ETHER).toBigInteger();
+        BigInteger maxFee = Convert.toWei(FEE_GWEI, Convert.Unit.GWEI).toBigInteger();
+        BigInteger maxPriorityFee = Convert.toWei(FEE_GWEI, Convert.Unit.GWEI).toBigInteger();
+        BigInteger gasPrice = Convert.toWei(FEE_GWEI, Convert.Unit.GWEI).toBigInteger();
+        BigInteger tokens = TOKEN_AMOUNT.multiply(BigDecimal.TEN.pow(6)).toBigInteger();
+
+        BigInteger legacySlow = GAS_PRICE.multiply(BigInteger.valueOf(90)).divide(BigInteger.valueOf(100));
+        BigInteger legacyFast = GAS_PRICE.multiply(BigInteger.valueOf(120)).divide(BigInteger.valueOf(100));
+        BigInteger slowPriority = PRIORITY_FEE.multiply(BigInteger.valueOf(80)).divide(BigInteger.valueOf(100));
+        BigInteger fastPriority = PRIORITY_FEE.multiply(BigInteger.valueOf(150)).divide(BigInteger.valueOf(100));
+        BigInteger slowMaxFee = BASE_FEE.multiply(BigInteger.valueOf(2)).add(slowPriority);
+        BigInteger mediumMaxFee = BASE_FEE.multiply(BigInteger.valueOf(2)).add(PRIORITY_FEE);
+        BigInteger fastMaxFee = BASE_FEE.multiply(BigInteger.valueOf(3)).add(fastPriority);
+
+        BigDecimal slowCost = Convert.fromWei(new BigDecimal(GAS_LIMIT.multiply(slowMaxFee)), Convert.Unit.ETHER);
+        BigDecimal mediumCost = Convert.fromWei(new BigDecimal(GAS_LIMIT.multiply(mediumMaxFee)), Convert.Unit.ETHER);
+        BigDecimal fastCost = Convert.fromWei(new BigDecimal(GAS_LIMIT.multiply(fastMaxFee)), Convert.Unit.ETHER);
+
+        consume(value, maxFee, maxPriorityFee, gasPrice, tokens, legacySlow, legacyFast);
+        consume(slowCost, mediumCost, fastCost,
+            new BigDecimal(slowMaxFee).divide(GWEI_TO_WEI, 2, RoundingMode.HALF_UP),
+            new BigDecimal(mediumMaxFee).divide(GWEI_TO_WEI, 2, RoundingMode.HALF_UP),
+            new BigDecimal(fastMaxFee).divide(GWEI_TO_WEI, 2, RoundingMode.HALF_UP),
+            new BigDecimal(slowPriority).divide(GWEI_TO_WEI, 2, RoundingMode.HALF_UP),
+            new BigDecimal(PRIORITY_FEE).divide(GWEI_TO_WEI, 2, RoundingMode.HALF_UP),
+            new BigDecimal(fastPriority).divide(GWEI_TO_WEI, 2, RoundingMode.HALF_UP));
+    }
+
+    private static void weiOperation() {
+        BigInteger value = Wei.fromEther(VALUE_ETHER).toBigInteger();
+        BigInteger maxFee = Wei.fromGwei(FEE_GWEI).toBigInteger();
+        BigInteger maxPriorityFee = Wei.fromGwei(FEE_GWEI).toBigInteger();
+        BigInteger gasPrice = Wei.fromGwei(FEE_GWEI).toBigInteger();
+        BigInteger tokens = Wei.fromDecimal(TOKEN_AMOUNT, 6).toBigInteger();
+
+        Wei legacy = Wei.of(GAS_PRICE);
+        BigInteger legacySlow = legacy.percent(90).toBigInteger();
+        BigInteger legacyFast = legacy.percent(120).toBigInteger();
+        Wei median = Wei.of(PRIORITY_FEE);
+        BigInteger slowPriority = median.percent(80).toBigInteger();
+        BigInteger fastPriority = median.percent(150).toBigInteger();
+        Wei base = Wei.of(BASE_FEE);
+        Wei doubleBase = base.times(2);
+        BigInteger slowMaxFee = doubleBase.plus(Wei.of(slowPriority)).toBigInteger();
+        BigInteger mediumMaxFee = doubleBase.plus(Wei.of(PRIORITY_FEE)).toBigInteger();
+        BigInteger fastMaxFee = base.times(3).plus(Wei.of(fastPriority)).toBigInteger();
+
+        BigDecimal slowCost = Wei.of(slowMaxFee).times(GAS_LIMIT).toEther();
+        BigDecimal mediumCost = Wei.of(mediumMaxFee).times(GAS_LIMIT).toEther();
+        BigDecimal fastCost = Wei.of(fastMaxFee).times(GAS_LIMIT).toEther();
+
+        consume(value, maxFee, maxPriorityFee, gasPrice, tokens, legacySlow, legacyFast);
+        consume(slowCost, mediumCost, fastCost,
+            Wei.of(slowMaxFee).toGwei(), Wei.of(mediumMaxFee).toGwei(), Wei.of(fastMaxFee).toGwei(),
+            Wei.of(slowPriority).toGwei(), Wei.of(PRIORITY_FEE).toGwei(), Wei.of(fastPriority).toGwei());
+    }
+
+    private static void consume(Object... results) {
+        for (Object result : results) {
+            sink += result.hashCode();
+        }
+    }
+}
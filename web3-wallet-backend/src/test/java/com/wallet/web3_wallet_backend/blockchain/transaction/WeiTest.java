@@ -0,0 +1,79 @@
+package com.wallet.web3_wallet_backend.blockchain.transaction;
+
+import org.junit.jupiter.api.Test;
+import org.web3j.utils.Convert;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Wei verifying that conversions give the same values as web3j's Convert
+ * and that arithmetic gives the same results as BigInteger on both sides of the long range.
+ */
+class WeiTest {
+
+    private static final List<String> DECIMALS = List.of(
+        "0", "1", "1.5", "0.000000001", "0.0000000000000000001", "123456789.123456789123", "9.223372036854775807",
+        "9.223372036854775808", "18446744073.709551616", "1000000000000", "1E+3", "-2.5");
+
+    private static final List<BigInteger> AMOUNTS = List.of(
+        BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(-1), BigInteger.valueOf(21_000),
+        BigInteger.valueOf(30_000_000_000L), BigInteger.valueOf(Long.MAX_VALUE / 100),
+        BigInteger.valueOf(Long.MAX_VALUE), BigInteger.valueOf(Long.MIN_VALUE),
+        BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), BigInteger.TWO.pow(100).negate());
+
+    @Test
+    void testConversionsMatchConvert() {
+        for (String text : DECIMALS) {
+            BigDecimal amount = new BigDecimal(text);
+            assertEquals(Convert.toWei(amount, Convert.Unit.ETHER).toBigInteger(),
+                Wei.fromEther(amount).toBigInteger(), text);
+            assertEquals(Convert.toWei(amount, Convert.Unit.GWEI).toBigInteger(),
+                Wei.fromGwei(amount).toBigInteger(), text);
+            assertEquals(amount.multiply(BigDecimal.TEN.pow(6)).toBigInteger(),
+                Wei.fromDecimal(amount, 6).toBigInteger(), text);
+        }
+        for (BigInteger wei : AMOUNTS) {
+            assertEquals(Convert.fromWei(new BigDecimal(wei), Convert.Unit.ETHER), Wei.of(wei).toEther(),
+                wei.toString());
+            assertEquals(new BigDecimal(wei).divide(BigDecimal.TEN.pow(9), 2, RoundingMode.HALF_UP),
+                Wei.of(wei).toGwei(), wei.toString());
+        }
+    }
+
+    @Test
+    void testArithmeticMatchesBigInteger() {
+        for (BigInteger a : AMOUNTS) {
+            Wei wei = Wei.of(a);
+            assertEquals(a, wei.toBigInteger());
+            for (long factor : new long[] {0, 1, 2, 3, 90, 150, -7, Long.MAX_VALUE}) {
+                String label = a + " x " + factor;
+                assertEquals(a.multiply(BigInteger.valueOf(factor)), wei.times(factor).toBigInteger(), label);
+                assertEquals(a.multiply(BigInteger.valueOf(factor)).divide(BigInteger.valueOf(100)),
+                    wei.percent(factor).toBigInteger(), label);
+            }
+            for (BigInteger b : AMOUNTS) {
+                assertEquals(a.add(b), wei.plus(Wei.of(b)).toBigInteger(), a + " + " + b);
+                assertEquals(a.multiply(b), wei.times(b).toBigInteger(), a + " x " + b);
+                assertEquals(a.compareTo(b), wei.compareTo(Wei.of(b)), a + " <> " + b);
+            }
+        }
+    }
+
+    @Test
+    void testEqualityDoesNotDependOnHowAmountWasBuilt() {
+        Wei big = Wei.of(BigInteger.valueOf(Long.MAX_VALUE)).plus(Wei.of(1));
+        Wei back = big.plus(Wei.of(-1));
+
+        assertEquals(Wei.of(Long.MAX_VALUE), back);
+        assertEquals(Wei.of(Long.MAX_VALUE).hashCode(), back.hashCode());
+        assertEquals(Wei.of(new BigInteger("9223372036854775808")), big);
+        assertEquals(Wei.ZERO, Wei.fromEther(BigDecimal.ZERO));
+        assertEquals("9223372036854775808", big.toString());
+        assertEquals(1, big.signum());
+    }
+}
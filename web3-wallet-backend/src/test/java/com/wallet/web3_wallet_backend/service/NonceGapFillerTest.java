@@ -0,0 +1,226 @@
+package com.wallet.web3_wallet_backend.service;
+
+import com.wallet.web3_wallet_backend.blockchain.client.StreamingWeb3j;
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import com.wallet.web3_wallet_backend.blockchain.transaction.GasManager;
+import com.wallet.web3_wallet_backend.blockchain.transaction.TransactionBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.http.HttpService;
+
+import java.math.BigInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NonceGapFiller verifying that a gap left by a rejected broadcast is
+ * filled with a self-transfer once due, which lets the transactions behind it through,
+ * that the self-transfer is priced from current fees rather than the rejected ones, that
+ * one the sender cannot pay for is not sent, that a gap a later send takes first is left
+ * alone, and that a reservation never broadcast is released for the next send.
+ */
+class NonceGapFillerTest {
+
+    private static final Credentials SIGNER =
+            Credentials.create("0x4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318");
+    private static final String RECIPIENT = "0x00000000000000000000000000000000000000b0";
+    private static final BigInteger GAS_PRICE = BigInteger.valueOf(100_000_000_000L);
+
+    private StandInEthereumNode node;
+    private StreamingWeb3j web3j;
+    private GasManager gasManager;
+    private TransactionBuilder transactionBuilder;
+    private NonceManager nonceManager;
+    private String address;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = StandInEthereumNode.builder().build().start();
+        web3j = StreamingWeb3j.build(new HttpService(node.getUrl()));
+        gasManager = new GasManager(web3j);
+        transactionBuilder = new TransactionBuilder(node.getChainId());
+        // Reconciled only when the test asks for it
+        nonceManager = new NonceManager(web3j, true, 3_600_000);
+        address = SIGNER.getAddress();
+        node.fund(address, BigInteger.TEN.pow(18));
+    }
+
+    @AfterEach
+    void tearDown() {
+        nonceManager.close();
+        gasManager.close();
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testGapIsFilledWithSelfTransfer() throws Exception {
+        NonceGapFiller gapFiller = gapFiller(0);
+        try {
+            leaveGapAtOne(gapFiller);
+            assertEquals(BigInteger.ONE, pendingCount());
+
+            gapFiller.detect().join();
+            awaitTrue(() -> gapFiller.getFilledCount() == 1);
+
+            assertEquals(BigInteger.valueOf(3), pendingCount());
+            node.mineBlock();
+            assertEquals(BigInteger.valueOf(3),
+                    web3j.ethGetTransactionCount(address, DefaultBlockParameterName.LATEST).send().getTransactionCount());
+        } finally {
+            gapFiller.close();
+        }
+    }
+
+    @Test
+    void testSelfTransferIsPricedFromCurrentFees() throws Exception {
+        NonceGapFiller gapFiller = gapFiller(0);
+        try {
+            for (int i = 0; i < 3; i++) {
+                nonceManager.getNextNonce(address);
+            }
+            broadcastAccepted(0);
+            // Priced below the base fee, which a self-transfer at the same fees would be too
+            reject(transactionBuilder.buildLegacyTransaction(BigInteger.ONE, RECIPIENT, BigInteger.ONE,
+                    BigInteger.valueOf(21_000), BigInteger.ONE, ""), gapFiller);
+            broadcastAccepted(2);
+
+            gapFiller.detect().join();
+            awaitTrue(() -> gapFiller.getFilledCount() == 1);
+
+            assertEquals(BigInteger.valueOf(3), pendingCount());
+        } finally {
+            gapFiller.close();
+        }
+    }
+
+    @Test
+    void testSelfTransferSenderCannotPayForIsNotSent() throws Exception {
+        NonceGapFiller gapFiller = gapFiller(0);
+        try {
+            for (int i = 0; i < 3; i++) {
+                nonceManager.getNextNonce(address);
+            }
+            // Nonce 0 spends the whole balance once mined
+            BigInteger fee = BigInteger.valueOf(21_000).multiply(GAS_PRICE);
+            assertFalse(broadcast(transfer(0, BigInteger.TEN.pow(18).subtract(fee))).hasError());
+            nonceManager.markBroadcast(address, BigInteger.ZERO);
+            reject(transfer(1, BigInteger.TEN.pow(19)), gapFiller);
+            broadcastAccepted(2);
+            node.mineBlock();
+
+            gapFiller.detect().join();
+            awaitTrue(() -> nonceManager.isReleased(address, BigInteger.ONE));
+
+            assertEquals(0, gapFiller.getFilledCount());
+            assertEquals(BigInteger.ONE, pendingCount());
+            assertEquals(BigInteger.ONE, nonceManager.getNextNonce(address));
+        } finally {
+            gapFiller.close();
+        }
+    }
+
+    @Test
+    void testNextSendTakesGapBeforeItIsFilled() throws Exception {
+        NonceGapFiller gapFiller = gapFiller(3_600_000);
+        try {
+            leaveGapAtOne(gapFiller);
+
+            assertEquals(BigInteger.ONE, nonceManager.getNextNonce(address));
+            assertEquals(BigInteger.valueOf(3), nonceManager.getNextNonce(address));
+            gapFiller.detect().join();
+
+            assertEquals(0, gapFiller.getFilledCount());
+            assertEquals(1, gapFiller.getReassignedCount());
+        } finally {
+            gapFiller.close();
+        }
+    }
+
+    @Test
+    void testReservationNeverBroadcastIsReleased() throws Exception {
+        NonceGapFiller gapFiller = gapFiller(0);
+        try {
+            for (int i = 0; i < 3; i++) {
+                nonceManager.getNextNonce(address);
+            }
+            // The send that took nonce 1 failed before it reached the node
+            broadcastAccepted(0);
+            broadcastAccepted(2);
+
+            gapFiller.detect().join();
+
+            assertTrue(nonceManager.isReleased(address, BigInteger.ONE));
+            assertEquals(BigInteger.ONE, nonceManager.getNextNonce(address));
+            assertEquals(BigInteger.valueOf(3), nonceManager.getNextNonce(address));
+            assertEquals(0, gapFiller.getFilledCount());
+        } finally {
+            gapFiller.close();
+        }
+    }
+
+    /**
+     * Takes nonces 0 to 2 and broadcasts 0 and 2, while 1 is rejected for lack of funds.
+     */
+    private void leaveGapAtOne(NonceGapFiller gapFiller) throws Exception {
+        for (int i = 0; i < 3; i++) {
+            nonceManager.getNextNonce(address);
+        }
+        broadcastAccepted(0);
+        reject(transfer(1, BigInteger.TEN.pow(19)), gapFiller);
+        broadcastAccepted(2);
+    }
+
+    /**
+     * Broadcasts a transaction the node rejects and hands it to the gap filler, as the
+     * services do.
+     */
+    private void reject(RawTransaction rejected, NonceGapFiller gapFiller) throws Exception {
+        EthSendTransaction response = broadcast(rejected);
+        assertTrue(response.hasError());
+        nonceManager.broadcastFailed(address, rejected.getNonce(), response.getError().getMessage());
+        gapFiller.prepare(address, rejected, SIGNER, response.getError().getMessage());
+    }
+
+    /**
+     * Broadcasts a transfer with the nonce and records it, as the services do.
+     */
+    private void broadcastAccepted(long nonce) throws Exception {
+        assertFalse(broadcast(transfer(nonce, BigInteger.ONE)).hasError());
+        nonceManager.markBroadcast(address, BigInteger.valueOf(nonce));
+    }
+
+    private NonceGapFiller gapFiller(long fillAfterMs) {
+        // Checked only when the test asks for it
+        return new NonceGapFiller(nonceManager, web3j, gasManager, transactionBuilder, true, 3_600_000, fillAfterMs);
+    }
+
+    private RawTransaction transfer(long nonce, BigInteger value) {
+        return transactionBuilder.buildLegacyTransaction(BigInteger.valueOf(nonce), RECIPIENT, value,
+                BigInteger.valueOf(21_000), GAS_PRICE, "");
+    }
+
+    private EthSendTransaction broadcast(RawTransaction transaction) throws Exception {
+        return web3j.ethSendRawTransaction(transactionBuilder.signTransaction(transaction, SIGNER)).send();
+    }
+
+    private BigInteger pendingCount() throws Exception {
+        return web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING).send().getTransactionCount();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
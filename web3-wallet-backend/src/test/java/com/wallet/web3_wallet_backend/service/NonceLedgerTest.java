@@ -0,0 +1,193 @@
+package com.wallet.web3_wallet_backend.service;
+
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import com.wallet.web3_wallet_backend.model.NonceLedgerEntry;
+import com.wallet.web3_wallet_backend.repository.NonceLedgerRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NonceLedger verifying that batched writes keep the latest state of each
+ * nonce, that confirmed nonces and the node's pending count prune the ledger and that
+ * NonceManager trackers rebuilt from it carry on where they left off, handing out again
+ * reservations and released nonces that never reached the node.
+ */
+class NonceLedgerTest {
+
+    private static final String SENDER = "0x00000000000000000000000000000000000000a0";
+
+    private NonceLedgerRepository repository;
+    private NonceLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        repository = new NonceLedgerRepository(new JdbcTemplate(dataSource));
+        // Flushed only when the test asks for it
+        ledger = new NonceLedger(repository, true, 3_600_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledger.close();
+    }
+
+    @Test
+    void testFlushKeepsLatestStatePerNonce() {
+        ledger.record(SENDER, BigInteger.ZERO, NonceLedgerEntry.Status.RESERVED);
+        ledger.record(SENDER, BigInteger.ONE, NonceLedgerEntry.Status.RESERVED);
+        ledger.record(SENDER, BigInteger.TWO, NonceLedgerEntry.Status.RESERVED);
+        ledger.record(SENDER, BigInteger.ZERO, NonceLedgerEntry.Status.BROADCAST);
+        ledger.flush();
+        ledger.record(SENDER, BigInteger.ONE, NonceLedgerEntry.Status.RELEASED);
+        ledger.flush();
+
+        assertEquals(List.of(NonceLedgerEntry.Status.BROADCAST, NonceLedgerEntry.Status.RELEASED,
+                NonceLedgerEntry.Status.RESERVED), statuses(repository.findAll()));
+        assertEquals(4, ledger.getWrittenCount());
+    }
+
+    @Test
+    void testConfirmedNonceDropsEntriesBelowIt() {
+        for (int nonce = 0; nonce < 5; nonce++) {
+            ledger.record(SENDER, BigInteger.valueOf(nonce), NonceLedgerEntry.Status.BROADCAST);
+        }
+        ledger.flush();
+        ledger.record(SENDER, BigInteger.valueOf(3), NonceLedgerEntry.Status.CONFIRMED);
+        ledger.flush();
+
+        List<NonceLedgerEntry> entries = repository.findAll();
+        assertEquals(List.of(3L, 4L), nonces(entries));
+        assertEquals(List.of(NonceLedgerEntry.Status.CONFIRMED, NonceLedgerEntry.Status.BROADCAST),
+                statuses(entries));
+    }
+
+    @Test
+    void testConfirmedNonceKeepsUnsettledEntriesBelowIt() {
+        ledger.record(SENDER, BigInteger.ZERO, NonceLedgerEntry.Status.BROADCAST);
+        ledger.record(SENDER, BigInteger.ONE, NonceLedgerEntry.Status.RELEASED);
+        ledger.record(SENDER, BigInteger.TWO, NonceLedgerEntry.Status.RESERVED);
+        ledger.record(SENDER, BigInteger.valueOf(3), NonceLedgerEntry.Status.CONFIRMED);
+        ledger.flush();
+
+        assertEquals(List.of(1L, 2L, 3L), nonces(repository.findAll()));
+
+        // The node holding nonces 0 to 2 settles them all
+        ledger.recordUsedBelow(SENDER, BigInteger.valueOf(3));
+        ledger.flush();
+
+        assertEquals(List.of(2L, 3L), nonces(repository.findAll()));
+        assertEquals(List.of(NonceLedgerEntry.Status.CONFIRMED, NonceLedgerEntry.Status.CONFIRMED),
+                statuses(repository.findAll()));
+    }
+
+    @Test
+    void testLoadIncludesChangesNotWrittenYet() {
+        ledger.record(SENDER, BigInteger.ZERO, NonceLedgerEntry.Status.RESERVED);
+        ledger.flush();
+        ledger.record(SENDER, BigInteger.ZERO, NonceLedgerEntry.Status.BROADCAST);
+        ledger.record(SENDER, BigInteger.ONE, NonceLedgerEntry.Status.RESERVED);
+
+        assertEquals(List.of(NonceLedgerEntry.Status.BROADCAST, NonceLedgerEntry.Status.RESERVED),
+                statuses(ledger.load().get(SENDER)));
+    }
+
+    @Test
+    void testTrackersAreRebuiltWithoutAskingTheNode() throws Exception {
+        try (StandInEthereumNode node = StandInEthereumNode.builder().build().start()) {
+            Web3j web3j = Web3j.build(new HttpService(node.getUrl()));
+            NonceManager before = new NonceManager(web3j, ledger, true, 3_600_000);
+            for (int i = 0; i < 3; i++) {
+                before.getNextNonce(SENDER);
+            }
+            before.markBroadcast(SENDER, BigInteger.ZERO);
+            before.close();
+            // Written on shutdown
+            ledger.close();
+
+            NonceLedger restarted = new NonceLedger(repository, true, 3_600_000, 500);
+            NonceManager after = new NonceManager(web3j, restarted, true, 3_600_000);
+            try {
+                // Restored reservations are checked against the node right away
+                awaitTrue(() -> after.getReconciliationCount() == 1);
+
+                // Nonces 1 and 2 never reached the node, so they are handed out again
+                assertEquals(BigInteger.ONE, after.getNextNonce(SENDER));
+                assertEquals(BigInteger.TWO, after.getNextNonceAsync(SENDER).get());
+                assertEquals(BigInteger.valueOf(3), after.getNextNonce(SENDER));
+                assertEquals(0, after.getNetworkAllocationCount());
+            } finally {
+                after.close();
+                restarted.close();
+                web3j.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testReleasedGapIsFilledAfterRestart() throws Exception {
+        try (StandInEthereumNode node = StandInEthereumNode.builder().build().start()) {
+            Web3j web3j = Web3j.build(new HttpService(node.getUrl()));
+            NonceManager before = new NonceManager(web3j, ledger, true, 3_600_000);
+            for (int i = 0; i < 4; i++) {
+                before.getNextNonce(SENDER);
+            }
+            before.markBroadcast(SENDER, BigInteger.ZERO);
+            // Nonce 1 failed before it was sent, leaving a gap below the later broadcasts
+            before.releaseNonce(SENDER, BigInteger.ONE);
+            before.markBroadcast(SENDER, BigInteger.TWO);
+            before.markBroadcast(SENDER, BigInteger.valueOf(3));
+            before.confirmTransaction(SENDER, BigInteger.valueOf(3));
+            before.close();
+            ledger.close();
+
+            NonceLedger restarted = new NonceLedger(repository, true, 3_600_000, 500);
+            NonceManager after = new NonceManager(web3j, restarted, true, 3_600_000);
+            try {
+                awaitTrue(() -> after.getReconciliationCount() == 1);
+
+                // The node holds none of them, so the released nonce fills the gap first
+                assertEquals(BigInteger.ONE, after.getNextNonce(SENDER));
+                assertEquals(BigInteger.valueOf(4), after.getNextNonce(SENDER));
+                assertEquals(0, after.getNetworkAllocationCount());
+            } finally {
+                after.close();
+                restarted.close();
+                web3j.shutdown();
+            }
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<Long> nonces(List<NonceLedgerEntry> entries) {
+        return entries.stream().map(NonceLedgerEntry::nonce).toList();
+    }
+
+    private static List<NonceLedgerEntry.Status> statuses(List<NonceLedgerEntry> entries) {
+        return entries.stream().map(NonceLedgerEntry::status).toList();
+    }
+}
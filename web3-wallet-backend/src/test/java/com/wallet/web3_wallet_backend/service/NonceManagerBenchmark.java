@@ -0,0 +1,126 @@
+package com.wallet.web3_wallet_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.Web3j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Offline benchmark measuring nonce allocation throughput as the number of distinct
+ * senders grows.
+ * <p>
+ * A fixed pool of threads allocates nonces round-robin over the given number of sender
+ * addresses. Every allocation fetches the pending transaction count from a provider that
+ * answers after a fixed latency.
+ * </p>
+ * <ul>
+ *     <li>{@code global}: every allocation, network fetch included, holds one lock shared
+ *     by all senders, the way {@link NonceManager} used to be synchronized</li>
+ *     <li>{@code striped}: {@link NonceManager} as it is, locking only the sender's tracker</li>
+ * </ul>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.wallet.web3_wallet_backend.service.NonceManagerBenchmark \
+ *     -Dexec.args="mode=striped senders=16 threads=32 allocations=2000 latencyMs=5"
+ * </pre>
+ */
+public class NonceManagerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String mode = options.getOrDefault("mode", "striped");
+        int senders = Integer.parseInt(options.getOrDefault("senders", "16"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "32"));
+        int allocations = Integer.parseInt(options.getOrDefault("allocations", "2000"));
+        long latencyMs = Long.parseLong(options.getOrDefault("latencyMs", "5"));
+
+        NonceManager nonceManager = new NonceManager(Web3j.build(new SimulatedProvider(latencyMs)));
+        Object globalLock = new Object();
+        Allocator allocator = switch (mode) {
+            case "striped" -> nonceManager::getNextNonce;
+            case "global" -> address -> {
+                synchronized (globalLock) {
+                    return nonceManager.getNextNonce(address);
+                }
+            };
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(allocations);
+        long start = System.nanoTime();
+        for (int i = 0; i < allocations; i++) {
+            String address = String.format("0x%040x", i % senders + 1);
+            executor.execute(() -> {
+                try {
+                    allocator.allocate(address);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        executor.shutdown();
+
+        System.out.printf("mode=%s senders=%d threads=%d allocations=%d latencyMs=%d%n",
+                mode, senders, threads, allocations, latencyMs);
+        System.out.printf("  time:       %d ms%n", elapsedMs);
+        System.out.printf("  throughput: %d allocations/s%n", allocations * 1000L / elapsedMs);
+    }
+
+    private interface Allocator {
+        BigInteger allocate(String address) throws IOException;
+    }
+
+    /**
+     * Provider that reports no pending transactions for any address after the configured
+     * latency.
+     */
+    private static final class SimulatedProvider extends Service {
+
+        private final long latencyMs;
+
+        private SimulatedProvider(long latencyMs) {
+            super(false);
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        protected InputStream performIO(String payload) throws IOException {
+            JsonNode request = objectMapper.readTree(payload);
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("jsonrpc", "2.0");
+            response.set("id", request.get("id"));
+            response.put("result", "0x0");
+            return new ByteArrayInputStream(response.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
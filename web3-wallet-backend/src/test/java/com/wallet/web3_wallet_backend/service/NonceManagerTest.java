@@ -0,0 +1,575 @@
+package com.wallet.web3_wallet_backend.service;
+
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import com.wallet.web3_wallet_backend.blockchain.transaction.TransactionBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NonceManager verifying that concurrent allocations for one address never
+ * hand out the same nonce, that allocations for different addresses run in parallel and
+ * that local-authoritative trackers allocate from memory and catch up with the node, and
+ * that instances leasing nonces from a shared allocator never hand out the same one.
+ */
+class NonceManagerTest {
+
+    private static final String SENDER = "0x00000000000000000000000000000000000000a0";
+    private static final Credentials SIGNER =
+            Credentials.create("0x4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318");
+    private static final String RECIPIENT = "0x00000000000000000000000000000000000000b0";
+    private static final BigInteger GAS_PRICE = BigInteger.valueOf(100_000_000_000L);
+
+    private StandInEthereumNode node;
+    private Web3j web3j;
+    private NonceManager nonceManager;
+    private NonceManager localNonceManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = StandInEthereumNode.builder().build().start();
+        web3j = Web3j.build(new HttpService(node.getUrl()));
+        nonceManager = new NonceManager(web3j);
+        // Reconciled only when the test asks for it
+        localNonceManager = new NonceManager(web3j, true, 3_600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        localNonceManager.close();
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testConcurrentAllocationsForOneAddressAreDistinct() throws Exception {
+        int allocations = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<BigInteger>> nonces = new ArrayList<>();
+            for (int i = 0; i < allocations; i++) {
+                // Mix the address case to check it is normalized to one tracker
+                String address = i % 2 == 0 ? SENDER : SENDER.toUpperCase().replace("0X", "0x");
+                nonces.add(i % 4 == 0
+                        ? nonceManager.getNextNonceAsync(address)
+                        : CompletableFuture.supplyAsync(() -> nextNonce(address), executor));
+            }
+
+            TreeSet<BigInteger> distinct = new TreeSet<>();
+            for (CompletableFuture<BigInteger> nonce : nonces) {
+                distinct.add(nonce.get());
+            }
+            assertEquals(allocations, distinct.size());
+            assertEquals(BigInteger.ZERO, distinct.first());
+            assertEquals(BigInteger.valueOf(allocations - 1), distinct.last());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testResetFollowsNetworkNonce() throws Exception {
+        assertEquals(BigInteger.ZERO, nonceManager.getNextNonce(SENDER));
+        assertEquals(BigInteger.ONE, nonceManager.getNextNonce(SENDER));
+
+        nonceManager.resetNonce(SENDER);
+
+        // Nothing was broadcast, so the network nonce is still zero
+        assertEquals(BigInteger.ZERO, nonceManager.getNextNonce(SENDER));
+        assertEquals(BigInteger.ONE, nonceManager.getNextNonce(SENDER));
+    }
+
+    @Test
+    void testDistinctSendersAllocateInParallel() throws Exception {
+        long latencyMs = 200;
+        int senders = 8;
+        node.setLatency(Duration.ofMillis(latencyMs), Duration.ZERO);
+        ExecutorService executor = Executors.newFixedThreadPool(senders);
+        try {
+            List<CompletableFuture<BigInteger>> nonces = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < senders; i++) {
+                String address = String.format("0x%040x", i + 1);
+                nonces.add(CompletableFuture.supplyAsync(() -> nextNonce(address), executor));
+            }
+            for (CompletableFuture<BigInteger> nonce : nonces) {
+                assertEquals(BigInteger.ZERO, nonce.get());
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            // Serialized allocations would take at least senders * latency
+            assertTrue(elapsedMs < senders * latencyMs / 2, "took " + elapsedMs + " ms");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testClearedCacheSkipsReservationsInFlight() throws Exception {
+        assertEquals(BigInteger.ZERO, localNonceManager.getNextNonce(SENDER));
+        assertEquals(BigInteger.ONE, localNonceManager.getNextNonce(SENDER));
+
+        localNonceManager.clearAllCaches();
+
+        // The node has not seen 0 and 1 yet, but they are still reserved
+        assertEquals(BigInteger.TWO, localNonceManager.getNextNonce(SENDER));
+        assertEquals(2, localNonceManager.getNetworkAllocationCount());
+    }
+
+    @Test
+    void testWarmTrackerAllocatesWithoutAskingTheNode() throws Exception {
+        assertEquals(BigInteger.ZERO, localNonceManager.getNextNonce(SENDER));
+        assertEquals(BigInteger.ONE, localNonceManager.getNextNonce(SENDER));
+        assertEquals(BigInteger.TWO, localNonceManager.getNextNonceAsync(SENDER).get());
+
+        assertEquals(1, localNonceManager.getNetworkAllocationCount());
+        assertEquals(2, localNonceManager.getLocalAllocationCount());
+    }
+
+    @Test
+    void testReconciliationCatchesUpWithSendsFromElsewhere() throws Exception {
+        node.fund(SIGNER.getAddress(), BigInteger.TEN.pow(18));
+        assertEquals(BigInteger.ZERO, localNonceManager.getNextNonce(SIGNER.getAddress()));
+        broadcast(0, 1, 2);
+
+        localNonceManager.reconcileAll();
+        awaitTrue(() -> localNonceManager.getCorrectionCount() == 1);
+
+        assertEquals(BigInteger.valueOf(3), localNonceManager.getNextNonce(SIGNER.getAddress()));
+        assertEquals(1, localNonceManager.getNetworkAllocationCount());
+    }
+
+    @Test
+    void testNonceTooLowReconcilesRightAway() throws Exception {
+        node.fund(SIGNER.getAddress(), BigInteger.TEN.pow(18));
+        String address = SIGNER.getAddress();
+        assertEquals(BigInteger.ZERO, localNonceManager.getNextNonce(address));
+        broadcast(0, 1, 2);
+        node.mineBlock();
+
+        BigInteger stale = localNonceManager.getNextNonce(address);
+        String error = web3j.ethSendRawTransaction(signed(stale.longValue(), BigInteger.TEN)).send()
+                .getError().getMessage();
+        assertTrue(NonceManager.isNonceUsedError(error), error);
+        localNonceManager.broadcastFailed(address, stale, error);
+        // Used on chain, so it is not handed out again while the reconciliation runs
+        assertFalse(localNonceManager.isReleased(address, stale));
+        awaitTrue(() -> localNonceManager.getCorrectionCount() == 1);
+
+        assertEquals(BigInteger.valueOf(3), localNonceManager.getNextNonce(address));
+    }
+
+    @Test
+    void testReleasingLatestNonceHandsItOutAgain() throws Exception {
+        assertEquals(BigInteger.ZERO, localNonceManager.getNextNonce(SENDER));
+        BigInteger rejected = localNonceManager.getNextNonce(SENDER);
+        localNonceManager.broadcastFailed(SENDER, rejected, "insufficient funds for gas * price + value");
+
+        assertEquals(rejected, localNonceManager.getNextNonce(SENDER));
+        assertEquals(0, localNonceManager.getCorrectionCount());
+    }
+
+    @Test
+    void testStaleReleasedNonceDoesNotResetInFlightReservations() throws Exception {
+        node.fund(SIGNER.getAddress(), BigInteger.TEN.pow(18));
+        String address = SIGNER.getAddress();
+        for (int i = 0; i < 3; i++) {
+            nonceManager.getNextNonce(address);
+        }
+        nonceManager.releaseNonce(address, BigInteger.ZERO);
+        // Nonce 0 is used by a send from elsewhere while 1 and 2 are still in flight
+        broadcast(0);
+
+        assertEquals(BigInteger.valueOf(3), nonceManager.getNextNonce(address));
+    }
+
+    @Test
+    void testInstancesSharingLeasesAllocateDistinctNonces() throws Exception {
+        InMemoryNonceLeaseAllocator allocator = new InMemoryNonceLeaseAllocator();
+        NonceManager first = leasingNonceManager(allocator, 60_000);
+        NonceManager second = leasingNonceManager(allocator.anotherInstance(), 60_000);
+        int allocations = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<BigInteger>> nonces = new ArrayList<>();
+            for (int i = 0; i < allocations; i++) {
+                NonceManager instance = i % 2 == 0 ? first : second;
+                nonces.add(i % 4 < 2
+                        ? instance.getNextNonceAsync(SENDER)
+                        : CompletableFuture.supplyAsync(() -> nextNonce(instance, SENDER), executor));
+            }
+
+            TreeSet<BigInteger> distinct = new TreeSet<>();
+            for (CompletableFuture<BigInteger> nonce : nonces) {
+                distinct.add(nonce.get());
+            }
+            assertEquals(allocations, distinct.size());
+            assertEquals(allocations / 4, first.getLeaseCount() + second.getLeaseCount());
+        } finally {
+            executor.shutdownNow();
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testLeaseGivenBackOnCloseIsLeasedAgain() throws Exception {
+        InMemoryNonceLeaseAllocator allocator = new InMemoryNonceLeaseAllocator();
+        NonceManager first = leasingNonceManager(allocator, 60_000);
+        NonceManager second = leasingNonceManager(allocator.anotherInstance(), 60_000);
+        try {
+            assertEquals(BigInteger.ZERO, first.getNextNonce(SENDER));
+            assertEquals(BigInteger.valueOf(4), second.getNextNonce(SENDER));
+            first.close();
+
+            List<BigInteger> nonces = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                nonces.add(second.getNextNonce(SENDER));
+            }
+            assertEquals(List.of(5L, 6L, 7L, 1L, 2L, 3L), nonces.stream().map(BigInteger::longValue).toList());
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    void testLeaseOfCrashedInstanceIsTakenBackOnceExpired() throws Exception {
+        InMemoryNonceLeaseAllocator allocator = new InMemoryNonceLeaseAllocator(50);
+        NonceManager crashed = leasingNonceManager(allocator, 60_000);
+        NonceManager survivor = leasingNonceManager(allocator.anotherInstance(), 60_000);
+        try {
+            // Leased 0 to 3, but neither renews nor gives back the lease
+            assertEquals(BigInteger.ZERO, crashed.getNextNonce(SENDER));
+            Thread.sleep(100);
+
+            // Nothing reached the node, so the whole expired lease is leased again
+            assertEquals(BigInteger.ZERO, survivor.getNextNonce(SENDER));
+            // Giving back a lease that was taken back changes nothing
+            crashed.close();
+            List<BigInteger> nonces = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                nonces.add(survivor.getNextNonce(SENDER));
+            }
+            assertEquals(List.of(1L, 2L, 3L, 4L), nonces.stream().map(BigInteger::longValue).toList());
+        } finally {
+            crashed.close();
+            survivor.close();
+        }
+    }
+
+    @Test
+    void testLeaseOfClearedTrackerIsGivenBack() throws Exception {
+        InMemoryNonceLeaseAllocator allocator = new InMemoryNonceLeaseAllocator();
+        NonceManager first = leasingNonceManager(allocator, 60_000);
+        NonceManager second = leasingNonceManager(allocator.anotherInstance(), 60_000);
+        try {
+            assertEquals(BigInteger.ZERO, first.getNextNonce(SENDER));
+            first.clearCache(SENDER);
+
+            assertEquals(BigInteger.ONE, second.getNextNonce(SENDER));
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testIdleLeaseIsGivenBack() throws Exception {
+        InMemoryNonceLeaseAllocator allocator = new InMemoryNonceLeaseAllocator();
+        NonceManager first = leasingNonceManager(allocator, 1);
+        NonceManager second = leasingNonceManager(allocator.anotherInstance(), 60_000);
+        try {
+            assertEquals(BigInteger.ZERO, first.getNextNonce(SENDER));
+            Thread.sleep(10);
+            first.reconcileAll();
+
+            // Nothing was leased after it, so the rest of the lease is taken off the top
+            assertEquals(BigInteger.ONE, second.getNextNonce(SENDER));
+            assertEquals(BigInteger.valueOf(5), first.getNextNonce(SENDER));
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testNonceReleasedAfterLeaseIsGivenBackIsHandedOutAgain() throws Exception {
+        InMemoryNonceLeaseAllocator allocator = new InMemoryNonceLeaseAllocator();
+        NonceManager instance = leasingNonceManager(allocator, 1);
+        try {
+            assertEquals(BigInteger.ZERO, instance.getNextNonce(SENDER));
+            assertEquals(BigInteger.ONE, instance.getNextNonce(SENDER));
+            instance.broadcastFailed(SENDER, BigInteger.ZERO, "insufficient funds for gas * price + value");
+            Thread.sleep(10);
+            instance.reconcileAll();
+
+            // Given back, so it is leased again before any new nonce
+            assertEquals(BigInteger.ZERO, instance.getNextNonce(SENDER));
+            assertEquals(BigInteger.TWO, instance.getNextNonce(SENDER));
+        } finally {
+            instance.close();
+        }
+    }
+
+    @Test
+    void testExpiredLeaseDoesNotHandOutNoncesStillHeldOrBroadcast() throws Exception {
+        InMemoryNonceLeaseAllocator allocator = new InMemoryNonceLeaseAllocator(300);
+        NonceManager first = leasingNonceManager(allocator, 60_000);
+        NonceManager second = leasingNonceManager(allocator.anotherInstance(), 60_000);
+        String address = SIGNER.getAddress();
+        node.fund(address, BigInteger.TEN.pow(18));
+        try {
+            for (int i = 0; i < 4; i++) {
+                first.getNextNonce(address);
+            }
+            // The lease of 0 to 3 is used up: 1 is rejected, leaving a gap that holds back
+            // the broadcast 2, and 3 is still on its way to the node
+            broadcast(0, 2);
+            first.markBroadcast(address, BigInteger.ZERO);
+            first.markBroadcast(address, BigInteger.TWO);
+            first.broadcastFailed(address, BigInteger.ONE, "insufficient funds for gas * price + value");
+            awaitTrue(() -> !first.isReleased(address, BigInteger.ONE));
+
+            // Renewed while 3 is held, past the lease TTL
+            first.reconcileAll();
+            Thread.sleep(200);
+            first.reconcileAll();
+            Thread.sleep(200);
+
+            List<BigInteger> handedOut = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                handedOut.add(second.getNextNonce(address));
+            }
+            handedOut.add(first.getNextNonce(address));
+            // Only the given-back gap is leased again, and only by one instance
+            assertEquals(List.of(1L, 4L, 5L, 6L, 7L, 8L), handedOut.stream().map(BigInteger::longValue).toList());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testExpiredLeaseOfCrashedInstanceOnlyHandsOutNoncesNotBroadcast() throws Exception {
+        InMemoryNonceLeaseAllocator allocator = new InMemoryNonceLeaseAllocator(100);
+        NonceManager crashed = leasingNonceManager(allocator, 60_000);
+        NonceManager survivor = leasingNonceManager(allocator.anotherInstance(), 60_000);
+        String address = SIGNER.getAddress();
+        node.fund(address, BigInteger.TEN.pow(18));
+        try {
+            for (int i = 0; i < 4; i++) {
+                crashed.getNextNonce(address);
+            }
+            // 2 is held back by the gap 1 leaves, and 3 never reaches the node
+            broadcast(0, 2);
+            crashed.markBroadcast(address, BigInteger.ZERO);
+            crashed.markBroadcast(address, BigInteger.TWO);
+            crashed.broadcastFailed(address, BigInteger.ONE, "insufficient funds for gas * price + value");
+            awaitTrue(() -> !crashed.isReleased(address, BigInteger.ONE));
+            // Last renewal before the crash
+            crashed.reconcileAll();
+            Thread.sleep(200);
+
+            List<BigInteger> handedOut = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                handedOut.add(survivor.getNextNonce(address));
+            }
+            assertEquals(List.of(1L, 3L, 4L, 5L), handedOut.stream().map(BigInteger::longValue).toList());
+        } finally {
+            crashed.close();
+            survivor.close();
+        }
+    }
+
+    /**
+     * Broadcasts transfers from the signer with the given nonces, bypassing the managers.
+     */
+    private void broadcast(long... nonces) throws Exception {
+        for (long nonce : nonces) {
+            assertFalse(web3j.ethSendRawTransaction(signed(nonce, BigInteger.ONE)).send().hasError());
+        }
+    }
+
+    private String signed(long nonce, BigInteger value) {
+        TransactionBuilder builder = new TransactionBuilder(node.getChainId());
+        return builder.signTransaction(builder.buildLegacyTransaction(BigInteger.valueOf(nonce), RECIPIENT,
+                value, BigInteger.valueOf(21_000), GAS_PRICE, ""), SIGNER);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private BigInteger nextNonce(String address) {
+        return nextNonce(nonceManager, address);
+    }
+
+    private static BigInteger nextNonce(NonceManager instance, String address) {
+        try {
+            return instance.getNextNonce(address);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * An instance leasing four nonces at a time, reconciled only when the test asks for it.
+     */
+    private NonceManager leasingNonceManager(NonceLeaseAllocator allocator, long leaseIdleMs) {
+        return new NonceManager(web3j, null, allocator, false, 3_600_000, 4, leaseIdleMs);
+    }
+
+    /**
+     * Same leasing rules as the Redis scripts, for instances in one JVM. Instances sharing
+     * one allocator count as the same owner; {@link #anotherInstance()} gives a new owner.
+     */
+    private static class InMemoryNonceLeaseAllocator implements NonceLeaseAllocator {
+
+        private final Store store;
+        private final String owner = UUID.randomUUID().toString();
+
+        InMemoryNonceLeaseAllocator() {
+            this(3_600_000);
+        }
+
+        InMemoryNonceLeaseAllocator(long leaseTtlMs) {
+            this(new Store(leaseTtlMs));
+        }
+
+        private InMemoryNonceLeaseAllocator(Store store) {
+            this.store = store;
+        }
+
+        InMemoryNonceLeaseAllocator anotherInstance() {
+            return new InMemoryNonceLeaseAllocator(store);
+        }
+
+        @Override
+        public Lease acquire(String address, BigInteger floor, int size) {
+            synchronized (store) {
+                TreeSet<Long> given = store.returned.computeIfAbsent(address, k -> new TreeSet<>());
+                Map<Long, HeldLease> held = store.leases.computeIfAbsent(address, k -> new HashMap<>());
+                long now = System.currentTimeMillis();
+                held.entrySet().removeIf(lease -> {
+                    if (lease.getValue().expiresAt() >= now) {
+                        return false;
+                    }
+                    for (long nonce = lease.getValue().start(); nonce < lease.getKey(); nonce++) {
+                        given.add(nonce);
+                    }
+                    return true;
+                });
+                given.headSet(floor.longValue()).clear();
+                long start;
+                long end;
+                if (!given.isEmpty()) {
+                    start = given.pollFirst();
+                    end = start + 1;
+                    while (end < start + size && given.remove(end)) {
+                        end++;
+                    }
+                } else {
+                    start = Math.max(store.next.getOrDefault(address, 0L), floor.longValue());
+                    end = start + size;
+                    store.next.put(address, end);
+                }
+                held.put(end, new HeldLease(start, owner, now + store.leaseTtlMs));
+                return new Lease(BigInteger.valueOf(start), BigInteger.valueOf(end));
+            }
+        }
+
+        @Override
+        public boolean renew(String address, Lease held) {
+            synchronized (store) {
+                Map<Long, HeldLease> leases = store.leases.getOrDefault(address, new HashMap<>());
+                long end = held.end().longValue();
+                HeldLease lease = leases.get(end);
+                if (lease == null || !lease.owner().equals(owner)) {
+                    return false;
+                }
+                long start = Math.max(lease.start(), held.start().longValue());
+                if (start >= end) {
+                    leases.remove(end);
+                } else {
+                    leases.put(end, new HeldLease(start, owner, System.currentTimeMillis() + store.leaseTtlMs));
+                }
+                return true;
+            }
+        }
+
+        @Override
+        public void giveBack(String address, Lease unused) {
+            if (unused.isEmpty()) {
+                return;
+            }
+            synchronized (store) {
+                Map<Long, HeldLease> held = store.leases.getOrDefault(address, new HashMap<>());
+                long first = unused.start().longValue();
+                long finish = unused.end().longValue();
+                Map.Entry<Long, HeldLease> holding = held.entrySet().stream()
+                        .filter(lease -> lease.getValue().owner().equals(owner)
+                                && lease.getValue().start() <= first && lease.getKey() >= finish)
+                        .findFirst()
+                        .orElse(null);
+                if (holding == null) {
+                    return;
+                }
+                long end = holding.getKey();
+                HeldLease lease = holding.getValue();
+                held.remove(end);
+                if (lease.start() < first) {
+                    held.put(first, lease);
+                }
+                if (finish < end) {
+                    held.put(end, new HeldLease(finish, owner, lease.expiresAt()));
+                }
+                if (store.next.getOrDefault(address, -1L) == finish) {
+                    store.next.put(address, unused.start().longValue());
+                    return;
+                }
+                for (long nonce = unused.start().longValue(); nonce < unused.end().longValue(); nonce++) {
+                    store.returned.computeIfAbsent(address, k -> new TreeSet<>()).add(nonce);
+                }
+            }
+        }
+
+        private record HeldLease(long start, String owner, long expiresAt) {
+        }
+
+        private static class Store {
+            private final long leaseTtlMs;
+            private final Map<String, Long> next = new HashMap<>();
+            private final Map<String, TreeSet<Long>> returned = new HashMap<>();
+            /** Per address, the leases handed out by their end */
+            private final Map<String, Map<Long, HeldLease>> leases = new HashMap<>();
+
+            Store(long leaseTtlMs) {
+                this.leaseTtlMs = leaseTtlMs;
+            }
+        }
+    }
+}
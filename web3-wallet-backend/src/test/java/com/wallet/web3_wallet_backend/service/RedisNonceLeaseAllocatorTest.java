@@ -0,0 +1,110 @@
+package com.wallet.web3_wallet_backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the Lua scripts of RedisNonceLeaseAllocator against a real Redis, verifying
+ * that given-back nonces are leased again first, that a lease is split around a nonce
+ * given back from its middle and trimmed as it is renewed, so that only the nonces its
+ * crashed owner still held are leased again once it expires, and that an expired lease can
+ * be neither renewed nor given back. Skipped without Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisNonceLeaseAllocatorTest {
+
+    private static final String SENDER = "0x00000000000000000000000000000000000000a0";
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void testGivenBackNoncesAreLeasedAgainFirst() {
+        RedisNonceLeaseAllocator first = allocator(60_000);
+        RedisNonceLeaseAllocator second = allocator(60_000);
+
+        assertEquals(lease(0, 4), first.acquire(SENDER, BigInteger.ZERO, 4));
+        assertEquals(lease(4, 8), second.acquire(SENDER, BigInteger.ZERO, 4));
+        first.giveBack(SENDER, lease(2, 4));
+
+        assertEquals(lease(2, 4), second.acquire(SENDER, BigInteger.ZERO, 4));
+        // Given back off the top of everything leased, so the next new lease starts there
+        second.giveBack(SENDER, lease(6, 8));
+        assertEquals(lease(6, 10), first.acquire(SENDER, BigInteger.ZERO, 4));
+    }
+
+    @Test
+    void testExpiredLeaseOnlyHandsOutNoncesItsOwnerStillHeld() throws Exception {
+        RedisNonceLeaseAllocator crashed = allocator(200);
+        RedisNonceLeaseAllocator survivor = allocator(200);
+
+        assertEquals(lease(0, 4), crashed.acquire(SENDER, BigInteger.ZERO, 4));
+        // 1 is released and given back; 0 and 2 are broadcast, 3 is still held
+        crashed.giveBack(SENDER, lease(1, 2));
+        assertTrue(crashed.renew(SENDER, lease(1, 1)));
+        assertTrue(crashed.renew(SENDER, lease(3, 4)));
+        Thread.sleep(300);
+
+        // The node's pending count stops at the gap 1 leaves
+        assertEquals(lease(1, 2), survivor.acquire(SENDER, BigInteger.ONE, 4));
+        assertEquals(lease(3, 4), survivor.acquire(SENDER, BigInteger.ONE, 4));
+        assertEquals(lease(4, 8), survivor.acquire(SENDER, BigInteger.ONE, 4));
+    }
+
+    @Test
+    void testExpiredLeaseCanNeitherBeRenewedNorGivenBack() throws Exception {
+        RedisNonceLeaseAllocator crashed = allocator(200);
+        RedisNonceLeaseAllocator survivor = allocator(200);
+
+        assertEquals(lease(0, 4), crashed.acquire(SENDER, BigInteger.ZERO, 4));
+        Thread.sleep(300);
+        assertEquals(lease(0, 4), survivor.acquire(SENDER, BigInteger.ZERO, 4));
+
+        assertFalse(crashed.renew(SENDER, lease(0, 4)));
+        crashed.giveBack(SENDER, lease(2, 4));
+        assertEquals(lease(4, 8), survivor.acquire(SENDER, BigInteger.ZERO, 4));
+    }
+
+    private RedisNonceLeaseAllocator allocator(long leaseTtlMs) {
+        return new RedisNonceLeaseAllocator(redisTemplate, leaseTtlMs, leaseTtlMs / 2);
+    }
+
+    private static NonceLeaseAllocator.Lease lease(long start, long end) {
+        return new NonceLeaseAllocator.Lease(BigInteger.valueOf(start), BigInteger.valueOf(end));
+    }
+}
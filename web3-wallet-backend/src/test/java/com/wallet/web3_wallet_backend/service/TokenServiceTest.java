@@ -0,0 +1,189 @@
+package com.wallet.web3_wallet_backend.service;
+
+import com.wallet.web3_wallet_backend.api.dto.TokenBalanceResponse;
+import com.wallet.web3_wallet_backend.api.dto.TokenInfoResponse;
+import com.wallet.web3_wallet_backend.api.dto.TokenTransferRequest;
+import com.wallet.web3_wallet_backend.api.dto.TransactionResponse;
+import com.wallet.web3_wallet_backend.blockchain.client.ForwardingWeb3jService;
+import com.wallet.web3_wallet_backend.blockchain.client.StreamingWeb3j;
+import com.wallet.web3_wallet_backend.blockchain.standin.StandInEthereumNode;
+import com.wallet.web3_wallet_backend.blockchain.transaction.GasLimitOracle;
+import com.wallet.web3_wallet_backend.blockchain.transaction.GasManager;
+import com.wallet.web3_wallet_backend.blockchain.transaction.TransactionBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.http.HttpService;
+
+import java.math.BigDecimal;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenService verifying that the non-blocking reads and transfers give the
+ * same results as the blocking ones against a stand-in node.
+ */
+class TokenServiceTest {
+
+    private static final String SENDER_KEY = "0x4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318";
+    private static final Credentials SENDER = Credentials.create(SENDER_KEY);
+    private static final String RECIPIENT = "0x00000000000000000000000000000000000000b0";
+    private static final String TOKEN = "0x00000000000000000000000000000000000000c0";
+
+    private StandInEthereumNode node;
+    private StandInEthereumNode.Token token;
+    private StreamingWeb3j web3j;
+    private NonceManager nonceManager;
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = StandInEthereumNode.builder().build().start();
+        node.fund(SENDER.getAddress(), BigInteger.TEN.pow(18));
+        token = node.deployToken(TOKEN, "Stand-in Token", "SIT", 6);
+        token.mint(SENDER.getAddress(), BigInteger.valueOf(5_000_000));
+        start(new HttpService(node.getUrl()), false);
+    }
+
+    private void start(Web3jService provider, boolean localAuthoritative) {
+        web3j = StreamingWeb3j.build(provider);
+        GasManager gasManager = new GasManager(web3j);
+        // Reconciled only when a broadcast fails
+        nonceManager = localAuthoritative ? new NonceManager(web3j, true, 3_600_000) : new NonceManager(web3j);
+        TransactionBuilder transactionBuilder = new TransactionBuilder(node.getChainId());
+        tokenService = new TokenService(web3j, gasManager, new GasLimitOracle(web3j, gasManager), nonceManager,
+                new NonceGapFiller(nonceManager, web3j, gasManager, transactionBuilder, false, 0, 0), transactionBuilder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nonceManager.close();
+        web3j.shutdown();
+        node.close();
+    }
+
+    @Test
+    void testAsyncReadsMatchBlockingReads() throws Exception {
+        TokenInfoResponse info = tokenService.getTokenInfoAsync(TOKEN).get();
+        assertEquals(tokenService.getTokenInfo(TOKEN), info);
+        assertEquals("SIT", info.symbol());
+        assertEquals(6, info.decimals());
+
+        TokenBalanceResponse balance = tokenService.getTokenBalanceAsync(SENDER.getAddress(), TOKEN).get();
+        assertEquals(tokenService.getTokenBalance(SENDER.getAddress(), TOKEN), balance);
+        assertEquals("5000000", balance.balanceRaw());
+        assertEquals(0, new BigDecimal("5").compareTo(new BigDecimal(balance.balanceFormatted())));
+    }
+
+    @Test
+    void testAsyncTransferIsMined() throws Exception {
+        TransactionResponse response = tokenService.transferTokenAsync(transfer(new BigDecimal("1.5"))).get();
+        assertNotNull(response.transactionHash());
+
+        node.mineBlock();
+        assertEquals(BigInteger.valueOf(1_500_000), token.balanceOf(RECIPIENT));
+        assertEquals(BigInteger.valueOf(3_500_000), token.balanceOf(SENDER.getAddress()));
+    }
+
+    @Test
+    void testAsyncTransferRejectsInsufficientBalance() {
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> tokenService.transferTokenAsync(transfer(new BigDecimal("6"))).get());
+        assertTrue(error.getCause().getMessage().startsWith("Insufficient token balance"));
+        assertEquals(0, node.getMempoolSize());
+    }
+
+    @Test
+    void testAsyncTransferWithWrongKeyTakesNoNonce() {
+        String otherKey = "0x8f2a55949038a9610f50fb23b5883af3b4ecb3c3bb792cbcefbd1542c692be63";
+        TokenTransferRequest request = new TokenTransferRequest(SENDER.getAddress(), otherKey, RECIPIENT, TOKEN,
+                BigDecimal.ONE, null, null, null, null);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> tokenService.transferTokenAsync(request).get());
+        assertTrue(error.getCause().getMessage().startsWith("Private key does not match"));
+        assertEquals(0, nonceManager.getNetworkAllocationCount());
+    }
+
+    @Test
+    void testTransferTheNodeAlreadyHoldsSucceeds() throws Exception {
+        nonceManager.close();
+        web3j.shutdown();
+        // Every broadcast reaches the node twice, as when a timed-out one is retried
+        start(new ForwardingWeb3jService(new HttpService(node.getUrl())) {
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+                if ("eth_sendRawTransaction".equals(request.getMethod())) {
+                    super.send(request, responseType);
+                }
+                return super.send(request, responseType);
+            }
+
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+                if ("eth_sendRawTransaction".equals(request.getMethod())) {
+                    return super.sendAsync(request, responseType)
+                            .thenCompose(lost -> super.sendAsync(request, responseType));
+                }
+                return super.sendAsync(request, responseType);
+            }
+        }, false);
+
+        TransactionResponse blocking = tokenService.transferToken(transfer(BigDecimal.ONE));
+        TransactionResponse async = tokenService.transferTokenAsync(transfer(BigDecimal.ONE)).get();
+
+        assertTrue(blocking.transactionHash().startsWith("0x"));
+        assertNotEquals(blocking.transactionHash(), async.transactionHash());
+        assertFalse(nonceManager.isReleased(SENDER.getAddress(), BigInteger.ZERO));
+        assertEquals(2, node.getMempoolSize());
+        node.mineBlock();
+        assertEquals(BigInteger.valueOf(2_000_000), token.balanceOf(RECIPIENT));
+        assertTrue(web3j.ethGetTransactionReceipt(blocking.transactionHash()).send().getTransactionReceipt().isPresent());
+        assertTrue(web3j.ethGetTransactionReceipt(async.transactionHash()).send().getTransactionReceipt().isPresent());
+    }
+
+    @Test
+    void testNonceOfTimedOutBroadcastIsNotHandedOutAgain() throws Exception {
+        nonceManager.close();
+        web3j.shutdown();
+        AtomicBoolean timingOut = new AtomicBoolean(true);
+        // The node takes the broadcast, but the reply never arrives
+        start(new ForwardingWeb3jService(new HttpService(node.getUrl())) {
+            @Override
+            @SuppressWarnings("rawtypes") // Web3jService declares the request raw
+            public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+                if ("eth_sendRawTransaction".equals(request.getMethod()) && timingOut.getAndSet(false)) {
+                    return super.sendAsync(request, responseType).thenCompose(lost ->
+                            CompletableFuture.failedFuture(new SocketTimeoutException("Read timed out")));
+                }
+                return super.sendAsync(request, responseType);
+            }
+        }, true);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> tokenService.transferTokenAsync(transfer(BigDecimal.ONE)).get());
+        assertInstanceOf(SocketTimeoutException.class, error.getCause());
+        tokenService.transferTokenAsync(transfer(BigDecimal.ONE)).get();
+
+        assertEquals(2, node.getMempoolSize());
+        node.mineBlock();
+        assertEquals(BigInteger.valueOf(2_000_000), token.balanceOf(RECIPIENT));
+    }
+
+    private static TokenTransferRequest transfer(BigDecimal amount) {
+        return new TokenTransferRequest(SENDER.getAddress(), SENDER_KEY, RECIPIENT, TOKEN, amount,
+                null, null, null, null);
+    }
+}